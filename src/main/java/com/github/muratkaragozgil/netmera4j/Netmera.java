@@ -8,17 +8,33 @@ import com.github.muratkaragozgil.netmera4j.response.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.util.List;
 
 /**
  * @author Murat Karagözgil
  */
-public interface Netmera {
+public interface Netmera extends Closeable {
 
     Logger logger = LoggerFactory.getLogger(Netmera.class);
 
+    /**
+     * Stops the background threads of the client, clients without any have nothing to close.
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * Sends the requests the client holds back for batching now, clients without batching have nothing to flush.
+     */
+    default void flush() {
+    }
+
     void sendRequest(AddNewDevicesRequest addNewDevicesRequest, NetmeraCallBack<Void> callBack);
 
+    void sendRequest(EncodedNewDevicesRequest encodedNewDevicesRequest, NetmeraCallBack<Void> callBack);
+
     void sendRequest(DisablePushRequestWithExternalId disablePushRequestWithExternalId, NetmeraCallBack<Void> callBack);
 
     void sendRequest(DisablePushRequestWithToken disablePushRequestWithToken, NetmeraCallBack<Void> callBack);
@@ -35,6 +51,8 @@ public interface Netmera {
 
     void sendRequest(AddProfileAttributeRequest addProfileAttributeRequest, NetmeraCallBack<Void> callBack);
 
+    void sendRequest(EncodedProfileAttributesRequest encodedProfileAttributesRequest, NetmeraCallBack<Void> callBack);
+
     void sendRequest(UnsetProfileAttributesRequest unsetProfileAttributesRequest, NetmeraCallBack<Void> callBack);
 
     void sendRequest(GetProfileAttributesRequest getProfileAttributesRequest, NetmeraCallBack<GetProfileAttributesResponse> callBack);
@@ -56,8 +74,14 @@ public interface Netmera {
 
     void sendRequest(SendTransactionalNotificationRequest sendTransactionalNotificationRequest, NetmeraCallBack<Void> callBack);
 
+    void sendRequest(SendTemplatedBulkNotificationRequest sendTemplatedBulkNotificationRequest, NetmeraCallBack<NotificationResponse> callBack);
+
+    void sendRequest(SendTemplatedTransactionalNotificationRequest sendTemplatedTransactionalNotificationRequest, NetmeraCallBack<Void> callBack);
+
     void sendRequest(List<SendBulkNotificationRequest> sendBulkNotificationRequests, NetmeraCallBack<Void> callBack);
 
+    void sendRequest(SendTransactionalNotificationInChunksRequest sendTransactionalNotificationInChunksRequest, NetmeraCallBack<Void> callBack);
+
     void sendRequest(CreateTransactionalNotificationRequest createTransactionalNotificationRequest, NetmeraCallBack<NotificationResponse> callBack);
 
     void sendRequest(GetPushStatsRequest getPushStatsRequest, NetmeraCallBack<GetPushStatsResponse> callBack);
@@ -1,10 +1,27 @@
 package com.github.muratkaragozgil.netmera4j;
 
+import com.github.muratkaragozgil.netmera4j.bulk.TransactionalNotificationBatcher;
+import com.github.muratkaragozgil.netmera4j.callback.CallbackExecutors;
 import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.connection.AdaptiveConcurrencyLimiter;
+import com.github.muratkaragozgil.netmera4j.connection.CachingDns;
+import com.github.muratkaragozgil.netmera4j.connection.ConnectionWarmer;
+import com.github.muratkaragozgil.netmera4j.connection.HedgingCallFactory;
+import com.github.muratkaragozgil.netmera4j.connection.LimitedCallFactory;
 import com.github.muratkaragozgil.netmera4j.constant.NetmeraApiContants;
 import com.github.muratkaragozgil.netmera4j.exception.NetmeraError;
 import com.github.muratkaragozgil.netmera4j.exception.ValidationException;
+import com.github.muratkaragozgil.netmera4j.json.NetmeraCodec;
+import com.github.muratkaragozgil.netmera4j.json.NetmeraConverterFactory;
+import com.github.muratkaragozgil.netmera4j.logging.NetmeraLoggingPolicy;
+import com.github.muratkaragozgil.netmera4j.metrics.NetmeraInstrumentation;
+import com.github.muratkaragozgil.netmera4j.metrics.NetmeraMetrics;
+import com.github.muratkaragozgil.netmera4j.model.api.NetmeraBatching;
+import com.github.muratkaragozgil.netmera4j.model.api.NetmeraConcurrencyLimit;
+import com.github.muratkaragozgil.netmera4j.model.api.NetmeraHedging;
 import com.github.muratkaragozgil.netmera4j.model.api.NetmeraRetryPolicy;
+import com.github.muratkaragozgil.netmera4j.model.api.NetmeraWarmUp;
+import com.github.muratkaragozgil.netmera4j.replay.TrafficRecorder;
 import com.github.muratkaragozgil.netmera4j.request.device.*;
 import com.github.muratkaragozgil.netmera4j.request.event.FireEventsRequest;
 import com.github.muratkaragozgil.netmera4j.request.notification.*;
@@ -17,19 +34,21 @@ import com.github.muratkaragozgil.netmera4j.util.NetmeraProxy;
 import net.jodah.failsafe.Failsafe;
 import net.jodah.failsafe.RetryPolicy;
 import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Converter;
 import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
 
 import java.lang.annotation.Annotation;
 import java.net.SocketException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -41,14 +60,73 @@ public class NetmeraApi implements Netmera {
     private EventService eventService;
     private NotificationService notificationService;
     private Converter<ResponseBody, NetmeraError> errorConverter;
+    private NetmeraLoggingPolicy loggingPolicy;
+    private TransactionalNotificationBatcher transactionalBatcher;
+    private CachingDns cachingDns;
+    private ConnectionWarmer connectionWarmer;
+    private HedgingCallFactory hedgingCallFactory;
+
+    private NetmeraApi(NetmeraApiBuilder netmeraApiBuilder, OkHttpClient okHttpClient) {
+        this(netmeraApiBuilder, okHttpClient, newCallFactory(netmeraApiBuilder, okHttpClient));
+    }
+
+    private NetmeraApi(NetmeraApiBuilder netmeraApiBuilder, OkHttpClient okHttpClient, okhttp3.Call.Factory callFactory) {
+        this(newRetrofit(netmeraApiBuilder.targetHost, callFactory, netmeraApiBuilder.codec, newCallbackExecutor(netmeraApiBuilder)),
+                netmeraApiBuilder.loggingPolicy);
+        if (callFactory instanceof HedgingCallFactory) {
+            hedgingCallFactory = (HedgingCallFactory) callFactory;
+        }
+        if (netmeraApiBuilder.transactionalBatching != null) {
+            transactionalBatcher = new TransactionalNotificationBatcher(this::sendRequest, netmeraApiBuilder.transactionalBatching);
+        }
+        if (netmeraApiBuilder.warmUp != null) {
+            cachingDns = (CachingDns) okHttpClient.dns();
+            connectionWarmer = warmUp(okHttpClient, netmeraApiBuilder.targetHost, netmeraApiBuilder.warmUp);
+        }
+    }
+
+    NetmeraApi(Retrofit retrofit, NetmeraLoggingPolicy loggingPolicy) {
+        this.loggingPolicy = loggingPolicy;
+        // resolved from the codec's converter factory, so error bodies are read by the same codec as responses
+        errorConverter = retrofit.responseBodyConverter(NetmeraError.class, new Annotation[0]);
+        userService = retrofit.create(UserService.class);
+        eventService = retrofit.create(EventService.class);
+        notificationService = retrofit.create(NotificationService.class);
+    }
 
-    private NetmeraApi(NetmeraApiBuilder netmeraApiBuilder) {
+    /**
+     * Creates the http client of given settings. The api key header is only added when the builder has an api key,
+     * clients without a key are shared between tenants which add their own key per call.
+     */
+    static OkHttpClient.Builder newHttpClient(NetmeraApiBuilder netmeraApiBuilder) {
         OkHttpClient.Builder httpClient = new OkHttpClient.Builder();
         httpClient.connectTimeout(netmeraApiBuilder.connectionTimeout, TimeUnit.SECONDS);
         httpClient.readTimeout(netmeraApiBuilder.readTimeout, TimeUnit.SECONDS);
         httpClient.writeTimeout(netmeraApiBuilder.writeTimeout, TimeUnit.SECONDS);
         httpClient.callTimeout(netmeraApiBuilder.callTimeout, TimeUnit.SECONDS);
         httpClient.connectionPool(netmeraApiBuilder.connectionPool);
+        if (netmeraApiBuilder.concurrencyLimit != null) {
+            // the adaptive limit decides how many calls run, the dispatcher only has to allow its maximum
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(netmeraApiBuilder.concurrencyLimit.getMaxLimit());
+            dispatcher.setMaxRequestsPerHost(netmeraApiBuilder.concurrencyLimit.getMaxLimit());
+            httpClient.dispatcher(dispatcher);
+        }
+        if (netmeraApiBuilder.warmUp != null) {
+            httpClient.dns(new CachingDns(netmeraApiBuilder.warmUp.getDnsTtl(), TimeUnit.SECONDS));
+        }
+
+        // instrumentation is only installed when a recorder is configured, so the default client pays nothing for it
+        NetmeraInstrumentation instrumentation = null;
+        if (netmeraApiBuilder.metrics != NetmeraMetrics.NOOP) {
+            instrumentation = new NetmeraInstrumentation(netmeraApiBuilder.metrics);
+            httpClient.eventListenerFactory(instrumentation);
+            httpClient.interceptors().add(instrumentation);
+        }
+        NetmeraInstrumentation callInstrumentation = instrumentation;
+        if (netmeraApiBuilder.trafficRecorder != null) {
+            httpClient.interceptors().add(netmeraApiBuilder.trafficRecorder);
+        }
 
         RetryPolicy<okhttp3.Response> retryPolicy = new RetryPolicy<okhttp3.Response>()
                 .handle(SocketException.class)
@@ -57,28 +135,112 @@ public class NetmeraApi implements Netmera {
                 .onFailedAttempt(e -> logger.error("Failed Attempt!::{}", e.getLastResult().code()))
                 .withMaxRetries(netmeraApiBuilder.maxRetryCount);
 
+        String apiKey = netmeraApiBuilder.apiKey;
         httpClient.interceptors().add(chain -> {
-            Request request = chain.request().newBuilder().addHeader(NetmeraApiContants.NETMERA_HEADER_KEY, netmeraApiBuilder.apiKey).build();
+            Request request = apiKey == null ? chain.request() : chain.request().newBuilder().addHeader(NetmeraApiContants.NETMERA_HEADER_KEY, apiKey).build();
             // try the request
             okhttp3.Response response = chain.proceed(request);
             if (response.code() > 499) {
                 // retry the request
-                response = Failsafe.with(retryPolicy).get(() -> chain.proceed(request));
+                response = Failsafe.with(retryPolicy).get(() -> {
+                    if (callInstrumentation != null) {
+                        callInstrumentation.retried(chain.call());
+                    }
+                    return chain.proceed(request);
+                });
             }
             // otherwise just pass the original response on
             return response;
         });
+        return httpClient;
+    }
+
+    /**
+     * @param callbackExecutor runs the call backs of calls, null runs them on the OkHttp threads
+     */
+    static Retrofit newRetrofit(String targetHost, okhttp3.Call.Factory callFactory, NetmeraCodec codec, Executor callbackExecutor) {
+        Retrofit.Builder retrofit = new Retrofit.Builder()
+                .baseUrl(targetHost)
+                .addConverterFactory(NetmeraConverterFactory.create(codec))
+                .callFactory(callFactory);
+        if (callbackExecutor != null) {
+            retrofit.callbackExecutor(callbackExecutor);
+        }
+        return retrofit.build();
+    }
 
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(netmeraApiBuilder.targetHost)
-                .addConverterFactory(GsonConverterFactory.create())
-                .client(httpClient.build())
-                .build();
+    /**
+     * Handlers are measured whenever a recorder is configured, without an executor they are measured on the OkHttp threads.
+     */
+    static Executor newCallbackExecutor(NetmeraApiBuilder netmeraApiBuilder) {
+        if (netmeraApiBuilder.callbackExecutor == null && netmeraApiBuilder.metrics == NetmeraMetrics.NOOP) {
+            return null;
+        }
+        Executor executor = netmeraApiBuilder.callbackExecutor == null ? CallbackExecutors.inline() : netmeraApiBuilder.callbackExecutor;
+        return CallbackExecutors.instrumented(executor, netmeraApiBuilder.metrics);
+    }
 
-        errorConverter = retrofit.responseBodyConverter(NetmeraError.class, new Annotation[0]);
-        userService = retrofit.create(UserService.class);
-        eventService = retrofit.create(EventService.class);
-        notificationService = retrofit.create(NotificationService.class);
+    /**
+     * Wraps the http client with the concurrency limit and hedging of given settings, when they are configured.
+     */
+    static okhttp3.Call.Factory newCallFactory(NetmeraApiBuilder netmeraApiBuilder, OkHttpClient okHttpClient) {
+        okhttp3.Call.Factory callFactory = okHttpClient;
+        if (netmeraApiBuilder.concurrencyLimit != null) {
+            callFactory = new LimitedCallFactory(callFactory, new AdaptiveConcurrencyLimiter(netmeraApiBuilder.concurrencyLimit, netmeraApiBuilder.metrics));
+        }
+        if (netmeraApiBuilder.hedging != null) {
+            // each attempt of a hedged call takes its own slot of the concurrency limit
+            callFactory = new HedgingCallFactory(callFactory, netmeraApiBuilder.hedging, netmeraApiBuilder.metrics);
+        }
+        return callFactory;
+    }
+
+    /**
+     * @return warmer which keeps probing the pooled connections when the warm up has a probe interval
+     */
+    static ConnectionWarmer warmUp(OkHttpClient okHttpClient, String targetHost, NetmeraWarmUp netmeraWarmUp) {
+        ConnectionWarmer connectionWarmer = new ConnectionWarmer(okHttpClient, HttpUrl.get(targetHost), netmeraWarmUp.getConnections());
+        try {
+            if (!connectionWarmer.warmUp(netmeraWarmUp.getTimeout(), TimeUnit.SECONDS)) {
+                logger.warn("WarmUp::not completed in {} seconds", netmeraWarmUp.getTimeout());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (netmeraWarmUp.getProbeInterval() > 0) {
+            connectionWarmer.startProbes(netmeraWarmUp.getProbeInterval(), TimeUnit.SECONDS);
+        }
+        return connectionWarmer;
+    }
+
+    /**
+     * Sends the open transactional notification groups of the batching without waiting for their linger time.
+     */
+    @Override
+    public void flush() {
+        if (transactionalBatcher != null) {
+            transactionalBatcher.flush();
+        }
+    }
+
+    /**
+     * Sends the open transactional notification groups, stops the batching and hedging timers and the dns refresh and
+     * keep-alive probe threads of the warm up. Calls in flight still complete.
+     */
+    @Override
+    public void close() {
+        if (transactionalBatcher != null) {
+            transactionalBatcher.shutdown();
+        }
+        if (hedgingCallFactory != null) {
+            hedgingCallFactory.shutdown();
+        }
+        if (connectionWarmer != null) {
+            connectionWarmer.stopProbes();
+        }
+        if (cachingDns != null) {
+            cachingDns.shutdown();
+        }
     }
 
     /**
@@ -91,10 +253,16 @@ public class NetmeraApi implements Netmera {
      * @throws ValidationException if {@code addNewDevicesRequest} parameters is null or empty
      */
     public void sendRequest(AddNewDevicesRequest addNewDevicesRequest, NetmeraCallBack<Void> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", addNewDevicesRequest);
         Call<Void> call = userService.createNewDevices(addNewDevicesRequest.getDeviceList());
-        call.enqueue(callBack);
+        enqueue(addNewDevicesRequest, call, callBack);
+    }
+
+    /**
+     * Registers the devices of a {@link com.github.muratkaragozgil.netmera4j.bulk.DeviceBatchWriter}, its body is sent as encoded.
+     */
+    public void sendRequest(EncodedNewDevicesRequest encodedNewDevicesRequest, NetmeraCallBack<Void> callBack) {
+        Call<Void> call = userService.createNewDevices(encodedNewDevicesRequest.getBody());
+        enqueue(encodedNewDevicesRequest, call, callBack);
     }
 
     /**
@@ -105,10 +273,8 @@ public class NetmeraApi implements Netmera {
      * @param callBack
      */
     public void sendRequest(DisablePushRequestWithExternalId disablePushRequestWithExternalId, NetmeraCallBack<Void> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", disablePushRequestWithExternalId);
         Call<Void> call = userService.disablePushWithExternalId(disablePushRequestWithExternalId);
-        call.enqueue(callBack);
+        enqueue(disablePushRequestWithExternalId, call, callBack);
     }
 
     /**
@@ -119,10 +285,8 @@ public class NetmeraApi implements Netmera {
      * @param callBack
      */
     public void sendRequest(DisablePushRequestWithToken disablePushRequestWithToken, NetmeraCallBack<Void> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", disablePushRequestWithToken);
         Call<Void> call = userService.disablePushWithDeviceToken(disablePushRequestWithToken);
-        call.enqueue(callBack);
+        enqueue(disablePushRequestWithToken, call, callBack);
     }
 
     /**
@@ -133,184 +297,174 @@ public class NetmeraApi implements Netmera {
      * @param callBack
      */
     public void sendRequest(EnablePushRequestWithExternalId enablePushRequestWithExternalId, NetmeraCallBack<Void> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", enablePushRequestWithExternalId);
         Call<Void> call = userService.enablePushWithExternalId(enablePushRequestWithExternalId);
-        call.enqueue(callBack);
+        enqueue(enablePushRequestWithExternalId, call, callBack);
     }
 
     public void sendRequest(EnablePushRequestWithToken enablePushRequestWithToken, NetmeraCallBack<Void> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", enablePushRequestWithToken);
         Call<Void> call = userService.enablePushWithDeviceToken(enablePushRequestWithToken);
-        call.enqueue(callBack);
+        enqueue(enablePushRequestWithToken, call, callBack);
     }
 
     public void sendRequest(AddTagToUsersRequest addTagToUsersRequest, NetmeraCallBack<Void> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", addTagToUsersRequest);
         Call<Void> call = userService.addTagToUsers(addTagToUsersRequest);
-        call.enqueue(callBack);
+        enqueue(addTagToUsersRequest, call, callBack);
     }
 
     public void sendRequest(RemoveTagFromUsersRequest removeTagFromUsersRequest, NetmeraCallBack<Void> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", removeTagFromUsersRequest);
         Call<Void> call = userService.removeTagFromUsers(removeTagFromUsersRequest);
-        call.enqueue(callBack);
+        enqueue(removeTagFromUsersRequest, call, callBack);
     }
 
     public void sendRequest(SetCategoryPreferenceRequest setCategoryPreferenceRequest, NetmeraCallBack<Void> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", setCategoryPreferenceRequest);
         Call<Void> call = userService.setCategoryPreferences(setCategoryPreferenceRequest.getCategories());
-        call.enqueue(callBack);
+        enqueue(setCategoryPreferenceRequest, call, callBack);
     }
 
     public void sendRequest(AddProfileAttributeRequest addProfileAttributeRequest, NetmeraCallBack<Void> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", addProfileAttributeRequest);
         Call<Void> call = userService.setProfileAttributes(addProfileAttributeRequest.getUserAndProfileAttributeMaps());
-        call.enqueue(callBack);
+        enqueue(addProfileAttributeRequest, call, callBack);
+    }
+
+    public void sendRequest(EncodedProfileAttributesRequest encodedProfileAttributesRequest, NetmeraCallBack<Void> callBack) {
+        Call<Void> call = userService.setProfileAttributes(encodedProfileAttributesRequest.getBody());
+        enqueue(encodedProfileAttributesRequest, call, callBack);
     }
 
     public void sendRequest(UnsetProfileAttributesRequest unsetProfileAttributesRequest, NetmeraCallBack<Void> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", unsetProfileAttributesRequest);
         Call<Void> call = userService.unsetProfileAttributes(unsetProfileAttributesRequest.getSingleUnsetObjects());
-        call.enqueue(callBack);
+        enqueue(unsetProfileAttributesRequest, call, callBack);
     }
 
     public void sendRequest(GetProfileAttributesRequest getProfileAttributesRequest, NetmeraCallBack<GetProfileAttributesResponse> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", getProfileAttributesRequest);
         Call<GetProfileAttributesResponse> call = userService.getProfileAttributes(getProfileAttributesRequest.getExternalId());
-        call.enqueue(callBack);
+        enqueue(getProfileAttributesRequest, call, callBack);
     }
 
     public void sendRequest(PushProfileAttributesToUserRequest pushProfileAttributesToUserRequest, NetmeraCallBack<Void> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", pushProfileAttributesToUserRequest);
         Call<Void> call = userService.pushProfileAttributesToUser(pushProfileAttributesToUserRequest.getUserAndProfileAttributeLists());
-        call.enqueue(callBack);
+        enqueue(pushProfileAttributesToUserRequest, call, callBack);
     }
 
     public void sendRequest(PullProfileAttributesFromUserRequest pullProfileAttributesFromUserRequest, NetmeraCallBack<Void> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", pullProfileAttributesFromUserRequest);
         Call<Void> call = userService.pullProfileAttributesToUser(pullProfileAttributesFromUserRequest.getUserAndProfileAttributeLists());
-        call.enqueue(callBack);
+        enqueue(pullProfileAttributesFromUserRequest, call, callBack);
     }
 
     public void sendRequest(DeleteProfileAttributeFromAllUsersRequest deleteProfileAttributeFromAllUsersRequest, NetmeraCallBack<Void> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", deleteProfileAttributeFromAllUsersRequest);
         Call<Void> call = userService.deleteProfileAttributeFromAllUsers(deleteProfileAttributeFromAllUsersRequest);
-        call.enqueue(callBack);
+        enqueue(deleteProfileAttributeFromAllUsersRequest, call, callBack);
     }
 
     @Override
     public void sendRequest(GetUserDevicesRequest getUserDevicesRequest, NetmeraCallBack<GetUserDevicesResponse> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", getUserDevicesRequest);
         Call<GetUserDevicesResponse> call = userService.getUserDevices(getUserDevicesRequest.getExternalId(), getUserDevicesRequest.getPushPermitted());
-        call.enqueue(callBack);
+        enqueue(getUserDevicesRequest, call, callBack);
     }
 
     public void sendRequest(GetDeviceTokensRequest getDeviceTokensRequest, NetmeraCallBack<GetDeviceTokensResponse> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", getDeviceTokensRequest);
         Call<GetDeviceTokensResponse> call = userService.getDeviceTokens(getDeviceTokensRequest.getMax(), getDeviceTokensRequest.getOffSet());
-        call.enqueue(callBack);
+        enqueue(getDeviceTokensRequest, call, callBack);
     }
 
     public void sendRequest(GetDeviceTokensResponse getDeviceTokensResponse, NetmeraCallBack<GetDeviceTokensResponse> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", getDeviceTokensResponse);
         Call<GetDeviceTokensResponse> call = userService.getDeviceTokens(getDeviceTokensResponse.getNextPage());
-        call.enqueue(callBack);
+        enqueue(getDeviceTokensResponse, call, callBack);
     }
 
     // Notification Requests
     public void sendRequest(SendBulkNotificationRequest sendBulkNotificationRequest, NetmeraCallBack<NotificationResponse> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", sendBulkNotificationRequest);
         Call<NotificationResponse> call = notificationService.sendBulkNotification(sendBulkNotificationRequest);
-        call.enqueue(callBack);
+        enqueue(sendBulkNotificationRequest, call, callBack);
     }
 
     @Override
     public void sendRequest(SendTransactionalNotificationRequest sendTransactionalNotificationRequest, NetmeraCallBack<Void> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", sendTransactionalNotificationRequest);
+        if (transactionalBatcher != null) {
+            callBack.setErrorConverter(errorConverter);
+            callBack.setLoggingPolicy(loggingPolicy);
+            transactionalBatcher.submit(sendTransactionalNotificationRequest, callBack);
+            return;
+        }
         Call<Void> call = notificationService.sendNotification(sendTransactionalNotificationRequest);
-        call.enqueue(callBack);
+        enqueue(sendTransactionalNotificationRequest, call, callBack);
+    }
+
+    @Override
+    public void sendRequest(SendTemplatedBulkNotificationRequest sendTemplatedBulkNotificationRequest, NetmeraCallBack<NotificationResponse> callBack) {
+        Call<NotificationResponse> call = notificationService.sendTemplatedBulkNotification(sendTemplatedBulkNotificationRequest);
+        enqueue(sendTemplatedBulkNotificationRequest, call, callBack);
+    }
+
+    @Override
+    public void sendRequest(SendTemplatedTransactionalNotificationRequest sendTemplatedTransactionalNotificationRequest, NetmeraCallBack<Void> callBack) {
+        Call<Void> call = notificationService.sendTemplatedNotification(sendTemplatedTransactionalNotificationRequest);
+        enqueue(sendTemplatedTransactionalNotificationRequest, call, callBack);
+    }
+
+    @Override
+    public void sendRequest(SendTransactionalNotificationInChunksRequest sendTransactionalNotificationInChunksRequest, NetmeraCallBack<Void> callBack) {
+        Call<Void> call = notificationService.sendTransactionalNotificationInChunks(sendTransactionalNotificationInChunksRequest.getNotifications());
+        enqueue(sendTransactionalNotificationInChunksRequest, call, callBack);
     }
 
     @Override
     public void sendRequest(List<SendBulkNotificationRequest> sendBulkNotificationRequests, NetmeraCallBack<Void> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", sendBulkNotificationRequests);
         Call<Void> call = notificationService.sendNotificationInChunks(sendBulkNotificationRequests);
-        call.enqueue(callBack);
+        enqueue(sendBulkNotificationRequests, call, callBack);
     }
 
     @Override
     public void sendRequest(CreateTransactionalNotificationRequest createTransactionalNotificationRequest, NetmeraCallBack<NotificationResponse> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", createTransactionalNotificationRequest);
         Call<NotificationResponse> call = notificationService.createNotificationDefinition(createTransactionalNotificationRequest);
-        call.enqueue(callBack);
+        enqueue(createTransactionalNotificationRequest, call, callBack);
     }
 
     @Override
     public void sendRequest(GetPushStatsRequest getPushStatsRequest, NetmeraCallBack<GetPushStatsResponse> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", getPushStatsRequest);
         Call<GetPushStatsResponse> call = notificationService.getPushStats(getPushStatsRequest.getNotificationKey());
-        call.enqueue(callBack);
+        enqueue(getPushStatsRequest, call, callBack);
     }
 
     @Override
     public void sendRequest(GetPushStatsInDateRangeRequest getPushStatsInDateRangeRequest, NetmeraCallBack<GetPushStatsInDateRangeResponse> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", getPushStatsInDateRangeRequest);
         Call<GetPushStatsInDateRangeResponse> call = notificationService.getPushStatsInDateRange(getPushStatsInDateRangeRequest.getStartDate(), getPushStatsInDateRangeRequest.getEndDate());
-        call.enqueue(callBack);
+        enqueue(getPushStatsInDateRangeRequest, call, callBack);
     }
 
     @Override
     public void sendRequest(GetPushResultsRequest getPushResultsRequest, NetmeraCallBack<GetPushResultResponse> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", getPushResultsRequest);
         Call<GetPushResultResponse> call = notificationService.getPushResults(getPushResultsRequest.getMax(), getPushResultsRequest.getNotificationKey(), //
                 getPushResultsRequest.getExtId(), getPushResultsRequest.getStart(), getPushResultsRequest.getEnd(), getPushResultsRequest.getToken());
-        call.enqueue(callBack);
+        enqueue(getPushResultsRequest, call, callBack);
     }
 
     @Override
     public void sendRequest(GetPushResultResponse getPushResultResponse, NetmeraCallBack<GetPushResultResponse> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", getPushResultResponse.getNextPage());
         Call<GetPushResultResponse> call = notificationService.getPushResults(getPushResultResponse.getNextPage());
-        call.enqueue(callBack);
+        enqueue(getPushResultResponse.getNextPage(), call, callBack);
     }
 
     @Override
     public void sendRequest(CreateGeofenceRequest createGeofenceRequest, NetmeraCallBack<Void> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", createGeofenceRequest);
         Call<Void> call = notificationService.createGeofence(createGeofenceRequest);
-        call.enqueue(callBack);
+        enqueue(createGeofenceRequest, call, callBack);
     }
 
     @Override
     public void sendRequest(FireEventsRequest fireEventsRequest, NetmeraCallBack<Void> callBack) {
-        callBack.setErrorConverter(errorConverter);
-        logger.debug("SendRequest::started::request::{}", fireEventsRequest.getEventList());
         List<Map<String, Object>> eventData = new ArrayList<>(fireEventsRequest.getEventList().size());
         fireEventsRequest.getEventList().forEach(e -> eventData.add(e.getParameters()));
         Call<Void> call = eventService.fireEvent(eventData);
+        enqueue(fireEventsRequest.getEventList(), call, callBack);
+    }
+
+    private <T> void enqueue(Object request, Call<T> call, NetmeraCallBack<T> callBack) {
+        callBack.setErrorConverter(errorConverter);
+        callBack.setLoggingPolicy(loggingPolicy);
+        if (logger.isDebugEnabled() && loggingPolicy.sampleRequest()) {
+            logger.debug("SendRequest::started::request::{}", loggingPolicy.render(request));
+        }
         call.enqueue(callBack);
     }
 
@@ -321,6 +475,15 @@ public class NetmeraApi implements Netmera {
         private String apiKey;
         private int connectionTimeout = 30, readTimeout = 30, writeTimeout = 30, callTimeout = 30;
         private ConnectionPool connectionPool = new ConnectionPool();
+        private NetmeraMetrics metrics = NetmeraMetrics.NOOP;
+        private NetmeraLoggingPolicy loggingPolicy = NetmeraLoggingPolicy.DEFAULT;
+        private NetmeraWarmUp warmUp;
+        private NetmeraBatching transactionalBatching;
+        private NetmeraCodec codec = NetmeraCodec.GSON;
+        private NetmeraConcurrencyLimit concurrencyLimit;
+        private NetmeraHedging hedging;
+        private TrafficRecorder trafficRecorder;
+        private Executor callbackExecutor;
 
         public NetmeraApiBuilder(String targetHost, String restApiKey) {
             Assert.notNullOrEmpty(targetHost, "Target Host");
@@ -329,6 +492,14 @@ public class NetmeraApi implements Netmera {
             this.apiKey = restApiKey;
         }
 
+        /**
+         * Settings without an api key, used by {@link NetmeraClientFactory} for the client core shared by tenants.
+         */
+        NetmeraApiBuilder(String targetHost) {
+            Assert.notNullOrEmpty(targetHost, "Target Host");
+            this.targetHost = targetHost;
+        }
+
         /**
          * @param targetHost Rest Api endpoint url(netmera cloud endpoint is https://restapi.netmera.com)
          * @param restApiKey Api Key from netmera panel
@@ -381,8 +552,91 @@ public class NetmeraApi implements Netmera {
             return this;
         }
 
+        /**
+         * @param metrics recorder for per endpoint request counts, status classes, retries, queue wait, sizes and latencies
+         */
+        public NetmeraApiBuilder withMetrics(NetmeraMetrics metrics) {
+            Assert.notNull(metrics, "Metrics");
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * @param loggingPolicy sampling, truncation and summarizing rules of request and response payload logs
+         */
+        public NetmeraApiBuilder withLoggingPolicy(NetmeraLoggingPolicy loggingPolicy) {
+            Assert.notNull(loggingPolicy, "Logging Policy");
+            this.loggingPolicy = loggingPolicy;
+            return this;
+        }
+
+        /**
+         * @param warmUp pre-resolves the target host and opens pooled connections before {@link #build()} returns
+         */
+        public NetmeraApiBuilder withWarmUp(NetmeraWarmUp warmUp) {
+            Assert.notNull(warmUp, "Warm Up");
+            this.warmUp = warmUp;
+            return this;
+        }
+
+        /**
+         * @param transactionalBatching groups transactional notifications of the same notification key into a single call
+         */
+        public NetmeraApiBuilder withTransactionalBatching(NetmeraBatching transactionalBatching) {
+            Assert.notNull(transactionalBatching, "Transactional Batching");
+            this.transactionalBatching = transactionalBatching;
+            return this;
+        }
+
+        /**
+         * @param codec serializer of request bodies and deserializer of response and error bodies, {@link NetmeraCodec#GSON} by default
+         */
+        public NetmeraApiBuilder withCodec(NetmeraCodec codec) {
+            Assert.notNull(codec, "Codec");
+            this.codec = codec;
+            return this;
+        }
+
+        /**
+         * @param concurrencyLimit adapts the number of calls in flight to observed latencies instead of the static
+         *                         OkHttp dispatcher limits, calls over the limit are queued
+         */
+        public NetmeraApiBuilder withConcurrencyLimit(NetmeraConcurrencyLimit concurrencyLimit) {
+            Assert.notNull(concurrencyLimit, "Concurrency Limit");
+            this.concurrencyLimit = concurrencyLimit;
+            return this;
+        }
+
+        /**
+         * @param hedging sends a second identical call when a GET call is slower than usual for its endpoint
+         */
+        public NetmeraApiBuilder withHedging(NetmeraHedging hedging) {
+            Assert.notNull(hedging, "Hedging");
+            this.hedging = hedging;
+            return this;
+        }
+
+        /**
+         * @param trafficRecorder writes the timing, endpoint and size of every call to a log which can be replayed
+         */
+        public NetmeraApiBuilder withTrafficRecorder(TrafficRecorder trafficRecorder) {
+            Assert.notNull(trafficRecorder, "Traffic Recorder");
+            this.trafficRecorder = trafficRecorder;
+            return this;
+        }
+
+        /**
+         * @param callbackExecutor runs the call backs of calls, so that handlers which write to a database or wait on
+         *                         other services do not hold the OkHttp threads, see {@link CallbackExecutors}
+         */
+        public NetmeraApiBuilder withCallbackExecutor(Executor callbackExecutor) {
+            Assert.notNull(callbackExecutor, "Callback Executor");
+            this.callbackExecutor = callbackExecutor;
+            return this;
+        }
+
         public Netmera build() {
-            return NetmeraProxy.newInstance(new NetmeraApi(this));
+            return NetmeraProxy.newInstance(new NetmeraApi(this, newHttpClient(this).build()));
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,233 @@
+package com.github.muratkaragozgil.netmera4j;
+
+import com.github.muratkaragozgil.netmera4j.connection.CachingDns;
+import com.github.muratkaragozgil.netmera4j.connection.ConnectionWarmer;
+import com.github.muratkaragozgil.netmera4j.connection.FairTenantScheduler;
+import com.github.muratkaragozgil.netmera4j.connection.HedgingCallFactory;
+import com.github.muratkaragozgil.netmera4j.connection.TenantCallFactory;
+import com.github.muratkaragozgil.netmera4j.json.NetmeraCodec;
+import com.github.muratkaragozgil.netmera4j.logging.NetmeraLoggingPolicy;
+import com.github.muratkaragozgil.netmera4j.metrics.NetmeraMetrics;
+import com.github.muratkaragozgil.netmera4j.model.api.NetmeraConcurrencyLimit;
+import com.github.muratkaragozgil.netmera4j.model.api.NetmeraHedging;
+import com.github.muratkaragozgil.netmera4j.model.api.NetmeraRetryPolicy;
+import com.github.muratkaragozgil.netmera4j.model.api.NetmeraWarmUp;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import com.github.muratkaragozgil.netmera4j.util.NetmeraProxy;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import retrofit2.Retrofit;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Creates {@link Netmera} clients for many rest api keys (tenants) over one shared OkHttp client,
+ * connection pool and dispatcher. Each tenant client only adds its api key to the calls and
+ * gets a fair share of the shared dispatcher, so a busy tenant cannot starve the others. An adaptive concurrency limit
+ * and hedging are shared by the tenants too: the limit applies to the calls of all tenants, a hedged call takes a
+ * single slot of its tenant's share.
+ *
+ * @author Murat Karagözgil
+ */
+public class NetmeraClientFactory implements Closeable {
+
+    private final Retrofit retrofit;
+    private final FairTenantScheduler scheduler;
+    private final NetmeraLoggingPolicy loggingPolicy;
+    private final Map<String, Netmera> tenants = new ConcurrentHashMap<>();
+    private CachingDns cachingDns;
+    private ConnectionWarmer connectionWarmer;
+    private HedgingCallFactory hedgingCallFactory;
+
+    private NetmeraClientFactory(NetmeraClientFactoryBuilder netmeraClientFactoryBuilder) {
+        NetmeraApi.NetmeraApiBuilder settings = netmeraClientFactoryBuilder.settings;
+        Dispatcher dispatcher = new Dispatcher();
+        // all tenants call the same host, fairness between them is handled by the scheduler. The adaptive limit is the
+        // only cap above its max limit, so the dispatcher and the scheduler both allow that many calls
+        int maxRequests = netmeraClientFactoryBuilder.maxRequests;
+        if (netmeraClientFactoryBuilder.concurrencyLimit != null) {
+            maxRequests = Math.max(maxRequests, netmeraClientFactoryBuilder.concurrencyLimit.getMaxLimit());
+        }
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequests);
+        OkHttpClient okHttpClient = NetmeraApi.newHttpClient(settings).dispatcher(dispatcher).build();
+
+        okhttp3.Call.Factory callFactory = NetmeraApi.newCallFactory(settings, okHttpClient);
+        if (callFactory instanceof HedgingCallFactory) {
+            hedgingCallFactory = (HedgingCallFactory) callFactory;
+        }
+        this.retrofit = NetmeraApi.newRetrofit(netmeraClientFactoryBuilder.targetHost, callFactory, netmeraClientFactoryBuilder.codec,
+                NetmeraApi.newCallbackExecutor(settings));
+        this.scheduler = new FairTenantScheduler(maxRequests, netmeraClientFactoryBuilder.maxRequestsPerTenant);
+        this.loggingPolicy = netmeraClientFactoryBuilder.loggingPolicy;
+        if (netmeraClientFactoryBuilder.warmUp != null) {
+            cachingDns = (CachingDns) okHttpClient.dns();
+            connectionWarmer = NetmeraApi.warmUp(okHttpClient, netmeraClientFactoryBuilder.targetHost, netmeraClientFactoryBuilder.warmUp);
+        }
+    }
+
+    /**
+     * Stops the hedging timer and the dns refresh and keep-alive probe threads shared by the tenants. Calls in flight
+     * still complete.
+     */
+    @Override
+    public void close() {
+        if (hedgingCallFactory != null) {
+            hedgingCallFactory.shutdown();
+        }
+        if (connectionWarmer != null) {
+            connectionWarmer.stopProbes();
+        }
+        if (cachingDns != null) {
+            cachingDns.shutdown();
+        }
+    }
+
+    /**
+     * @param restApiKey Api Key from netmera panel
+     * @return client which sends every request with given api key, the same instance is returned for the same key
+     * @throws com.github.muratkaragozgil.netmera4j.exception.ValidationException if {@code restApiKey} is empty
+     */
+    public Netmera forApiKey(String restApiKey) {
+        Assert.notNullOrEmpty(restApiKey, "Rest Api Key");
+        return tenants.computeIfAbsent(restApiKey, this::newTenant);
+    }
+
+    private Netmera newTenant(String restApiKey) {
+        Retrofit tenantRetrofit = retrofit.newBuilder()
+                .callFactory(new TenantCallFactory(retrofit.callFactory(), restApiKey, scheduler.newTenant()))
+                .build();
+        return NetmeraProxy.newInstance(new NetmeraApi(tenantRetrofit, loggingPolicy));
+    }
+
+    public static final class NetmeraClientFactoryBuilder {
+        private final NetmeraApi.NetmeraApiBuilder settings;
+        private final String targetHost;
+        private int maxRequests = 64;
+        private int maxRequestsPerTenant = 8;
+        private NetmeraLoggingPolicy loggingPolicy = NetmeraLoggingPolicy.DEFAULT;
+        private NetmeraWarmUp warmUp;
+        private NetmeraCodec codec = NetmeraCodec.GSON;
+        private NetmeraConcurrencyLimit concurrencyLimit;
+
+        /**
+         * @param targetHost Rest Api endpoint url(netmera cloud endpoint is https://restapi.netmera.com)
+         */
+        public NetmeraClientFactoryBuilder(String targetHost) {
+            this.settings = new NetmeraApi.NetmeraApiBuilder(targetHost);
+            this.targetHost = targetHost;
+        }
+
+        public NetmeraClientFactoryBuilder withNetmeraRetryPolicy(NetmeraRetryPolicy netmeraRetryPolicy) {
+            settings.withNetmeraRetryPolicy(netmeraRetryPolicy);
+            return this;
+        }
+
+        public NetmeraClientFactoryBuilder withReadTimeout(int readTimeout) {
+            settings.withReadTimeout(readTimeout);
+            return this;
+        }
+
+        public NetmeraClientFactoryBuilder withConnectionTimeout(int connectionTimeout) {
+            settings.withConnectionTimeout(connectionTimeout);
+            return this;
+        }
+
+        public NetmeraClientFactoryBuilder withWriteTimeout(int writeTimeout) {
+            settings.withWriteTimeout(writeTimeout);
+            return this;
+        }
+
+        public NetmeraClientFactoryBuilder withCallTimeout(int callTimeout) {
+            settings.withCallTimeout(callTimeout);
+            return this;
+        }
+
+        public NetmeraClientFactoryBuilder withMaxRetryCount(int maxRetryCount) {
+            settings.withMaxRetryCount(maxRetryCount);
+            return this;
+        }
+
+        public NetmeraClientFactoryBuilder withConnectionPool(ConnectionPool connectionPool) {
+            settings.withConnectionPool(connectionPool);
+            return this;
+        }
+
+        public NetmeraClientFactoryBuilder withMetrics(NetmeraMetrics metrics) {
+            settings.withMetrics(metrics);
+            return this;
+        }
+
+        /**
+         * @param callbackExecutor runs the call backs of the calls of all tenants
+         */
+        public NetmeraClientFactoryBuilder withCallbackExecutor(Executor callbackExecutor) {
+            settings.withCallbackExecutor(callbackExecutor);
+            return this;
+        }
+
+        public NetmeraClientFactoryBuilder withLoggingPolicy(NetmeraLoggingPolicy loggingPolicy) {
+            Assert.notNull(loggingPolicy, "Logging Policy");
+            this.loggingPolicy = loggingPolicy;
+            return this;
+        }
+
+        public NetmeraClientFactoryBuilder withWarmUp(NetmeraWarmUp warmUp) {
+            settings.withWarmUp(warmUp);
+            this.warmUp = warmUp;
+            return this;
+        }
+
+        public NetmeraClientFactoryBuilder withCodec(NetmeraCodec codec) {
+            Assert.notNull(codec, "Codec");
+            this.codec = codec;
+            return this;
+        }
+
+        /**
+         * @param concurrencyLimit adapts the number of calls in flight of all tenants to observed latencies, calls
+         *                         over the limit are queued. Max requests is raised to the max limit, a single
+         *                         tenant is still capped by max requests per tenant
+         */
+        public NetmeraClientFactoryBuilder withConcurrencyLimit(NetmeraConcurrencyLimit concurrencyLimit) {
+            settings.withConcurrencyLimit(concurrencyLimit);
+            this.concurrencyLimit = concurrencyLimit;
+            return this;
+        }
+
+        /**
+         * @param hedging sends a second identical call when a GET call of any tenant is slower than usual for its endpoint
+         */
+        public NetmeraClientFactoryBuilder withHedging(NetmeraHedging hedging) {
+            settings.withHedging(hedging);
+            return this;
+        }
+
+        /**
+         * @param maxRequests maximum number of concurrent calls of all tenants, raised to the max limit of a
+         *                    concurrency limit
+         */
+        public NetmeraClientFactoryBuilder withMaxRequests(int maxRequests) {
+            Assert.mustBetween(1, 1000, maxRequests, "Max Requests");
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * @param maxRequestsPerTenant maximum number of concurrent calls of a single tenant
+         */
+        public NetmeraClientFactoryBuilder withMaxRequestsPerTenant(int maxRequestsPerTenant) {
+            Assert.mustBetween(1, 1000, maxRequestsPerTenant, "Max Requests Per Tenant");
+            this.maxRequestsPerTenant = maxRequestsPerTenant;
+            return this;
+        }
+
+        public NetmeraClientFactory build() {
+            return new NetmeraClientFactory(this);
+        }
+    }
+}
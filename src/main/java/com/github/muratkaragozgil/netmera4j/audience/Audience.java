@@ -0,0 +1,468 @@
+package com.github.muratkaragozgil.netmera4j.audience;
+
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Sorted and deduplicated set of external ids, stored front-coded in a single byte array. Ids are kept as UTF-8
+ * bytes in buckets of {@value #BUCKET_SIZE}: the first id of a bucket is stored in full, the others as the length
+ * of the prefix shared with the previous id and the rest of their bytes. Sequential ids like {@code user-1000123}
+ * take a few bytes each instead of a {@code String} per id.
+ * <p>
+ * An audience is an immutable {@code List<String>}, so it can be used in place of the id lists of
+ * {@link com.github.muratkaragozgil.netmera4j.model.notification.Target} and tag requests and is written to json
+ * as an array. {@link #get(int)} decodes at most one bucket, iterating decodes every id once. The audience is not
+ * {@link RandomAccess}, so serializers iterate it instead of calling {@code get} for each id.
+ *
+ * @author Murat Karagözgil
+ */
+public final class Audience extends AbstractList<String> {
+
+    static final int BUCKET_SIZE = 16;
+
+    private static final Audience EMPTY = new Audience(new byte[0], new int[0], 0, 0);
+
+    private final byte[] data;
+    private final int[] bucketOffsets;
+    private final int dataSize;
+    private final int size;
+
+    private Audience(byte[] data, int[] bucketOffsets, int dataSize, int size) {
+        this.data = data;
+        this.bucketOffsets = bucketOffsets;
+        this.dataSize = dataSize;
+        this.size = size;
+    }
+
+    public static Audience empty() {
+        return EMPTY;
+    }
+
+    public static Audience of(Collection<String> ids) {
+        return new AudienceBuilder(ids.size()).addAll(ids).build();
+    }
+
+    public static Audience of(String... ids) {
+        return of(Arrays.asList(ids));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return bytes used by the encoded ids
+     */
+    public int getEncodedSize() {
+        return dataSize + bucketOffsets.length * Integer.BYTES;
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        Cursor cursor = new Cursor(index / BUCKET_SIZE);
+        for (int i = index % BUCKET_SIZE; i >= 0; i--) {
+            cursor.next();
+        }
+        return cursor.current();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof String) || size == 0) {
+            return -1;
+        }
+        byte[] id = ((String) o).getBytes(StandardCharsets.UTF_8);
+        // the last bucket whose first id is not greater than the id
+        Cursor cursor = new Cursor(0);
+        int low = 0;
+        int high = bucketOffsets.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            cursor.seek(middle);
+            cursor.next();
+            if (cursor.compareTo(id) <= 0) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        cursor.seek(low);
+        int end = Math.min(size, (low + 1) * BUCKET_SIZE);
+        for (int index = low * BUCKET_SIZE; index < end; index++) {
+            cursor.next();
+            int comparison = cursor.compareTo(id);
+            if (comparison == 0) {
+                return index;
+            }
+            if (comparison > 0) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        Cursor cursor = new Cursor(0);
+        return new Iterator<String>() {
+            private int remaining = size;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public String next() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                remaining--;
+                cursor.next();
+                return cursor.current();
+            }
+        };
+    }
+
+    /**
+     * @return ids in this or the other audience
+     */
+    public Audience union(Audience other) {
+        Encoder encoder = new Encoder(size + other.size);
+        Cursor left = new Cursor(0);
+        Cursor right = other.new Cursor(0);
+        int leftRemaining = size;
+        int rightRemaining = other.size;
+        boolean leftValid = leftRemaining-- > 0 && left.next();
+        boolean rightValid = rightRemaining-- > 0 && right.next();
+        while (leftValid || rightValid) {
+            int comparison = !leftValid ? 1 : !rightValid ? -1 : left.compareTo(right);
+            if (comparison <= 0) {
+                encoder.add(left.id, left.length);
+                leftValid = leftRemaining-- > 0 && left.next();
+                if (comparison == 0) {
+                    rightValid = rightRemaining-- > 0 && right.next();
+                }
+            } else {
+                encoder.add(right.id, right.length);
+                rightValid = rightRemaining-- > 0 && right.next();
+            }
+        }
+        return encoder.build();
+    }
+
+    /**
+     * @return ids in both this and the other audience
+     */
+    public Audience intersect(Audience other) {
+        return merge(other, true);
+    }
+
+    /**
+     * @return ids in this audience which are not in the other audience
+     */
+    public Audience minus(Audience other) {
+        return merge(other, false);
+    }
+
+    private Audience merge(Audience other, boolean keepCommon) {
+        Encoder encoder = new Encoder(size);
+        Cursor left = new Cursor(0);
+        Cursor right = other.new Cursor(0);
+        int leftRemaining = size;
+        int rightRemaining = other.size;
+        boolean leftValid = leftRemaining-- > 0 && left.next();
+        boolean rightValid = rightRemaining-- > 0 && right.next();
+        while (leftValid) {
+            int comparison = rightValid ? left.compareTo(right) : -1;
+            if (comparison > 0) {
+                rightValid = rightRemaining-- > 0 && right.next();
+                continue;
+            }
+            if ((comparison == 0) == keepCommon) {
+                encoder.add(left.id, left.length);
+            }
+            leftValid = leftRemaining-- > 0 && left.next();
+        }
+        return encoder.build();
+    }
+
+    @Override
+    public String toString() {
+        return "Audience(size=" + size + ", encodedSize=" + getEncodedSize() + ")";
+    }
+
+    /**
+     * Decodes ids one after another, starting from the first id of a bucket.
+     */
+    private final class Cursor {
+        private int position;
+        private int indexInBucket;
+        private byte[] id = new byte[32];
+        private int length;
+
+        private Cursor(int bucket) {
+            seek(bucket);
+        }
+
+        private void seek(int bucket) {
+            position = bucket < bucketOffsets.length ? bucketOffsets[bucket] : dataSize;
+            indexInBucket = 0;
+        }
+
+        private boolean next() {
+            int shared = 0;
+            if (indexInBucket % BUCKET_SIZE != 0) {
+                shared = readVarInt();
+            }
+            int suffix = readVarInt();
+            ensureCapacity(shared + suffix);
+            System.arraycopy(data, position, id, shared, suffix);
+            position += suffix;
+            length = shared + suffix;
+            indexInBucket++;
+            return true;
+        }
+
+        private String current() {
+            return new String(id, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private int compareTo(Cursor other) {
+            return compare(id, length, other.id, other.length);
+        }
+
+        private int compareTo(byte[] other) {
+            return compare(id, length, other, other.length);
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > id.length) {
+                id = Arrays.copyOf(id, Math.max(capacity, id.length * 2));
+            }
+        }
+    }
+
+    /**
+     * Unsigned lexicographic order of UTF-8 bytes, which is the code point order of the ids.
+     */
+    static int compare(byte[] left, int leftLength, byte[] right, int rightLength) {
+        int length = Math.min(leftLength, rightLength);
+        for (int i = 0; i < length; i++) {
+            int comparison = (left[i] & 0xFF) - (right[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return leftLength - rightLength;
+    }
+
+    /**
+     * Front-codes ids added in ascending order, an id equal to the previous one is skipped.
+     */
+    static final class Encoder {
+        private byte[] data;
+        private int[] bucketOffsets;
+        private int dataSize;
+        private int size;
+        private byte[] previous = new byte[32];
+        private int previousLength = -1;
+
+        Encoder(int expectedSize) {
+            this.data = new byte[Math.max(16, Math.min(expectedSize, 1 << 20) * 4)];
+            this.bucketOffsets = new int[Math.max(1, (expectedSize + BUCKET_SIZE - 1) / BUCKET_SIZE)];
+        }
+
+        void add(byte[] id, int length) {
+            if (previousLength >= 0) {
+                int comparison = compare(previous, previousLength, id, length);
+                if (comparison == 0) {
+                    return;
+                }
+                Assert.state(comparison < 0, "Ids must be added in ascending order.");
+            }
+            ensureCapacity(length + 10);
+            if (size % BUCKET_SIZE == 0) {
+                int bucket = size / BUCKET_SIZE;
+                if (bucket == bucketOffsets.length) {
+                    bucketOffsets = Arrays.copyOf(bucketOffsets, bucketOffsets.length * 2);
+                }
+                bucketOffsets[bucket] = dataSize;
+                writeVarInt(length);
+                System.arraycopy(id, 0, data, dataSize, length);
+                dataSize += length;
+            } else {
+                int shared = 0;
+                int max = Math.min(previousLength, length);
+                while (shared < max && previous[shared] == id[shared]) {
+                    shared++;
+                }
+                writeVarInt(shared);
+                writeVarInt(length - shared);
+                System.arraycopy(id, shared, data, dataSize, length - shared);
+                dataSize += length - shared;
+            }
+            if (length > previous.length) {
+                previous = Arrays.copyOf(previous, Math.max(length, previous.length * 2));
+            }
+            System.arraycopy(id, 0, previous, 0, length);
+            previousLength = length;
+            size++;
+        }
+
+        Audience build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            int buckets = (size + BUCKET_SIZE - 1) / BUCKET_SIZE;
+            return new Audience(Arrays.copyOf(data, dataSize), Arrays.copyOf(bucketOffsets, buckets), dataSize, size);
+        }
+
+        private void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                data[dataSize++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[dataSize++] = (byte) value;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (dataSize + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(dataSize + extra, data.length * 2));
+            }
+        }
+    }
+
+    /**
+     * Collects ids in any order, {@link #build()} sorts them and drops duplicates. Ids are held as UTF-8 bytes
+     * until then, not as strings.
+     */
+    public static final class AudienceBuilder {
+        private byte[] arena;
+        private int arenaSize;
+        private int[] offsets;
+        private int count;
+
+        public AudienceBuilder() {
+            this(16);
+        }
+
+        /**
+         * @param expectedSize expected number of ids
+         */
+        public AudienceBuilder(int expectedSize) {
+            Assert.mustBetween(0, Integer.MAX_VALUE, expectedSize, "Expected Size");
+            this.arena = new byte[Math.max(16, Math.min(expectedSize, 1 << 20) * 8)];
+            this.offsets = new int[Math.max(1, Math.min(expectedSize, 1 << 20)) + 1];
+        }
+
+        public AudienceBuilder add(String id) {
+            Assert.notNull(id, "Id");
+            byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+            if (arenaSize + bytes.length > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arenaSize + bytes.length, arena.length * 2));
+            }
+            if (count + 1 == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            System.arraycopy(bytes, 0, arena, arenaSize, bytes.length);
+            arenaSize += bytes.length;
+            offsets[++count] = arenaSize;
+            return this;
+        }
+
+        public AudienceBuilder addAll(Iterable<String> ids) {
+            Assert.notNull(ids, "Ids");
+            for (String id : ids) {
+                add(id);
+            }
+            return this;
+        }
+
+        public Audience build() {
+            int[] order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            sort(order, new int[count], 0, count);
+            Encoder encoder = new Encoder(count);
+            byte[] id = new byte[32];
+            for (int i : order) {
+                int length = offsets[i + 1] - offsets[i];
+                if (length > id.length) {
+                    id = new byte[Math.max(length, id.length * 2)];
+                }
+                System.arraycopy(arena, offsets[i], id, 0, length);
+                encoder.add(id, length);
+            }
+            return encoder.build();
+        }
+
+        private int compareIds(int left, int right) {
+            int leftStart = offsets[left];
+            int rightStart = offsets[right];
+            int leftLength = offsets[left + 1] - leftStart;
+            int rightLength = offsets[right + 1] - rightStart;
+            int length = Math.min(leftLength, rightLength);
+            for (int i = 0; i < length; i++) {
+                int comparison = (arena[leftStart + i] & 0xFF) - (arena[rightStart + i] & 0xFF);
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return leftLength - rightLength;
+        }
+
+        /**
+         * Merge sort of id indexes, without boxing them for a comparator.
+         */
+        private void sort(int[] order, int[] scratch, int from, int to) {
+            if (to - from < 2) {
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            sort(order, scratch, from, middle);
+            sort(order, scratch, middle, to);
+            if (compareIds(order[middle - 1], order[middle]) <= 0) {
+                return;
+            }
+            System.arraycopy(order, from, scratch, from, to - from);
+            int left = from;
+            int right = middle;
+            for (int i = from; i < to; i++) {
+                if (right >= to || (left < middle && compareIds(scratch[left], scratch[right]) <= 0)) {
+                    order[i] = scratch[left++];
+                } else {
+                    order[i] = scratch[right++];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.github.muratkaragozgil.netmera4j.bulk;
+
+import com.github.muratkaragozgil.netmera4j.Netmera;
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.model.notification.BulkMessage;
+import com.github.muratkaragozgil.netmera4j.model.notification.Target;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendBulkNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import com.github.muratkaragozgil.netmera4j.util.NetmeraProxy;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends a {@link BulkMessage} to a large external id audience. Ids are deduplicated and split into
+ * {@link Target}s of at most {@code chunkSize} ids, every {@code requestsPerCall} targets are sent with one
+ * {@code sendNotificationInChunks} call and at most {@code maxConcurrency} calls are in flight at the same time.
+ *
+ * @author Murat Karagözgil
+ */
+public class BulkFanOutPlanner {
+
+    private final Netmera netmera;
+    private final int chunkSize;
+    private final int requestsPerCall;
+    private final int maxConcurrency;
+
+    private BulkFanOutPlanner(BulkFanOutPlannerBuilder bulkFanOutPlannerBuilder) {
+        this.netmera = bulkFanOutPlannerBuilder.netmera;
+        this.chunkSize = bulkFanOutPlannerBuilder.chunkSize;
+        this.requestsPerCall = bulkFanOutPlannerBuilder.requestsPerCall;
+        this.maxConcurrency = bulkFanOutPlannerBuilder.maxConcurrency;
+    }
+
+    /**
+     * Plans and sends the fan-out. The calling thread produces the chunks and blocks while
+     * {@code maxConcurrency} calls are in flight, the returned future completes when every call has completed.
+     *
+     * @param message  message sent to every chunk
+     * @param audience external ids, duplicates are sent only once and nulls are skipped
+     */
+    public CompletableFuture<FanOutResult> send(BulkMessage message, Iterable<String> audience) {
+        Assert.notNull(message, "Message");
+        Assert.notNull(audience, "Audience");
+        FanOut fanOut = new FanOut(message);
+        Set<String> seen = new HashSet<>();
+        List<SendBulkNotificationRequest> requests = new ArrayList<>(requestsPerCall);
+        List<String> extIds = new ArrayList<>(chunkSize);
+        long audienceSize = 0;
+        long nullCount = 0;
+        try {
+            for (String extId : audience) {
+                audienceSize++;
+                if (extId == null) {
+                    nullCount++;
+                    continue;
+                }
+                if (!seen.add(extId)) {
+                    continue;
+                }
+                extIds.add(extId);
+                if (extIds.size() == chunkSize) {
+                    requests.add(fanOut.request(extIds));
+                    extIds = new ArrayList<>(chunkSize);
+                    if (requests.size() == requestsPerCall) {
+                        fanOut.send(requests);
+                        requests = new ArrayList<>(requestsPerCall);
+                    }
+                }
+            }
+            if (!extIds.isEmpty()) {
+                requests.add(fanOut.request(extIds));
+            }
+            if (!requests.isEmpty()) {
+                fanOut.send(requests);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fanOut.result.completeExceptionally(e);
+        }
+        fanOut.produced(audienceSize, audienceSize - nullCount - seen.size(), nullCount);
+        return fanOut.result;
+    }
+
+    private final class FanOut {
+        private final BulkMessage message;
+        private final Semaphore permits = new Semaphore(maxConcurrency);
+        private final Queue<ChunkOutcome> outcomes = new ConcurrentLinkedQueue<>();
+        // the producer holds one pending slot until all chunks are sent
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final CompletableFuture<FanOutResult> result = new CompletableFuture<>();
+        private int chunkIndex;
+        private long audienceSize;
+        private long duplicateCount;
+        private long nullCount;
+
+        private FanOut(BulkMessage message) {
+            this.message = message;
+        }
+
+        private SendBulkNotificationRequest request(List<String> extIds) {
+            return new SendBulkNotificationRequest(message, new Target.TargetBuilder().externalId(extIds).build());
+        }
+
+        private void send(List<SendBulkNotificationRequest> requests) throws InterruptedException {
+            permits.acquire();
+            pending.incrementAndGet();
+            ChunkCallBack callBack = new ChunkCallBack(chunkIndex++, requests.size(), requests.stream().mapToInt(r -> r.getTarget().getExtId().size()).sum());
+            // validated here, a client drops an invalid request without calling its call back
+            for (SendBulkNotificationRequest request : requests) {
+                String violation = NetmeraProxy.validate(request);
+                if (violation != null) {
+                    callBack.completed(0, violation);
+                    return;
+                }
+            }
+            try {
+                netmera.sendRequest(requests, callBack);
+            } catch (RuntimeException e) {
+                callBack.completed(0, e.toString());
+            }
+        }
+
+        /**
+         * Completes its chunk once, whether the call ends with a response, an exception or an error.
+         */
+        private final class ChunkCallBack extends NetmeraCallBack<Void> {
+            private final int index;
+            private final int requestCount;
+            private final int extIdCount;
+            private final AtomicBoolean completed = new AtomicBoolean();
+
+            private ChunkCallBack(int index, int requestCount, int extIdCount) {
+                this.index = index;
+                this.requestCount = requestCount;
+                this.extIdCount = extIdCount;
+            }
+
+            @Override
+            public void onFailure(Call<Void> call, Throwable t) {
+                super.onFailure(call, t);
+                if (!(t instanceof Exception)) {
+                    completed(0, t.toString());
+                }
+            }
+
+            @Override
+            protected void handleResponseCode(int httpStatus) {
+                completed(httpStatus, httpStatus == 200 ? null : "Http status " + httpStatus);
+            }
+
+            @Override
+            protected void handleResponseData(Void data) {
+            }
+
+            @Override
+            protected void handleError(Response<Void> response) {
+            }
+
+            @Override
+            protected void handleException(Exception t) {
+                completed(0, t.toString());
+            }
+
+            private void completed(int httpStatus, String error) {
+                if (completed.compareAndSet(false, true)) {
+                    outcomes.add(new ChunkOutcome(index, requestCount, extIdCount, httpStatus, error));
+                    permits.release();
+                    finish();
+                }
+            }
+        }
+
+        private void produced(long audienceSize, long duplicateCount, long nullCount) {
+            this.audienceSize = audienceSize;
+            this.duplicateCount = duplicateCount;
+            this.nullCount = nullCount;
+            finish();
+        }
+
+        private void finish() {
+            if (pending.decrementAndGet() == 0) {
+                List<ChunkOutcome> chunks = new ArrayList<>(outcomes);
+                chunks.sort(Comparator.comparingInt(ChunkOutcome::getIndex));
+                result.complete(new FanOutResult(audienceSize, duplicateCount, nullCount, chunks));
+            }
+        }
+    }
+
+    public static final class BulkFanOutPlannerBuilder {
+        private final Netmera netmera;
+        private int chunkSize = 10000;
+        private int requestsPerCall = 1;
+        private int maxConcurrency = 4;
+
+        public BulkFanOutPlannerBuilder(Netmera netmera) {
+            Assert.notNull(netmera, "Netmera");
+            this.netmera = netmera;
+        }
+
+        /**
+         * @param chunkSize maximum number of external ids in a single target
+         */
+        public BulkFanOutPlannerBuilder chunkSize(int chunkSize) {
+            Assert.mustBetween(1, 1000000, chunkSize, "Chunk Size");
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * @param requestsPerCall number of targets sent in a single call
+         */
+        public BulkFanOutPlannerBuilder requestsPerCall(int requestsPerCall) {
+            Assert.mustBetween(1, 1000, requestsPerCall, "Requests Per Call");
+            this.requestsPerCall = requestsPerCall;
+            return this;
+        }
+
+        /**
+         * @param maxConcurrency maximum number of calls in flight
+         */
+        public BulkFanOutPlannerBuilder maxConcurrency(int maxConcurrency) {
+            Assert.mustBetween(1, 1000, maxConcurrency, "Max Concurrency");
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        public BulkFanOutPlanner build() {
+            return new BulkFanOutPlanner(this);
+        }
+    }
+}
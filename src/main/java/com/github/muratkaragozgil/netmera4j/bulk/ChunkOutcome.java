@@ -0,0 +1,28 @@
+package com.github.muratkaragozgil.netmera4j.bulk;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Result of a single {@code sendNotificationInChunks} call of a fan-out.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ChunkOutcome {
+    private int index;
+    private int targetCount;
+    private int extIdCount;
+    /**
+     * Http status of the call, 0 when the call failed without a response
+     */
+    private int httpStatus;
+    private String error;
+
+    public boolean isSuccessful() {
+        return httpStatus == 200;
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.muratkaragozgil.netmera4j.bulk;
+
+import com.github.muratkaragozgil.netmera4j.constant.Platform;
+import com.github.muratkaragozgil.netmera4j.model.device.NewDevice;
+import com.github.muratkaragozgil.netmera4j.request.device.EncodedNewDevicesRequest;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Append-only body of a device registration call. Every device is encoded when it is added, so no
+ * {@link NewDevice} is kept and the body is not serialized again when it is sent. The body has the same bytes as an
+ * {@link com.github.muratkaragozgil.netmera4j.request.device.AddNewDevicesRequest} of the same devices.
+ * Writers are not thread safe.
+ *
+ * @author Murat Karagözgil
+ */
+public class DeviceBatchWriter {
+
+    private final JsonArrayBuffer devices = new JsonArrayBuffer();
+
+    /**
+     * @param extId external id of the user of the device, may be null
+     * @param email email of the user, may be null
+     */
+    public DeviceBatchWriter add(String deviceToken, Platform platform, String extId, String email) {
+        Assert.notNullOrEmpty(deviceToken, "Device Token");
+        Assert.notNull(platform, "Platform");
+        try {
+            devices.out().beginObject()
+                    .name("deviceToken").value(deviceToken)
+                    .name("platform").value(platform.name())
+                    .name("extId").value(extId)
+                    .name("email").value(email)
+                    .endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        devices.elementWritten();
+        return this;
+    }
+
+    public DeviceBatchWriter add(NewDevice device) {
+        Assert.notNull(device, "Device");
+        return add(device.getDeviceToken(), device.getPlatform(), device.getExtId(), device.getEmail());
+    }
+
+    /**
+     * @return number of added devices
+     */
+    public int count() {
+        return devices.count();
+    }
+
+    /**
+     * @return content length in bytes of the body if it was built now
+     */
+    public long size() {
+        return devices.size();
+    }
+
+    /**
+     * Hands off the written devices and starts an empty batch.
+     *
+     * @throws IllegalStateException if no device is added
+     */
+    public EncodedNewDevicesRequest build() {
+        Assert.state(count() > 0, "No device is added.");
+        return new EncodedNewDevicesRequest(count(), devices.finish());
+    }
+}
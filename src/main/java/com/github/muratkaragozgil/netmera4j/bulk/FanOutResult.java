@@ -0,0 +1,45 @@
+package com.github.muratkaragozgil.netmera4j.bulk;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Aggregated outcome of a bulk notification fan-out.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@ToString(exclude = "chunks")
+public class FanOutResult {
+    private long audienceSize;
+    private long duplicateCount;
+    /**
+     * Null ids of the audience, they are skipped.
+     */
+    private long nullCount;
+    private long sentExtIdCount;
+    private long failedExtIdCount;
+    private int failedChunkCount;
+    private List<ChunkOutcome> chunks;
+
+    FanOutResult(long audienceSize, long duplicateCount, long nullCount, List<ChunkOutcome> chunks) {
+        this.audienceSize = audienceSize;
+        this.duplicateCount = duplicateCount;
+        this.nullCount = nullCount;
+        this.chunks = chunks;
+        for (ChunkOutcome chunk : chunks) {
+            if (chunk.isSuccessful()) {
+                sentExtIdCount += chunk.getExtIdCount();
+            } else {
+                failedExtIdCount += chunk.getExtIdCount();
+                failedChunkCount++;
+            }
+        }
+    }
+
+    public boolean isSuccessful() {
+        return failedChunkCount == 0;
+    }
+}
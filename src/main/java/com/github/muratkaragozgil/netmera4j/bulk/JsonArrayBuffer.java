@@ -0,0 +1,124 @@
+package com.github.muratkaragozgil.netmera4j.bulk;
+
+import com.github.muratkaragozgil.netmera4j.json.BufferRequestBody;
+import com.github.muratkaragozgil.netmera4j.json.NetmeraGson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Json array written element by element into an Okio buffer, with the settings and object adapter of
+ * {@link NetmeraGson}, so the body has the same bytes as the serialized list. Nothing is buffered between the
+ * Gson writer and the Okio buffer, the size of the buffer is always the size of the written elements.
+ *
+ * @author Murat Karagözgil
+ */
+final class JsonArrayBuffer {
+
+    private static final MediaType MEDIA_TYPE = MediaType.get("application/json; charset=UTF-8");
+    private static final TypeAdapter<Object> OBJECT_ADAPTER = NetmeraGson.get().getAdapter(Object.class);
+
+    private Buffer body;
+    private JsonWriter out;
+    private int count;
+
+    JsonArrayBuffer() {
+        reset();
+    }
+
+    JsonWriter out() {
+        return out;
+    }
+
+    /**
+     * Counts the element written by {@link #out()} since the previous one.
+     */
+    void elementWritten() {
+        count++;
+    }
+
+    void objectValue(Object value) {
+        try {
+            OBJECT_ADAPTER.write(out, value);
+        } catch (IOException e) {
+            // a buffer does not throw
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * @return bytes of the written elements and the closing bracket
+     */
+    long size() {
+        return body.size() + 1;
+    }
+
+    /**
+     * Closes the array and starts a new one, the written bytes are moved to the returned body.
+     */
+    RequestBody finish() {
+        Buffer finished = body;
+        try {
+            out.endArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        reset();
+        return new BufferRequestBody(MEDIA_TYPE, finished);
+    }
+
+    private void reset() {
+        body = new Buffer();
+        count = 0;
+        try {
+            out = NetmeraGson.get().newJsonWriter(new BufferWriter(body));
+            out.beginArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Encodes chars straight into the buffer. Gson writes strings in runs which never split a surrogate pair.
+     */
+    private static final class BufferWriter extends Writer {
+        private final Buffer buffer;
+
+        private BufferWriter(Buffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int c) {
+            buffer.writeUtf8CodePoint(c);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            buffer.writeUtf8(str, off, off + len);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            buffer.writeUtf8(new String(cbuf, off, len));
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
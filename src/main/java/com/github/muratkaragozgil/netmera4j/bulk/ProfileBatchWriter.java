@@ -0,0 +1,106 @@
+package com.github.muratkaragozgil.netmera4j.bulk;
+
+import com.github.muratkaragozgil.netmera4j.model.device.UserAndProfileAttributeMap;
+import com.github.muratkaragozgil.netmera4j.request.device.EncodedProfileAttributesRequest;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Append-only body of a set profile attributes call. Every user is encoded when it is added, so no
+ * {@link UserAndProfileAttributeMap} or attribute map is kept and the body is not serialized again when it is sent.
+ * The body has the same bytes as an {@link com.github.muratkaragozgil.netmera4j.request.device.AddProfileAttributeRequest}
+ * of the same users.
+ * <pre>
+ * writer.beginUser("user-1").attribute("age", 30).attribute("city", "Istanbul").endUser();
+ * if (writer.size() &gt; maxBytes) {
+ *     netmera.sendRequest(writer.build(), callBack);
+ * }
+ * </pre>
+ * Writers are not thread safe.
+ *
+ * @author Murat Karagözgil
+ */
+public class ProfileBatchWriter {
+
+    private final JsonArrayBuffer users = new JsonArrayBuffer();
+    private boolean userOpen;
+
+    public ProfileBatchWriter beginUser(String extId) {
+        Assert.notNullOrEmpty(extId, "External Id");
+        Assert.state(!userOpen, "The previous user is not ended.");
+        try {
+            users.out().beginObject().name("extId").value(extId).name("profile").beginObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        userOpen = true;
+        return this;
+    }
+
+    /**
+     * @param value written by its runtime type, attributes with null values are omitted
+     */
+    public ProfileBatchWriter attribute(String name, Object value) {
+        Assert.notNullOrEmpty(name, "Attribute Name");
+        Assert.state(userOpen, "No user is begun.");
+        try {
+            users.out().name(name);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        users.objectValue(value);
+        return this;
+    }
+
+    public ProfileBatchWriter endUser() {
+        Assert.state(userOpen, "No user is begun.");
+        try {
+            users.out().endObject().endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        users.elementWritten();
+        userOpen = false;
+        return this;
+    }
+
+    public ProfileBatchWriter add(String extId, Map<String, Object> profile) {
+        Assert.notNull(profile, "Profile");
+        beginUser(extId);
+        profile.forEach(this::attribute);
+        return endUser();
+    }
+
+    public ProfileBatchWriter add(UserAndProfileAttributeMap user) {
+        Assert.notNull(user, "User");
+        return add(user.getExtId(), user.getProfile());
+    }
+
+    /**
+     * @return number of ended users
+     */
+    public int count() {
+        return users.count();
+    }
+
+    /**
+     * @return content length in bytes of the body if it was built now, with the closing brackets of an open user
+     */
+    public long size() {
+        return users.size() + (userOpen ? 2 : 0);
+    }
+
+    /**
+     * Hands off the written users and starts an empty batch.
+     *
+     * @throws IllegalStateException if a user is not ended or no user is added
+     */
+    public EncodedProfileAttributesRequest build() {
+        Assert.state(!userOpen, "The last user is not ended.");
+        Assert.state(count() > 0, "No user is added.");
+        return new EncodedProfileAttributesRequest(count(), users.finish());
+    }
+}
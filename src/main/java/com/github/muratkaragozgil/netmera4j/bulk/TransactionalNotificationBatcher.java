@@ -0,0 +1,174 @@
+package com.github.muratkaragozgil.netmera4j.bulk;
+
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.model.api.NetmeraBatching;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTransactionalNotificationInChunksRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTransactionalNotificationRequest;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Groups transactional notifications by notification key for a short linger time and sends every group
+ * as one list body. The response of the group call is delivered to the callback of every notification in it.
+ * Open groups are sent by {@link #flush()} and {@link #shutdown()}, notifications submitted after the shutdown are
+ * sent one by one.
+ *
+ * @author Murat Karagözgil
+ */
+public class TransactionalNotificationBatcher {
+
+    private final BiConsumer<SendTransactionalNotificationInChunksRequest, NetmeraCallBack<Void>> sender;
+    private final long linger;
+    private final int maxBatchSize;
+    private final Map<String, Batch> openBatches = new HashMap<>();
+    private boolean shutdown;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "netmera-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param sender sends a group, normally {@code netmera::sendRequest}
+     */
+    public TransactionalNotificationBatcher(BiConsumer<SendTransactionalNotificationInChunksRequest, NetmeraCallBack<Void>> sender, NetmeraBatching batching) {
+        this.sender = sender;
+        this.linger = batching.getLinger();
+        this.maxBatchSize = batching.getMaxBatchSize();
+    }
+
+    public void submit(SendTransactionalNotificationRequest request, NetmeraCallBack<Void> callBack) {
+        Batch full = null;
+        synchronized (this) {
+            Batch batch = shutdown ? new Batch(request.getNotificationKey()) : openBatches.get(request.getNotificationKey());
+            if (batch == null) {
+                Batch opened = new Batch(request.getNotificationKey());
+                opened.lingerTimeout = timer.schedule(() -> flush(opened), linger, TimeUnit.MILLISECONDS);
+                openBatches.put(opened.notificationKey, opened);
+                batch = opened;
+            }
+            batch.requests.add(request);
+            batch.callBacks.add(callBack);
+            if (shutdown) {
+                full = batch;
+            } else if (batch.requests.size() >= maxBatchSize) {
+                openBatches.remove(batch.notificationKey);
+                batch.lingerTimeout.cancel(false);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+    }
+
+    /**
+     * Sends every open group now without waiting for its linger time.
+     */
+    public void flush() {
+        List<Batch> batches;
+        synchronized (this) {
+            batches = new ArrayList<>(openBatches.values());
+            openBatches.clear();
+        }
+        for (Batch batch : batches) {
+            batch.lingerTimeout.cancel(false);
+            send(batch);
+        }
+    }
+
+    /**
+     * Sends the open groups and stops the linger timer.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+        }
+        flush();
+        timer.shutdownNow();
+    }
+
+    private void flush(Batch batch) {
+        synchronized (this) {
+            if (openBatches.get(batch.notificationKey) != batch) {
+                return;
+            }
+            openBatches.remove(batch.notificationKey);
+        }
+        send(batch);
+    }
+
+    private void send(Batch batch) {
+        sender.accept(new SendTransactionalNotificationInChunksRequest(batch.requests), new DemultiplexingCallBack(batch.callBacks));
+    }
+
+    private static final class Batch {
+        private final String notificationKey;
+        private final List<SendTransactionalNotificationRequest> requests = new ArrayList<>();
+        private final List<NetmeraCallBack<Void>> callBacks = new ArrayList<>();
+        private ScheduledFuture<?> lingerTimeout;
+
+        private Batch(String notificationKey) {
+            this.notificationKey = notificationKey;
+        }
+    }
+
+    /**
+     * Passes the group response to every callback. The error body can only be read once,
+     * so it is buffered and every callback gets its own copy.
+     */
+    private static final class DemultiplexingCallBack extends NetmeraCallBack<Void> {
+        private final List<NetmeraCallBack<Void>> callBacks;
+
+        private DemultiplexingCallBack(List<NetmeraCallBack<Void>> callBacks) {
+            this.callBacks = callBacks;
+        }
+
+        @Override
+        public void onResponse(Call<Void> call, Response<Void> response) {
+            byte[] errorBody = null;
+            MediaType contentType = null;
+            if (!response.isSuccessful() && response.errorBody() != null) {
+                try (ResponseBody body = response.errorBody()) {
+                    contentType = body.contentType();
+                    errorBody = body.bytes();
+                } catch (IOException e) {
+                    errorBody = new byte[0];
+                }
+            }
+            for (NetmeraCallBack<Void> callBack : callBacks) {
+                callBack.onResponse(call, errorBody == null ? response : Response.error(ResponseBody.create(contentType, errorBody), response.raw()));
+            }
+        }
+
+        @Override
+        public void onFailure(Call<Void> call, Throwable t) {
+            callBacks.forEach(callBack -> callBack.onFailure(call, t));
+        }
+
+        @Override
+        protected void handleResponseData(Void data) {
+        }
+
+        @Override
+        protected void handleError(Response<Void> response) {
+        }
+
+        @Override
+        protected void handleException(Exception t) {
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.muratkaragozgil.netmera4j.callback;
+
+import com.github.muratkaragozgil.netmera4j.metrics.NetmeraMetrics;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for the {@link NetmeraCallBack} handlers of a client, see
+ * {@link com.github.muratkaragozgil.netmera4j.NetmeraApi.NetmeraApiBuilder#withCallbackExecutor(Executor)}.
+ * Without one, handlers run on the OkHttp dispatcher threads and a slow handler delays the calls of everyone.
+ *
+ * @author Murat Karagözgil
+ */
+public final class CallbackExecutors {
+
+    private static final Logger logger = LoggerFactory.getLogger(CallbackExecutors.class);
+
+    private CallbackExecutors() {
+    }
+
+    /**
+     * @return executor which runs handlers on the OkHttp thread completing the call, only for handlers which never block
+     */
+    public static Executor inline() {
+        return Runnable::run;
+    }
+
+    /**
+     * @param threads       number of handler threads, they are daemon threads kept for the life of the pool
+     * @param queueCapacity number of handlers waiting for a thread before {@code rejectionPolicy} is applied
+     * @param rejectionPolicy e.g. {@link ThreadPoolExecutor.CallerRunsPolicy} to run the handler on the OkHttp thread,
+     *                        which slows down the calls instead of dropping handlers
+     */
+    public static ExecutorService bounded(int threads, int queueCapacity, RejectedExecutionHandler rejectionPolicy) {
+        Assert.mustBetween(1, 1024, threads, "Threads");
+        Assert.mustBetween(1, Integer.MAX_VALUE, queueCapacity, "Queue Capacity");
+        Assert.notNull(rejectionPolicy, "Rejection Policy");
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "netmera-callback-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, rejectionPolicy);
+    }
+
+    /**
+     * @return executor which starts a virtual thread for every handler, for handlers blocking on io
+     * @throws IllegalStateException if the runtime has no virtual threads, they need Java 21 or later
+     */
+    public static ExecutorService virtualThreads() {
+        try {
+            // looked up at runtime, the library is built for Java 8
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not supported by Java " + System.getProperty("java.version"), e);
+        }
+    }
+
+    /**
+     * Wraps {@code executor} so that the number of waiting handlers, their wait and their running time are recorded.
+     * Handlers rejected by {@code executor} are logged, recorded and run on the thread completing the call, so a call
+     * back is never dropped.
+     *
+     * @param executor runs the handlers
+     * @param metrics  receives {@link NetmeraMetrics#callbackQueued(int)} and {@link NetmeraMetrics#callbackCompleted(long, long)}
+     */
+    public static Executor instrumented(Executor executor, NetmeraMetrics metrics) {
+        Assert.notNull(executor, "Executor");
+        Assert.notNull(metrics, "Metrics");
+        return new InstrumentedExecutor(executor, metrics);
+    }
+
+    private static final class InstrumentedExecutor implements Executor {
+        private final Executor executor;
+        private final NetmeraMetrics metrics;
+        private final AtomicInteger queued = new AtomicInteger();
+
+        private InstrumentedExecutor(Executor executor, NetmeraMetrics metrics) {
+            this.executor = executor;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void execute(Runnable handler) {
+            long queuedNanos = System.nanoTime();
+            metrics.callbackQueued(queued.incrementAndGet());
+            Runnable instrumented = () -> {
+                long startNanos = System.nanoTime();
+                metrics.callbackQueued(queued.decrementAndGet());
+                try {
+                    handler.run();
+                } finally {
+                    metrics.callbackCompleted(startNanos - queuedNanos, System.nanoTime() - startNanos);
+                }
+            };
+            try {
+                executor.execute(instrumented);
+            } catch (RejectedExecutionException e) {
+                // thrown on the OkHttp thread, where retrofit would only print it and the call back would never be called
+                metrics.callbackRejected();
+                logger.warn("CallbackExecutors::callback rejected, running on the calling thread::{}", e.getMessage());
+                instrumented.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.muratkaragozgil.netmera4j.callback;
+
+import com.github.muratkaragozgil.netmera4j.exception.NetmeraError;
+import com.github.muratkaragozgil.netmera4j.logging.NetmeraLoggingPolicy;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Converter;
+import retrofit2.Response;
+
+/**
+ * Passes the outcome of a call to another call back, which also gets the error converter and logging policy of the
+ * client. Used by clients which wrap other clients to observe calls without changing what callers see.
+ *
+ * @author Murat Karagözgil
+ */
+public class ForwardingNetmeraCallBack<T> extends NetmeraCallBack<T> {
+
+    protected final NetmeraCallBack<T> delegate;
+
+    public ForwardingNetmeraCallBack(NetmeraCallBack<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void setErrorConverter(Converter<ResponseBody, NetmeraError> errorConverter) {
+        super.setErrorConverter(errorConverter);
+        delegate.setErrorConverter(errorConverter);
+    }
+
+    @Override
+    public void setLoggingPolicy(NetmeraLoggingPolicy loggingPolicy) {
+        super.setLoggingPolicy(loggingPolicy);
+        delegate.setLoggingPolicy(loggingPolicy);
+    }
+
+    @Override
+    public void onResponse(Call<T> call, Response<T> response) {
+        delegate.onResponse(call, response);
+    }
+
+    @Override
+    public void onFailure(Call<T> call, Throwable t) {
+        delegate.onFailure(call, t);
+    }
+
+    @Override
+    protected void handleResponseData(T data) {
+    }
+
+    @Override
+    protected void handleError(Response<T> response) {
+    }
+
+    @Override
+    protected void handleException(Exception t) {
+    }
+}
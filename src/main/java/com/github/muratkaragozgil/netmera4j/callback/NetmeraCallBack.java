@@ -3,6 +3,7 @@ package com.github.muratkaragozgil.netmera4j.callback;
 import lombok.NoArgsConstructor;
 import com.github.muratkaragozgil.netmera4j.Netmera;
 import com.github.muratkaragozgil.netmera4j.exception.NetmeraError;
+import com.github.muratkaragozgil.netmera4j.logging.NetmeraLoggingPolicy;
 import okhttp3.ResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +27,7 @@ public abstract class NetmeraCallBack<T> implements Callback<T> {
     private int retryCount = 0;
 
     private Converter<ResponseBody, NetmeraError> errorConverter;
+    private NetmeraLoggingPolicy loggingPolicy = NetmeraLoggingPolicy.DEFAULT;
 
     public NetmeraCallBack(int totalRetryCount) {
         TOTAL_RETRIES = totalRetryCount;
@@ -35,11 +37,18 @@ public abstract class NetmeraCallBack<T> implements Callback<T> {
         this.errorConverter = errorConverter;
     }
 
+    public void setLoggingPolicy(NetmeraLoggingPolicy loggingPolicy) {
+        this.loggingPolicy = loggingPolicy;
+    }
+
     @Override
     public void onResponse(Call<T> call, Response<T> response) {
         this.call = call;
+        boolean logResponse = logger.isInfoEnabled() && loggingPolicy.sampleResponse();
         if (response.code() == 200) {
-            logger.info("ResponseData::{}", response.body());
+            if (logResponse) {
+                logger.info("ResponseData::{}", loggingPolicy.render(response.body()));
+            }
             handleResponseData(response.body());
         } else {
             if (response.errorBody() != null && errorConverter != null) {
@@ -58,7 +67,9 @@ public abstract class NetmeraCallBack<T> implements Callback<T> {
 
             handleError(response);
         }
-        logger.info("ResponseCode::{}", response.code());
+        if (logResponse) {
+            logger.info("ResponseCode::{}", response.code());
+        }
         handleResponseCode(response.code());
     }
 
@@ -0,0 +1,208 @@
+package com.github.muratkaragozgil.netmera4j.connection;
+
+import com.github.muratkaragozgil.netmera4j.metrics.NetmeraMetrics;
+import com.github.muratkaragozgil.netmera4j.model.api.NetmeraConcurrencyLimit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limit of the calls in flight which follows observed latencies with a gradient algorithm. Once per round trip the
+ * average latency of completed calls is compared with a baseline, the minimum latency of the last minute or so: while
+ * it stays within {@code tolerance} times the baseline the limit grows by about its square root, above it the limit
+ * shrinks in proportion. A call failing with a 5xx response
+ * or without a response multiplies the limit by {@code backoffRatio}, once per round trip. Tasks over the limit
+ * wait in a queue and the limit, in flight and queued counts are reported to {@link NetmeraMetrics}.
+ *
+ * @author Murat Karagözgil
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    // the baseline is the minimum of the current and the previous window, so it can rise when the network gets slower
+    private static final long BASELINE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final NetmeraConcurrencyLimit settings;
+    private final NetmeraMetrics metrics;
+    private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private long windowStartNanos;
+    private long windowMinNanos = Long.MAX_VALUE;
+    private long previousWindowMinNanos = Long.MAX_VALUE;
+    private long lastBackoffNanos = Long.MIN_VALUE;
+    private long roundStartNanos;
+    private long roundLatencyNanos;
+    private int roundSamples;
+    private int roundMaxInFlight;
+
+    public AdaptiveConcurrencyLimiter(NetmeraConcurrencyLimit settings, NetmeraMetrics metrics) {
+        this.settings = settings;
+        this.metrics = metrics;
+        this.limit = settings.getInitialLimit();
+        this.windowStartNanos = System.nanoTime();
+        this.roundStartNanos = windowStartNanos;
+    }
+
+    /**
+     * Runs {@code task} when the limit allows. Every submitted task must call {@link #finished(long, boolean)} or
+     * {@link #released()} once done.
+     */
+    public void submit(Runnable task) {
+        List<Runnable> promoted;
+        synchronized (this) {
+            pending.add(task);
+            promoted = promote();
+        }
+        report();
+        promoted.forEach(Runnable::run);
+    }
+
+    /**
+     * Blocks until the limit allows one more call, in turn with the submitted tasks. The caller must call
+     * {@link #finished(long, boolean)} or {@link #released()} once done.
+     *
+     * @throws InterruptedException if interrupted while waiting, no slot is held then
+     */
+    public void acquire() throws InterruptedException {
+        CountDownLatch acquired = new CountDownLatch(1);
+        Runnable task = acquired::countDown;
+        submit(task);
+        try {
+            acquired.await();
+        } catch (InterruptedException e) {
+            boolean queued;
+            synchronized (this) {
+                queued = pending.remove(task);
+            }
+            if (queued) {
+                report();
+            } else {
+                // promoted while being interrupted
+                released();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Releases the slot of a task and samples its latency.
+     *
+     * @param startNanos {@link System#nanoTime()} when the task was run
+     * @param dropped    whether the call failed with a 5xx response or without a response
+     */
+    public void finished(long startNanos, boolean dropped) {
+        long now = System.nanoTime();
+        List<Runnable> promoted;
+        synchronized (this) {
+            inFlight--;
+            sample(startNanos, now, dropped);
+            promoted = promote();
+        }
+        report();
+        promoted.forEach(Runnable::run);
+    }
+
+    /**
+     * Releases the slot of a task without sampling it, e.g. a canceled call.
+     */
+    public void released() {
+        List<Runnable> promoted;
+        synchronized (this) {
+            inFlight--;
+            promoted = promote();
+        }
+        report();
+        promoted.forEach(Runnable::run);
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return pending.size();
+    }
+
+    // must be called while holding the lock
+    private void sample(long startNanos, long now, boolean dropped) {
+        if (dropped) {
+            // calls started before the last backoff saw the old limit, they must not reduce it again
+            if (startNanos > lastBackoffNanos) {
+                lastBackoffNanos = now;
+                limit = clamp(limit * settings.getBackoffRatio());
+                startRound(now);
+            }
+            return;
+        }
+        long latencyNanos = Math.max(1, now - startNanos);
+        if (now - windowStartNanos > BASELINE_WINDOW_NANOS) {
+            windowStartNanos = now;
+            previousWindowMinNanos = windowMinNanos;
+            windowMinNanos = latencyNanos;
+        } else {
+            windowMinNanos = Math.min(windowMinNanos, latencyNanos);
+        }
+
+        // the limit changes once per round trip, samples of calls started with the same limit are averaged
+        roundLatencyNanos += latencyNanos;
+        roundSamples++;
+        roundMaxInFlight = Math.max(roundMaxInFlight, inFlight + 1);
+        long averageLatencyNanos = roundLatencyNanos / roundSamples;
+        if (now - roundStartNanos < averageLatencyNanos) {
+            return;
+        }
+        int maxInFlight = roundMaxInFlight;
+        startRound(now);
+        if (maxInFlight < limit / 2) {
+            // the limit is not reached, so the latency says nothing about it
+            return;
+        }
+        long baselineNanos = Math.min(windowMinNanos, previousWindowMinNanos);
+        double gradient = Math.max(0.5, Math.min(1.0, settings.getTolerance() * baselineNanos / (double) averageLatencyNanos));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        limit = clamp(limit * (1 - settings.getSmoothing()) + estimate * settings.getSmoothing());
+    }
+
+    private void startRound(long now) {
+        roundStartNanos = now;
+        roundLatencyNanos = 0;
+        roundSamples = 0;
+        roundMaxInFlight = 0;
+    }
+
+    private double clamp(double value) {
+        return Math.max(settings.getMinLimit(), Math.min(settings.getMaxLimit(), value));
+    }
+
+    // must be called while holding the lock, returned tasks are run after releasing it
+    private List<Runnable> promote() {
+        List<Runnable> promoted = new ArrayList<>(1);
+        while (inFlight < (int) limit && !pending.isEmpty()) {
+            promoted.add(pending.poll());
+            inFlight++;
+        }
+        return promoted;
+    }
+
+    private void report() {
+        if (metrics == NetmeraMetrics.NOOP) {
+            return;
+        }
+        int currentLimit;
+        int currentInFlight;
+        int queued;
+        synchronized (this) {
+            currentLimit = (int) limit;
+            currentInFlight = inFlight;
+            queued = pending.size();
+        }
+        metrics.concurrencyLimitUpdated(currentLimit, currentInFlight, queued);
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.muratkaragozgil.netmera4j.connection;
+
+import okhttp3.Dns;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Dns} which caches resolved addresses and refreshes them in background before they expire,
+ * so lookups on the request path never wait for the resolver after the first one.
+ * When a refresh fails the previous addresses are served until the next successful refresh. After
+ * {@link #shutdown()} expired addresses are served without a refresh.
+ *
+ * @author Murat Karagözgil
+ */
+public class CachingDns implements Dns {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingDns.class);
+
+    private final Dns delegate;
+    private final long ttlNanos;
+    private final Map<String, List<InetAddress>> addresses = new ConcurrentHashMap<>();
+    private final Map<String, Long> resolvedAt = new ConcurrentHashMap<>();
+    // hosts with a queued or running refresh, lookups of an expired host queue at most one
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService refresher;
+
+    public CachingDns(long ttl, TimeUnit unit) {
+        this(Dns.SYSTEM, ttl, unit);
+    }
+
+    public CachingDns(Dns delegate, long ttl, TimeUnit unit) {
+        this.delegate = delegate;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "netmera-dns-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // refresh at half ttl so cached entries are renewed before they expire
+        long period = Math.max(1, ttlNanos / 2);
+        refresher.scheduleWithFixedDelay(this::refreshAll, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+        List<InetAddress> cached = addresses.get(hostname);
+        if (cached != null) {
+            Long resolved = resolvedAt.get(hostname);
+            if (resolved != null && System.nanoTime() - resolved > ttlNanos) {
+                refreshInBackground(hostname);
+            }
+            return cached;
+        }
+        return resolve(hostname);
+    }
+
+    /**
+     * Resolves {@code hostname} synchronously and caches the result.
+     */
+    public List<InetAddress> resolve(String hostname) throws UnknownHostException {
+        List<InetAddress> resolved = delegate.lookup(hostname);
+        addresses.put(hostname, resolved);
+        resolvedAt.put(hostname, System.nanoTime());
+        return resolved;
+    }
+
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private void refreshInBackground(String hostname) {
+        if (refresher.isShutdown() || !refreshing.add(hostname)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    refresh(hostname);
+                } finally {
+                    refreshing.remove(hostname);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // shut down meanwhile, the cached addresses are served
+            refreshing.remove(hostname);
+        }
+    }
+
+    private void refreshAll() {
+        addresses.keySet().forEach(this::refresh);
+    }
+
+    private void refresh(String hostname) {
+        try {
+            resolve(hostname);
+        } catch (UnknownHostException | RuntimeException e) {
+            logger.warn("Dns refresh failed, serving stale addresses!::host::{}::{}", hostname, e.getMessage());
+        }
+    }
+}
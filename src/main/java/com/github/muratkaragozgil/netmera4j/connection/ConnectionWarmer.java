@@ -0,0 +1,106 @@
+package com.github.muratkaragozgil.netmera4j.connection;
+
+import okhttp3.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens pooled connections to the target host ahead of the first real request and keeps them alive
+ * with HEAD probes. Probes share the connection pool of the given client but skip its interceptors
+ * and event listeners, so they are neither retried nor recorded as api calls.
+ *
+ * @author Murat Karagözgil
+ */
+public class ConnectionWarmer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionWarmer.class);
+
+    private final OkHttpClient probeClient;
+    private final ConnectionPool connectionPool;
+    private final HttpUrl target;
+    private final int connections;
+    private ScheduledExecutorService prober;
+
+    public ConnectionWarmer(OkHttpClient client, HttpUrl target, int connections) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(connections);
+        dispatcher.setMaxRequestsPerHost(connections);
+        OkHttpClient.Builder builder = client.newBuilder()
+                .dispatcher(dispatcher)
+                .eventListener(EventListener.NONE);
+        builder.interceptors().clear();
+        builder.networkInterceptors().clear();
+        this.probeClient = builder.build();
+        this.connectionPool = client.connectionPool();
+        this.target = target.resolve("/");
+        this.connections = connections;
+    }
+
+    /**
+     * Resolves the target host and sends {@code connections} concurrent probes, waiting at most {@code timeout}.
+     *
+     * @return true if all probes completed in time
+     */
+    public boolean warmUp(long timeout, TimeUnit unit) throws InterruptedException {
+        if (probeClient.dns() instanceof CachingDns) {
+            try {
+                ((CachingDns) probeClient.dns()).resolve(target.host());
+            } catch (IOException e) {
+                logger.warn("WarmUp::host could not be resolved::{}::{}", target.host(), e.getMessage());
+            }
+        }
+        boolean completed = probe(connections).await(timeout, unit);
+        logger.info("WarmUp::completed::{}::pooledConnections::{}", completed, connectionPool.connectionCount());
+        return completed;
+    }
+
+    /**
+     * Keeps idle pooled connections alive by probing them every {@code interval}.
+     */
+    public synchronized void startProbes(long interval, TimeUnit unit) {
+        if (prober != null) {
+            return;
+        }
+        prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "netmera-keep-alive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        prober.scheduleWithFixedDelay(() -> probe(Math.max(1, Math.min(connections, connectionPool.idleConnectionCount()))), //
+                interval, interval, unit);
+    }
+
+    public synchronized void stopProbes() {
+        if (prober != null) {
+            prober.shutdownNow();
+            prober = null;
+        }
+    }
+
+    private CountDownLatch probe(int count) {
+        CountDownLatch latch = new CountDownLatch(count);
+        Request request = new Request.Builder().url(target).head().build();
+        for (int i = 0; i < count; i++) {
+            probeClient.newCall(request).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    logger.debug("Probe::failed::{}", e.getMessage());
+                    latch.countDown();
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    response.close();
+                    latch.countDown();
+                }
+            });
+        }
+        return latch;
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.muratkaragozgil.netmera4j.connection;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Round robin scheduler of calls from many tenants over one shared dispatcher.
+ * At most {@code maxRequests} calls run at the same time and a single tenant can hold at most
+ * {@code maxRequestsPerTenant} of them, the rest wait in per tenant queues which are served in turn.
+ *
+ * @author Murat Karagözgil
+ */
+public class FairTenantScheduler {
+
+    private final int maxRequests;
+    private final int maxRequestsPerTenant;
+    private final ArrayDeque<Tenant> readyTenants = new ArrayDeque<>();
+    private int running;
+
+    public FairTenantScheduler(int maxRequests, int maxRequestsPerTenant) {
+        this.maxRequests = maxRequests;
+        this.maxRequestsPerTenant = maxRequestsPerTenant;
+    }
+
+    public Tenant newTenant() {
+        return new Tenant();
+    }
+
+    public synchronized int runningCount() {
+        return running;
+    }
+
+    // must be called while holding the scheduler lock, returned tasks are run after releasing it
+    private List<Runnable> promote() {
+        List<Runnable> promoted = new ArrayList<>(1);
+        while (running < maxRequests && !readyTenants.isEmpty()) {
+            Tenant tenant = readyTenants.poll();
+            tenant.ready = false;
+            promoted.add(tenant.pending.poll());
+            tenant.running++;
+            running++;
+            tenant.markReadyIfPossible();
+        }
+        return promoted;
+    }
+
+    public final class Tenant {
+        private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+        private int running;
+        private boolean ready;
+
+        private Tenant() {
+        }
+
+        /**
+         * Runs {@code task} when this tenant gets its turn. Every submitted task must call {@link #finished()} once done.
+         */
+        public void submit(Runnable task) {
+            List<Runnable> promoted;
+            synchronized (FairTenantScheduler.this) {
+                pending.add(task);
+                markReadyIfPossible();
+                promoted = promote();
+            }
+            promoted.forEach(Runnable::run);
+        }
+
+        public void finished() {
+            List<Runnable> promoted;
+            synchronized (FairTenantScheduler.this) {
+                running--;
+                FairTenantScheduler.this.running--;
+                markReadyIfPossible();
+                promoted = promote();
+            }
+            promoted.forEach(Runnable::run);
+        }
+
+        public int queuedCount() {
+            synchronized (FairTenantScheduler.this) {
+                return pending.size();
+            }
+        }
+
+        private void markReadyIfPossible() {
+            if (!ready && !pending.isEmpty() && running < maxRequestsPerTenant) {
+                ready = true;
+                readyTenants.add(this);
+            }
+        }
+    }
+}
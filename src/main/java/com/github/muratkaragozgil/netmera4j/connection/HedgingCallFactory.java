@@ -0,0 +1,293 @@
+package com.github.muratkaragozgil.netmera4j.connection;
+
+import com.github.muratkaragozgil.netmera4j.metrics.LatencyHistogram;
+import com.github.muratkaragozgil.netmera4j.metrics.NetmeraMetrics;
+import com.github.muratkaragozgil.netmera4j.model.api.NetmeraHedging;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Timeout;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link Call.Factory} which hedges asynchronous GET calls. A second identical call is sent when the first one has no
+ * response after the configured latency percentile of its endpoint, the first response is delivered and the other call
+ * is canceled. Hedges are paid from a budget which every GET call refills by a fraction of a hedge, endpoints without
+ * enough latency samples yet are not hedged. Other methods are passed to the delegate as they are.
+ * <p>
+ * A call beaten by its hedge is recorded with the time it ran until it was canceled, so slow responses still count
+ * towards the percentile. {@link #shutdown()} stops the hedge timer.
+ *
+ * @author Murat Karagözgil
+ */
+public class HedgingCallFactory implements Call.Factory {
+
+    // latency samples of an endpoint before its percentile is trusted
+    private static final long MIN_SAMPLES = 20;
+    // latencies are kept for the current and the previous window, so the percentile follows the endpoint
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(60);
+    // unused budget is capped, so a quiet period cannot be followed by a burst of hedges
+    private static final double MAX_BUDGET = 10;
+
+    private final Call.Factory delegate;
+    private final NetmeraHedging settings;
+    private final NetmeraMetrics metrics;
+    private final Map<String, EndpointLatencies> endpoints = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "netmera-hedging");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private double budget;
+
+    public HedgingCallFactory(Call.Factory delegate, NetmeraHedging settings, NetmeraMetrics metrics) {
+        this.delegate = delegate;
+        this.settings = settings;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Call newCall(Request request) {
+        Call call = delegate.newCall(request);
+        return "GET".equals(request.method()) ? new HedgedCall(call) : call;
+    }
+
+    /**
+     * Stops the hedge timer. Calls in flight still complete, hedges which are not sent yet are dropped.
+     */
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private synchronized void refillBudget() {
+        budget = Math.min(MAX_BUDGET, budget + settings.getBudget());
+    }
+
+    private synchronized boolean spendBudget() {
+        if (budget < 1) {
+            return false;
+        }
+        budget--;
+        return true;
+    }
+
+    private EndpointLatencies endpoint(Request request) {
+        return endpoints.computeIfAbsent(request.url().encodedPath(), e -> new EndpointLatencies());
+    }
+
+    private final class EndpointLatencies {
+        private volatile LatencyHistogram current = new LatencyHistogram();
+        private volatile LatencyHistogram previous = new LatencyHistogram();
+        private volatile long windowStartNanos = System.nanoTime();
+
+        void record(long latencyNanos) {
+            long now = System.nanoTime();
+            if (now - windowStartNanos > WINDOW_NANOS) {
+                synchronized (this) {
+                    if (now - windowStartNanos > WINDOW_NANOS) {
+                        previous = current;
+                        current = new LatencyHistogram();
+                        windowStartNanos = now;
+                    }
+                }
+            }
+            current.record(latencyNanos);
+        }
+
+        /**
+         * @return milliseconds before a hedge is sent, -1 when there are not enough samples yet
+         */
+        long hedgeDelay() {
+            LatencyHistogram histogram = current.getTotalCount() >= MIN_SAMPLES ? current : previous;
+            if (histogram.getTotalCount() < MIN_SAMPLES) {
+                return -1;
+            }
+            long delay = TimeUnit.NANOSECONDS.toMillis(histogram.getValueAtPercentile(settings.getPercentile()));
+            return Math.max(settings.getMinDelay(), Math.min(settings.getMaxDelay(), delay));
+        }
+    }
+
+    private final class HedgedCall implements Call {
+        private final Call call;
+        private final AtomicBoolean executed = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private final AtomicInteger running = new AtomicInteger();
+        private volatile AttemptCallback primary;
+        private volatile AttemptCallback hedge;
+        private volatile ScheduledFuture<?> hedgeTimeout;
+        private volatile boolean canceled;
+        // failure of an attempt which finished while the other one was running or about to start
+        private volatile IOException failure;
+
+        private HedgedCall(Call call) {
+            this.call = call;
+        }
+
+        @Override
+        public Request request() {
+            return call.request();
+        }
+
+        @Override
+        public Response execute() throws IOException {
+            return call.execute();
+        }
+
+        @Override
+        public void enqueue(Callback responseCallback) {
+            if (!executed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Already Executed");
+            }
+            EndpointLatencies latencies = endpoint(call.request());
+            refillBudget();
+            running.incrementAndGet();
+            primary = new AttemptCallback(call, latencies, responseCallback);
+            long delay = latencies.hedgeDelay();
+            if (delay >= 0) {
+                try {
+                    hedgeTimeout = timer.schedule(() -> startHedge(latencies, responseCallback), delay, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    // the factory is shut down, the call is sent without a hedge
+                }
+            }
+            call.enqueue(primary);
+        }
+
+        private void startHedge(EndpointLatencies latencies, Callback responseCallback) {
+            // counted before the check, so a failure of the call in between waits for the hedge
+            running.incrementAndGet();
+            if (completed.get() || canceled || !spendBudget()) {
+                // the hedge is abandoned, a failure of the call in between is delivered now
+                attemptFailed(primary, null, responseCallback);
+                return;
+            }
+            Call hedgeCall = delegate.newCall(call.request());
+            hedge = new AttemptCallback(hedgeCall, latencies, responseCallback);
+            metrics.requestHedged(call.request().url().encodedPath());
+            hedgeCall.enqueue(hedge);
+        }
+
+        /**
+         * Delivers the last failure once no attempt is running anymore and no attempt succeeded.
+         *
+         * @param e failure of the attempt, null when a hedge was abandoned before it was sent
+         */
+        private void attemptFailed(AttemptCallback attempt, IOException e, Callback responseCallback) {
+            if (e != null) {
+                failure = e;
+            }
+            if (running.decrementAndGet() > 0) {
+                return;
+            }
+            IOException last = failure;
+            if (last != null && completed.compareAndSet(false, true)) {
+                complete(attempt);
+                responseCallback.onFailure(HedgedCall.this, last);
+            }
+        }
+
+        private void complete(AttemptCallback attempt) {
+            ScheduledFuture<?> timeout = hedgeTimeout;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            // the other attempt, or null when no hedge is sent
+            AttemptCallback other = attempt == primary ? hedge : primary;
+            if (other != null && other.finish()) {
+                if (other == primary) {
+                    // beaten by the hedge, it ran at least this long. Dropping it would make the percentile look
+                    // faster than the endpoint is, a hedge beaten by the call only ran for a part of the latency
+                    other.latencies.record(System.nanoTime() - other.startNanos);
+                }
+                other.attempt.cancel();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            ScheduledFuture<?> timeout = hedgeTimeout;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            call.cancel();
+            AttemptCallback hedgeAttempt = hedge;
+            if (hedgeAttempt != null) {
+                hedgeAttempt.attempt.cancel();
+            }
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed.get() || call.isExecuted();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled || call.isCanceled();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return call.timeout();
+        }
+
+        @Override
+        public Call clone() {
+            return new HedgedCall(call.clone());
+        }
+
+        private final class AttemptCallback implements Callback {
+            private final Call attempt;
+            private final EndpointLatencies latencies;
+            private final Callback responseCallback;
+            private final long startNanos = System.nanoTime();
+            private final AtomicBoolean finished = new AtomicBoolean();
+
+            private AttemptCallback(Call attempt, EndpointLatencies latencies, Callback responseCallback) {
+                this.attempt = attempt;
+                this.latencies = latencies;
+                this.responseCallback = responseCallback;
+            }
+
+            /**
+             * @return false if the attempt already finished
+             */
+            private boolean finish() {
+                return finished.compareAndSet(false, true);
+            }
+
+            @Override
+            public void onFailure(Call failedCall, IOException e) {
+                finish();
+                // a failure is only delivered when the other attempt is not running anymore
+                attemptFailed(this, e, responseCallback);
+            }
+
+            @Override
+            public void onResponse(Call respondedCall, Response response) throws IOException {
+                running.decrementAndGet();
+                // a loser is finished and its latency recorded by the winner
+                finish();
+                if (!completed.compareAndSet(false, true)) {
+                    response.close();
+                    return;
+                }
+                latencies.record(System.nanoTime() - startNanos);
+                complete(this);
+                responseCallback.onResponse(HedgedCall.this, response);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.muratkaragozgil.netmera4j.connection;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Timeout;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link Call.Factory} which passes calls through an {@link AdaptiveConcurrencyLimiter} and feeds their latencies and
+ * outcomes back to it. Asynchronous calls wait in the limiter queue, synchronous calls block the calling thread until
+ * the limit allows them. Retries of 5xx responses happen inside the call, so they count as a single sample.
+ *
+ * @author Murat Karagözgil
+ */
+public class LimitedCallFactory implements Call.Factory {
+
+    private final Call.Factory delegate;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public LimitedCallFactory(Call.Factory delegate, AdaptiveConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Call newCall(Request request) {
+        return new LimitedCall(delegate.newCall(request));
+    }
+
+    private final class LimitedCall implements Call {
+        private final Call call;
+        private final AtomicBoolean executed = new AtomicBoolean();
+
+        private LimitedCall(Call call) {
+            this.call = call;
+        }
+
+        @Override
+        public Request request() {
+            return call.request();
+        }
+
+        @Override
+        public Response execute() throws IOException {
+            if (!executed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Already Executed");
+            }
+            try {
+                limiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the concurrency limit");
+            }
+            long startNanos = System.nanoTime();
+            Response response;
+            try {
+                response = call.execute();
+            } catch (IOException e) {
+                if (call.isCanceled()) {
+                    limiter.released();
+                } else {
+                    limiter.finished(startNanos, true);
+                }
+                throw e;
+            } catch (RuntimeException | Error e) {
+                limiter.released();
+                throw e;
+            }
+            limiter.finished(startNanos, response.code() > 499);
+            return response;
+        }
+
+        @Override
+        public void enqueue(Callback responseCallback) {
+            if (!executed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Already Executed");
+            }
+            // a call canceled while waiting in the limiter queue is failed by okhttp as soon as it is enqueued
+            limiter.submit(() -> {
+                long startNanos = System.nanoTime();
+                call.enqueue(new Callback() {
+                    @Override
+                    public void onFailure(Call failedCall, IOException e) {
+                        if (call.isCanceled()) {
+                            limiter.released();
+                        } else {
+                            limiter.finished(startNanos, true);
+                        }
+                        responseCallback.onFailure(LimitedCall.this, e);
+                    }
+
+                    @Override
+                    public void onResponse(Call respondedCall, Response response) throws IOException {
+                        limiter.finished(startNanos, response.code() > 499);
+                        responseCallback.onResponse(LimitedCall.this, response);
+                    }
+                });
+            });
+        }
+
+        @Override
+        public void cancel() {
+            call.cancel();
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed.get() || call.isExecuted();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return call.isCanceled();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return call.timeout();
+        }
+
+        @Override
+        public Call clone() {
+            return new LimitedCall(call.clone());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.muratkaragozgil.netmera4j.connection;
+
+import com.github.muratkaragozgil.netmera4j.constant.NetmeraApiContants;
+import okhttp3.*;
+import okio.Timeout;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link Call.Factory} of a single tenant over a shared client. Adds the tenant api key to every request
+ * and passes asynchronous calls through the tenant queue of a {@link FairTenantScheduler}.
+ *
+ * @author Murat Karagözgil
+ */
+public class TenantCallFactory implements Call.Factory {
+
+    private final Call.Factory delegate;
+    private final String apiKey;
+    private final FairTenantScheduler.Tenant tenant;
+
+    public TenantCallFactory(Call.Factory delegate, String apiKey, FairTenantScheduler.Tenant tenant) {
+        this.delegate = delegate;
+        this.apiKey = apiKey;
+        this.tenant = tenant;
+    }
+
+    @Override
+    public Call newCall(Request request) {
+        return new TenantCall(delegate.newCall(request.newBuilder().header(NetmeraApiContants.NETMERA_HEADER_KEY, apiKey).build()));
+    }
+
+    private final class TenantCall implements Call {
+        private final Call call;
+        private final AtomicBoolean executed = new AtomicBoolean();
+
+        private TenantCall(Call call) {
+            this.call = call;
+        }
+
+        @Override
+        public Request request() {
+            return call.request();
+        }
+
+        @Override
+        public Response execute() throws IOException {
+            return call.execute();
+        }
+
+        @Override
+        public void enqueue(Callback responseCallback) {
+            if (!executed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Already Executed");
+            }
+            // a call canceled while waiting in the tenant queue is failed by okhttp as soon as it is enqueued
+            tenant.submit(() -> call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call failedCall, IOException e) {
+                    try {
+                        responseCallback.onFailure(TenantCall.this, e);
+                    } finally {
+                        tenant.finished();
+                    }
+                }
+
+                @Override
+                public void onResponse(Call respondedCall, Response response) throws IOException {
+                    try {
+                        responseCallback.onResponse(TenantCall.this, response);
+                    } finally {
+                        tenant.finished();
+                    }
+                }
+            }));
+        }
+
+        @Override
+        public void cancel() {
+            call.cancel();
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed.get() || call.isExecuted();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return call.isCanceled();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return call.timeout();
+        }
+
+        @Override
+        public Call clone() {
+            return new TenantCall(call.clone());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.github.muratkaragozgil.netmera4j.constant;
 
-import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * @author Murat Karagözgil
@@ -13,6 +15,14 @@ public enum Platform {
     MACOS("MACOS"),
     FIREFOX("FIREFOX");
 
+    private static final Map<String, Platform> BY_NAME = new HashMap<>();
+
+    static {
+        for (Platform value : values()) {
+            BY_NAME.put(value.name.toUpperCase(Locale.ROOT), value);
+        }
+    }
+
     private String name;
 
     Platform(String name) {
@@ -20,9 +30,10 @@ public enum Platform {
     }
 
     public static Platform getPlatform(String name) {
-        return Arrays.stream(values())
-                .filter(bl -> bl.name.equalsIgnoreCase(name))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Unknown platform identifier. [" + name + "]"));
+        Platform value = name == null ? null : BY_NAME.get(name.toUpperCase(Locale.ROOT));
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown platform identifier. [" + name + "]");
+        }
+        return value;
     }
 }
\ No newline at end of file
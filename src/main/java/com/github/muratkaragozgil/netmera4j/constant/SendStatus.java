@@ -1,6 +1,8 @@
 package com.github.muratkaragozgil.netmera4j.constant;
 
-import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * @author Murat Karagözgil
@@ -13,6 +15,14 @@ public enum SendStatus {
     DEACTIVE("DEACTIVE"),
     STOPPED("STOPPED");
 
+    private static final Map<String, SendStatus> BY_NAME = new HashMap<>();
+
+    static {
+        for (SendStatus value : values()) {
+            BY_NAME.put(value.name.toUpperCase(Locale.ROOT), value);
+        }
+    }
+
     private String name;
 
     SendStatus(String name) {
@@ -20,9 +30,10 @@ public enum SendStatus {
     }
 
     public static SendStatus getSendStatus(String name) {
-        return Arrays.stream(values())
-                .filter(bl -> bl.name.equalsIgnoreCase(name))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Unknown send status identifier. [" + name + "]"));
+        SendStatus value = name == null ? null : BY_NAME.get(name.toUpperCase(Locale.ROOT));
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown send status identifier. [" + name + "]");
+        }
+        return value;
     }
 }
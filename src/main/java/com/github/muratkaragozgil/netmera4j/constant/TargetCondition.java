@@ -1,6 +1,8 @@
 package com.github.muratkaragozgil.netmera4j.constant;
 
-import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * @author Murat Karagözgil
@@ -10,6 +12,14 @@ public enum TargetCondition {
     OR("$or"),
     NOT("$not");
 
+    private static final Map<String, TargetCondition> BY_NAME = new HashMap<>();
+
+    static {
+        for (TargetCondition value : values()) {
+            BY_NAME.put(value.name.toUpperCase(Locale.ROOT), value);
+        }
+    }
+
     private String name;
 
     TargetCondition(String name) {
@@ -21,10 +31,11 @@ public enum TargetCondition {
     }
 
     public static TargetCondition getTargetCondition(String name) {
-        return Arrays.stream(values())
-                .filter(bl -> bl.name.equalsIgnoreCase(name))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Unknown target condition identifier. [" + name + "]"));
+        TargetCondition value = name == null ? null : BY_NAME.get(name.toUpperCase(Locale.ROOT));
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown target condition identifier. [" + name + "]");
+        }
+        return value;
     }
 
     @Override
@@ -0,0 +1,60 @@
+package com.github.muratkaragozgil.netmera4j.geofence;
+
+import com.github.muratkaragozgil.netmera4j.constant.RadiusUnit;
+import com.github.muratkaragozgil.netmera4j.request.notification.CreateGeofenceRequest;
+
+/**
+ * Circle of a created geofence with its radius in meters.
+ *
+ * @author Murat Karagözgil
+ */
+final class Fence {
+    private static final double EARTH_RADIUS = 6371008.8;
+
+    final String title;
+    final double latitude;
+    final double longitude;
+    final double radius;
+
+    Fence(String title, double latitude, double longitude, double radius) {
+        this.title = title;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.radius = radius;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the request has no center or radius
+     */
+    static Fence of(CreateGeofenceRequest request) {
+        if (request.getLatitude() == null || request.getLongitude() == null || request.getRadius() == null) {
+            throw new IllegalArgumentException("Geofence " + request.getTitle() + " has no center or radius");
+        }
+        return new Fence(request.getTitle(), request.getLatitude(), request.getLongitude(), toMeters(request.getRadius(), request.getUnit()));
+    }
+
+    /**
+     * @param unit meters when null
+     */
+    static double toMeters(double radius, RadiusUnit unit) {
+        if (unit == RadiusUnit.KM) {
+            return radius * 1000;
+        }
+        if (unit == RadiusUnit.Miles) {
+            return radius * 1609.344;
+        }
+        return radius;
+    }
+
+    /**
+     * @return great circle distance between the centers in meters
+     */
+    double distance(Fence other) {
+        double latitudeDelta = Math.toRadians(other.latitude - latitude);
+        double longitudeDelta = Math.toRadians(other.longitude - longitude);
+        double a = Math.sin(latitudeDelta / 2) * Math.sin(latitudeDelta / 2)
+                + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(other.latitude))
+                * Math.sin(longitudeDelta / 2) * Math.sin(longitudeDelta / 2);
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
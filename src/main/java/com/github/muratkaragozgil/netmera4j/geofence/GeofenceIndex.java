@@ -0,0 +1,186 @@
+package com.github.muratkaragozgil.netmera4j.geofence;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grid index of created geofences. Fences are kept in the cell of their center, cells are {@code cellSize} meters
+ * high and as many degrees wide as high. A search looks at the cells within its radius plus the largest radius kept
+ * in the grid. Fences with a radius of more than a few cells are kept in a separate list which every search scans,
+ * so a few large fences do not widen the searches around all the small ones.
+ * <p>
+ * Not thread safe.
+ *
+ * @author Murat Karagözgil
+ */
+final class GeofenceIndex {
+    private static final int MAGIC = 0x4E4D4746;
+    private static final int VERSION = 1;
+    private static final double METERS_PER_DEGREE = 111320;
+    private static final int LARGE_RADIUS_CELLS = 4;
+
+    private final double cellDegrees;
+    private final int longitudeCells;
+    private final double largeRadius;
+    private final Map<Long, List<Fence>> cells = new HashMap<>();
+    private final List<Fence> large = new ArrayList<>();
+    private double maxRadius;
+    private int size;
+
+    GeofenceIndex(double cellSize) {
+        this.cellDegrees = cellSize / METERS_PER_DEGREE;
+        this.longitudeCells = (int) Math.ceil(360 / cellDegrees);
+        this.largeRadius = LARGE_RADIUS_CELLS * cellSize;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(Fence fence) {
+        if (fence.radius > largeRadius) {
+            large.add(fence);
+        } else {
+            cells.computeIfAbsent(key(latitudeCell(fence.latitude), longitudeCell(fence.longitude)), key -> new ArrayList<>(2)).add(fence);
+            maxRadius = Math.max(maxRadius, fence.radius);
+        }
+        size++;
+    }
+
+    void remove(Fence fence) {
+        if (fence.radius > largeRadius) {
+            if (large.remove(fence)) {
+                size--;
+            }
+            return;
+        }
+        long key = key(latitudeCell(fence.latitude), longitudeCell(fence.longitude));
+        List<Fence> cell = cells.get(key);
+        if (cell != null && cell.remove(fence)) {
+            size--;
+            if (cell.isEmpty()) {
+                cells.remove(key);
+            }
+        }
+    }
+
+    /**
+     * @param tolerance meters a fence may stick out of a covering fence
+     * @return a fence which covers the given one, null when there is none
+     */
+    Fence findCovering(Fence fence, double tolerance) {
+        // a fence larger than every fence of the grid is covered by a large one only
+        List<Fence> candidates = fence.radius > maxRadius + tolerance ? large : candidates(fence);
+        for (Fence candidate : candidates) {
+            if (fence.distance(candidate) + fence.radius <= candidate.radius + tolerance) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return a fence which intersects the given one, null when there is none
+     */
+    Fence findOverlapping(Fence fence) {
+        for (Fence candidate : candidates(fence)) {
+            if (fence.distance(candidate) < fence.radius + candidate.radius) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private List<Fence> candidates(Fence fence) {
+        List<Fence> candidates = new ArrayList<>(large);
+        double latitudeRange = (fence.radius + maxRadius) / METERS_PER_DEGREE;
+        // degrees of longitude get shorter towards the poles
+        double widestLatitude = Math.min(89.9, Math.abs(fence.latitude) + latitudeRange);
+        double longitudeRange = latitudeRange / Math.cos(Math.toRadians(widestLatitude));
+        int fromLatitude = latitudeCell(Math.max(-90, fence.latitude - latitudeRange));
+        int toLatitude = latitudeCell(Math.min(90, fence.latitude + latitudeRange));
+        int longitudeCellRange = Math.min(longitudeCells / 2, (int) Math.ceil(longitudeRange / cellDegrees));
+        int centerLongitude = longitudeCell(fence.longitude);
+        for (int latitude = fromLatitude; latitude <= toLatitude; latitude++) {
+            for (int offset = -longitudeCellRange; offset <= longitudeCellRange; offset++) {
+                // wraps around the antimeridian
+                int longitude = Math.floorMod(centerLongitude + offset, longitudeCells);
+                List<Fence> cell = cells.get(key(latitude, longitude));
+                if (cell != null) {
+                    candidates.addAll(cell);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private int latitudeCell(double latitude) {
+        return (int) Math.floor(latitude / cellDegrees);
+    }
+
+    private int longitudeCell(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), longitudeCells);
+    }
+
+    private static long key(int latitudeCell, int longitudeCell) {
+        return (long) latitudeCell << 32 | longitudeCell & 0xFFFFFFFFL;
+    }
+
+    /**
+     * @return index of the fences in the file, an empty one when the file does not exist
+     */
+    static GeofenceIndex load(Path path, double cellSize) throws IOException {
+        GeofenceIndex index = new GeofenceIndex(cellSize);
+        if (!Files.exists(path)) {
+            return index;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a geofence index: " + path);
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String title = in.readBoolean() ? in.readUTF() : null;
+                index.add(new Fence(title, in.readDouble(), in.readDouble(), in.readDouble()));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Writes the fences to a temporary file and moves it over the index.
+     */
+    void save(Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(size);
+            for (List<Fence> cell : cells.values()) {
+                for (Fence fence : cell) {
+                    write(out, fence);
+                }
+            }
+            for (Fence fence : large) {
+                write(out, fence);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void write(DataOutputStream out, Fence fence) throws IOException {
+        out.writeBoolean(fence.title != null);
+        if (fence.title != null) {
+            out.writeUTF(fence.title);
+        }
+        out.writeDouble(fence.latitude);
+        out.writeDouble(fence.longitude);
+        out.writeDouble(fence.radius);
+    }
+}
@@ -0,0 +1,265 @@
+package com.github.muratkaragozgil.netmera4j.geofence;
+
+import com.github.muratkaragozgil.netmera4j.Netmera;
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.request.notification.CreateGeofenceRequest;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates geofences in bulk and skips the ones which duplicate an already created fence.
+ * <p>
+ * Created fences are kept in a grid index which is stored in a local file, so a re-run with mostly the same fences
+ * creates only the new ones. A fence is skipped when an indexed fence covers it, with {@code tolerance} meters
+ * of slack for slightly moved centers, or with {@code skipOverlapping} when it intersects an indexed fence at all.
+ * Fences of the same run are indexed as they are sent and deduplicated against each other, failed ones are removed
+ * from the index again. At most {@code maxInFlight} calls are in flight at the same time.
+ *
+ * @author Murat Karagözgil
+ */
+public class GeofenceManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeofenceManager.class);
+
+    private final Netmera netmera;
+    private final Path indexPath;
+    private final double tolerance;
+    private final boolean skipOverlapping;
+    private final int maxInFlight;
+    private final GeofenceIndex index;
+
+    private GeofenceManager(GeofenceManagerBuilder geofenceManagerBuilder) throws IOException {
+        this.netmera = geofenceManagerBuilder.netmera;
+        this.indexPath = geofenceManagerBuilder.index;
+        this.tolerance = geofenceManagerBuilder.tolerance;
+        this.skipOverlapping = geofenceManagerBuilder.skipOverlapping;
+        this.maxInFlight = geofenceManagerBuilder.maxInFlight;
+        this.index = indexPath == null ? new GeofenceIndex(geofenceManagerBuilder.cellSize)
+                : GeofenceIndex.load(indexPath, geofenceManagerBuilder.cellSize);
+    }
+
+    /**
+     * @return number of created fences in the index
+     */
+    public int size() {
+        synchronized (index) {
+            return index.size();
+        }
+    }
+
+    /**
+     * Creates the fences which are not duplicates. The calling thread blocks while {@code maxInFlight} calls are in
+     * flight, the returned future completes when every call has completed and the index is saved.
+     *
+     * @throws IllegalArgumentException if a fence has no center or radius
+     */
+    public CompletableFuture<GeofenceSyncResult> create(List<CreateGeofenceRequest> fences) {
+        Assert.notNull(fences, "Fences");
+        // validated before the first call, so an invalid fence does not stop a run half way
+        List<Fence> circles = new ArrayList<>(fences.size());
+        for (CreateGeofenceRequest request : fences) {
+            circles.add(Fence.of(request));
+        }
+        Run run = new Run(fences.size());
+        try {
+            for (int i = 0; i < fences.size(); i++) {
+                CreateGeofenceRequest request = fences.get(i);
+                Fence fence = circles.get(i);
+                synchronized (index) {
+                    Fence duplicate = skipOverlapping ? index.findOverlapping(fence) : index.findCovering(fence, tolerance);
+                    if (duplicate != null) {
+                        run.skipped.incrementAndGet();
+                        logger.debug("GeofenceManager::skipped::{}::duplicate of::{}", fence.title, duplicate.title);
+                        continue;
+                    }
+                    index.add(fence);
+                }
+                run.send(request, fence);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.result.completeExceptionally(e);
+        }
+        run.finish();
+        return run.result;
+    }
+
+    private final class Run {
+        private final int requested;
+        private final Semaphore permits = new Semaphore(maxInFlight);
+        // the producer holds one pending slot until all fences are sent
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final AtomicInteger created = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final List<CreateGeofenceRequest> failedFences = Collections.synchronizedList(new ArrayList<>());
+        private final CompletableFuture<GeofenceSyncResult> result = new CompletableFuture<>();
+
+        private Run(int requested) {
+            this.requested = requested;
+        }
+
+        private void send(CreateGeofenceRequest request, Fence fence) throws InterruptedException {
+            permits.acquire();
+            pending.incrementAndGet();
+            FenceCallBack callBack = new FenceCallBack(request, fence);
+            try {
+                netmera.sendRequest(request, callBack);
+            } catch (RuntimeException e) {
+                logger.error("GeofenceManager::send::{}::{}", fence.title, e.toString());
+                callBack.completed(false);
+            }
+        }
+
+        private void completed(CreateGeofenceRequest request, Fence fence, boolean successful) {
+            if (successful) {
+                created.incrementAndGet();
+            } else {
+                failedFences.add(request);
+                synchronized (index) {
+                    index.remove(fence);
+                }
+            }
+            permits.release();
+            finish();
+        }
+
+        private void finish() {
+            if (pending.decrementAndGet() != 0) {
+                return;
+            }
+            if (indexPath != null) {
+                try {
+                    synchronized (index) {
+                        index.save(indexPath);
+                    }
+                } catch (IOException e) {
+                    logger.error("GeofenceManager::index not saved::{}", e.getMessage());
+                    result.completeExceptionally(e);
+                    return;
+                }
+            }
+            result.complete(new GeofenceSyncResult(requested, created.get(), skipped.get(), new ArrayList<>(failedFences)));
+        }
+
+        private final class FenceCallBack extends NetmeraCallBack<Void> {
+            private final CreateGeofenceRequest request;
+            private final Fence fence;
+            private final AtomicBoolean completed = new AtomicBoolean();
+
+            private FenceCallBack(CreateGeofenceRequest request, Fence fence) {
+                this.request = request;
+                this.fence = fence;
+            }
+
+            @Override
+            public void onFailure(Call<Void> call, Throwable t) {
+                super.onFailure(call, t);
+                if (!(t instanceof Exception)) {
+                    completed(false);
+                }
+            }
+
+            @Override
+            protected void handleResponseCode(int httpStatus) {
+                completed(httpStatus == 200);
+            }
+
+            @Override
+            protected void handleResponseData(Void data) {
+            }
+
+            @Override
+            protected void handleError(Response<Void> response) {
+            }
+
+            @Override
+            protected void handleException(Exception t) {
+                completed(false);
+            }
+
+            private void completed(boolean successful) {
+                if (completed.compareAndSet(false, true)) {
+                    Run.this.completed(request, fence, successful);
+                }
+            }
+        }
+    }
+
+    public static final class GeofenceManagerBuilder {
+        private final Netmera netmera;
+        private Path index;
+        private double tolerance = 25;
+        private boolean skipOverlapping;
+        private int maxInFlight = 4;
+        private double cellSize = 1000;
+
+        public GeofenceManagerBuilder(Netmera netmera) {
+            Assert.notNull(netmera, "Netmera");
+            this.netmera = netmera;
+        }
+
+        /**
+         * @param index file of the created fences, loaded when the manager is built and saved after every run
+         */
+        public GeofenceManagerBuilder index(Path index) {
+            Assert.notNull(index, "Index");
+            this.index = index;
+            return this;
+        }
+
+        /**
+         * @param tolerance meters a fence may stick out of an indexed fence and still be a duplicate of it
+         */
+        public GeofenceManagerBuilder tolerance(double tolerance) {
+            Assert.mustBetween(0.0, 100000.0, tolerance, "Tolerance");
+            this.tolerance = tolerance;
+            return this;
+        }
+
+        /**
+         * @param skipOverlapping whether fences which intersect an indexed fence are skipped too
+         */
+        public GeofenceManagerBuilder skipOverlapping(boolean skipOverlapping) {
+            this.skipOverlapping = skipOverlapping;
+            return this;
+        }
+
+        /**
+         * @param maxInFlight maximum number of calls in flight
+         */
+        public GeofenceManagerBuilder maxInFlight(int maxInFlight) {
+            Assert.mustBetween(1, 1000, maxInFlight, "Max In Flight");
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * @param cellSize meters of a grid cell, about the typical fence radius
+         */
+        public GeofenceManagerBuilder cellSize(double cellSize) {
+            Assert.mustBetween(10.0, 1000000.0, cellSize, "Cell Size");
+            this.cellSize = cellSize;
+            return this;
+        }
+
+        /**
+         * @throws IOException if the index file can not be read
+         */
+        public GeofenceManager build() throws IOException {
+            return new GeofenceManager(this);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.muratkaragozgil.netmera4j.geofence;
+
+import com.github.muratkaragozgil.netmera4j.request.notification.CreateGeofenceRequest;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Outcome of a {@link GeofenceManager} run.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@ToString(exclude = "failedFences")
+public class GeofenceSyncResult {
+    private final int requested;
+    private final int created;
+    private final int skipped;
+    private final int failed;
+    private final List<CreateGeofenceRequest> failedFences;
+
+    GeofenceSyncResult(int requested, int created, int skipped, List<CreateGeofenceRequest> failedFences) {
+        this.requested = requested;
+        this.created = created;
+        this.skipped = skipped;
+        this.failed = failedFences.size();
+        this.failedFences = failedFences;
+    }
+
+    public boolean isSuccessful() {
+        return failed == 0;
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.muratkaragozgil.netmera4j.importer;
+
+import com.github.muratkaragozgil.netmera4j.constant.Platform;
+import com.github.muratkaragozgil.netmera4j.model.device.NewDevice;
+import com.github.muratkaragozgil.netmera4j.model.device.UserAndProfileAttributeMap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Column conventions of {@link ImportRowMapper#DEFAULT}.
+ *
+ * @author Murat Karagözgil
+ */
+final class DefaultImportRowMapper implements ImportRowMapper {
+
+    private static final String PROFILE_PREFIX = "profile.";
+    private static final Pattern TAG_SEPARATOR = Pattern.compile("\\|");
+
+    @Override
+    public void map(ImportRow row, Sink sink) {
+        String extId = row.getString("extId");
+        String deviceToken = row.getString("deviceToken");
+        if (deviceToken != null) {
+            sink.device(NewDevice.builder()
+                    .deviceToken(deviceToken)
+                    .platform(Platform.getPlatform(row.getString("platform")))
+                    .extId(extId)
+                    .email(row.getString("email"))
+                    .build());
+        }
+        if (extId == null) {
+            return;
+        }
+
+        Map<String, Object> profile = new LinkedHashMap<>();
+        Object profileObject = row.get("profile");
+        if (profileObject instanceof Map) {
+            ((Map<?, ?>) profileObject).forEach((key, value) -> profile.put(String.valueOf(key), value));
+        }
+        for (String column : row.getColumns()) {
+            Object value = row.get(column);
+            // empty csv fields are missing values, not empty strings
+            if (column.startsWith(PROFILE_PREFIX) && value != null && !"".equals(value)) {
+                profile.put(column.substring(PROFILE_PREFIX.length()), value);
+            }
+        }
+        if (!profile.isEmpty()) {
+            sink.profile(new UserAndProfileAttributeMap(extId, profile));
+        }
+
+        Object tags = row.get("tags");
+        if (tags instanceof Iterable) {
+            for (Object tag : (Iterable<?>) tags) {
+                if (tag != null) {
+                    sink.tag(tag.toString(), extId);
+                }
+            }
+        } else if (tags != null) {
+            for (String tag : TAG_SEPARATOR.split(tags.toString())) {
+                if (!tag.isEmpty()) {
+                    sink.tag(tag, extId);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.muratkaragozgil.netmera4j.importer;
+
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Progress of an import: every record before {@code offset} is imported, and of the chunks after it the listed
+ * batches are. Chunks and their batches are the same for every run of a file with the same chunk and batch size,
+ * so a resumed run skips exactly the batches which were sent.
+ *
+ * @author Murat Karagözgil
+ */
+final class ImportCheckpoint {
+
+    private final Path path;
+    private final int chunkSize;
+    private final int batchSize;
+    private long offset;
+    private final Map<Long, BitSet> completedBatches = new TreeMap<>();
+
+    private ImportCheckpoint(Path path, int chunkSize, int batchSize) {
+        this.path = path;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return checkpoint of the previous run, an empty one when the file does not exist
+     */
+    static ImportCheckpoint load(Path path, int chunkSize, int batchSize) throws IOException {
+        ImportCheckpoint checkpoint = new ImportCheckpoint(path, chunkSize, batchSize);
+        if (!Files.exists(path)) {
+            return checkpoint;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        }
+        try {
+            Assert.state(Integer.parseInt(properties.getProperty("chunkSize")) == chunkSize
+                            && Integer.parseInt(properties.getProperty("batchSize")) == batchSize,
+                    "Checkpoint %s was written with another chunk or batch size", path);
+            checkpoint.offset = Long.parseLong(properties.getProperty("offset"));
+            for (String name : properties.stringPropertyNames()) {
+                if (name.startsWith("chunk.")) {
+                    BitSet batches = new BitSet();
+                    for (String index : properties.getProperty(name).split(",")) {
+                        batches.set(Integer.parseInt(index));
+                    }
+                    checkpoint.completedBatches.put(Long.parseLong(name.substring("chunk.".length())), batches);
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Not an import checkpoint: " + path, e);
+        }
+        return checkpoint;
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return batches of the chunk imported by the previous run, empty when there are none
+     */
+    BitSet getCompletedBatches(long chunk) {
+        BitSet batches = completedBatches.get(chunk);
+        return batches == null ? new BitSet() : (BitSet) batches.clone();
+    }
+
+    /**
+     * Writes the progress to a temporary file and moves it over the checkpoint, so a crash leaves either the
+     * previous or the new checkpoint.
+     */
+    void save(long offset, Map<Long, BitSet> completedBatches) throws IOException {
+        this.offset = offset;
+        this.completedBatches.clear();
+        Properties properties = new Properties();
+        properties.setProperty("offset", Long.toString(offset));
+        properties.setProperty("chunkSize", Integer.toString(chunkSize));
+        properties.setProperty("batchSize", Integer.toString(batchSize));
+        for (Map.Entry<Long, BitSet> chunk : completedBatches.entrySet()) {
+            if (!chunk.getValue().isEmpty()) {
+                this.completedBatches.put(chunk.getKey(), (BitSet) chunk.getValue().clone());
+                String batches = chunk.getValue().toString();
+                properties.setProperty("chunk." + chunk.getKey(), batches.substring(1, batches.length() - 1).replace(" ", ""));
+            }
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            properties.store(out, "netmera4j import checkpoint");
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
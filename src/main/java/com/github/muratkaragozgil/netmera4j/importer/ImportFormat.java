@@ -0,0 +1,17 @@
+package com.github.muratkaragozgil.netmera4j.importer;
+
+/**
+ * Formats of files read by {@link ImportPipeline}.
+ *
+ * @author Murat Karagözgil
+ */
+public enum ImportFormat {
+    /**
+     * Comma separated values with a header row of column names, fields may be quoted as in RFC 4180.
+     */
+    CSV,
+    /**
+     * One json object per line.
+     */
+    NDJSON
+}
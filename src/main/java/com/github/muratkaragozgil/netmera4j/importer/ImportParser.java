@@ -0,0 +1,201 @@
+package com.github.muratkaragozgil.netmera4j.importer;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits file content into records and parses them to {@link ImportRow}s. Chunks always start at a record boundary,
+ * so line breaks inside quoted csv fields can be told apart by scanning a chunk from its start.
+ *
+ * @author Murat Karagözgil
+ */
+final class ImportParser {
+
+    private static final Gson GSON = new Gson();
+
+    private final ImportFormat format;
+    private final List<String> header;
+
+    /**
+     * @param header column names of csv files, ignored for ndjson
+     */
+    ImportParser(ImportFormat format, List<String> header) {
+        this.format = format;
+        this.header = header;
+    }
+
+    /**
+     * @param first whether the end of the first record is returned instead of the last one
+     * @return end of the last complete record in the bytes, after its line break, -1 when there is none
+     */
+    static int recordEnd(ImportFormat format, byte[] bytes, int length, boolean first) {
+        int end = -1;
+        boolean quoted = false;
+        for (int i = 0; i < length; i++) {
+            byte b = bytes[i];
+            if (b == '"' && format == ImportFormat.CSV) {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                end = i + 1;
+                if (first) {
+                    break;
+                }
+            }
+        }
+        return end;
+    }
+
+    static List<String> parseHeader(byte[] bytes, int length) {
+        List<List<String>> records = new ArrayList<>(1);
+        parseCsv(new String(bytes, 0, length, StandardCharsets.UTF_8), records::add);
+        return records.isEmpty() ? new ArrayList<>() : records.get(0);
+    }
+
+    void parse(byte[] bytes, int length, RowHandler handler) {
+        String content = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        if (format == ImportFormat.CSV) {
+            parseCsv(content, fields -> {
+                if (fields.size() != header.size()) {
+                    handler.rejected("Expected " + header.size() + " fields but found " + fields.size());
+                    return;
+                }
+                Map<String, Object> values = new LinkedHashMap<>(header.size() * 2);
+                for (int i = 0; i < fields.size(); i++) {
+                    values.put(header.get(i), fields.get(i));
+                }
+                handler.row(new ImportRow(values));
+            });
+            return;
+        }
+        int start = 0;
+        while (start < content.length()) {
+            int end = content.indexOf('\n', start);
+            if (end < 0) {
+                end = content.length();
+            }
+            String line = content.substring(start, end).trim();
+            start = end + 1;
+            if (line.isEmpty()) {
+                continue;
+            }
+            try {
+                JsonElement json = GSON.fromJson(line, JsonElement.class);
+                if (!json.isJsonObject()) {
+                    handler.rejected("Not a json object");
+                    continue;
+                }
+                handler.row(new ImportRow(toMap(json.getAsJsonObject())));
+            } catch (JsonParseException e) {
+                handler.rejected(e.getMessage());
+            }
+        }
+    }
+
+    private static void parseCsv(String content, RecordHandler handler) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean empty = true;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < content.length() && content.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"':
+                    quoted = true;
+                    empty = false;
+                    break;
+                case ',':
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    empty = false;
+                    break;
+                case '\r':
+                    break;
+                case '\n':
+                    if (!empty) {
+                        fields.add(field.toString());
+                        handler.record(fields);
+                        fields = new ArrayList<>(fields.size());
+                    }
+                    field.setLength(0);
+                    empty = true;
+                    break;
+                default:
+                    field.append(c);
+                    empty = false;
+            }
+        }
+        if (!empty) {
+            fields.add(field.toString());
+            handler.record(fields);
+        }
+    }
+
+    private static Map<String, Object> toMap(JsonObject object) {
+        Map<String, Object> values = new LinkedHashMap<>(object.size() * 2);
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+            values.put(entry.getKey(), toValue(entry.getValue()));
+        }
+        return values;
+    }
+
+    private static Object toValue(JsonElement element) {
+        if (element.isJsonObject()) {
+            return toMap(element.getAsJsonObject());
+        }
+        if (element.isJsonArray()) {
+            JsonArray array = element.getAsJsonArray();
+            List<Object> values = new ArrayList<>(array.size());
+            for (JsonElement value : array) {
+                values.add(toValue(value));
+            }
+            return values;
+        }
+        if (element.isJsonNull()) {
+            return null;
+        }
+        JsonPrimitive primitive = element.getAsJsonPrimitive();
+        if (primitive.isBoolean()) {
+            return primitive.getAsBoolean();
+        }
+        if (primitive.isNumber()) {
+            // integral numbers stay integral, gson would read every number as a double
+            String number = primitive.getAsString();
+            return number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0
+                    ? (Object) Long.parseLong(number) : (Object) Double.parseDouble(number);
+        }
+        return primitive.getAsString();
+    }
+
+    interface RowHandler {
+
+        void row(ImportRow row);
+
+        void rejected(String reason);
+    }
+
+    private interface RecordHandler {
+
+        void record(List<String> fields);
+    }
+}
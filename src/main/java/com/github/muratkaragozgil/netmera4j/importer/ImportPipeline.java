@@ -0,0 +1,578 @@
+package com.github.muratkaragozgil.netmera4j.importer;
+
+import com.github.muratkaragozgil.netmera4j.Netmera;
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.model.device.NewDevice;
+import com.github.muratkaragozgil.netmera4j.model.device.UserAndProfileAttributeMap;
+import com.github.muratkaragozgil.netmera4j.request.device.AddNewDevicesRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.AddProfileAttributeRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.AddTagToUsersRequest;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Imports devices, profile attributes and tags from a csv or ndjson file.
+ * <p>
+ * The calling thread reads the file in chunks of about {@code chunkSize} bytes which end at a record boundary, up
+ * to {@code parallelism} chunks are parsed and mapped at the same time. Rows of a chunk are sent in batches of at
+ * most {@code batchSize} devices, profiles or users of a tag, and at most {@code maxInFlight} calls are in flight at
+ * the same time. The profile and tag batches of a chunk are sent once its device batches have completed, so that
+ * they find their users; the device batches of the next chunk wait until then.
+ * <p>
+ * With a checkpoint file the progress is written after every completed batch. A failed or killed import run again
+ * with the same file, chunk size and batch size continues after the last completed chunk and skips the batches of
+ * later chunks which were already sent. A completed import leaves the checkpoint at the end of the file, it has to be
+ * deleted to import the file again.
+ *
+ * @author Murat Karagözgil
+ */
+public class ImportPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportPipeline.class);
+
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final int MAX_RECORD_SIZE = Integer.MAX_VALUE - 8;
+
+    private final Netmera netmera;
+    private final ImportFormat format;
+    private final ImportRowMapper mapper;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final int parallelism;
+    private final int chunkSize;
+    private final Path checkpoint;
+
+    private ImportPipeline(ImportPipelineBuilder importPipelineBuilder) {
+        this.netmera = importPipelineBuilder.netmera;
+        this.format = importPipelineBuilder.format;
+        this.mapper = importPipelineBuilder.mapper;
+        this.batchSize = importPipelineBuilder.batchSize;
+        this.maxInFlight = importPipelineBuilder.maxInFlight;
+        this.parallelism = importPipelineBuilder.parallelism;
+        this.chunkSize = importPipelineBuilder.chunkSize;
+        this.checkpoint = importPipelineBuilder.checkpoint;
+    }
+
+    /**
+     * Imports the file. The calling thread reads the file and blocks while {@code maxInFlight} calls are in flight,
+     * the returned future completes when every call has completed. The import stops at the first failed call, rows
+     * which can not be parsed or mapped are logged and skipped.
+     */
+    public CompletableFuture<ImportResult> run(Path file) {
+        Assert.notNull(file, "File");
+        ExecutorService parsers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "netmera-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Import run = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = startsWithBom(channel) ? BOM.length : 0;
+            List<String> header = Collections.emptyList();
+            if (format == ImportFormat.CSV && position < size) {
+                Chunk headerChunk = read(channel, position, size, true);
+                header = ImportParser.parseHeader(headerChunk.bytes, headerChunk.length);
+                position = headerChunk.end;
+            }
+            ImportCheckpoint progress = checkpoint == null ? null : ImportCheckpoint.load(checkpoint, chunkSize, batchSize);
+            if (progress != null) {
+                position = Math.max(position, progress.getOffset());
+            }
+            run = new Import(progress, position);
+            ImportParser parser = new ImportParser(format, header);
+            Deque<Future<ParsedChunk>> parsing = new ArrayDeque<>(parallelism);
+            while (run.failure == null) {
+                while (parsing.size() < parallelism && position < size) {
+                    Chunk chunk = read(channel, position, size, false);
+                    position = chunk.end;
+                    parsing.add(parsers.submit(() -> parse(parser, chunk)));
+                }
+                if (parsing.isEmpty()) {
+                    break;
+                }
+                run.send(parsing.poll().get());
+            }
+        } catch (IOException | IllegalStateException e) {
+            if (run == null) {
+                parsers.shutdownNow();
+                CompletableFuture<ImportResult> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+            run.fail(e.toString());
+        } catch (ExecutionException e) {
+            run.fail(e.getCause().toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.fail(e.toString());
+        } finally {
+            parsers.shutdownNow();
+        }
+        run.finish();
+        return run.result;
+    }
+
+    private static boolean startsWithBom(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BOM.length);
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+            // reads until the buffer is full or the file ends
+        }
+        return Arrays.equals(buffer.array(), BOM);
+    }
+
+    /**
+     * Reads about {@code chunkSize} bytes ending at a record boundary, more when a single record is larger.
+     *
+     * @param first whether only the first record is read
+     */
+    private Chunk read(FileChannel channel, long position, long size, boolean first) throws IOException {
+        int capacity = (int) Math.min(chunkSize, size - position);
+        while (true) {
+            ByteBuffer buffer = ByteBuffer.allocate(capacity);
+            while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+                // positional reads leave the channel position for the next chunk
+            }
+            int length = buffer.position();
+            boolean endOfFile = position + length >= size;
+            int end = endOfFile && !first ? length : ImportParser.recordEnd(format, buffer.array(), length, first);
+            if (end < 0 && endOfFile) {
+                end = length;
+            }
+            if (end >= 0) {
+                return new Chunk(position, buffer.array(), end);
+            }
+            if (capacity == MAX_RECORD_SIZE) {
+                throw new IOException("Record at offset " + position + " is larger than " + MAX_RECORD_SIZE + " bytes");
+            }
+            capacity = (int) Math.min(Math.min((long) capacity * 2, MAX_RECORD_SIZE), size - position);
+        }
+    }
+
+    private ParsedChunk parse(ImportParser parser, Chunk chunk) {
+        ParsedChunk parsed = new ParsedChunk(chunk.start, chunk.end);
+        parser.parse(chunk.bytes, chunk.length, new ImportParser.RowHandler() {
+            @Override
+            public void row(ImportRow row) {
+                parsed.mark();
+                try {
+                    mapper.map(row, parsed);
+                    parsed.rows++;
+                } catch (RuntimeException e) {
+                    parsed.reset();
+                    rejected(e.toString());
+                }
+            }
+
+            @Override
+            public void rejected(String reason) {
+                parsed.rejectedRows++;
+                logger.warn("ImportPipeline::row rejected::chunk {}::{}", chunk.start, reason);
+            }
+        });
+        parsed.batch();
+        return parsed;
+    }
+
+    private static final class Chunk {
+        private final long start;
+        private final long end;
+        private final byte[] bytes;
+        private final int length;
+
+        private Chunk(long start, byte[] bytes, int length) {
+            this.start = start;
+            this.end = start + length;
+            this.bytes = bytes;
+            this.length = length;
+        }
+    }
+
+    private final class ParsedChunk implements ImportRowMapper.Sink {
+        private final long start;
+        private final long end;
+        private final List<NewDevice> devices = new ArrayList<>();
+        private final List<UserAndProfileAttributeMap> profiles = new ArrayList<>();
+        private final List<String> tags = new ArrayList<>();
+        private final List<String> taggedExtIds = new ArrayList<>();
+        private final List<Batch> batches = new ArrayList<>();
+        private long rows;
+        private long rejectedRows;
+        private int deviceMark;
+        private int profileMark;
+        private int tagMark;
+
+        private ParsedChunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public void device(NewDevice device) {
+            Assert.notNull(device, "Device");
+            devices.add(device);
+        }
+
+        @Override
+        public void profile(UserAndProfileAttributeMap profile) {
+            Assert.notNull(profile, "Profile");
+            profiles.add(profile);
+        }
+
+        @Override
+        public void tag(String tag, String extId) {
+            Assert.notNull(tag, "Tag");
+            Assert.notNull(extId, "External Id");
+            tags.add(tag);
+            taggedExtIds.add(extId);
+        }
+
+        private void mark() {
+            deviceMark = devices.size();
+            profileMark = profiles.size();
+            tagMark = tags.size();
+        }
+
+        /**
+         * Drops what a rejected row has added before its mapping failed.
+         */
+        private void reset() {
+            devices.subList(deviceMark, devices.size()).clear();
+            profiles.subList(profileMark, profiles.size()).clear();
+            tags.subList(tagMark, tags.size()).clear();
+            taggedExtIds.subList(tagMark, taggedExtIds.size()).clear();
+        }
+
+        /**
+         * Splits the rows into batches, the batches of a chunk and their indexes are the same in every run.
+         */
+        private void batch() {
+            for (int from = 0; from < devices.size(); from += batchSize) {
+                List<NewDevice> deviceList = new ArrayList<>(devices.subList(from, Math.min(from + batchSize, devices.size())));
+                AddNewDevicesRequest request = AddNewDevicesRequest.AddNewDevicesRequestBuilder.withDeviceList(deviceList).build();
+                batches.add(new Batch(batches.size(), deviceList.size(), 0, 0, callBack -> netmera.sendRequest(request, callBack)));
+            }
+            for (int from = 0; from < profiles.size(); from += batchSize) {
+                List<UserAndProfileAttributeMap> profileList = new ArrayList<>(profiles.subList(from, Math.min(from + batchSize, profiles.size())));
+                AddProfileAttributeRequest request = new AddProfileAttributeRequest(profileList);
+                batches.add(new Batch(batches.size(), 0, profileList.size(), 0, callBack -> netmera.sendRequest(request, callBack)));
+            }
+            Map<String, List<String>> extIdsByTag = new LinkedHashMap<>();
+            for (int i = 0; i < tags.size(); i++) {
+                extIdsByTag.computeIfAbsent(tags.get(i), tag -> new ArrayList<>()).add(taggedExtIds.get(i));
+            }
+            extIdsByTag.forEach((tag, extIds) -> {
+                for (int from = 0; from < extIds.size(); from += batchSize) {
+                    List<String> extIdList = new ArrayList<>(extIds.subList(from, Math.min(from + batchSize, extIds.size())));
+                    AddTagToUsersRequest request = new AddTagToUsersRequest(tag, extIdList);
+                    batches.add(new Batch(batches.size(), 0, 0, extIdList.size(), callBack -> netmera.sendRequest(request, callBack)));
+                }
+            });
+            devices.clear();
+            profiles.clear();
+            tags.clear();
+            taggedExtIds.clear();
+        }
+    }
+
+    private static final class Batch {
+        private final int index;
+        private final int devices;
+        private final int profiles;
+        private final int tags;
+        private final Consumer<NetmeraCallBack<Void>> sender;
+
+        private Batch(int index, int devices, int profiles, int tags, Consumer<NetmeraCallBack<Void>> sender) {
+            this.index = index;
+            this.devices = devices;
+            this.profiles = profiles;
+            this.tags = tags;
+            this.sender = sender;
+        }
+    }
+
+    private static final class ChunkProgress {
+        private final long end;
+        private final int batchCount;
+        private final BitSet completedBatches;
+
+        private ChunkProgress(long end, int batchCount, BitSet completedBatches) {
+            this.end = end;
+            this.batchCount = batchCount;
+            this.completedBatches = completedBatches;
+        }
+
+        private boolean isCompleted() {
+            return completedBatches.cardinality() >= batchCount;
+        }
+    }
+
+    private final class Import {
+        private final ImportCheckpoint checkpoint;
+        private final Semaphore permits = new Semaphore(maxInFlight);
+        // the producer holds one pending slot until all chunks are sent
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final CompletableFuture<ImportResult> result = new CompletableFuture<>();
+        // chunks after the offset which have been sent, guarded by this
+        private final TreeMap<Long, ChunkProgress> chunks = new TreeMap<>();
+        private long offset;
+        private volatile String failure;
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder rejectedRows = new LongAdder();
+        private final LongAdder devices = new LongAdder();
+        private final LongAdder profiles = new LongAdder();
+        private final LongAdder tags = new LongAdder();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder skippedCalls = new LongAdder();
+
+        private Import(ImportCheckpoint checkpoint, long offset) {
+            this.checkpoint = checkpoint;
+            this.offset = offset;
+        }
+
+        private void send(ParsedChunk chunk) throws InterruptedException {
+            rows.add(chunk.rows);
+            rejectedRows.add(chunk.rejectedRows);
+            BitSet completedBatches = checkpoint == null ? new BitSet() : checkpoint.getCompletedBatches(chunk.start);
+            synchronized (this) {
+                chunks.put(chunk.start, new ChunkProgress(chunk.end, chunk.batches.size(), (BitSet) completedBatches.clone()));
+            }
+            int deviceBatches = 0;
+            for (Batch batch : chunk.batches) {
+                if (batch.devices > 0 && !completedBatches.get(batch.index)) {
+                    deviceBatches++;
+                }
+            }
+            CountDownLatch devicesSent = new CountDownLatch(deviceBatches);
+            for (Batch batch : chunk.batches) {
+                if (failure != null) {
+                    return;
+                }
+                if (completedBatches.get(batch.index)) {
+                    skippedCalls.increment();
+                    continue;
+                }
+                if (batch.devices == 0) {
+                    // profiles and tags need the users created by the device batches
+                    devicesSent.await();
+                    if (failure != null) {
+                        return;
+                    }
+                }
+                permits.acquire();
+                pending.incrementAndGet();
+                BatchCallBack callBack = new BatchCallBack(chunk.start, batch, batch.devices > 0 ? devicesSent : null);
+                try {
+                    batch.sender.accept(callBack);
+                } catch (RuntimeException e) {
+                    callBack.completed(e.toString());
+                }
+            }
+            synchronized (this) {
+                advance();
+            }
+        }
+
+        /**
+         * Completes its batch once, whether the call ends with a response, an exception or an error.
+         */
+        private final class BatchCallBack extends NetmeraCallBack<Void> {
+            private final long chunk;
+            private final Batch batch;
+            private final CountDownLatch devicesSent;
+            private final AtomicBoolean completed = new AtomicBoolean();
+
+            private BatchCallBack(long chunk, Batch batch, CountDownLatch devicesSent) {
+                this.chunk = chunk;
+                this.batch = batch;
+                this.devicesSent = devicesSent;
+            }
+
+            @Override
+            public void onFailure(Call<Void> call, Throwable t) {
+                super.onFailure(call, t);
+                if (!(t instanceof Exception)) {
+                    completed(t.toString());
+                }
+            }
+
+            @Override
+            protected void handleResponseCode(int httpStatus) {
+                completed(httpStatus == 200 ? null : "Http status " + httpStatus);
+            }
+
+            @Override
+            protected void handleResponseData(Void data) {
+            }
+
+            @Override
+            protected void handleError(Response<Void> response) {
+            }
+
+            @Override
+            protected void handleException(Exception t) {
+                completed(t.toString());
+            }
+
+            private void completed(String batchFailure) {
+                if (completed.compareAndSet(false, true)) {
+                    try {
+                        Import.this.completed(chunk, batch, batchFailure);
+                    } finally {
+                        if (devicesSent != null) {
+                            devicesSent.countDown();
+                        }
+                    }
+                }
+            }
+        }
+
+        private void completed(long chunk, Batch batch, String batchFailure) {
+            if (batchFailure == null) {
+                calls.increment();
+                devices.add(batch.devices);
+                profiles.add(batch.profiles);
+                tags.add(batch.tags);
+                synchronized (this) {
+                    chunks.get(chunk).completedBatches.set(batch.index);
+                    advance();
+                    save();
+                }
+            } else {
+                fail("Batch " + batch.index + " of chunk " + chunk + " failed: " + batchFailure);
+            }
+            permits.release();
+            finish();
+        }
+
+        private void advance() {
+            while (!chunks.isEmpty() && chunks.firstEntry().getValue().isCompleted()) {
+                offset = chunks.pollFirstEntry().getValue().end;
+            }
+        }
+
+        private void save() {
+            if (checkpoint == null) {
+                return;
+            }
+            Map<Long, BitSet> completedBatches = new TreeMap<>();
+            chunks.forEach((start, progress) -> completedBatches.put(start, progress.completedBatches));
+            try {
+                checkpoint.save(offset, completedBatches);
+            } catch (IOException e) {
+                fail("Checkpoint not written: " + e);
+            }
+        }
+
+        private synchronized void fail(String message) {
+            if (failure == null) {
+                failure = message;
+                logger.error("ImportPipeline::import failed::{}", message);
+            }
+        }
+
+        private void finish() {
+            if (pending.decrementAndGet() == 0) {
+                long end;
+                synchronized (this) {
+                    advance();
+                    save();
+                    end = offset;
+                }
+                result.complete(new ImportResult(rows.sum(), rejectedRows.sum(), devices.sum(), profiles.sum(), tags.sum(),
+                        calls.sum(), skippedCalls.sum(), end, failure));
+            }
+        }
+    }
+
+    public static final class ImportPipelineBuilder {
+        private final Netmera netmera;
+        private final ImportFormat format;
+        private ImportRowMapper mapper = ImportRowMapper.DEFAULT;
+        private int batchSize = 1000;
+        private int maxInFlight = 4;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private int chunkSize = 4 * 1024 * 1024;
+        private Path checkpoint;
+
+        public ImportPipelineBuilder(Netmera netmera, ImportFormat format) {
+            Assert.notNull(netmera, "Netmera");
+            Assert.notNull(format, "Format");
+            this.netmera = netmera;
+            this.format = format;
+        }
+
+        /**
+         * @param mapper maps rows to devices, profiles and tags, {@link ImportRowMapper#DEFAULT} by default
+         */
+        public ImportPipelineBuilder mapper(ImportRowMapper mapper) {
+            Assert.notNull(mapper, "Mapper");
+            this.mapper = mapper;
+            return this;
+        }
+
+        /**
+         * @param batchSize maximum number of devices, profiles or users of a tag sent in a single call
+         */
+        public ImportPipelineBuilder batchSize(int batchSize) {
+            Assert.mustBetween(1, 100000, batchSize, "Batch Size");
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * @param maxInFlight maximum number of calls in flight
+         */
+        public ImportPipelineBuilder maxInFlight(int maxInFlight) {
+            Assert.mustBetween(1, 1000, maxInFlight, "Max In Flight");
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * @param parallelism number of chunks parsed at the same time
+         */
+        public ImportPipelineBuilder parallelism(int parallelism) {
+            Assert.mustBetween(1, 256, parallelism, "Parallelism");
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * @param chunkSize bytes read and parsed at once
+         */
+        public ImportPipelineBuilder chunkSize(int chunkSize) {
+            Assert.mustBetween(1024, 1024 * 1024 * 1024, chunkSize, "Chunk Size");
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * @param checkpoint file of the import progress, an existing checkpoint is resumed
+         */
+        public ImportPipelineBuilder checkpoint(Path checkpoint) {
+            Assert.notNull(checkpoint, "Checkpoint");
+            this.checkpoint = checkpoint;
+            return this;
+        }
+
+        public ImportPipeline build() {
+            return new ImportPipeline(this);
+        }
+    }
+}
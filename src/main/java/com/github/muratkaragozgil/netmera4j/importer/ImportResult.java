@@ -0,0 +1,43 @@
+package com.github.muratkaragozgil.netmera4j.importer;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Outcome of an {@link ImportPipeline} run. Counts cover this run only, rows and batches imported by a previous run
+ * of a resumed import are not counted.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@ToString
+public class ImportResult {
+    private final long rows;
+    private final long rejectedRows;
+    private final long devices;
+    private final long profiles;
+    private final long tags;
+    private final long calls;
+    private final long skippedCalls;
+    /**
+     * End of the imported part of the file, a failed import resumes from here.
+     */
+    private final long offset;
+    private final String failure;
+
+    ImportResult(long rows, long rejectedRows, long devices, long profiles, long tags, long calls, long skippedCalls, long offset, String failure) {
+        this.rows = rows;
+        this.rejectedRows = rejectedRows;
+        this.devices = devices;
+        this.profiles = profiles;
+        this.tags = tags;
+        this.calls = calls;
+        this.skippedCalls = skippedCalls;
+        this.offset = offset;
+        this.failure = failure;
+    }
+
+    public boolean isSuccessful() {
+        return failure == null;
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.muratkaragozgil.netmera4j.importer;
+
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single row of an import file by column name. Values of csv rows are strings, values of ndjson rows are strings,
+ * numbers, booleans, lists and maps as in the json object.
+ *
+ * @author Murat Karagözgil
+ */
+@ToString
+public class ImportRow {
+    private final Map<String, Object> values;
+
+    ImportRow(Map<String, Object> values) {
+        this.values = values;
+    }
+
+    public Object get(String column) {
+        return values.get(column);
+    }
+
+    /**
+     * @return value of the column as a string, null when it is missing or empty
+     */
+    public String getString(String column) {
+        Object value = values.get(column);
+        if (value == null) {
+            return null;
+        }
+        String string = value.toString();
+        return string.isEmpty() ? null : string;
+    }
+
+    public Set<String> getColumns() {
+        return Collections.unmodifiableSet(values.keySet());
+    }
+}
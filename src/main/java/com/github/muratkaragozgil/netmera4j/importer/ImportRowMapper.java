@@ -0,0 +1,32 @@
+package com.github.muratkaragozgil.netmera4j.importer;
+
+import com.github.muratkaragozgil.netmera4j.model.device.NewDevice;
+import com.github.muratkaragozgil.netmera4j.model.device.UserAndProfileAttributeMap;
+
+/**
+ * Maps rows of an import file to devices, profile attributes and tags. A mapper may add any number of each for a
+ * row, a row whose mapping throws a runtime exception is rejected and the import continues.
+ *
+ * @author Murat Karagözgil
+ */
+@FunctionalInterface
+public interface ImportRowMapper {
+
+    /**
+     * Maps columns by convention: {@code deviceToken}, {@code platform}, {@code extId} and {@code email} to a
+     * {@link NewDevice}, {@code profile.*} columns or a {@code profile} object to profile attributes of {@code extId}
+     * and {@code tags}, an array or a {@code |} separated list, to tags of {@code extId}.
+     */
+    ImportRowMapper DEFAULT = new DefaultImportRowMapper();
+
+    void map(ImportRow row, Sink sink);
+
+    interface Sink {
+
+        void device(NewDevice device);
+
+        void profile(UserAndProfileAttributeMap profile);
+
+        void tag(String tag, String extId);
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+
+import java.io.IOException;
+
+/**
+ * Request body of bytes encoded into an Okio buffer. Writes shared copies of the buffer's segments, so retries can
+ * write the body again.
+ *
+ * @author Murat Karagözgil
+ */
+public final class BufferRequestBody extends RequestBody {
+    private final MediaType mediaType;
+    private final Buffer body;
+
+    /**
+     * @param body the complete body, it must not be changed afterwards
+     */
+    public BufferRequestBody(MediaType mediaType, Buffer body) {
+        this.mediaType = mediaType;
+        this.body = body;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return mediaType;
+    }
+
+    @Override
+    public long contentLength() {
+        return body.size();
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        Buffer copy = body.clone();
+        sink.write(copy, copy.size());
+    }
+}
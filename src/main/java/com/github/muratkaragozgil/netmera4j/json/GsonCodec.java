@@ -0,0 +1,55 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codec of {@link NetmeraGson}, the default codec of the client.
+ *
+ * @author Murat Karagözgil
+ */
+public final class GsonCodec implements NetmeraCodec {
+
+    private final Gson gson;
+
+    public GsonCodec() {
+        this(NetmeraGson.get());
+    }
+
+    /**
+     * @param gson configured Gson, should have the {@link NetmeraTypeAdapterFactory} registered
+     */
+    public GsonCodec(Gson gson) {
+        this.gson = gson;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void write(Object value, Type type, OutputStream out) throws IOException {
+        TypeAdapter<Object> adapter = (TypeAdapter<Object>) gson.getAdapter(TypeToken.get(type));
+        JsonWriter jsonWriter = gson.newJsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        adapter.write(jsonWriter, value);
+        jsonWriter.flush();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T read(Type type, InputStream in) throws IOException {
+        TypeAdapter<T> adapter = (TypeAdapter<T>) gson.getAdapter(TypeToken.get(type));
+        JsonReader jsonReader = gson.newJsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        T value = adapter.read(jsonReader);
+        if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+            throw new JsonIOException("JSON document was not fully consumed.");
+        }
+        return value;
+    }
+}
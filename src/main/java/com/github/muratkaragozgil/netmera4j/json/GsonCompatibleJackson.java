@@ -0,0 +1,141 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.core.io.CharacterEscapes;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.deser.std.UntypedObjectDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Jackson configuration which reads and writes json like the client's Gson: fields instead of getters and setters,
+ * subclass fields first, nulls omitted, enum map keys by {@code toString}, Gson's escaping of control characters,
+ * unknown fields and enum names ignored and numbers of untyped values read as doubles.
+ *
+ * @author Murat Karagözgil
+ */
+final class GsonCompatibleJackson {
+
+    private GsonCompatibleJackson() {
+    }
+
+    static ObjectMapper newObjectMapper() {
+        JsonFactory jsonFactory = new JsonFactory();
+        jsonFactory.setCharacterEscapes(new GsonCharacterEscapes());
+        jsonFactory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        jsonFactory.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+        SimpleModule module = new SimpleModule("netmera-gson-compatible");
+        module.addKeySerializer(Enum.class, new ToStringKeySerializer());
+        module.addDeserializer(Object.class, new DoubleNumberObjectDeserializer());
+        module.setSerializerModifier(new SubclassFieldsFirst());
+
+        ObjectMapper objectMapper = new ObjectMapper(jsonFactory);
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        objectMapper.setDefaultPropertyInclusion(JsonInclude.Value.construct(JsonInclude.Include.NON_NULL, JsonInclude.Include.NON_NULL));
+        objectMapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+        objectMapper.disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        objectMapper.enable(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL);
+        objectMapper.getSerializerProvider().setNullKeySerializer(new ToStringKeySerializer());
+        objectMapper.registerModule(module);
+        return objectMapper;
+    }
+
+    /**
+     * Gson writes map keys with {@code String.valueOf}, so {@code TargetCondition.AND} is written as {@code $and}.
+     */
+    private static final class ToStringKeySerializer extends JsonSerializer<Object> {
+        @Override
+        public void serialize(Object value, JsonGenerator generator, SerializerProvider serializers) throws IOException {
+            generator.writeFieldName(String.valueOf(value));
+        }
+    }
+
+    /**
+     * Jackson collects superclass fields first, Gson starts with the fields of the class itself.
+     */
+    private static final class SubclassFieldsFirst extends BeanSerializerModifier {
+        @Override
+        public List<BeanPropertyWriter> orderProperties(SerializationConfig config, BeanDescription beanDesc, List<BeanPropertyWriter> beanProperties) {
+            List<BeanPropertyWriter> ordered = new ArrayList<>(beanProperties);
+            ordered.sort(Comparator.comparingInt(property -> -depth(property.getMember().getDeclaringClass())));
+            return ordered;
+        }
+
+        private static int depth(Class<?> type) {
+            int depth = 0;
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                depth++;
+            }
+            return depth;
+        }
+    }
+
+    /**
+     * Gson reads every number of an {@code Object} typed value, like profile attributes, as a double.
+     */
+    private static final class DoubleNumberObjectDeserializer extends UntypedObjectDeserializer {
+        private static final long serialVersionUID = 1L;
+
+        private DoubleNumberObjectDeserializer() {
+            super(null, null);
+        }
+
+        @Override
+        public Object deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.hasToken(JsonToken.VALUE_NUMBER_INT) || parser.hasToken(JsonToken.VALUE_NUMBER_FLOAT)) {
+                return parser.getDoubleValue();
+            }
+            return super.deserialize(parser, context);
+        }
+    }
+
+    /**
+     * Escapes of Gson's {@code JsonWriter}: control characters as lowercase unicode escapes and the line and
+     * paragraph separators. Html characters are not escaped, converters write with {@code Gson.newJsonWriter}
+     * which is not html safe.
+     */
+    private static final class GsonCharacterEscapes extends CharacterEscapes {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] asciiEscapes = standardAsciiEscapesForJSON();
+        private final SerializableString[] asciiSequences = new SerializableString[128];
+
+        private GsonCharacterEscapes() {
+            for (int c = 0; c < 128; c++) {
+                if (asciiEscapes[c] == ESCAPE_STANDARD) {
+                    asciiEscapes[c] = ESCAPE_CUSTOM;
+                    asciiSequences[c] = new SerializedString(String.format("\\u%04x", c));
+                }
+            }
+        }
+
+        @Override
+        public int[] getEscapeCodesForAscii() {
+            return asciiEscapes;
+        }
+
+        @Override
+        public SerializableString getEscapeSequence(int ch) {
+            if (ch < 128) {
+                return asciiSequences[ch];
+            }
+            if (ch == 0x2028 || ch == 0x2029) {
+                return new SerializedString(String.format("\\u%04x", ch));
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * @author Murat Karagözgil
+ */
+final class GsonJsonSink implements JsonSink {
+
+    private final JsonWriter out;
+    private final TypeAdapter<Object> objectAdapter;
+
+    GsonJsonSink(JsonWriter out, TypeAdapter<Object> objectAdapter) {
+        this.out = out;
+        this.objectAdapter = objectAdapter;
+    }
+
+    @Override
+    public JsonSink beginObject() throws IOException {
+        out.beginObject();
+        return this;
+    }
+
+    @Override
+    public JsonSink endObject() throws IOException {
+        out.endObject();
+        return this;
+    }
+
+    @Override
+    public JsonSink beginArray() throws IOException {
+        out.beginArray();
+        return this;
+    }
+
+    @Override
+    public JsonSink endArray() throws IOException {
+        out.endArray();
+        return this;
+    }
+
+    @Override
+    public JsonSink name(String name) throws IOException {
+        out.name(name);
+        return this;
+    }
+
+    @Override
+    public JsonSink value(String value) throws IOException {
+        out.value(value);
+        return this;
+    }
+
+    @Override
+    public JsonSink value(Number value) throws IOException {
+        out.value(value);
+        return this;
+    }
+
+    @Override
+    public JsonSink value(boolean value) throws IOException {
+        out.value(value);
+        return this;
+    }
+
+    @Override
+    public JsonSink nullValue() throws IOException {
+        out.nullValue();
+        return this;
+    }
+
+    @Override
+    public JsonSink objectValue(Object value) throws IOException {
+        objectAdapter.write(out, value);
+        return this;
+    }
+}
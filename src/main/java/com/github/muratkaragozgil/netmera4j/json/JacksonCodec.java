@@ -0,0 +1,51 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Jackson databind codec configured to read and write like the client's Gson. Readers and writers are resolved
+ * once per type and reused.
+ *
+ * @author Murat Karagözgil
+ */
+public final class JacksonCodec implements NetmeraCodec {
+
+    private final ObjectMapper objectMapper;
+    private final Map<Type, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private final Map<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    public JacksonCodec() {
+        this(GsonCompatibleJackson.newObjectMapper());
+    }
+
+    JacksonCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    @Override
+    public void write(Object value, Type type, OutputStream out) throws IOException {
+        // through a writer, Jackson's UTF-8 generator would escape characters outside the BMP which Gson writes as they are
+        writers.computeIfAbsent(type, key -> objectMapper.writerFor(objectMapper.constructType(key)))
+                .writeValue(new OutputStreamWriter(out, StandardCharsets.UTF_8), value);
+    }
+
+    @Override
+    public <T> T read(Type type, InputStream in) throws IOException {
+        return readers.computeIfAbsent(type, key -> objectMapper.readerFor(objectMapper.constructType(key))).readValue(in);
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * Writes to a Jackson {@link JsonGenerator}. Names are held back until their value is known, so a name followed
+ * by a null value is dropped the same way Gson's {@code JsonWriter} drops it.
+ *
+ * @author Murat Karagözgil
+ */
+final class JacksonJsonSink implements JsonSink {
+
+    private final JsonGenerator generator;
+    private final ObjectMapper objectMapper;
+    private String deferredName;
+
+    JacksonJsonSink(JsonGenerator generator, ObjectMapper objectMapper) {
+        this.generator = generator;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public JsonSink beginObject() throws IOException {
+        writeDeferredName();
+        generator.writeStartObject();
+        return this;
+    }
+
+    @Override
+    public JsonSink endObject() throws IOException {
+        generator.writeEndObject();
+        return this;
+    }
+
+    @Override
+    public JsonSink beginArray() throws IOException {
+        writeDeferredName();
+        generator.writeStartArray();
+        return this;
+    }
+
+    @Override
+    public JsonSink endArray() throws IOException {
+        generator.writeEndArray();
+        return this;
+    }
+
+    @Override
+    public JsonSink name(String name) {
+        deferredName = name;
+        return this;
+    }
+
+    @Override
+    public JsonSink value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        writeDeferredName();
+        generator.writeString(value);
+        return this;
+    }
+
+    @Override
+    public JsonSink value(Number value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        if ((value instanceof Double || value instanceof Float) && !Double.isFinite(value.doubleValue())) {
+            throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+        }
+        writeDeferredName();
+        // Number.toString, like Gson, instead of Jackson's own formatting of each number type
+        generator.writeNumber(value.toString());
+        return this;
+    }
+
+    @Override
+    public JsonSink value(boolean value) throws IOException {
+        writeDeferredName();
+        generator.writeBoolean(value);
+        return this;
+    }
+
+    @Override
+    public JsonSink nullValue() throws IOException {
+        if (deferredName != null) {
+            deferredName = null;
+        } else {
+            generator.writeNull();
+        }
+        return this;
+    }
+
+    @Override
+    public JsonSink objectValue(Object value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        writeDeferredName();
+        objectMapper.writeValue(generator, value);
+        return this;
+    }
+
+    private void writeDeferredName() throws IOException {
+        if (deferredName != null) {
+            generator.writeFieldName(deferredName);
+            deferredName = null;
+        }
+    }
+}
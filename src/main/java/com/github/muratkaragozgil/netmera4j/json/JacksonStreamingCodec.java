@@ -0,0 +1,58 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * Writes request bodies with the handwritten writers of {@link NetmeraJsonWriter} straight to a Jackson
+ * {@link JsonGenerator}, without databind. Types without a handwritten writer and all responses are handled
+ * by a {@link JacksonCodec}.
+ *
+ * @author Murat Karagözgil
+ */
+public final class JacksonStreamingCodec implements NetmeraCodec {
+
+    private final JacksonCodec jacksonCodec = new JacksonCodec();
+
+    @Override
+    public void write(Object value, Type type, OutputStream out) throws IOException {
+        if (value != null && !(value instanceof Collection) && NetmeraTypeAdapterFactory.writerOf(value.getClass()) == null) {
+            jacksonCodec.write(value, type, out);
+            return;
+        }
+        try (JsonGenerator generator = jacksonCodec.getObjectMapper().getFactory().createGenerator(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writeValue(new JacksonJsonSink(generator, jacksonCodec.getObjectMapper()), value);
+        }
+    }
+
+    private static void writeValue(JsonSink sink, Object value) throws IOException {
+        if (value == null) {
+            sink.nullValue();
+            return;
+        }
+        NetmeraTypeAdapterFactory.ValueWriter<Object> writer = NetmeraTypeAdapterFactory.writerOf(value.getClass());
+        if (writer != null) {
+            writer.write(sink, value);
+        } else if (value instanceof Collection) {
+            sink.beginArray();
+            for (Object element : (Collection<?>) value) {
+                writeValue(sink, element);
+            }
+            sink.endArray();
+        } else {
+            sink.objectValue(value);
+        }
+    }
+
+    @Override
+    public <T> T read(Type type, InputStream in) throws IOException {
+        return jacksonCodec.read(type, in);
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import java.io.IOException;
+
+/**
+ * Target of the handwritten writers of {@link NetmeraJsonWriter}. A name followed by a null value is omitted,
+ * like Gson does without {@code serializeNulls}, while nulls in arrays are written.
+ *
+ * @author Murat Karagözgil
+ */
+interface JsonSink {
+
+    JsonSink beginObject() throws IOException;
+
+    JsonSink endObject() throws IOException;
+
+    JsonSink beginArray() throws IOException;
+
+    JsonSink endArray() throws IOException;
+
+    JsonSink name(String name) throws IOException;
+
+    JsonSink value(String value) throws IOException;
+
+    JsonSink value(Number value) throws IOException;
+
+    JsonSink value(boolean value) throws IOException;
+
+    JsonSink nullValue() throws IOException;
+
+    /**
+     * Writes a value of type {@code Object} by its runtime type, the way Gson's object adapter does.
+     */
+    JsonSink objectValue(Object value) throws IOException;
+}
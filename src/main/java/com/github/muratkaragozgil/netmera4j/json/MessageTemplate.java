@@ -0,0 +1,118 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import com.github.muratkaragozgil.netmera4j.model.notification.BulkMessage;
+import com.github.muratkaragozgil.netmera4j.model.notification.Message;
+import com.github.muratkaragozgil.netmera4j.model.notification.SingleMessage;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import com.google.gson.reflect.TypeToken;
+import okio.Buffer;
+import okio.ByteString;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * A message serialized once and reused by many sends. The message is copied to immutable bytes when the template
+ * is created, later changes of the message are not seen by the template. At send time only the target and the
+ * params of a single message are serialized, the message bytes are shared with the request body without copying.
+ * <p>
+ * Templates are written by {@link NetmeraCodec#GSON}, every codec writes the same bytes for a message.
+ *
+ * @param <M> type of the message, {@link BulkMessage} or {@link SingleMessage}
+ * @author Murat Karagözgil
+ */
+public final class MessageTemplate<M extends Message> {
+
+    static final Type PARAMS_TYPE = new TypeToken<Map<String, Object>>() {
+    }.getType();
+    private static final ByteString PARAMS_NAME = ByteString.encodeUtf8("\"params\":");
+
+    /**
+     * Fields of the message after its params, up to and including the closing brace.
+     */
+    private final Buffer fields;
+    /**
+     * {@code "params":{...}} of the template, null if the message has no params.
+     */
+    private final Buffer params;
+    private final boolean noFields;
+
+    private MessageTemplate(Buffer fields, Buffer params) {
+        this.fields = fields;
+        this.params = params;
+        this.noFields = fields.size() == 1;
+    }
+
+    public static MessageTemplate<BulkMessage> of(BulkMessage message) {
+        Assert.notNull(message, "Message");
+        ByteString json = write(message, BulkMessage.class);
+        return new MessageTemplate<>(new Buffer().write(json.substring(1)), null);
+    }
+
+    /**
+     * @param message message of the template, its params are used by sends without params of their own
+     */
+    public static MessageTemplate<SingleMessage> of(SingleMessage message) {
+        Assert.notNull(message, "Message");
+        ByteString json = write(message, SingleMessage.class);
+        if (message.getParams() == null) {
+            return new MessageTemplate<>(new Buffer().write(json.substring(1)), null);
+        }
+        // params is the first field of a single message, the rest of the fields follow it
+        ByteString params = new Buffer().write(PARAMS_NAME).write(write(message.getParams(), PARAMS_TYPE)).readByteString();
+        Assert.isTrue(json.rangeEquals(1, params, 0, params.size()), "Params must be the first field of the message.");
+        int restStart = 1 + params.size();
+        if (json.getByte(restStart) == ',') {
+            restStart++;
+        }
+        return new MessageTemplate<>(new Buffer().write(json.substring(restStart)), new Buffer().write(params));
+    }
+
+    /**
+     * Writes the message object, sharing the segments of the template with {@code out}.
+     *
+     * @param params params of this send, the template's params are used when null
+     * @param codec  writer of the params
+     */
+    void writeTo(Buffer out, Map<String, Object> params, NetmeraCodec codec) throws IOException {
+        out.writeByte('{');
+        if (params != null) {
+            out.write(PARAMS_NAME);
+            codec.write(params, PARAMS_TYPE, out.outputStream());
+            if (!noFields) {
+                out.writeByte(',');
+            }
+        } else if (this.params != null) {
+            this.params.copyTo(out, 0, this.params.size());
+            if (!noFields) {
+                out.writeByte(',');
+            }
+        }
+        fields.copyTo(out, 0, fields.size());
+    }
+
+    /**
+     * @return size of the pre-serialized message in bytes
+     */
+    public long size() {
+        return 1 + fields.size() + (params == null ? 0 : params.size());
+    }
+
+    @Override
+    public String toString() {
+        return "MessageTemplate(size=" + size() + ")";
+    }
+
+    private static ByteString write(Object value, Type type) {
+        Buffer buffer = new Buffer();
+        try {
+            NetmeraCodec.GSON.write(value, type, buffer.outputStream());
+        } catch (IOException e) {
+            // a buffer does not throw
+            throw new UncheckedIOException(e);
+        }
+        return buffer.readByteString();
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Serializes request bodies and deserializes response and error bodies of the client. Every codec writes the same
+ * bytes for the same request: fields in declaration order with subclass fields first, null fields and null map values
+ * omitted, enums by name, map keys by {@code String.valueOf} and control characters escaped the way Gson does.
+ *
+ * @author Murat Karagözgil
+ */
+public interface NetmeraCodec {
+
+    /**
+     * Gson with the handwritten adapters of {@link NetmeraTypeAdapterFactory}.
+     */
+    NetmeraCodec GSON = new GsonCodec();
+
+    /**
+     * @param value body to write, may be null
+     * @param type  declared type of the body
+     * @param out   UTF-8 output, flushed but not closed
+     */
+    void write(Object value, Type type, OutputStream out) throws IOException;
+
+    /**
+     * @param type type to read
+     * @param in   UTF-8 input, not closed
+     */
+    <T> T read(Type type, InputStream in) throws IOException;
+}
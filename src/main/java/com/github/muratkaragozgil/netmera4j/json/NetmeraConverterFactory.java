@@ -0,0 +1,61 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTemplatedBulkNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTemplatedTransactionalNotificationRequest;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Retrofit converters of request, response and error bodies backed by a {@link NetmeraCodec}.
+ *
+ * @author Murat Karagözgil
+ */
+public final class NetmeraConverterFactory extends Converter.Factory {
+
+    private static final MediaType MEDIA_TYPE = MediaType.get("application/json; charset=UTF-8");
+
+    private final NetmeraCodec codec;
+
+    private NetmeraConverterFactory(NetmeraCodec codec) {
+        this.codec = codec;
+    }
+
+    public static NetmeraConverterFactory create(NetmeraCodec codec) {
+        return new NetmeraConverterFactory(codec);
+    }
+
+    @Override
+    public Converter<?, RequestBody> requestBodyConverter(Type type, Annotation[] parameterAnnotations, Annotation[] methodAnnotations, Retrofit retrofit) {
+        // templated notifications are spliced the same way whatever the codec is
+        if (type == SendTemplatedBulkNotificationRequest.class) {
+            return (SendTemplatedBulkNotificationRequest value) -> TemplatedRequestBodies.bulk(value, MEDIA_TYPE, codec);
+        }
+        if (type == SendTemplatedTransactionalNotificationRequest.class) {
+            return (SendTemplatedTransactionalNotificationRequest value) -> TemplatedRequestBodies.transactional(value, MEDIA_TYPE, codec);
+        }
+        return value -> {
+            Buffer buffer = new Buffer();
+            codec.write(value, type, buffer.outputStream());
+            return RequestBody.create(MEDIA_TYPE, buffer.readByteString());
+        };
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        return (ResponseBody body) -> {
+            try {
+                return codec.read(type, body.byteStream());
+            } finally {
+                body.close();
+            }
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import com.github.muratkaragozgil.netmera4j.constant.TargetCondition;
+import com.github.muratkaragozgil.netmera4j.model.notification.AdvanceTarget;
+import com.github.muratkaragozgil.netmera4j.model.notification.BasicTarget;
+import com.github.muratkaragozgil.netmera4j.model.notification.Target;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Shared {@link Gson} instance of the client with the handwritten adapters of {@link NetmeraTypeAdapterFactory}.
+ *
+ * @author Murat Karagözgil
+ */
+public final class NetmeraGson {
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new NetmeraTypeAdapterFactory())
+            .create();
+
+    // targets are written with their runtime class, tag and segment lists belong to basic and maps to advance targets
+    private static final Gson REQUEST_READER = new GsonBuilder()
+            .registerTypeAdapter(TargetCondition.class, (JsonDeserializer<TargetCondition>) (json, type, context) ->
+                    TargetCondition.getTargetCondition(json.getAsString()))
+            .registerTypeAdapter(Target.class, (JsonDeserializer<Target>) (json, type, context) -> {
+                JsonObject target = json.getAsJsonObject();
+                JsonElement tags = target.has("tag") ? target.get("tag") : target.get("segment");
+                if (tags == null || tags.isJsonNull()) {
+                    return new Gson().fromJson(json, Target.class);
+                }
+                return context.deserialize(json, tags.isJsonObject() ? AdvanceTarget.class : BasicTarget.class);
+            })
+            .create();
+
+    private NetmeraGson() {
+    }
+
+    public static Gson get() {
+        return GSON;
+    }
+
+    /**
+     * @return gson which reads request bodies written by the client back into requests
+     */
+    public static Gson requestReader() {
+        return REQUEST_READER;
+    }
+}
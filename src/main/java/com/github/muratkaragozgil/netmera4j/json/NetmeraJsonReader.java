@@ -0,0 +1,371 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import com.github.muratkaragozgil.netmera4j.constant.Platform;
+import com.github.muratkaragozgil.netmera4j.constant.SendStatus;
+import com.github.muratkaragozgil.netmera4j.exception.NetmeraError;
+import com.github.muratkaragozgil.netmera4j.model.device.Device;
+import com.github.muratkaragozgil.netmera4j.model.notification.SingleResult;
+import com.github.muratkaragozgil.netmera4j.model.notification.SingleStat;
+import com.github.muratkaragozgil.netmera4j.response.*;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Handwritten readers of response bodies with the same leniency as Gson's reflective adapters: unknown fields are
+ * skipped, nulls leave fields unset, numbers and booleans may be quoted and unknown enum names are read as null.
+ *
+ * @author Murat Karagözgil
+ */
+final class NetmeraJsonReader {
+
+    private static final Map<String, Platform> PLATFORMS = names(Platform.values());
+    private static final Map<String, SendStatus> SEND_STATUSES = names(SendStatus.values());
+
+    private final TypeAdapter<Map<String, Object>> objectMapAdapter;
+
+    NetmeraJsonReader(Gson gson) {
+        this.objectMapAdapter = gson.getAdapter(new TypeToken<Map<String, Object>>() {
+        });
+    }
+
+    NotificationResponse readNotificationResponse(JsonReader in) throws IOException {
+        NotificationResponse value = new NotificationResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            if ("notificationKey".equals(in.nextName())) {
+                value.setNotificationKey(readInteger(in));
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return value;
+    }
+
+    GetPushStatsResponse readGetPushStatsResponse(JsonReader in) throws IOException {
+        GetPushStatsResponse value = new GetPushStatsResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "notificationKey":
+                    value.setNotificationKey(readInteger(in));
+                    break;
+                case "status":
+                    value.setStatus(readEnum(in, SEND_STATUSES));
+                    break;
+                case "startDate":
+                    value.setStartDate(readLong(in));
+                    break;
+                case "endDate":
+                    value.setEndDate(readLong(in));
+                    break;
+                case "stats":
+                    value.setStats(readList(in, this::readSingleStat));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return value;
+    }
+
+    GetPushStatsInDateRangeResponse readGetPushStatsInDateRangeResponse(JsonReader in) throws IOException {
+        GetPushStatsInDateRangeResponse value = new GetPushStatsInDateRangeResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            if ("messages".equals(in.nextName())) {
+                value.setMessages(readList(in, this::readGetPushStatsResponse));
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return value;
+    }
+
+    SingleStat readSingleStat(JsonReader in) throws IOException {
+        SingleStat value = new SingleStat();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "platform":
+                    value.setPlatform(readEnum(in, PLATFORMS));
+                    break;
+                case "sent":
+                    value.setSent(readInteger(in));
+                    break;
+                case "failed":
+                    value.setFailed(readInteger(in));
+                    break;
+                case "clicked":
+                    value.setClicked(readInteger(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return value;
+    }
+
+    GetPushResultResponse readGetPushResultResponse(JsonReader in) throws IOException {
+        GetPushResultResponse value = new GetPushResultResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "nextPage":
+                    value.setNextPage(readString(in));
+                    break;
+                case "list":
+                    value.setList(readList(in, this::readSingleResult));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return value;
+    }
+
+    SingleResult readSingleResult(JsonReader in) throws IOException {
+        SingleResult value = new SingleResult();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "platform":
+                    value.setPlatform(readEnum(in, PLATFORMS));
+                    break;
+                case "status":
+                    value.setStatus(readEnum(in, SEND_STATUSES));
+                    break;
+                case "errorCode":
+                    value.setErrorCode(readString(in));
+                    break;
+                case "installationId":
+                    value.setInstallationId(readString(in));
+                    break;
+                case "extId":
+                    value.setExtId(readString(in));
+                    break;
+                case "errorMsg":
+                    value.setErrorMsg(readString(in));
+                    break;
+                case "timeStamp":
+                    value.setTimeStamp(readLong(in));
+                    break;
+                case "msgTitle":
+                    value.setMsgTitle(readString(in));
+                    break;
+                case "msgText":
+                    value.setMsgText(readString(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return value;
+    }
+
+    GetDeviceTokensResponse readGetDeviceTokensResponse(JsonReader in) throws IOException {
+        GetDeviceTokensResponse value = new GetDeviceTokensResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "nextPage":
+                    value.setNextPage(readString(in));
+                    break;
+                case "total":
+                    value.setTotal(readInteger(in));
+                    break;
+                case "devices":
+                    value.setDevices(readList(in, this::readDevice));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return value;
+    }
+
+    GetUserDevicesResponse readGetUserDevicesResponse(JsonReader in) throws IOException {
+        GetUserDevicesResponse value = new GetUserDevicesResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "extId":
+                    value.setExtId(readString(in));
+                    break;
+                case "devices":
+                    value.setDevices(readList(in, this::readDevice));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return value;
+    }
+
+    Device readDevice(JsonReader in) throws IOException {
+        Device value = new Device();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "platform":
+                    value.setPlatform(readEnum(in, PLATFORMS));
+                    break;
+                case "token":
+                    value.setToken(readString(in));
+                    break;
+                case "deviceModel":
+                    value.setDeviceModel(readString(in));
+                    break;
+                case "installationId":
+                    value.setInstallationId(readString(in));
+                    break;
+                case "pushPermitted":
+                    Boolean pushPermitted = readBoolean(in);
+                    if (pushPermitted != null) {
+                        value.setPushPermitted(pushPermitted);
+                    }
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return value;
+    }
+
+    GetProfileAttributesResponse readGetProfileAttributesResponse(JsonReader in) throws IOException {
+        GetProfileAttributesResponse value = new GetProfileAttributesResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "extId":
+                    value.setExtId(readString(in));
+                    break;
+                case "profile":
+                    value.setProfile(objectMapAdapter.read(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return value;
+    }
+
+    NetmeraError readNetmeraError(JsonReader in) throws IOException {
+        NetmeraError value = new NetmeraError();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "error":
+                    value.setError(readString(in));
+                    break;
+                case "code":
+                    value.setCode(readInteger(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return value;
+    }
+
+    private interface ElementReader<T> {
+        T read(JsonReader in) throws IOException;
+    }
+
+    private static <T> List<T> readList(JsonReader in, ElementReader<T> elementReader) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<T> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                values.add(null);
+            } else {
+                values.add(elementReader.read(in));
+            }
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return token == JsonToken.BOOLEAN ? Boolean.toString(in.nextBoolean()) : in.nextString();
+    }
+
+    private static Integer readInteger(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private static Long readLong(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        try {
+            return in.nextLong();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private static Boolean readBoolean(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return token == JsonToken.STRING ? Boolean.parseBoolean(in.nextString()) : in.nextBoolean();
+    }
+
+    private static <E extends Enum<E>> E readEnum(JsonReader in, Map<String, E> names) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return names.get(in.nextString());
+    }
+
+    private static <E extends Enum<E>> Map<String, E> names(E[] values) {
+        Map<String, E> names = new HashMap<>(values.length * 2);
+        for (E value : values) {
+            names.put(value.name(), value);
+        }
+        return names;
+    }
+}
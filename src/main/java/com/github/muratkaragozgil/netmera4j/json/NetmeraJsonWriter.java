@@ -0,0 +1,392 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import com.github.muratkaragozgil.netmera4j.constant.Platform;
+import com.github.muratkaragozgil.netmera4j.model.device.*;
+import com.github.muratkaragozgil.netmera4j.model.notification.*;
+import com.github.muratkaragozgil.netmera4j.request.device.*;
+import com.github.muratkaragozgil.netmera4j.request.notification.CreateGeofenceRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.CreateTransactionalNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendBulkNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTransactionalNotificationRequest;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Handwritten writers of request bodies. The output is the same as Gson's reflective adapters: fields in
+ * declaration order with subclass fields first, null fields omitted, enums by name and map keys by
+ * {@code String.valueOf}. Values of type {@code Object} are written by the sink, by their runtime type.
+ *
+ * @author Murat Karagözgil
+ */
+final class NetmeraJsonWriter {
+
+    private NetmeraJsonWriter() {
+    }
+
+    // Notification Requests
+    static void writeSendBulkNotificationRequest(JsonSink out, SendBulkNotificationRequest value) throws IOException {
+        out.beginObject();
+        if (value.getMessage() != null) {
+            out.name("message");
+            writeMessage(out, value.getMessage());
+        }
+        if (value.getTarget() != null) {
+            out.name("target");
+            writeTarget(out, value.getTarget());
+        }
+        out.endObject();
+    }
+
+    static void writeSendTransactionalNotificationRequest(JsonSink out, SendTransactionalNotificationRequest value) throws IOException {
+        out.beginObject();
+        writeString(out, "notificationKey", value.getNotificationKey());
+        if (value.getMessage() != null) {
+            out.name("message");
+            writeMessage(out, value.getMessage());
+        }
+        if (value.getTarget() != null) {
+            out.name("target");
+            writeTarget(out, value.getTarget());
+        }
+        out.endObject();
+    }
+
+    static void writeCreateTransactionalNotificationRequest(JsonSink out, CreateTransactionalNotificationRequest value) throws IOException {
+        out.beginObject();
+        writeString(out, "title", value.getTitle());
+        writeString(out, "message", value.getMessage());
+        writeString(out, "personalizedMessage", value.getPersonalizedMessage());
+        out.name("inbox").value(value.isInbox());
+        writePlatforms(out, "platforms", value.getPlatforms());
+        if (value.getAction() != null) {
+            out.name("action");
+            writeClickAction(out, value.getAction());
+        }
+        if (value.getIos() != null) {
+            out.name("ios");
+            writeMediaSettings(out, value.getIos());
+        }
+        if (value.getAndroid() != null) {
+            out.name("android");
+            writeMediaSettings(out, value.getAndroid());
+        }
+        if (value.getHook() != null) {
+            out.name("hook");
+            writeHookSettings(out, value.getHook());
+        }
+        out.endObject();
+    }
+
+    static void writeCreateGeofenceRequest(JsonSink out, CreateGeofenceRequest value) throws IOException {
+        out.beginObject();
+        writeString(out, "title", value.getTitle());
+        writeNumber(out, "latitude", value.getLatitude());
+        writeNumber(out, "longitude", value.getLongitude());
+        writeNumber(out, "radius", value.getRadius());
+        if (value.getUnit() != null) {
+            out.name("unit").value(value.getUnit().name());
+        }
+        writeStrings(out, "groups", value.getGroups());
+        out.endObject();
+    }
+
+    static void writeMessage(JsonSink out, Message value) throws IOException {
+        out.beginObject();
+        if (value instanceof BulkMessage) {
+            BulkMessage bulkMessage = (BulkMessage) value;
+            writeString(out, "title", bulkMessage.getTitle());
+            writeString(out, "text", bulkMessage.getText());
+            writePlatforms(out, "platforms", bulkMessage.getPlatforms());
+            if (bulkMessage.getSchedule() != null) {
+                out.name("schedule");
+                writeSchedule(out, bulkMessage.getSchedule());
+            }
+            if (bulkMessage.getSpeed() != null) {
+                out.name("speed");
+                writeSpeed(out, bulkMessage.getSpeed());
+            }
+            writeString(out, "wpChromeImage", bulkMessage.getWpChromeImage());
+            if (bulkMessage.getClick() != null) {
+                out.name("click");
+                writeClickAction(out, bulkMessage.getClick());
+            }
+            out.name("interactionRequired").value(bulkMessage.isInteractionRequired());
+        } else if (value instanceof SingleMessage) {
+            writeObjectMap(out, "params", ((SingleMessage) value).getParams());
+        }
+        writeString(out, "ttl", value.getTtl());
+        writeBoolean(out, "inbox", value.getInbox());
+        writeBoolean(out, "doNotNotify", value.getDoNotNotify());
+        if (value.getIos() != null) {
+            out.name("ios");
+            writeMediaSettings(out, value.getIos());
+        }
+        if (value.getAndroid() != null) {
+            out.name("android");
+            writeMediaSettings(out, value.getAndroid());
+        }
+        writeObjectMap(out, "customJson", value.getCustomJson());
+        out.endObject();
+    }
+
+    static void writeTarget(JsonSink out, Target value) throws IOException {
+        out.beginObject();
+        if (value instanceof AdvanceTarget) {
+            writeConditionMap(out, "tag", ((AdvanceTarget) value).getTag());
+            writeConditionMap(out, "segment", ((AdvanceTarget) value).getSegment());
+        } else if (value instanceof BasicTarget) {
+            writeStrings(out, "tag", ((BasicTarget) value).getTag());
+            writeStrings(out, "segment", ((BasicTarget) value).getSegment());
+        }
+        if (value.getLocation() != null) {
+            out.name("location");
+            writeLocation(out, value.getLocation());
+        }
+        out.name("sendToAll").value(value.isSendToAll());
+        writeStrings(out, "extId", value.getExtId());
+        writeString(out, "deviceToken", value.getDeviceToken());
+        writeObjectListMap(out, "profile", value.getProfile());
+        out.endObject();
+    }
+
+    static void writeLocation(JsonSink out, Location value) throws IOException {
+        out.beginObject();
+        writeNumber(out, "latitude", value.getLatitude());
+        writeNumber(out, "longitude", value.getLongitude());
+        writeNumber(out, "radius", value.getRadius());
+        out.endObject();
+    }
+
+    static void writeSchedule(JsonSink out, Schedule value) throws IOException {
+        out.beginObject();
+        writeString(out, "startTime", value.getStartTime());
+        out.name("localTimezone").value(value.isLocalTimezone());
+        out.endObject();
+    }
+
+    static void writeSpeed(JsonSink out, Speed value) throws IOException {
+        out.beginObject();
+        writeNumber(out, "intervalMins", value.getIntervalMins());
+        writeNumber(out, "packetSize", value.getPacketSize());
+        out.endObject();
+    }
+
+    static void writeClickAction(JsonSink out, ClickAction value) throws IOException {
+        out.beginObject();
+        writeString(out, "url", value.getUrl());
+        out.name("doNothing").value(value.isDoNothing());
+        out.endObject();
+    }
+
+    static void writeMediaSettings(JsonSink out, MediaSettings value) throws IOException {
+        out.beginObject();
+        writeString(out, "mediaUrl", value.getMediaUrl());
+        writeString(out, "title", value.getTitle());
+        writeString(out, "subtitle", value.getSubtitle());
+        writeString(out, "sound", value.getSound());
+        out.name("vibration").value(value.isVibration());
+        out.name("badge").value(value.isBadge());
+        out.endObject();
+    }
+
+    static void writeHookSettings(JsonSink out, HookSettings value) throws IOException {
+        out.beginObject();
+        writeString(out, "name", value.getName());
+        if (value.getParams() != null) {
+            out.name("params");
+            out.beginObject();
+            for (Map.Entry<String, String> entry : value.getParams().entrySet()) {
+                out.name(String.valueOf(entry.getKey()));
+                out.value(entry.getValue());
+            }
+            out.endObject();
+        }
+        out.endObject();
+    }
+
+    // Device Requests
+    static void writeNewDevice(JsonSink out, NewDevice value) throws IOException {
+        out.beginObject();
+        writeString(out, "deviceToken", value.getDeviceToken());
+        if (value.getPlatform() != null) {
+            out.name("platform").value(value.getPlatform().name());
+        }
+        writeString(out, "extId", value.getExtId());
+        writeString(out, "email", value.getEmail());
+        out.endObject();
+    }
+
+    static void writeDisablePushRequestWithExternalId(JsonSink out, DisablePushRequestWithExternalId value) throws IOException {
+        out.beginObject();
+        writeString(out, "extId", value.getExtId());
+        out.endObject();
+    }
+
+    static void writeDisablePushRequestWithToken(JsonSink out, DisablePushRequestWithToken value) throws IOException {
+        out.beginObject();
+        writeString(out, "deviceToken", value.getDeviceToken());
+        out.endObject();
+    }
+
+    static void writeEnablePushRequestWithExternalId(JsonSink out, EnablePushRequestWithExternalId value) throws IOException {
+        out.beginObject();
+        writeString(out, "extId", value.getExtId());
+        out.endObject();
+    }
+
+    static void writeEnablePushRequestWithToken(JsonSink out, EnablePushRequestWithToken value) throws IOException {
+        out.beginObject();
+        writeString(out, "deviceToken", value.getDeviceToken());
+        out.endObject();
+    }
+
+    static void writeAddTagToUsersRequest(JsonSink out, AddTagToUsersRequest value) throws IOException {
+        out.beginObject();
+        writeString(out, "tag", value.getTag());
+        writeStrings(out, "extIds", value.getExtIds());
+        out.endObject();
+    }
+
+    static void writeRemoveTagFromUsersRequest(JsonSink out, RemoveTagFromUsersRequest value) throws IOException {
+        out.beginObject();
+        writeString(out, "tag", value.getTag());
+        writeStrings(out, "extIds", value.getExtIds());
+        out.endObject();
+    }
+
+    static void writeCategory(JsonSink out, Category value) throws IOException {
+        out.beginObject();
+        writeString(out, "extId", value.getExtId());
+        writeString(out, "category", value.getCategory());
+        writeBoolean(out, "enable", value.getEnable());
+        out.endObject();
+    }
+
+    static void writeUserAndProfileAttributeMap(JsonSink out, UserAndProfileAttributeMap value) throws IOException {
+        out.beginObject();
+        writeString(out, "extId", value.getExtId());
+        writeObjectMap(out, "profile", value.getProfile());
+        out.endObject();
+    }
+
+    static void writeUserAndProfileAttributeList(JsonSink out, UserAndProfileAttributeList value) throws IOException {
+        out.beginObject();
+        writeString(out, "extId", value.getExtId());
+        writeObjectListMap(out, "profile", value.getProfile());
+        out.endObject();
+    }
+
+    static void writeSingleUnsetObject(JsonSink out, SingleUnsetObject value) throws IOException {
+        out.beginObject();
+        writeString(out, "extId", value.getExtId());
+        if (value.getProfile() != null) {
+            out.name("profile");
+            writeObjects(out, value.getProfile());
+        }
+        out.endObject();
+    }
+
+    static void writeDeleteProfileAttributeFromAllUsersRequest(JsonSink out, DeleteProfileAttributeFromAllUsersRequest value) throws IOException {
+        out.beginObject();
+        writeString(out, "key", value.getKey());
+        writeString(out, "value", value.getValue());
+        out.endObject();
+    }
+
+    private static void writeString(JsonSink out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    private static void writeNumber(JsonSink out, String name, Number value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    private static void writeBoolean(JsonSink out, String name, Boolean value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    private static void writeStrings(JsonSink out, String name, List<String> values) throws IOException {
+        if (values != null) {
+            out.name(name);
+            writeStrings(out, values);
+        }
+    }
+
+    private static void writeStrings(JsonSink out, List<String> values) throws IOException {
+        out.beginArray();
+        for (String value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    private static void writePlatforms(JsonSink out, String name, List<Platform> platforms) throws IOException {
+        if (platforms != null) {
+            out.name(name);
+            out.beginArray();
+            for (Platform platform : platforms) {
+                out.value(platform == null ? null : platform.name());
+            }
+            out.endArray();
+        }
+    }
+
+    private static void writeConditionMap(JsonSink out, String name, Map<?, List<String>> map) throws IOException {
+        if (map != null) {
+            out.name(name);
+            out.beginObject();
+            for (Map.Entry<?, List<String>> entry : map.entrySet()) {
+                out.name(String.valueOf(entry.getKey()));
+                if (entry.getValue() == null) {
+                    out.nullValue();
+                } else {
+                    writeStrings(out, entry.getValue());
+                }
+            }
+            out.endObject();
+        }
+    }
+
+    private static void writeObjectMap(JsonSink out, String name, Map<String, Object> map) throws IOException {
+        if (map != null) {
+            out.name(name);
+            out.beginObject();
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                out.name(String.valueOf(entry.getKey()));
+                out.objectValue(entry.getValue());
+            }
+            out.endObject();
+        }
+    }
+
+    private static void writeObjectListMap(JsonSink out, String name, Map<String, List<Object>> map) throws IOException {
+        if (map != null) {
+            out.name(name);
+            out.beginObject();
+            for (Map.Entry<String, List<Object>> entry : map.entrySet()) {
+                out.name(String.valueOf(entry.getKey()));
+                if (entry.getValue() == null) {
+                    out.nullValue();
+                } else {
+                    writeObjects(out, entry.getValue());
+                }
+            }
+            out.endObject();
+        }
+    }
+
+    private static void writeObjects(JsonSink out, List<Object> values) throws IOException {
+        out.beginArray();
+        for (Object value : values) {
+            out.objectValue(value);
+        }
+        out.endArray();
+    }
+}
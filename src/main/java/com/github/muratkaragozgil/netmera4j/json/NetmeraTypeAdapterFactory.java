@@ -0,0 +1,193 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import com.github.muratkaragozgil.netmera4j.exception.NetmeraError;
+import com.github.muratkaragozgil.netmera4j.model.device.*;
+import com.github.muratkaragozgil.netmera4j.model.notification.*;
+import com.github.muratkaragozgil.netmera4j.request.device.*;
+import com.github.muratkaragozgil.netmera4j.request.notification.CreateGeofenceRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.CreateTransactionalNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendBulkNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTransactionalNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.response.*;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates handwritten adapters for request bodies and responses. Request bodies are only written and responses are
+ * only read by the client, the other direction falls back to Gson's reflective adapter when it is used.
+ *
+ * @author Murat Karagözgil
+ */
+public final class NetmeraTypeAdapterFactory implements TypeAdapterFactory {
+
+    private static final Map<Class<?>, ValueWriter<?>> WRITERS = new HashMap<>();
+    private static final Map<Class<?>, ValueReader<?>> READERS = new HashMap<>();
+
+    static {
+        // Notification Requests
+        writer(SendBulkNotificationRequest.class, NetmeraJsonWriter::writeSendBulkNotificationRequest);
+        writer(SendTransactionalNotificationRequest.class, NetmeraJsonWriter::writeSendTransactionalNotificationRequest);
+        writer(CreateTransactionalNotificationRequest.class, NetmeraJsonWriter::writeCreateTransactionalNotificationRequest);
+        writer(CreateGeofenceRequest.class, NetmeraJsonWriter::writeCreateGeofenceRequest);
+        writer(Message.class, NetmeraJsonWriter::writeMessage);
+        writer(BulkMessage.class, NetmeraJsonWriter::writeMessage);
+        writer(SingleMessage.class, NetmeraJsonWriter::writeMessage);
+        writer(Target.class, NetmeraJsonWriter::writeTarget);
+        writer(BasicTarget.class, NetmeraJsonWriter::writeTarget);
+        writer(AdvanceTarget.class, NetmeraJsonWriter::writeTarget);
+        writer(Location.class, NetmeraJsonWriter::writeLocation);
+        writer(Schedule.class, NetmeraJsonWriter::writeSchedule);
+        writer(Speed.class, NetmeraJsonWriter::writeSpeed);
+        writer(ClickAction.class, NetmeraJsonWriter::writeClickAction);
+        writer(MediaSettings.class, NetmeraJsonWriter::writeMediaSettings);
+        writer(HookSettings.class, NetmeraJsonWriter::writeHookSettings);
+        // Device Requests
+        writer(NewDevice.class, NetmeraJsonWriter::writeNewDevice);
+        writer(DisablePushRequestWithExternalId.class, NetmeraJsonWriter::writeDisablePushRequestWithExternalId);
+        writer(DisablePushRequestWithToken.class, NetmeraJsonWriter::writeDisablePushRequestWithToken);
+        writer(EnablePushRequestWithExternalId.class, NetmeraJsonWriter::writeEnablePushRequestWithExternalId);
+        writer(EnablePushRequestWithToken.class, NetmeraJsonWriter::writeEnablePushRequestWithToken);
+        writer(AddTagToUsersRequest.class, NetmeraJsonWriter::writeAddTagToUsersRequest);
+        writer(RemoveTagFromUsersRequest.class, NetmeraJsonWriter::writeRemoveTagFromUsersRequest);
+        writer(Category.class, NetmeraJsonWriter::writeCategory);
+        writer(UserAndProfileAttributeMap.class, NetmeraJsonWriter::writeUserAndProfileAttributeMap);
+        writer(UserAndProfileAttributeList.class, NetmeraJsonWriter::writeUserAndProfileAttributeList);
+        writer(SingleUnsetObject.class, NetmeraJsonWriter::writeSingleUnsetObject);
+        writer(DeleteProfileAttributeFromAllUsersRequest.class, NetmeraJsonWriter::writeDeleteProfileAttributeFromAllUsersRequest);
+        // Responses
+        reader(NotificationResponse.class, NetmeraJsonReader::readNotificationResponse);
+        reader(GetPushStatsResponse.class, NetmeraJsonReader::readGetPushStatsResponse);
+        reader(GetPushStatsInDateRangeResponse.class, NetmeraJsonReader::readGetPushStatsInDateRangeResponse);
+        reader(SingleStat.class, NetmeraJsonReader::readSingleStat);
+        reader(GetPushResultResponse.class, NetmeraJsonReader::readGetPushResultResponse);
+        reader(SingleResult.class, NetmeraJsonReader::readSingleResult);
+        reader(GetDeviceTokensResponse.class, NetmeraJsonReader::readGetDeviceTokensResponse);
+        reader(GetUserDevicesResponse.class, NetmeraJsonReader::readGetUserDevicesResponse);
+        reader(Device.class, NetmeraJsonReader::readDevice);
+        reader(GetProfileAttributesResponse.class, NetmeraJsonReader::readGetProfileAttributesResponse);
+        reader(NetmeraError.class, NetmeraJsonReader::readNetmeraError);
+    }
+
+    private static <T> void writer(Class<T> type, ValueWriter<T> writer) {
+        WRITERS.put(type, writer);
+    }
+
+    private static <T> void reader(Class<T> type, ValueReader<T> reader) {
+        READERS.put(type, reader);
+    }
+
+    /**
+     * @return handwritten writer of given request body type, null if the type has none
+     */
+    @SuppressWarnings("unchecked")
+    static <T> ValueWriter<T> writerOf(Class<? extends T> type) {
+        return (ValueWriter<T>) WRITERS.get(type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        ValueWriter<T> writer = (ValueWriter<T>) WRITERS.get(type.getRawType());
+        if (writer != null) {
+            return new WritingAdapter<>(gson, type, writer, gson.getAdapter(Object.class));
+        }
+        ValueReader<T> reader = (ValueReader<T>) READERS.get(type.getRawType());
+        if (reader != null) {
+            return new ReadingAdapter<>(gson, type, reader, new NetmeraJsonReader(gson));
+        }
+        return null;
+    }
+
+    interface ValueWriter<T> {
+        void write(JsonSink out, T value) throws IOException;
+    }
+
+    private interface ValueReader<T> {
+        T read(NetmeraJsonReader reader, JsonReader in) throws IOException;
+    }
+
+    /**
+     * Adapter of one direction, the reflective adapter of the other direction is created on first use.
+     */
+    private abstract class OneWayAdapter<T> extends TypeAdapter<T> {
+        private final Gson gson;
+        private final TypeToken<T> type;
+        private TypeAdapter<T> delegate;
+
+        private OneWayAdapter(Gson gson, TypeToken<T> type) {
+            this.gson = gson;
+            this.type = type;
+        }
+
+        TypeAdapter<T> delegate() {
+            if (delegate == null) {
+                delegate = gson.getDelegateAdapter(NetmeraTypeAdapterFactory.this, type);
+            }
+            return delegate;
+        }
+    }
+
+    private final class WritingAdapter<T> extends OneWayAdapter<T> {
+        private final ValueWriter<T> valueWriter;
+        private final TypeAdapter<Object> objectAdapter;
+
+        private WritingAdapter(Gson gson, TypeToken<T> type, ValueWriter<T> valueWriter, TypeAdapter<Object> objectAdapter) {
+            super(gson, type);
+            this.valueWriter = valueWriter;
+            this.objectAdapter = objectAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                valueWriter.write(new GsonJsonSink(out, objectAdapter), value);
+            }
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            return delegate().read(in);
+        }
+    }
+
+    private final class ReadingAdapter<T> extends OneWayAdapter<T> {
+        private final ValueReader<T> valueReader;
+        private final NetmeraJsonReader reader;
+
+        private ReadingAdapter(Gson gson, TypeToken<T> type, ValueReader<T> valueReader, NetmeraJsonReader reader) {
+            super(gson, type);
+            this.valueReader = valueReader;
+            this.reader = reader;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            delegate().write(out, value);
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            try {
+                return valueReader.read(reader, in);
+            } catch (IllegalStateException e) {
+                throw new JsonSyntaxException(e);
+            }
+        }
+    }
+}
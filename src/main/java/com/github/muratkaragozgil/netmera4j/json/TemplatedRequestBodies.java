@@ -0,0 +1,54 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import com.github.muratkaragozgil.netmera4j.model.notification.Target;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTemplatedBulkNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTemplatedTransactionalNotificationRequest;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+
+import java.io.IOException;
+
+/**
+ * Request bodies of templated notifications, spliced from the template's bytes and the serialized target.
+ * Field order and omitted nulls are the same as the bodies of the untemplated requests.
+ *
+ * @author Murat Karagözgil
+ */
+final class TemplatedRequestBodies {
+
+    private TemplatedRequestBodies() {
+    }
+
+    static RequestBody bulk(SendTemplatedBulkNotificationRequest request, MediaType mediaType, NetmeraCodec codec) throws IOException {
+        Buffer body = new Buffer();
+        body.writeUtf8("{\"message\":");
+        request.getTemplate().writeTo(body, null, codec);
+        writeTarget(body, request.getTarget(), codec);
+        body.writeByte('}');
+        return new BufferRequestBody(mediaType, body);
+    }
+
+    static RequestBody transactional(SendTemplatedTransactionalNotificationRequest request, MediaType mediaType, NetmeraCodec codec) throws IOException {
+        Buffer body = new Buffer();
+        body.writeByte('{');
+        if (request.getNotificationKey() != null) {
+            body.writeUtf8("\"notificationKey\":");
+            codec.write(request.getNotificationKey(), String.class, body.outputStream());
+            body.writeByte(',');
+        }
+        body.writeUtf8("\"message\":");
+        request.getTemplate().writeTo(body, request.getParams(), codec);
+        writeTarget(body, request.getTarget(), codec);
+        body.writeByte('}');
+        return new BufferRequestBody(mediaType, body);
+    }
+
+    private static void writeTarget(Buffer body, Target target, NetmeraCodec codec) throws IOException {
+        if (target != null) {
+            body.writeUtf8(",\"target\":");
+            // the runtime type, a Jackson writer of the declared type would drop the fields of advance targets
+            codec.write(target, target.getClass(), body.outputStream());
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.github.muratkaragozgil.netmera4j.logging;
+
+import com.github.muratkaragozgil.netmera4j.json.NetmeraGson;
+import com.github.muratkaragozgil.netmera4j.request.device.EncodedNewDevicesRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.EncodedProfileAttributesRequest;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import com.google.gson.JsonIOException;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Controls how request and response payloads are logged on the hot path.
+ * Payloads are wrapped in objects which are only rendered when the logger calls {@code toString()},
+ * so nothing is stringified when the log level is disabled or the call is not sampled. Payloads with a max length
+ * are rendered as json and rendering stops at the max length, so large payloads cost no more than the logged part.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@ToString
+public class NetmeraLoggingPolicy {
+
+    /**
+     * Logs every request and response payload fully.
+     */
+    public static final NetmeraLoggingPolicy DEFAULT = new NetmeraLoggingPolicyBuilder().build();
+
+    private double requestSampleRate;
+    private double responseSampleRate;
+    private int maxPayloadLength;
+    private boolean summarize;
+
+    private NetmeraLoggingPolicy(double requestSampleRate, double responseSampleRate, int maxPayloadLength, boolean summarize) {
+        this.requestSampleRate = requestSampleRate;
+        this.responseSampleRate = responseSampleRate;
+        this.maxPayloadLength = maxPayloadLength;
+        this.summarize = summarize;
+    }
+
+    public boolean sampleRequest() {
+        return sample(requestSampleRate);
+    }
+
+    public boolean sampleResponse() {
+        return sample(responseSampleRate);
+    }
+
+    /**
+     * @return lazy representation of {@code payload} which renders it on {@code toString()} according to this policy
+     */
+    public Object render(Object payload) {
+        return new LoggablePayload(payload);
+    }
+
+    private static boolean sample(double rate) {
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private final class LoggablePayload {
+        private final Object payload;
+
+        private LoggablePayload(Object payload) {
+            this.payload = payload;
+        }
+
+        @Override
+        public String toString() {
+            if (summarize) {
+                return truncate(PayloadSummaries.summarize(payload));
+            }
+            if (maxPayloadLength == Integer.MAX_VALUE || payload == null || payload instanceof CharSequence
+                    || payload instanceof EncodedNewDevicesRequest || payload instanceof EncodedProfileAttributesRequest) {
+                // encoded requests print their counts, their bodies are not rendered
+                return truncate(String.valueOf(payload));
+            }
+            BoundedWriter out = new BoundedWriter(maxPayloadLength);
+            try {
+                NetmeraGson.get().toJson(payload, out);
+                return out.toString();
+            } catch (JsonIOException e) {
+                if (!(e.getCause() instanceof PayloadLengthReached)) {
+                    throw e;
+                }
+                return out + "...(truncated)";
+            }
+        }
+
+        private String truncate(String rendered) {
+            if (rendered.length() <= maxPayloadLength) {
+                return rendered;
+            }
+            return rendered.substring(0, maxPayloadLength) + "...(" + (rendered.length() - maxPayloadLength) + " chars truncated)";
+        }
+    }
+
+    /**
+     * Keeps the first {@code maxLength} characters and stops the serializer writing into it after them.
+     */
+    private static final class BoundedWriter extends Writer {
+        private final StringBuilder builder;
+        private final int maxLength;
+
+        private BoundedWriter(int maxLength) {
+            this.builder = new StringBuilder(Math.min(maxLength, 1024));
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            int room = maxLength - builder.length();
+            if (length > room) {
+                builder.append(chars, offset, room);
+                throw PayloadLengthReached.INSTANCE;
+            }
+            builder.append(chars, offset, length);
+        }
+
+        @Override
+        public void write(String string, int offset, int length) throws IOException {
+            int room = maxLength - builder.length();
+            if (length > room) {
+                builder.append(string, offset, offset + room);
+                throw PayloadLengthReached.INSTANCE;
+            }
+            builder.append(string, offset, offset + length);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return builder.toString();
+        }
+    }
+
+    private static final class PayloadLengthReached extends IOException {
+        private static final PayloadLengthReached INSTANCE = new PayloadLengthReached();
+        private static final long serialVersionUID = 1L;
+
+        private PayloadLengthReached() {
+            super("Max payload length is reached.", null);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    public static final class NetmeraLoggingPolicyBuilder {
+        private double requestSampleRate = 1;
+        private double responseSampleRate = 1;
+        private int maxPayloadLength = Integer.MAX_VALUE;
+        private boolean summarize;
+
+        public NetmeraLoggingPolicyBuilder() {
+        }
+
+        public static NetmeraLoggingPolicyBuilder Builder() {
+            return new NetmeraLoggingPolicyBuilder();
+        }
+
+        /**
+         * @param requestSampleRate ratio of logged requests, between 0 and 1
+         */
+        public NetmeraLoggingPolicyBuilder requestSampleRate(double requestSampleRate) {
+            Assert.mustBetween(0, 1, requestSampleRate, "Request Sample Rate");
+            this.requestSampleRate = requestSampleRate;
+            return this;
+        }
+
+        /**
+         * @param responseSampleRate ratio of logged responses, between 0 and 1
+         */
+        public NetmeraLoggingPolicyBuilder responseSampleRate(double responseSampleRate) {
+            Assert.mustBetween(0, 1, responseSampleRate, "Response Sample Rate");
+            this.responseSampleRate = responseSampleRate;
+            return this;
+        }
+
+        /**
+         * @param maxPayloadLength rendered payloads longer than this are truncated, payloads are rendered as json when it
+         *                         is set
+         */
+        public NetmeraLoggingPolicyBuilder maxPayloadLength(int maxPayloadLength) {
+            Assert.mustGreaterThan(1, maxPayloadLength, "Max Payload Length");
+            this.maxPayloadLength = maxPayloadLength;
+            return this;
+        }
+
+        /**
+         * @param summarize logs counts of payload contents (devices, results, ids...) instead of the contents
+         */
+        public NetmeraLoggingPolicyBuilder summarize(boolean summarize) {
+            this.summarize = summarize;
+            return this;
+        }
+
+        public NetmeraLoggingPolicy build() {
+            return new NetmeraLoggingPolicy(requestSampleRate, responseSampleRate, maxPayloadLength, summarize);
+        }
+    }
+}
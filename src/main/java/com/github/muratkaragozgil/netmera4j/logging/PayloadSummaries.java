@@ -0,0 +1,82 @@
+package com.github.muratkaragozgil.netmera4j.logging;
+
+import com.github.muratkaragozgil.netmera4j.model.notification.Target;
+import com.github.muratkaragozgil.netmera4j.request.device.*;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendBulkNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTransactionalNotificationInChunksRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTransactionalNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.response.*;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Short descriptions of request and response payloads which contain counts instead of contents.
+ * Types without a registered summary are described by their class name.
+ *
+ * @author Murat Karagözgil
+ */
+public final class PayloadSummaries {
+
+    private static final Map<Class<?>, Function<Object, String>> SUMMARIES = new ConcurrentHashMap<>();
+
+    static {
+        register(AddNewDevicesRequest.class, r -> "AddNewDevicesRequest(deviceList=" + size(r.getDeviceList()) + ")");
+        register(EncodedNewDevicesRequest.class, r -> "EncodedNewDevicesRequest(devices=" + r.getDevices() + ")");
+        register(AddProfileAttributeRequest.class, r -> "AddProfileAttributeRequest(userAndProfileAttributeMaps=" + size(r.getUserAndProfileAttributeMaps()) + ")");
+        register(EncodedProfileAttributesRequest.class, r -> "EncodedProfileAttributesRequest(users=" + r.getUsers() + ")");
+        register(UnsetProfileAttributesRequest.class, r -> "UnsetProfileAttributesRequest(singleUnsetObjects=" + size(r.getSingleUnsetObjects()) + ")");
+        register(PushProfileAttributesToUserRequest.class, r -> "PushProfileAttributesToUserRequest(userAndProfileAttributeLists=" + size(r.getUserAndProfileAttributeLists()) + ")");
+        register(PullProfileAttributesFromUserRequest.class, r -> "PullProfileAttributesFromUserRequest(userAndProfileAttributeLists=" + size(r.getUserAndProfileAttributeLists()) + ")");
+        register(SetCategoryPreferenceRequest.class, r -> "SetCategoryPreferenceRequest(categories=" + size(r.getCategories()) + ")");
+        register(AddTagToUsersRequest.class, r -> "AddTagToUsersRequest(tag=" + r.getTag() + ", extIds=" + size(r.getExtIds()) + ")");
+        register(RemoveTagFromUsersRequest.class, r -> "RemoveTagFromUsersRequest(tag=" + r.getTag() + ", extIds=" + size(r.getExtIds()) + ")");
+        register(SendBulkNotificationRequest.class, r -> "SendBulkNotificationRequest(" + target(r.getTarget()) + ")");
+        register(SendTransactionalNotificationRequest.class, r -> "SendTransactionalNotificationRequest(notificationKey=" + r.getNotificationKey() + ", " + target(r.getTarget()) + ")");
+        register(SendTransactionalNotificationInChunksRequest.class, r -> "SendTransactionalNotificationInChunksRequest(notifications=" + size(r.getNotifications()) + ")");
+        register(GetDeviceTokensResponse.class, r -> "GetDeviceTokensResponse(total=" + r.getTotal() + ", devices=" + size(r.getDevices()) + ", nextPage=" + (r.getNextPage() != null) + ")");
+        register(GetUserDevicesResponse.class, r -> "GetUserDevicesResponse(extId=" + r.getExtId() + ", devices=" + size(r.getDevices()) + ")");
+        register(GetProfileAttributesResponse.class, r -> "GetProfileAttributesResponse(extId=" + r.getExtId() + ", profile=" + size(r.getProfile()) + ")");
+        register(GetPushResultResponse.class, r -> "GetPushResultResponse(list=" + size(r.getList()) + ", nextPage=" + (r.getNextPage() != null) + ")");
+        register(GetPushStatsInDateRangeResponse.class, r -> "GetPushStatsInDateRangeResponse(messages=" + size(r.getMessages()) + ")");
+    }
+
+    private PayloadSummaries() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> void register(Class<T> type, Function<T, String> summary) {
+        SUMMARIES.put(type, (Function<Object, String>) summary);
+    }
+
+    public static String summarize(Object payload) {
+        if (payload == null) {
+            return "null";
+        }
+        Function<Object, String> summary = SUMMARIES.get(payload.getClass());
+        if (summary != null) {
+            return summary.apply(payload);
+        }
+        if (payload instanceof Collection) {
+            return payload.getClass().getSimpleName() + "(size=" + ((Collection<?>) payload).size() + ")";
+        }
+        if (payload instanceof Map) {
+            return payload.getClass().getSimpleName() + "(size=" + ((Map<?, ?>) payload).size() + ")";
+        }
+        return payload.getClass().getSimpleName();
+    }
+
+    private static String target(Target target) {
+        return target == null ? "target=null" : "sendToAll=" + target.isSendToAll() + ", extId=" + size(target.getExtId());
+    }
+
+    private static int size(Collection<?> collection) {
+        return collection == null ? 0 : collection.size();
+    }
+
+    private static int size(Map<?, ?> map) {
+        return map == null ? 0 : map.size();
+    }
+}
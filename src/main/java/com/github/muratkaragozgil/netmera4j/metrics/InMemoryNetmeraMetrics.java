@@ -0,0 +1,200 @@
+package com.github.muratkaragozgil.netmera4j.metrics;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reference {@link NetmeraMetrics} implementation which keeps per endpoint counters and histograms in memory.
+ *
+ * @author Murat Karagözgil
+ */
+public class InMemoryNetmeraMetrics implements NetmeraMetrics {
+
+    private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private volatile int concurrencyLimit;
+    private volatile int concurrencyQueued;
+    private volatile int callbackQueued;
+    private final LatencyHistogram callbackQueueWait = new LatencyHistogram();
+    private final LatencyHistogram callbackHandlerTime = new LatencyHistogram();
+    private final LongAdder callbackRejections = new LongAdder();
+
+    public Map<String, EndpointMetrics> getEndpoints() {
+        return Collections.unmodifiableMap(endpoints);
+    }
+
+    public EndpointMetrics getEndpoint(String endpoint) {
+        return endpoints.get(endpoint);
+    }
+
+    /**
+     * @return the last reported adaptive concurrency limit, 0 when the client has no concurrency limit
+     */
+    public int getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    /**
+     * @return the last reported number of calls waiting for the adaptive concurrency limit
+     */
+    public int getConcurrencyQueued() {
+        return concurrencyQueued;
+    }
+
+    /**
+     * @return the last reported number of call back handlers waiting for the callback executor
+     */
+    public int getCallbackQueued() {
+        return callbackQueued;
+    }
+
+    /**
+     * @return time call back handlers waited for the callback executor, a growing wait means handlers are the bottleneck
+     */
+    public LatencyHistogram getCallbackQueueWait() {
+        return callbackQueueWait;
+    }
+
+    public LatencyHistogram getCallbackHandlerTime() {
+        return callbackHandlerTime;
+    }
+
+    public long getCallbackRejections() {
+        return callbackRejections.sum();
+    }
+
+    private EndpointMetrics endpoint(String endpoint) {
+        return endpoints.computeIfAbsent(endpoint, e -> new EndpointMetrics());
+    }
+
+    @Override
+    public void requestStarted(String endpoint) {
+        EndpointMetrics metrics = endpoint(endpoint);
+        metrics.requests.increment();
+        metrics.inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void requestDispatched(String endpoint, long queueWaitNanos) {
+        endpoint(endpoint).queueWait.record(queueWaitNanos);
+    }
+
+    @Override
+    public void requestRetried(String endpoint) {
+        endpoint(endpoint).retries.increment();
+    }
+
+    @Override
+    public void requestHedged(String endpoint) {
+        endpoint(endpoint).hedges.increment();
+    }
+
+    @Override
+    public void requestCompleted(String endpoint, int statusCode, long latencyNanos, long requestBytes, long responseBytes) {
+        EndpointMetrics metrics = endpoint(endpoint);
+        metrics.inFlight.decrementAndGet();
+        int statusClass = statusCode / 100;
+        metrics.statusClasses[statusClass > 0 && statusClass < 6 ? statusClass : 0].increment();
+        metrics.latency.record(latencyNanos);
+        metrics.requestBytes.add(requestBytes);
+        metrics.responseBytes.add(responseBytes);
+    }
+
+    @Override
+    public void requestFailed(String endpoint, IOException exception, long latencyNanos, long requestBytes, long responseBytes) {
+        EndpointMetrics metrics = endpoint(endpoint);
+        metrics.inFlight.decrementAndGet();
+        metrics.failures.increment();
+        metrics.latency.record(latencyNanos);
+        metrics.requestBytes.add(requestBytes);
+        metrics.responseBytes.add(responseBytes);
+    }
+
+    @Override
+    public void concurrencyLimitUpdated(int limit, int inFlight, int queued) {
+        concurrencyLimit = limit;
+        concurrencyQueued = queued;
+    }
+
+    @Override
+    public void callbackQueued(int queued) {
+        callbackQueued = queued;
+    }
+
+    @Override
+    public void callbackCompleted(long queueWaitNanos, long handlerNanos) {
+        callbackQueueWait.record(queueWaitNanos);
+        callbackHandlerTime.record(handlerNanos);
+    }
+
+    @Override
+    public void callbackRejected() {
+        callbackRejections.increment();
+    }
+
+    public static final class EndpointMetrics {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder hedges = new LongAdder();
+        private final AtomicLong inFlight = new AtomicLong();
+        private final LongAdder requestBytes = new LongAdder();
+        private final LongAdder responseBytes = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram queueWait = new LatencyHistogram();
+        // index 0 keeps unexpected status codes, 1-5 keeps 1xx-5xx
+        private final LongAdder[] statusClasses = new LongAdder[6];
+
+        private EndpointMetrics() {
+            for (int i = 0; i < statusClasses.length; i++) {
+                statusClasses[i] = new LongAdder();
+            }
+        }
+
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        public long getRetries() {
+            return retries.sum();
+        }
+
+        public long getHedges() {
+            return hedges.sum();
+        }
+
+        public long getInFlight() {
+            return inFlight.get();
+        }
+
+        public long getRequestBytes() {
+            return requestBytes.sum();
+        }
+
+        public long getResponseBytes() {
+            return responseBytes.sum();
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public LatencyHistogram getQueueWait() {
+            return queueWait;
+        }
+
+        /**
+         * @param statusClass 1 for 1xx, 2 for 2xx ... 5 for 5xx
+         */
+        public long getStatusClassCount(int statusClass) {
+            return statusClass > 0 && statusClass < 6 ? statusClasses[statusClass].sum() : statusClasses[0].sum();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.muratkaragozgil.netmera4j.metrics;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Feeds a {@link NetmeraMetrics} from OkHttp. Installed both as {@link EventListener.Factory}, which tracks
+ * the lifecycle, sizes and status of every call, and as the first application {@link Interceptor},
+ * which marks the moment a call leaves the dispatcher queue.
+ *
+ * @author Murat Karagözgil
+ */
+public class NetmeraInstrumentation implements EventListener.Factory, Interceptor {
+
+    private final NetmeraMetrics metrics;
+    private final Map<Call, CallListener> activeCalls = new ConcurrentHashMap<>();
+
+    public NetmeraInstrumentation(NetmeraMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public EventListener create(Call call) {
+        return new CallListener(call.request().url().encodedPath());
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        CallListener listener = activeCalls.get(chain.call());
+        if (listener != null) {
+            metrics.requestDispatched(listener.endpoint, System.nanoTime() - listener.startNanos);
+        }
+        return chain.proceed(chain.request());
+    }
+
+    /**
+     * Records a retry attempt of given call.
+     */
+    public void retried(Call call) {
+        CallListener listener = activeCalls.get(call);
+        if (listener != null) {
+            metrics.requestRetried(listener.endpoint);
+        }
+    }
+
+    private final class CallListener extends EventListener {
+        private final String endpoint;
+        private long startNanos;
+        private long requestBytes;
+        private long responseBytes;
+        private int statusCode;
+
+        private CallListener(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public void callStart(Call call) {
+            startNanos = System.nanoTime();
+            activeCalls.put(call, this);
+            metrics.requestStarted(endpoint);
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            requestBytes += byteCount;
+        }
+
+        @Override
+        public void responseHeadersEnd(Call call, Response response) {
+            statusCode = response.code();
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            responseBytes += byteCount;
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            activeCalls.remove(call);
+            metrics.requestCompleted(endpoint, statusCode, System.nanoTime() - startNanos, requestBytes, responseBytes);
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            activeCalls.remove(call);
+            metrics.requestFailed(endpoint, ioe, System.nanoTime() - startNanos, requestBytes, responseBytes);
+        }
+    }
+}
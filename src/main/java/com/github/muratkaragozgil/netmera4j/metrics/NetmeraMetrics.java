@@ -0,0 +1,87 @@
+package com.github.muratkaragozgil.netmera4j.metrics;
+
+import java.io.IOException;
+
+/**
+ * Recorder for the client side metrics of Netmera rest api calls.
+ * Endpoints are identified by the encoded request path, e.g. {@code /rest/3.0/sendNotification}.
+ * Every method has an empty default body so implementations only override what they need.
+ * Methods are called from OkHttp threads and must not block.
+ *
+ * @author Murat Karagözgil
+ */
+public interface NetmeraMetrics {
+
+    /**
+     * Recorder which discards everything. Clients built with it do not install any instrumentation at all.
+     */
+    NetmeraMetrics NOOP = new NetmeraMetrics() {
+    };
+
+    /**
+     * Call is enqueued to the OkHttp dispatcher.
+     */
+    default void requestStarted(String endpoint) {
+    }
+
+    /**
+     * Call left the dispatcher queue and started running on an OkHttp thread.
+     *
+     * @param queueWaitNanos time spent waiting in the dispatcher queue
+     */
+    default void requestDispatched(String endpoint, long queueWaitNanos) {
+    }
+
+    /**
+     * Call is retried because of a 5xx response.
+     */
+    default void requestRetried(String endpoint) {
+    }
+
+    /**
+     * A second identical call is sent because the call has no response after its hedge delay.
+     */
+    default void requestHedged(String endpoint) {
+    }
+
+    /**
+     * Call completed with a http response and its body is consumed.
+     */
+    default void requestCompleted(String endpoint, int statusCode, long latencyNanos, long requestBytes, long responseBytes) {
+    }
+
+    /**
+     * Call failed without a http response (connection problem, timeout or cancellation).
+     */
+    default void requestFailed(String endpoint, IOException exception, long latencyNanos, long requestBytes, long responseBytes) {
+    }
+
+    /**
+     * Adaptive concurrency limit or the number of calls in flight or waiting for it changed.
+     * Only called when the client is built with a concurrency limit.
+     */
+    default void concurrencyLimitUpdated(int limit, int inFlight, int queued) {
+    }
+
+    /**
+     * Number of call back handlers handed to the callback executor and not started yet changed.
+     * Only called when the client is built with a callback executor or with metrics.
+     */
+    default void callbackQueued(int queued) {
+    }
+
+    /**
+     * A call back handler returned.
+     *
+     * @param queueWaitNanos time between handing the handler to the callback executor and its start
+     * @param handlerNanos   running time of the handler
+     */
+    default void callbackCompleted(long queueWaitNanos, long handlerNanos) {
+    }
+
+    /**
+     * The callback executor rejected a handler, it runs on the thread completing the call instead.
+     */
+    default void callbackRejected() {
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.muratkaragozgil.netmera4j.model.api;
+
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Micro-batching settings of transactional notifications. Notifications with the same notification key
+ * which are sent within {@code linger} milliseconds are grouped and sent with a single call,
+ * a group is sent earlier when it reaches {@code maxBatchSize} notifications.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@ToString
+public class NetmeraBatching {
+    private long linger;
+    private int maxBatchSize;
+
+    private NetmeraBatching(long linger, int maxBatchSize) {
+        this.linger = linger;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public static final class NetmeraBatchingBuilder {
+        private long linger = 5;
+        private int maxBatchSize = 100;
+
+        public NetmeraBatchingBuilder() {
+        }
+
+        public static NetmeraBatchingBuilder Builder() {
+            return new NetmeraBatchingBuilder();
+        }
+
+        /**
+         * @param linger milliseconds the first notification of a group waits for others
+         */
+        public NetmeraBatchingBuilder linger(long linger) {
+            Assert.mustBetween(1, 10000, linger, "Linger");
+            this.linger = linger;
+            return this;
+        }
+
+        public NetmeraBatchingBuilder maxBatchSize(int maxBatchSize) {
+            Assert.mustBetween(1, 10000, maxBatchSize, "Max Batch Size");
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public NetmeraBatching build() {
+            return new NetmeraBatching(linger, maxBatchSize);
+        }
+    }
+}
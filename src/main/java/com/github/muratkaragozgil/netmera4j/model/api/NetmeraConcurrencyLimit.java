@@ -0,0 +1,105 @@
+package com.github.muratkaragozgil.netmera4j.model.api;
+
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Adaptive concurrency limit settings. The number of calls in flight starts at {@code initialLimit} and moves between
+ * {@code minLimit} and {@code maxLimit}: it grows while call latencies stay within {@code tolerance} times their long
+ * term baseline and shrinks when they rise above it or when calls fail with a 5xx response or without a response.
+ * Calls over the limit wait in a queue.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@ToString
+public class NetmeraConcurrencyLimit {
+    private int initialLimit;
+    private int minLimit;
+    private int maxLimit;
+    private double tolerance;
+    private double smoothing;
+    private double backoffRatio;
+
+    private NetmeraConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing, double backoffRatio) {
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.backoffRatio = backoffRatio;
+    }
+
+    public static final class NetmeraConcurrencyLimitBuilder {
+        private int initialLimit = 10;
+        private int minLimit = 1;
+        private int maxLimit = 64;
+        private double tolerance = 1.5;
+        private double smoothing = 0.2;
+        private double backoffRatio = 0.9;
+
+        public NetmeraConcurrencyLimitBuilder() {
+        }
+
+        public static NetmeraConcurrencyLimitBuilder Builder() {
+            return new NetmeraConcurrencyLimitBuilder();
+        }
+
+        public NetmeraConcurrencyLimitBuilder initialLimit(int initialLimit) {
+            Assert.mustBetween(1, 1000, initialLimit, "Initial Limit");
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        public NetmeraConcurrencyLimitBuilder minLimit(int minLimit) {
+            Assert.mustBetween(1, 1000, minLimit, "Min Limit");
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        /**
+         * @param maxLimit upper bound of the limit, also used as the maximum requests of the OkHttp dispatcher
+         */
+        public NetmeraConcurrencyLimitBuilder maxLimit(int maxLimit) {
+            Assert.mustBetween(1, 1000, maxLimit, "Max Limit");
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * @param tolerance ratio of call latency to its baseline which is accepted before the limit is reduced
+         */
+        public NetmeraConcurrencyLimitBuilder tolerance(double tolerance) {
+            Assert.mustBetween(1.0, 10.0, tolerance, "Tolerance");
+            this.tolerance = tolerance;
+            return this;
+        }
+
+        /**
+         * @param smoothing weight of a new limit estimate against the current limit, lower values converge slower
+         */
+        public NetmeraConcurrencyLimitBuilder smoothing(double smoothing) {
+            Assert.mustBetween(0.01, 1.0, smoothing, "Smoothing");
+            this.smoothing = smoothing;
+            return this;
+        }
+
+        /**
+         * @param backoffRatio multiplier of the limit when a call fails with a 5xx response or without a response
+         */
+        public NetmeraConcurrencyLimitBuilder backoffRatio(double backoffRatio) {
+            Assert.mustBetween(0.1, 0.99, backoffRatio, "Backoff Ratio");
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the initial limit is not between the min and max limits
+         */
+        public NetmeraConcurrencyLimit build() {
+            Assert.isTrue(minLimit <= initialLimit && initialLimit <= maxLimit, "Initial limit %s must be between min limit %s and max limit %s.", initialLimit, minLimit, maxLimit);
+            return new NetmeraConcurrencyLimit(initialLimit, minLimit, maxLimit, tolerance, smoothing, backoffRatio);
+        }
+    }
+}
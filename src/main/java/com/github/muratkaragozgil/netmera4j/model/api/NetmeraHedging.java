@@ -0,0 +1,86 @@
+package com.github.muratkaragozgil.netmera4j.model.api;
+
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Hedging settings of GET requests. When a GET call has no response after the {@code percentile} latency of its
+ * endpoint, kept between {@code minDelay} and {@code maxDelay} milliseconds, a second identical call is sent and the
+ * first response wins. At most {@code budget} hedges are sent per call, e.g. 0.05 adds at most 5% more GET calls.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@ToString
+public class NetmeraHedging {
+    private double percentile;
+    private long minDelay;
+    private long maxDelay;
+    private double budget;
+
+    private NetmeraHedging(double percentile, long minDelay, long maxDelay, double budget) {
+        this.percentile = percentile;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+        this.budget = budget;
+    }
+
+    public static final class NetmeraHedgingBuilder {
+        private double percentile = 95;
+        private long minDelay = 10;
+        private long maxDelay = 5000;
+        private double budget = 0.05;
+
+        public NetmeraHedgingBuilder() {
+        }
+
+        public static NetmeraHedgingBuilder Builder() {
+            return new NetmeraHedgingBuilder();
+        }
+
+        /**
+         * @param percentile latency percentile of the endpoint after which a hedge is sent, between 50 and 99.9
+         */
+        public NetmeraHedgingBuilder percentile(double percentile) {
+            Assert.mustBetween(50.0, 99.9, percentile, "Percentile");
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * @param minDelay minimum milliseconds before a hedge is sent
+         */
+        public NetmeraHedgingBuilder minDelay(long minDelay) {
+            Assert.mustBetween(1, 60000, minDelay, "Min Delay");
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        /**
+         * @param maxDelay maximum milliseconds before a hedge is sent
+         */
+        public NetmeraHedgingBuilder maxDelay(long maxDelay) {
+            Assert.mustBetween(1, 60000, maxDelay, "Max Delay");
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * @param budget hedges allowed per GET call, between 0.01 and 1
+         */
+        public NetmeraHedgingBuilder budget(double budget) {
+            Assert.mustBetween(0.01, 1.0, budget, "Budget");
+            this.budget = budget;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the min delay is greater than the max delay
+         */
+        public NetmeraHedging build() {
+            Assert.isTrue(minDelay <= maxDelay, "Min delay %s must not be greater than max delay %s.", minDelay, maxDelay);
+            return new NetmeraHedging(percentile, minDelay, maxDelay, budget);
+        }
+    }
+}
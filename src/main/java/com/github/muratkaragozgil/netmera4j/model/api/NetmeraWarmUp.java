@@ -0,0 +1,82 @@
+package com.github.muratkaragozgil.netmera4j.model.api;
+
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Connection warm-up settings. When configured, the target host is resolved through a caching dns,
+ * {@code connections} pooled connections are opened before the client is returned from the builder
+ * and idle connections are kept alive with lightweight HEAD probes.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@ToString
+public class NetmeraWarmUp {
+    private int connections;
+    private int timeout;
+    private int probeInterval;
+    private int dnsTtl;
+
+    private NetmeraWarmUp(int connections, int timeout, int probeInterval, int dnsTtl) {
+        this.connections = connections;
+        this.timeout = timeout;
+        this.probeInterval = probeInterval;
+        this.dnsTtl = dnsTtl;
+    }
+
+    public static final class NetmeraWarmUpBuilder {
+        private int connections = 5;
+        private int timeout = 10;
+        private int probeInterval = 60;
+        private int dnsTtl = 60;
+
+        public NetmeraWarmUpBuilder() {
+        }
+
+        public static NetmeraWarmUpBuilder Builder() {
+            return new NetmeraWarmUpBuilder();
+        }
+
+        /**
+         * @param connections number of connections opened into the connection pool
+         */
+        public NetmeraWarmUpBuilder connections(int connections) {
+            Assert.mustBetween(1, 100, connections, "Warm Up Connections");
+            this.connections = connections;
+            return this;
+        }
+
+        /**
+         * @param timeout maximum seconds the builder waits for the warm-up
+         */
+        public NetmeraWarmUpBuilder timeout(int timeout) {
+            Assert.mustGreaterThan(1, timeout, "Warm Up Timeout");
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * @param probeInterval seconds between keep alive probes, 0 disables probes
+         */
+        public NetmeraWarmUpBuilder probeInterval(int probeInterval) {
+            Assert.mustGreaterThan(0, probeInterval, "Probe Interval");
+            this.probeInterval = probeInterval;
+            return this;
+        }
+
+        /**
+         * @param dnsTtl seconds a resolved address is served before it is refreshed in background
+         */
+        public NetmeraWarmUpBuilder dnsTtl(int dnsTtl) {
+            Assert.mustGreaterThan(1, dnsTtl, "Dns Ttl");
+            this.dnsTtl = dnsTtl;
+            return this;
+        }
+
+        public NetmeraWarmUp build() {
+            return new NetmeraWarmUp(connections, timeout, probeInterval, dnsTtl);
+        }
+    }
+}
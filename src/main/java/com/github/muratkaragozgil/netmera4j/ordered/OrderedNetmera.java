@@ -0,0 +1,730 @@
+package com.github.muratkaragozgil.netmera4j.ordered;
+
+import com.github.muratkaragozgil.netmera4j.Netmera;
+import com.github.muratkaragozgil.netmera4j.callback.ForwardingNetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.exception.ValidationException;
+import com.github.muratkaragozgil.netmera4j.model.device.*;
+import com.github.muratkaragozgil.netmera4j.request.device.*;
+import com.github.muratkaragozgil.netmera4j.request.event.FireEventsRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.*;
+import com.github.muratkaragozgil.netmera4j.response.*;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import com.github.muratkaragozgil.netmera4j.util.NetmeraProxy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * {@link Netmera} which sends the requests of a user in the order they are given, while requests of other users
+ * are sent in parallel. Users are spread over stripes by the hash of their external id, a request is sent when the
+ * requests before it on its stripes are completed, so calls of a user never overtake each other on the wire.
+ * <ul>
+ * <li>device registrations, push permission, tag, category preference and profile attribute requests are ordered by
+ * the external ids and device tokens they change,</li>
+ * <li>a request of many users is split into a request per stripe of its users, its call back is called once with the
+ * first failure or error response of the parts,</li>
+ * <li>notifications, events, stats, encoded batches and app wide requests are sent at once.</li>
+ * </ul>
+ * Invalid requests fail with a {@link ValidationException} before they are queued. Every stripe queues at most
+ * {@code maxQueuedPerStripe} requests and a user at most {@code maxQueuedPerKey}, so a user flooding its stripe is
+ * rejected as a hot key before it fills the queue shared with other users. Rejected requests fail with a
+ * {@link RejectedExecutionException} on their call back, the other parts of a split request are still sent.
+ * <p>
+ * A request whose call back is not called in {@code completionTimeout} releases its stripes so the users behind it are
+ * not blocked.
+ *
+ * @author Murat Karagözgil
+ */
+public class OrderedNetmera implements Netmera {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderedNetmera.class);
+
+    private final Netmera netmera;
+    private final Stripe[] stripes;
+    private final int maxQueuedPerStripe;
+    private final int maxQueuedPerKey;
+    private final long completionTimeout;
+    private final ScheduledThreadPoolExecutor timer;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder hotKeyRejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    // tasks made ready while the thread sends the ready tasks of a completion, sent by its loop instead of recursively
+    private final ThreadLocal<ArrayDeque<Task<?, ?>>> draining = new ThreadLocal<>();
+
+    private OrderedNetmera(OrderedNetmeraBuilder orderedNetmeraBuilder) {
+        this.netmera = orderedNetmeraBuilder.netmera;
+        this.stripes = new Stripe[orderedNetmeraBuilder.stripes];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(i);
+        }
+        this.maxQueuedPerStripe = orderedNetmeraBuilder.maxQueuedPerStripe;
+        this.maxQueuedPerKey = orderedNetmeraBuilder.maxQueuedPerKey;
+        this.completionTimeout = orderedNetmeraBuilder.completionTimeout;
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "netmera-ordered");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * @return requests waiting or in flight on every stripe
+     */
+    public int getQueued() {
+        int queued = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                queued += stripe.queue.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * @return requests rejected since a stripe or a key was full
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return requests rejected since one of their keys had {@code maxQueuedPerKey} requests queued
+     */
+    public long getHotKeyRejected() {
+        return hotKeyRejected.sum();
+    }
+
+    /**
+     * @return requests which released their stripes before their call back was called
+     */
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    /**
+     * @return keys rejected since their last request was queued, a key is removed when its queue is drained
+     */
+    public Set<String> getHotKeys() {
+        Set<String> hotKeys = new HashSet<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                hotKeys.addAll(stripe.hotKeys);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return hotKeys;
+    }
+
+    /**
+     * Stops the completion timer and closes the client, queued requests are still sent but do not time out.
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        netmera.close();
+    }
+
+    @Override
+    public void flush() {
+        netmera.flush();
+    }
+
+    // Device Requests
+    @Override
+    public void sendRequest(AddNewDevicesRequest addNewDevicesRequest, NetmeraCallBack<Void> callBack) {
+        split(addNewDevicesRequest, addNewDevicesRequest.getDeviceList(), device -> Arrays.asList(device.getExtId(), device.getDeviceToken()),
+                devices -> AddNewDevicesRequest.AddNewDevicesRequestBuilder.withDeviceList(devices).build(), Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(EncodedNewDevicesRequest encodedNewDevicesRequest, NetmeraCallBack<Void> callBack) {
+        netmera.sendRequest(encodedNewDevicesRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(DisablePushRequestWithExternalId disablePushRequestWithExternalId, NetmeraCallBack<Void> callBack) {
+        ordered(Collections.singletonList(disablePushRequestWithExternalId.getExtId()), disablePushRequestWithExternalId, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(DisablePushRequestWithToken disablePushRequestWithToken, NetmeraCallBack<Void> callBack) {
+        ordered(Collections.singletonList(disablePushRequestWithToken.getDeviceToken()), disablePushRequestWithToken, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(EnablePushRequestWithExternalId enablePushRequestWithExternalId, NetmeraCallBack<Void> callBack) {
+        ordered(Collections.singletonList(enablePushRequestWithExternalId.getExtId()), enablePushRequestWithExternalId, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(EnablePushRequestWithToken enablePushRequestWithToken, NetmeraCallBack<Void> callBack) {
+        ordered(Collections.singletonList(enablePushRequestWithToken.getDeviceToken()), enablePushRequestWithToken, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(AddTagToUsersRequest addTagToUsersRequest, NetmeraCallBack<Void> callBack) {
+        split(addTagToUsersRequest, addTagToUsersRequest.getExtIds(), Collections::singletonList,
+                extIds -> new AddTagToUsersRequest(addTagToUsersRequest.getTag(), extIds), Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(RemoveTagFromUsersRequest removeTagFromUsersRequest, NetmeraCallBack<Void> callBack) {
+        split(removeTagFromUsersRequest, removeTagFromUsersRequest.getExtIds(), Collections::singletonList,
+                extIds -> new RemoveTagFromUsersRequest(removeTagFromUsersRequest.getTag(), extIds), Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(SetCategoryPreferenceRequest setCategoryPreferenceRequest, NetmeraCallBack<Void> callBack) {
+        split(setCategoryPreferenceRequest, setCategoryPreferenceRequest.getCategories(), key(Category::getExtId),
+                SetCategoryPreferenceRequest::new, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(AddProfileAttributeRequest addProfileAttributeRequest, NetmeraCallBack<Void> callBack) {
+        split(addProfileAttributeRequest, addProfileAttributeRequest.getUserAndProfileAttributeMaps(), key(UserAndProfileAttributeMap::getExtId),
+                AddProfileAttributeRequest::new, Netmera::sendRequest, callBack);
+    }
+
+    /**
+     * Encoded users can not be read back, so the batch is not ordered with the requests of its users.
+     */
+    @Override
+    public void sendRequest(EncodedProfileAttributesRequest encodedProfileAttributesRequest, NetmeraCallBack<Void> callBack) {
+        netmera.sendRequest(encodedProfileAttributesRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(UnsetProfileAttributesRequest unsetProfileAttributesRequest, NetmeraCallBack<Void> callBack) {
+        split(unsetProfileAttributesRequest, unsetProfileAttributesRequest.getSingleUnsetObjects(), key(SingleUnsetObject::getExtId),
+                singleUnsetObjects -> UnsetProfileAttributesRequest.UnsetProfileAttributesRequestBuilder.UnsetProfileAttributesRequest()
+                        .userAndProfileAttributeLists(singleUnsetObjects).build(), Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(GetProfileAttributesRequest getProfileAttributesRequest, NetmeraCallBack<GetProfileAttributesResponse> callBack) {
+        ordered(Collections.singletonList(getProfileAttributesRequest.getExternalId()), getProfileAttributesRequest, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(PushProfileAttributesToUserRequest pushProfileAttributesToUserRequest, NetmeraCallBack<Void> callBack) {
+        split(pushProfileAttributesToUserRequest, pushProfileAttributesToUserRequest.getUserAndProfileAttributeLists(),
+                key(UserAndProfileAttributeList::getExtId), PushProfileAttributesToUserRequest::new, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(PullProfileAttributesFromUserRequest pullProfileAttributesFromUserRequest, NetmeraCallBack<Void> callBack) {
+        split(pullProfileAttributesFromUserRequest, pullProfileAttributesFromUserRequest.getUserAndProfileAttributeLists(),
+                key(UserAndProfileAttributeList::getExtId), PullProfileAttributesFromUserRequest::new, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(DeleteProfileAttributeFromAllUsersRequest deleteProfileAttributeFromAllUsersRequest, NetmeraCallBack<Void> callBack) {
+        netmera.sendRequest(deleteProfileAttributeFromAllUsersRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(GetUserDevicesRequest getUserDevices, NetmeraCallBack<GetUserDevicesResponse> callBack) {
+        ordered(Collections.singletonList(getUserDevices.getExternalId()), getUserDevices, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(GetDeviceTokensRequest getDeviceTokensRequest, NetmeraCallBack<GetDeviceTokensResponse> callBack) {
+        netmera.sendRequest(getDeviceTokensRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(GetDeviceTokensResponse getDeviceTokensResponse, NetmeraCallBack<GetDeviceTokensResponse> callBack) {
+        netmera.sendRequest(getDeviceTokensResponse, callBack);
+    }
+
+    // Notification Requests
+    @Override
+    public void sendRequest(SendBulkNotificationRequest sendBulkNotificationRequest, NetmeraCallBack<NotificationResponse> callBack) {
+        netmera.sendRequest(sendBulkNotificationRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(SendTransactionalNotificationRequest sendTransactionalNotificationRequest, NetmeraCallBack<Void> callBack) {
+        netmera.sendRequest(sendTransactionalNotificationRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(SendTemplatedBulkNotificationRequest sendTemplatedBulkNotificationRequest, NetmeraCallBack<NotificationResponse> callBack) {
+        netmera.sendRequest(sendTemplatedBulkNotificationRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(SendTemplatedTransactionalNotificationRequest sendTemplatedTransactionalNotificationRequest, NetmeraCallBack<Void> callBack) {
+        netmera.sendRequest(sendTemplatedTransactionalNotificationRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(List<SendBulkNotificationRequest> sendBulkNotificationRequests, NetmeraCallBack<Void> callBack) {
+        netmera.sendRequest(sendBulkNotificationRequests, callBack);
+    }
+
+    @Override
+    public void sendRequest(SendTransactionalNotificationInChunksRequest sendTransactionalNotificationInChunksRequest, NetmeraCallBack<Void> callBack) {
+        netmera.sendRequest(sendTransactionalNotificationInChunksRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(CreateTransactionalNotificationRequest createTransactionalNotificationRequest, NetmeraCallBack<NotificationResponse> callBack) {
+        netmera.sendRequest(createTransactionalNotificationRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(GetPushStatsRequest getPushStatsRequest, NetmeraCallBack<GetPushStatsResponse> callBack) {
+        netmera.sendRequest(getPushStatsRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(GetPushStatsInDateRangeRequest getPushStatsInDateRangeRequest, NetmeraCallBack<GetPushStatsInDateRangeResponse> callBack) {
+        netmera.sendRequest(getPushStatsInDateRangeRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(GetPushResultsRequest getPushResultsRequest, NetmeraCallBack<GetPushResultResponse> callBack) {
+        netmera.sendRequest(getPushResultsRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(GetPushResultResponse getPushResultResponse, NetmeraCallBack<GetPushResultResponse> callBack) {
+        netmera.sendRequest(getPushResultResponse, callBack);
+    }
+
+    @Override
+    public void sendRequest(CreateGeofenceRequest createGeofenceRequest, NetmeraCallBack<Void> callBack) {
+        netmera.sendRequest(createGeofenceRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(FireEventsRequest fireEventsRequest, NetmeraCallBack<Void> callBack) {
+        netmera.sendRequest(fireEventsRequest, callBack);
+    }
+
+    private static <E> Function<E, List<String>> key(Function<E, String> keyOf) {
+        return entry -> Collections.singletonList(keyOf.apply(entry));
+    }
+
+    private int stripeOf(String key) {
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+    }
+
+    /**
+     * Splits a request of many users into a request per stripe, grouped by the first key of each entry, so it holds a
+     * stripe per part instead of every stripe of its users until all of them are completed.
+     */
+    private <R, E> void split(R request, List<E> entries, Function<E, List<String>> keysOf, Function<List<E>, R> rebuild,
+                              Sender<R, Void> sender, NetmeraCallBack<Void> callBack) {
+        if (!valid(request, callBack)) {
+            return;
+        }
+        Map<Integer, List<E>> parts = new LinkedHashMap<>();
+        Map<Integer, List<String>> partKeys = new HashMap<>();
+        if (entries != null) {
+            for (E entry : entries) {
+                List<String> keys = entry == null ? Collections.emptyList() : keysOf.apply(entry);
+                // entries without a key are a part of their own, sent at once
+                int stripe = -1;
+                for (String key : keys) {
+                    if (key != null && !key.isEmpty()) {
+                        stripe = stripeOf(key);
+                        break;
+                    }
+                }
+                parts.computeIfAbsent(stripe, index -> new ArrayList<>()).add(entry);
+                partKeys.computeIfAbsent(stripe, index -> new ArrayList<>()).addAll(keys);
+            }
+        }
+        if (parts.size() <= 1) {
+            enqueue(parts.isEmpty() ? Collections.emptyList() : partKeys.values().iterator().next(), request, sender, callBack);
+            return;
+        }
+        SplitCallBack split = new SplitCallBack(callBack, parts.size());
+        for (Map.Entry<Integer, List<E>> part : parts.entrySet()) {
+            NetmeraCallBack<Void> partCallBack = split.part();
+            try {
+                // a part keeps the fields of the validated request and at least one of its entries
+                enqueue(partKeys.get(part.getKey()), rebuild.apply(part.getValue()), sender, partCallBack);
+            } catch (RuntimeException e) {
+                partCallBack.onFailure(null, e);
+            }
+        }
+    }
+
+    /**
+     * Fails an invalid request before it is queued. The client drops an invalid request without calling its call
+     * back, so a queued one would hold its stripes until {@code completionTimeout}.
+     */
+    private static boolean valid(Object request, NetmeraCallBack<?> callBack) {
+        String violation = NetmeraProxy.validate(request);
+        if (violation == null) {
+            return true;
+        }
+        logger.warn("OrderedNetmera::invalid request::{}", violation);
+        callBack.onFailure(null, new ValidationException(violation));
+        return false;
+    }
+
+    private <R, T> void ordered(List<String> keys, R request, Sender<R, T> sender, NetmeraCallBack<T> callBack) {
+        if (valid(request, callBack)) {
+            enqueue(keys, request, sender, callBack);
+        }
+    }
+
+    /**
+     * Queues the request on the stripes of its keys and sends it if it is first on all of them. Stripes are locked in
+     * index order, so requests sharing stripes are queued in the same order on each of them and can not wait for
+     * each other.
+     */
+    private <R, T> void enqueue(List<String> keys, R request, Sender<R, T> sender, NetmeraCallBack<T> callBack) {
+        Set<String> distinct = new LinkedHashSet<>();
+        if (keys != null) {
+            for (String key : keys) {
+                if (key != null && !key.isEmpty()) {
+                    distinct.add(key);
+                }
+            }
+        }
+        if (distinct.isEmpty()) {
+            sender.send(netmera, request, callBack);
+            return;
+        }
+        Task<R, T> task = new Task<>(distinct.toArray(new String[0]), request, sender, callBack);
+        Set<Stripe> taskStripes = new TreeSet<>(Comparator.comparingInt((Stripe stripe) -> stripe.index));
+        for (int i = 0; i < task.keys.length; i++) {
+            task.keyStripes[i] = stripes[stripeOf(task.keys[i])];
+            taskStripes.add(task.keyStripes[i]);
+        }
+        task.stripes = taskStripes.toArray(new Stripe[0]);
+
+        String rejection = null;
+        boolean first = false;
+        for (Stripe stripe : task.stripes) {
+            stripe.lock.lock();
+        }
+        try {
+            for (Stripe stripe : task.stripes) {
+                if (stripe.queue.size() >= maxQueuedPerStripe) {
+                    rejection = String.format("Stripe %d has %d requests queued.", stripe.index, stripe.queue.size());
+                    break;
+                }
+            }
+            for (int i = 0; rejection == null && i < task.keys.length; i++) {
+                String key = task.keys[i];
+                Stripe stripe = task.keyStripes[i];
+                if (stripe.queued.getOrDefault(key, 0) >= maxQueuedPerKey) {
+                    rejection = String.format("Key %s has %d requests queued.", key, maxQueuedPerKey);
+                    hotKeyRejected.increment();
+                    if (stripe.hotKeys.add(key)) {
+                        logger.warn("OrderedNetmera::hot key::{} has {} requests queued on stripe {}", key, maxQueuedPerKey, stripe.index);
+                    }
+                }
+            }
+            if (rejection == null) {
+                for (Stripe stripe : task.stripes) {
+                    stripe.queue.add(task);
+                }
+                int waiting = 0;
+                for (Stripe stripe : task.stripes) {
+                    if (stripe.queue.peek() != task) {
+                        waiting++;
+                    }
+                }
+                task.waiting.set(waiting);
+                first = waiting == 0;
+                for (int i = 0; i < task.keys.length; i++) {
+                    task.keyStripes[i].queued.merge(task.keys[i], 1, Integer::sum);
+                }
+            }
+        } finally {
+            for (int i = task.stripes.length - 1; i >= 0; i--) {
+                task.stripes[i].lock.unlock();
+            }
+        }
+        if (rejection != null) {
+            rejected.increment();
+            callBack.onFailure(null, new RejectedExecutionException(rejection));
+        } else if (first) {
+            send(task, true);
+        }
+    }
+
+    /**
+     * @param caller whether it is sent on the thread which queued it, a failure to send is thrown to the caller then,
+     *               else it is passed to the call back
+     */
+    private <R, T> void send(Task<R, T> task, boolean caller) {
+        task.timeout = timer.isShutdown() ? null : timer.schedule(() -> {
+            if (complete(task)) {
+                timedOut.increment();
+                logger.warn("OrderedNetmera::request not completed in {} seconds, releasing its stripes::{}", completionTimeout, task.request);
+            }
+        }, completionTimeout, TimeUnit.SECONDS);
+        try {
+            task.sender.send(netmera, task.request, new OrderedCallBack<>(task));
+        } catch (RuntimeException e) {
+            complete(task);
+            if (caller) {
+                throw e;
+            }
+            task.callBack.onFailure(null, e);
+        }
+    }
+
+    /**
+     * Removes the task from its stripes and sends the requests which become first on all of their stripes.
+     *
+     * @return false if the task was already completed
+     */
+    private boolean complete(Task<?, ?> task) {
+        if (!task.completed.compareAndSet(false, true)) {
+            return false;
+        }
+        Future<?> timeout = task.timeout;
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+        List<Task<?, ?>> ready = new ArrayList<>(1);
+        for (Stripe stripe : task.stripes) {
+            Task<?, ?> next;
+            stripe.lock.lock();
+            try {
+                stripe.queue.poll();
+                for (int i = 0; i < task.keys.length; i++) {
+                    if (task.keyStripes[i] == stripe && stripe.queued.merge(task.keys[i], -1, Integer::sum) == 0) {
+                        stripe.queued.remove(task.keys[i]);
+                        stripe.hotKeys.remove(task.keys[i]);
+                    }
+                }
+                next = stripe.queue.peek();
+            } finally {
+                stripe.lock.unlock();
+            }
+            if (next != null && next.waiting.decrementAndGet() == 0) {
+                ready.add(next);
+            }
+        }
+        drain(ready);
+        return true;
+    }
+
+    /**
+     * Sends the ready tasks in a loop. A task completed while it is sent, e.g. by a client failing it at once, adds
+     * the tasks it makes ready to the loop of the thread, so a long queue of a user does not grow the stack.
+     */
+    private void drain(List<Task<?, ?>> ready) {
+        if (ready.isEmpty()) {
+            return;
+        }
+        ArrayDeque<Task<?, ?>> queue = draining.get();
+        if (queue != null) {
+            queue.addAll(ready);
+            return;
+        }
+        queue = new ArrayDeque<>(ready);
+        draining.set(queue);
+        try {
+            Task<?, ?> next;
+            while ((next = queue.poll()) != null) {
+                send(next, false);
+            }
+        } finally {
+            draining.remove();
+        }
+    }
+
+    /**
+     * Calls the call back of a split request once, when every part has completed.
+     */
+    private static final class SplitCallBack {
+        private final NetmeraCallBack<Void> callBack;
+        private int remaining;
+        private Call<Void> call;
+        private Response<Void> response;
+        private Throwable failure;
+
+        private SplitCallBack(NetmeraCallBack<Void> callBack, int parts) {
+            this.callBack = callBack;
+            this.remaining = parts;
+        }
+
+        private NetmeraCallBack<Void> part() {
+            return new ForwardingNetmeraCallBack<Void>(callBack) {
+                @Override
+                public void onResponse(Call<Void> call, Response<Void> response) {
+                    complete(call, response, null);
+                }
+
+                @Override
+                public void onFailure(Call<Void> call, Throwable t) {
+                    complete(call, null, t);
+                }
+            };
+        }
+
+        private void complete(Call<Void> call, Response<Void> response, Throwable failure) {
+            synchronized (this) {
+                // a failure wins over an error response, which wins over a successful one
+                if (this.failure == null && (failure != null || this.response == null || this.response.isSuccessful() && !response.isSuccessful())) {
+                    this.call = call;
+                    this.response = response;
+                    this.failure = failure;
+                }
+                if (--remaining > 0) {
+                    return;
+                }
+            }
+            if (this.failure != null) {
+                callBack.onFailure(this.call, this.failure);
+            } else {
+                callBack.onResponse(this.call, this.response);
+            }
+        }
+    }
+
+    private interface Sender<R, T> {
+        void send(Netmera netmera, R request, NetmeraCallBack<T> callBack);
+    }
+
+    private static final class Stripe {
+        private final int index;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<Task<?, ?>> queue = new ArrayDeque<>();
+        private final Map<String, Integer> queued = new HashMap<>();
+        private final Set<String> hotKeys = new HashSet<>();
+
+        private Stripe(int index) {
+            this.index = index;
+        }
+    }
+
+    private static final class Task<R, T> {
+        private final String[] keys;
+        private final Stripe[] keyStripes;
+        private final R request;
+        private final Sender<R, T> sender;
+        private final NetmeraCallBack<T> callBack;
+        /**
+         * Stripes where the task is not first yet.
+         */
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private Stripe[] stripes;
+        private volatile Future<?> timeout;
+
+        private Task(String[] keys, R request, Sender<R, T> sender, NetmeraCallBack<T> callBack) {
+            this.keys = keys;
+            this.keyStripes = new Stripe[keys.length];
+            this.request = request;
+            this.sender = sender;
+            this.callBack = callBack;
+        }
+    }
+
+    /**
+     * Releases the stripes of the task before the call back of the caller runs, so the next request of the user is
+     * on its way while the response is handled.
+     */
+    private final class OrderedCallBack<T> extends ForwardingNetmeraCallBack<T> {
+        private final Task<?, T> task;
+
+        private OrderedCallBack(Task<?, T> task) {
+            super(task.callBack);
+            this.task = task;
+        }
+
+        @Override
+        public void onResponse(Call<T> call, Response<T> response) {
+            complete(task);
+            delegate.onResponse(call, response);
+        }
+
+        @Override
+        public void onFailure(Call<T> call, Throwable t) {
+            complete(task);
+            delegate.onFailure(call, t);
+        }
+    }
+
+    public static final class OrderedNetmeraBuilder {
+        private final Netmera netmera;
+        private int stripes = 64;
+        private int maxQueuedPerStripe = 1000;
+        private int maxQueuedPerKey = 100;
+        private long completionTimeout = 60;
+
+        /**
+         * @param netmera client the requests are sent with
+         */
+        public OrderedNetmeraBuilder(Netmera netmera) {
+            Assert.notNull(netmera, "Netmera");
+            this.netmera = netmera;
+        }
+
+        /**
+         * @param stripes number of requests which can be in flight at once, users sharing a stripe wait for each other
+         */
+        public OrderedNetmeraBuilder stripes(int stripes) {
+            Assert.mustBetween(1, 65536, stripes, "Stripes");
+            this.stripes = stripes;
+            return this;
+        }
+
+        /**
+         * @param maxQueuedPerStripe requests waiting or in flight on a stripe before new requests of it are rejected
+         */
+        public OrderedNetmeraBuilder maxQueuedPerStripe(int maxQueuedPerStripe) {
+            Assert.mustBetween(1, 1000000, maxQueuedPerStripe, "Max Queued Per Stripe");
+            this.maxQueuedPerStripe = maxQueuedPerStripe;
+            return this;
+        }
+
+        /**
+         * @param maxQueuedPerKey requests of one external id or device token waiting or in flight before new requests
+         *                        of it are rejected as a hot key
+         */
+        public OrderedNetmeraBuilder maxQueuedPerKey(int maxQueuedPerKey) {
+            Assert.mustBetween(1, 1000000, maxQueuedPerKey, "Max Queued Per Key");
+            this.maxQueuedPerKey = maxQueuedPerKey;
+            return this;
+        }
+
+        /**
+         * @param completionTimeout seconds a request holds its stripes without its call back being called, 60 by
+         *                          default, keep it over the call timeout of the client
+         */
+        public OrderedNetmeraBuilder completionTimeout(long completionTimeout) {
+            Assert.mustBetween(1, 3600, completionTimeout, "Completion Timeout");
+            this.completionTimeout = completionTimeout;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if a key may not be queued on its stripe
+         */
+        public OrderedNetmera build() {
+            Assert.isTrue(maxQueuedPerKey <= maxQueuedPerStripe, "Max Queued Per Key %d is over Max Queued Per Stripe %d.",
+                    maxQueuedPerKey, maxQueuedPerStripe);
+            return new OrderedNetmera(this);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.muratkaragozgil.netmera4j.replay;
+
+import com.github.muratkaragozgil.netmera4j.metrics.LatencyHistogram;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a {@link TrafficReplayer} run. Reports can be saved and loaded, so runs of different client versions
+ * can be compared with {@link #compare(ReplayReport)}.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+public class ReplayReport {
+    private final long requests;
+    private final long succeeded;
+    private final long errors;
+    private final long failures;
+    private final long skipped;
+    private final long durationMicros;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+    private final long meanMicros;
+
+    ReplayReport(long requests, long succeeded, long errors, long failures, long skipped, long durationNanos, LatencyHistogram latency) {
+        this(requests, succeeded, errors, failures, skipped, TimeUnit.NANOSECONDS.toMicros(durationNanos),
+                TimeUnit.NANOSECONDS.toMicros(latency.getValueAtPercentile(50)),
+                TimeUnit.NANOSECONDS.toMicros(latency.getValueAtPercentile(90)),
+                TimeUnit.NANOSECONDS.toMicros(latency.getValueAtPercentile(99)),
+                TimeUnit.NANOSECONDS.toMicros(latency.getMax()),
+                TimeUnit.NANOSECONDS.toMicros(latency.getMean()));
+    }
+
+    private ReplayReport(long requests, long succeeded, long errors, long failures, long skipped, long durationMicros,
+                         long p50Micros, long p90Micros, long p99Micros, long maxMicros, long meanMicros) {
+        this.requests = requests;
+        this.succeeded = succeeded;
+        this.errors = errors;
+        this.failures = failures;
+        this.skipped = skipped;
+        this.durationMicros = durationMicros;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+        this.meanMicros = meanMicros;
+    }
+
+    /**
+     * @return completed calls per second, with or without an error response
+     */
+    public double getThroughput() {
+        return durationMicros == 0 ? 0 : (succeeded + errors) * 1_000_000.0 / durationMicros;
+    }
+
+    /**
+     * @return latency and throughput of this report next to {@code baseline}, with the change in percent
+     */
+    public String compare(ReplayReport baseline) {
+        StringBuilder comparison = new StringBuilder();
+        comparison.append(String.format(Locale.ROOT, "%-12s %14s %14s %9s%n", "", "baseline", "current", "change"));
+        appendRow(comparison, "p50 (ms)", baseline.p50Micros / 1000.0, p50Micros / 1000.0);
+        appendRow(comparison, "p90 (ms)", baseline.p90Micros / 1000.0, p90Micros / 1000.0);
+        appendRow(comparison, "p99 (ms)", baseline.p99Micros / 1000.0, p99Micros / 1000.0);
+        appendRow(comparison, "max (ms)", baseline.maxMicros / 1000.0, maxMicros / 1000.0);
+        appendRow(comparison, "mean (ms)", baseline.meanMicros / 1000.0, meanMicros / 1000.0);
+        appendRow(comparison, "calls/s", baseline.getThroughput(), getThroughput());
+        appendRow(comparison, "errors", baseline.errors, errors);
+        appendRow(comparison, "failures", baseline.failures, failures);
+        return comparison.toString();
+    }
+
+    private static void appendRow(StringBuilder comparison, String name, double baseline, double current) {
+        String change = baseline == 0 ? "-" : String.format(Locale.ROOT, "%+.1f%%", (current - baseline) * 100 / baseline);
+        comparison.append(String.format(Locale.ROOT, "%-12s %14.3f %14.3f %9s%n", name, baseline, current, change));
+    }
+
+    public void save(Path path) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("requests", Long.toString(requests));
+        properties.setProperty("succeeded", Long.toString(succeeded));
+        properties.setProperty("errors", Long.toString(errors));
+        properties.setProperty("failures", Long.toString(failures));
+        properties.setProperty("skipped", Long.toString(skipped));
+        properties.setProperty("durationMicros", Long.toString(durationMicros));
+        properties.setProperty("p50Micros", Long.toString(p50Micros));
+        properties.setProperty("p90Micros", Long.toString(p90Micros));
+        properties.setProperty("p99Micros", Long.toString(p99Micros));
+        properties.setProperty("maxMicros", Long.toString(maxMicros));
+        properties.setProperty("meanMicros", Long.toString(meanMicros));
+        try (OutputStream out = Files.newOutputStream(path)) {
+            properties.store(out, "netmera4j replay report");
+        }
+    }
+
+    public static ReplayReport load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        }
+        try {
+            return new ReplayReport(Long.parseLong(properties.getProperty("requests")), Long.parseLong(properties.getProperty("succeeded")),
+                    Long.parseLong(properties.getProperty("errors")), Long.parseLong(properties.getProperty("failures")),
+                    Long.parseLong(properties.getProperty("skipped")), Long.parseLong(properties.getProperty("durationMicros")),
+                    Long.parseLong(properties.getProperty("p50Micros")), Long.parseLong(properties.getProperty("p90Micros")),
+                    Long.parseLong(properties.getProperty("p99Micros")), Long.parseLong(properties.getProperty("maxMicros")),
+                    Long.parseLong(properties.getProperty("meanMicros")));
+        } catch (NumberFormatException e) {
+            throw new IOException("Not a replay report: " + path, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "ReplayReport(requests=%d, succeeded=%d, errors=%d, failures=%d, skipped=%d, calls/s=%.1f, "
+                        + "p50=%.3fms, p90=%.3fms, p99=%.3fms, max=%.3fms)", requests, succeeded, errors, failures, skipped, getThroughput(),
+                p50Micros / 1000.0, p90Micros / 1000.0, p99Micros / 1000.0, maxMicros / 1000.0);
+    }
+}
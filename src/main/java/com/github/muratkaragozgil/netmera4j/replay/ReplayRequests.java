@@ -0,0 +1,142 @@
+package com.github.muratkaragozgil.netmera4j.replay;
+
+import com.github.muratkaragozgil.netmera4j.Netmera;
+import com.github.muratkaragozgil.netmera4j.json.NetmeraGson;
+import com.github.muratkaragozgil.netmera4j.model.device.NewDevice;
+import com.github.muratkaragozgil.netmera4j.model.device.SingleUnsetObject;
+import com.github.muratkaragozgil.netmera4j.request.device.AddNewDevicesRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.AddTagToUsersRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.EncodedProfileAttributesRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.GetProfileAttributesRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.UnsetProfileAttributesRequest;
+import com.github.muratkaragozgil.netmera4j.request.event.FireEventsRequest;
+import com.github.muratkaragozgil.netmera4j.request.event.SingleEvent;
+import com.github.muratkaragozgil.netmera4j.request.notification.GetPushStatsRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendBulkNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTransactionalNotificationInChunksRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTransactionalNotificationRequest;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.reflect.TypeToken;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Default {@link TrafficReplayer.RequestFactory} which rebuilds requests from recorded bodies and queries. Supports
+ * transactional, bulk and chunked notifications, device registration, tagging, events, setting, unsetting and
+ * getting profile attributes and push stats. Removing a tag has the same endpoint and body as adding it and is
+ * replayed as an {@link AddTagToUsersRequest}. Set profile attributes are replayed with their recorded bytes. Other
+ * endpoints and records without a body are skipped.
+ *
+ * @author Murat Karagözgil
+ */
+public final class ReplayRequests implements TrafficReplayer.RequestFactory {
+
+    public static final ReplayRequests DEFAULT = new ReplayRequests();
+
+    private static final Type NEW_DEVICES = new TypeToken<List<NewDevice>>() {
+    }.getType();
+    private static final Type EVENTS = new TypeToken<List<Map<String, Object>>>() {
+    }.getType();
+    private static final Type TRANSACTIONAL_NOTIFICATIONS = new TypeToken<List<SendTransactionalNotificationRequest>>() {
+    }.getType();
+    private static final Type BULK_NOTIFICATIONS = new TypeToken<List<SendBulkNotificationRequest>>() {
+    }.getType();
+    private static final Type UNSET_OBJECTS = new TypeToken<List<SingleUnsetObject>>() {
+    }.getType();
+    private static final MediaType MEDIA_TYPE = MediaType.get("application/json; charset=UTF-8");
+
+    private final Gson gson = NetmeraGson.requestReader();
+
+    private ReplayRequests() {
+    }
+
+    @Override
+    public boolean send(Netmera netmera, TrafficRecord record, TrafficReplayer.CallBacks callBacks) {
+        if ("GET".equals(record.getMethod())) {
+            return sendGet(netmera, record, callBacks);
+        }
+        if (record.getBody() == null) {
+            return false;
+        }
+        JsonElement body = gson.fromJson(new String(record.getBody(), StandardCharsets.UTF_8), JsonElement.class);
+        switch (record.getEndpoint()) {
+            case "/rest/3.0/sendNotification":
+                if (!body.isJsonArray()) {
+                    netmera.sendRequest(gson.fromJson(body, SendTransactionalNotificationRequest.class), callBacks.callBack());
+                } else if (isTransactional(body.getAsJsonArray())) {
+                    List<SendTransactionalNotificationRequest> notifications = gson.fromJson(body, TRANSACTIONAL_NOTIFICATIONS);
+                    netmera.sendRequest(new SendTransactionalNotificationInChunksRequest(notifications), callBacks.callBack());
+                } else {
+                    List<SendBulkNotificationRequest> notifications = gson.fromJson(body, BULK_NOTIFICATIONS);
+                    netmera.sendRequest(notifications, callBacks.callBack());
+                }
+                return true;
+            case "/rest/3.0/sendBulkNotification":
+                netmera.sendRequest(gson.fromJson(body, SendBulkNotificationRequest.class), callBacks.callBack());
+                return true;
+            case "/rest/3.0/registerUsers":
+                List<NewDevice> devices = gson.fromJson(body, NEW_DEVICES);
+                netmera.sendRequest(AddNewDevicesRequest.AddNewDevicesRequestBuilder.withDeviceList(devices).build(), callBacks.callBack());
+                return true;
+            case "/rest/3.0/tagUsers":
+                netmera.sendRequest(gson.fromJson(body, AddTagToUsersRequest.class), callBacks.callBack());
+                return true;
+            case "/rest/3.0/setProfileAttributes":
+                if (!body.isJsonArray()) {
+                    return false;
+                }
+                // decoding would turn the attribute numbers into doubles and change the body
+                RequestBody profiles = RequestBody.create(MEDIA_TYPE, record.getBody());
+                netmera.sendRequest(new EncodedProfileAttributesRequest(body.getAsJsonArray().size(), profiles), callBacks.callBack());
+                return true;
+            case "/rest/3.0/unsetProfileAttributes":
+                List<SingleUnsetObject> unsetObjects = gson.fromJson(body, UNSET_OBJECTS);
+                netmera.sendRequest(UnsetProfileAttributesRequest.UnsetProfileAttributesRequestBuilder.UnsetProfileAttributesRequest()
+                        .userAndProfileAttributeLists(unsetObjects).build(), callBacks.callBack());
+                return true;
+            case "/rest/3.0/fireEvents":
+                List<Map<String, Object>> events = gson.fromJson(body, EVENTS);
+                List<SingleEvent> eventList = new ArrayList<>(events.size());
+                for (Map<String, Object> event : events) {
+                    SingleEvent.SingleEventBuilder builder = new SingleEvent.SingleEventBuilder(String.valueOf(event.get("extId")), String.valueOf(event.get("name")));
+                    event.forEach(builder::addParameterIfNotNull);
+                    eventList.add(builder.build());
+                }
+                netmera.sendRequest(new FireEventsRequest(eventList), callBacks.callBack());
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean sendGet(Netmera netmera, TrafficRecord record, TrafficReplayer.CallBacks callBacks) {
+        HttpUrl url = HttpUrl.get("http://localhost" + record.getEndpoint() + (record.getQuery() == null ? "" : "?" + record.getQuery()));
+        switch (record.getEndpoint()) {
+            case "/rest/3.0/getProfileAttributes":
+                netmera.sendRequest(new GetProfileAttributesRequest(url.queryParameter("extId")), callBacks.callBack());
+                return true;
+            case "/rest/3.0/getPushStats":
+                String notificationKey = url.queryParameter("notificationKey");
+                if (notificationKey == null) {
+                    return false;
+                }
+                netmera.sendRequest(new GetPushStatsRequest(Integer.valueOf(notificationKey)), callBacks.callBack());
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isTransactional(JsonArray notifications) {
+        return notifications.size() > 0 && notifications.get(0).isJsonObject() && notifications.get(0).getAsJsonObject().has("notificationKey");
+    }
+}
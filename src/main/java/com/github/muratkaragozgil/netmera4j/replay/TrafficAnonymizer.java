@@ -0,0 +1,132 @@
+package com.github.muratkaragozgil.netmera4j.replay;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Masks ids, tokens and texts of recorded calls while keeping the structure and size of the traffic: string values
+ * are replaced by as many {@code x}s as they have characters, numeric strings such as numeric ids and phone numbers
+ * by as many {@code 0}s as they have digits. Field names, json numbers, booleans and upper case constants such as
+ * platforms and statuses are kept, they are needed to replay the calls. So are the numeric query parameters of
+ * notification keys, date ranges and paging.
+ *
+ * @author Murat Karagözgil
+ */
+final class TrafficAnonymizer {
+
+    private static final Pattern CONSTANT = Pattern.compile("[A-Z][A-Z0-9_]*");
+    private static final Pattern NUMBER = Pattern.compile("-?[0-9]+");
+    private static final Set<String> NUMERIC_PARAMETERS = new HashSet<>(Arrays.asList("notificationKey", "start", "end", "max", "offset"));
+
+    private TrafficAnonymizer() {
+    }
+
+    /**
+     * @return anonymized body, null when the body is not json
+     */
+    static byte[] anonymizeJson(byte[] json) {
+        StringWriter anonymized = new StringWriter(json.length);
+        try (JsonReader in = new JsonReader(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8))) {
+            JsonWriter out = new JsonWriter(anonymized);
+            out.setSerializeNulls(true);
+            out.setHtmlSafe(false);
+            copy(in, out);
+            if (in.peek() != JsonToken.END_DOCUMENT) {
+                return null;
+            }
+            out.flush();
+        } catch (IOException | IllegalStateException e) {
+            return null;
+        }
+        return anonymized.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String anonymizeQuery(String query) {
+        if (query == null) {
+            return null;
+        }
+        StringBuilder anonymized = new StringBuilder(query.length());
+        for (String parameter : query.split("&", -1)) {
+            if (anonymized.length() > 0) {
+                anonymized.append('&');
+            }
+            int separator = parameter.indexOf('=');
+            if (separator < 0) {
+                anonymized.append(parameter);
+                continue;
+            }
+            String value = parameter.substring(separator + 1);
+            anonymized.append(parameter, 0, separator + 1);
+            if (NUMERIC_PARAMETERS.contains(parameter.substring(0, separator)) && NUMBER.matcher(value).matches()) {
+                anonymized.append(value);
+            } else {
+                anonymized.append(mask(value));
+            }
+        }
+        return anonymized.toString();
+    }
+
+    private static void copy(JsonReader in, JsonWriter out) throws IOException {
+        switch (in.peek()) {
+            case BEGIN_OBJECT:
+                in.beginObject();
+                out.beginObject();
+                while (in.hasNext()) {
+                    out.name(in.nextName());
+                    copy(in, out);
+                }
+                in.endObject();
+                out.endObject();
+                break;
+            case BEGIN_ARRAY:
+                in.beginArray();
+                out.beginArray();
+                while (in.hasNext()) {
+                    copy(in, out);
+                }
+                in.endArray();
+                out.endArray();
+                break;
+            case STRING:
+                out.value(mask(in.nextString()));
+                break;
+            case NUMBER:
+                // written as read, so the replayed body has the same size
+                out.jsonValue(in.nextString());
+                break;
+            case BOOLEAN:
+                out.value(in.nextBoolean());
+                break;
+            case NULL:
+                in.nextNull();
+                out.nullValue();
+                break;
+            default:
+                throw new IllegalStateException("Unexpected json token: " + in.peek());
+        }
+    }
+
+    private static String mask(String value) {
+        if (CONSTANT.matcher(value).matches()) {
+            return value;
+        }
+        boolean number = NUMBER.matcher(value).matches();
+        StringBuilder masked = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            masked.append(!number ? 'x' : c == '-' ? c : '0');
+        }
+        return masked.toString();
+    }
+}
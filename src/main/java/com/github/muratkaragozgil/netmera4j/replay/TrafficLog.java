@@ -0,0 +1,135 @@
+package com.github.muratkaragozgil.netmera4j.replay;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Binary log of {@link TrafficRecord}s written by a {@link TrafficRecorder}. After a header of magic and version,
+ * every record is a sequence of var-ints: start offset, method, endpoint, query, request size, status, latency and
+ * body. Methods and endpoints are written once and referred to by index afterwards. A log whose recorder died
+ * mid-record is read up to its last complete record.
+ *
+ * @author Murat Karagözgil
+ */
+public final class TrafficLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrafficLog.class);
+
+    static final int MAGIC = 0x4E4D5452;
+    static final int VERSION = 1;
+
+    private TrafficLog() {
+    }
+
+    /**
+     * @return records of the log ordered by their start offset
+     */
+    public static List<TrafficRecord> read(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * @return records of the log ordered by their start offset
+     */
+    public static List<TrafficRecord> read(InputStream in) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(in));
+        if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+            throw new IOException("Not a traffic log.");
+        }
+        List<String> strings = new ArrayList<>();
+        List<TrafficRecord> records = new ArrayList<>();
+        int first;
+        while ((first = input.read()) != -1) {
+            try {
+                long offsetMicros = readVarLong(input, first);
+                String method = readIndexedString(input, strings);
+                String endpoint = readIndexedString(input, strings);
+                byte[] query = readBytes(input);
+                long requestBytes = readVarLong(input, input.readUnsignedByte());
+                int statusCode = (int) readVarLong(input, input.readUnsignedByte());
+                long latencyMicros = readVarLong(input, input.readUnsignedByte());
+                byte[] body = readBytes(input);
+                records.add(new TrafficRecord(offsetMicros, method, endpoint, query == null ? null : new String(query, StandardCharsets.UTF_8),
+                        requestBytes, statusCode, latencyMicros, body));
+            } catch (EOFException e) {
+                // the recorder buffers its writes, a process which died while recording leaves a partial last record
+                logger.warn("TrafficLog::truncated record after {} records is skipped", records.size());
+                break;
+            }
+        }
+        records.sort(Comparator.comparingLong(TrafficRecord::getOffsetMicros));
+        return records;
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * @param bytes written with their length plus one, so 0 stands for null
+     */
+    static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            writeVarLong(out, 0);
+        } else {
+            writeVarLong(out, bytes.length + 1L);
+            out.write(bytes);
+        }
+    }
+
+    private static long readVarLong(DataInput in, int first) throws IOException {
+        long value = first & 0x7F;
+        int shift = 7;
+        int current = first;
+        while ((current & 0x80) != 0) {
+            if (shift > 63) {
+                throw new IOException("Malformed traffic log.");
+            }
+            current = in.readUnsignedByte();
+            value |= (long) (current & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+
+    private static byte[] readBytes(DataInput in) throws IOException {
+        long length = readVarLong(in, in.readUnsignedByte());
+        if (length == 0) {
+            return null;
+        }
+        if (length - 1 > Integer.MAX_VALUE) {
+            throw new IOException("Malformed traffic log.");
+        }
+        byte[] bytes = new byte[(int) (length - 1)];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static String readIndexedString(DataInput in, List<String> strings) throws IOException {
+        long index = readVarLong(in, in.readUnsignedByte());
+        if (index < strings.size()) {
+            return strings.get((int) index);
+        }
+        if (index != strings.size()) {
+            throw new IOException("Malformed traffic log.");
+        }
+        byte[] bytes = readBytes(in);
+        String value = bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+        strings.add(value);
+        return value;
+    }
+}
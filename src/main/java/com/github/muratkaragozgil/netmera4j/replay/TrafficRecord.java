@@ -0,0 +1,48 @@
+package com.github.muratkaragozgil.netmera4j.replay;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Single call captured by a {@link TrafficRecorder}.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@ToString(exclude = "body")
+public class TrafficRecord {
+    /**
+     * Microseconds from the start of the recording to the start of the call.
+     */
+    private final long offsetMicros;
+    private final String method;
+    /**
+     * Encoded path of the call, e.g. {@code /rest/3.0/sendNotification}.
+     */
+    private final String endpoint;
+    /**
+     * Encoded query of the call, null when it has none.
+     */
+    private final String query;
+    private final long requestBytes;
+    /**
+     * Http status of the response, 0 when the call failed without a response.
+     */
+    private final int statusCode;
+    private final long latencyMicros;
+    /**
+     * Request body, null when bodies are not captured or the call has no body.
+     */
+    private final byte[] body;
+
+    TrafficRecord(long offsetMicros, String method, String endpoint, String query, long requestBytes, int statusCode, long latencyMicros, byte[] body) {
+        this.offsetMicros = offsetMicros;
+        this.method = method;
+        this.endpoint = endpoint;
+        this.query = query;
+        this.requestBytes = requestBytes;
+        this.statusCode = statusCode;
+        this.latencyMicros = latencyMicros;
+        this.body = body;
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.muratkaragozgil.netmera4j.replay;
+
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interceptor which writes the timing, endpoint, size and status of every call to a {@link TrafficLog}, and optionally
+ * the request bodies, anonymized by default. Latency is measured until the response headers, retries of 5xx responses
+ * are part of the call. A failing log stops the recording without failing calls.
+ *
+ * @author Murat Karagözgil
+ */
+public class TrafficRecorder implements Interceptor, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrafficRecorder.class);
+
+    private final DataOutputStream out;
+    private final boolean captureBodies;
+    private final boolean anonymize;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Integer> strings = new HashMap<>();
+    private boolean closed;
+
+    private TrafficRecorder(TrafficRecorderBuilder trafficRecorderBuilder) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(trafficRecorderBuilder.out));
+        this.captureBodies = trafficRecorderBuilder.captureBodies;
+        this.anonymize = trafficRecorderBuilder.anonymize;
+        out.writeInt(TrafficLog.MAGIC);
+        out.writeInt(TrafficLog.VERSION);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        long callStartNanos = System.nanoTime();
+        long requestBytes = 0;
+        byte[] body = null;
+        RequestBody requestBody = request.body();
+        if (requestBody != null) {
+            requestBytes = requestBody.contentLength();
+            if (captureBodies || requestBytes < 0) {
+                Buffer buffer = new Buffer();
+                requestBody.writeTo(buffer);
+                requestBytes = buffer.size();
+                if (captureBodies) {
+                    body = anonymize ? TrafficAnonymizer.anonymizeJson(buffer.readByteArray()) : buffer.readByteArray();
+                }
+            }
+        }
+        int statusCode = 0;
+        try {
+            Response response = chain.proceed(request);
+            statusCode = response.code();
+            return response;
+        } finally {
+            String query = request.url().encodedQuery();
+            write(TimeUnit.NANOSECONDS.toMicros(callStartNanos - startNanos), request.method(), request.url().encodedPath(),
+                    anonymize ? TrafficAnonymizer.anonymizeQuery(query) : query, requestBytes, statusCode,
+                    TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - callStartNanos), body);
+        }
+    }
+
+    private synchronized void write(long offsetMicros, String method, String endpoint, String query, long requestBytes, int statusCode, long latencyMicros, byte[] body) {
+        if (closed) {
+            return;
+        }
+        try {
+            TrafficLog.writeVarLong(out, offsetMicros);
+            writeIndexedString(method);
+            writeIndexedString(endpoint);
+            TrafficLog.writeBytes(out, query == null ? null : query.getBytes(StandardCharsets.UTF_8));
+            TrafficLog.writeVarLong(out, requestBytes);
+            TrafficLog.writeVarLong(out, statusCode);
+            TrafficLog.writeVarLong(out, latencyMicros);
+            TrafficLog.writeBytes(out, body);
+        } catch (IOException e) {
+            logger.warn("TrafficRecorder::recording stopped::{}", e.getMessage());
+            closeQuietly();
+        }
+    }
+
+    private void writeIndexedString(String value) throws IOException {
+        Integer index = strings.get(value);
+        if (index != null) {
+            TrafficLog.writeVarLong(out, index);
+            return;
+        }
+        TrafficLog.writeVarLong(out, strings.size());
+        TrafficLog.writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+        strings.put(value, strings.size());
+    }
+
+    public synchronized void flush() throws IOException {
+        if (!closed) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            out.close();
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            // the recording is stopped anyway
+        }
+    }
+
+    public static final class TrafficRecorderBuilder {
+        private final OutputStream out;
+        private boolean captureBodies;
+        private boolean anonymize = true;
+
+        /**
+         * @param out stream of the log, closed with the recorder
+         */
+        public TrafficRecorderBuilder(OutputStream out) {
+            Assert.notNull(out, "Output Stream");
+            this.out = out;
+        }
+
+        /**
+         * @param captureBodies whether request bodies are written to the log, they are needed to replay the calls
+         */
+        public TrafficRecorderBuilder captureBodies(boolean captureBodies) {
+            this.captureBodies = captureBodies;
+            return this;
+        }
+
+        /**
+         * @param anonymize whether ids, tokens and texts of bodies and query parameters are masked, true by default
+         */
+        public TrafficRecorderBuilder anonymize(boolean anonymize) {
+            this.anonymize = anonymize;
+            return this;
+        }
+
+        /**
+         * @throws IOException if the log header can not be written
+         */
+        public TrafficRecorder build() throws IOException {
+            return new TrafficRecorder(this);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.github.muratkaragozgil.netmera4j.replay;
+
+import com.github.muratkaragozgil.netmera4j.Netmera;
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.metrics.LatencyHistogram;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import retrofit2.Response;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends recorded calls through a {@link Netmera} client, normally against a local stand-in server, keeping the
+ * recorded gaps between calls divided by {@code speed}. Calls are created by a {@link RequestFactory}, records it can
+ * not create are skipped. The latency of every call is measured from sending it to its first outcome.
+ *
+ * @author Murat Karagözgil
+ */
+public class TrafficReplayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrafficReplayer.class);
+
+    private final Netmera netmera;
+    private final double speed;
+    private final RequestFactory requestFactory;
+    private final long timeout;
+
+    private TrafficReplayer(TrafficReplayerBuilder trafficReplayerBuilder) {
+        this.netmera = trafficReplayerBuilder.netmera;
+        this.speed = trafficReplayerBuilder.speed;
+        this.requestFactory = trafficReplayerBuilder.requestFactory;
+        this.timeout = trafficReplayerBuilder.timeout;
+    }
+
+    /**
+     * Sends the records in their order and waits until every call completes or the timeout passes after the last one.
+     *
+     * @param records records ordered by their start offset, as read by {@link TrafficLog#read(java.nio.file.Path)}
+     */
+    public ReplayReport replay(List<TrafficRecord> records) throws InterruptedException {
+        Outcomes outcomes = new Outcomes(records.size());
+        long skipped = 0;
+        long firstOffsetMicros = records.isEmpty() ? 0 : records.get(0).getOffsetMicros();
+        long startNanos = System.nanoTime();
+        for (TrafficRecord record : records) {
+            long dueNanos = startNanos + (long) (TimeUnit.MICROSECONDS.toNanos(record.getOffsetMicros() - firstOffsetMicros) / speed);
+            long waitNanos;
+            while ((waitNanos = dueNanos - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(waitNanos);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            Completion completion = new Completion(outcomes);
+            boolean sent;
+            try {
+                sent = requestFactory.send(netmera, record, completion);
+            } catch (RuntimeException e) {
+                logger.warn("TrafficReplayer::record not sent::{}::{}", record, e.getMessage());
+                completion.complete(outcomes.failures);
+                continue;
+            }
+            if (!sent) {
+                skipped++;
+                outcomes.remaining.countDown();
+            }
+        }
+        if (!outcomes.remaining.await(timeout, TimeUnit.SECONDS)) {
+            logger.warn("TrafficReplayer::{} calls did not complete in {} seconds", outcomes.remaining.getCount(), timeout);
+        }
+        long durationNanos = System.nanoTime() - startNanos;
+        return new ReplayReport(records.size(), outcomes.succeeded.sum(), outcomes.errors.sum(), outcomes.failures.sum(), skipped,
+                durationNanos, outcomes.latency);
+    }
+
+    /**
+     * Creates and sends the call of a record.
+     */
+    public interface RequestFactory {
+
+        /**
+         * @param callBacks gives the call back of the call, which the replayer uses to measure it
+         * @return false when the record can not be replayed, it is reported as skipped
+         */
+        boolean send(Netmera netmera, TrafficRecord record, CallBacks callBacks);
+    }
+
+    public interface CallBacks {
+
+        <T> NetmeraCallBack<T> callBack();
+    }
+
+    private static final class Outcomes {
+        private final CountDownLatch remaining;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        private Outcomes(int records) {
+            this.remaining = new CountDownLatch(records);
+        }
+    }
+
+    private static final class Completion implements CallBacks {
+        private final Outcomes outcomes;
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private final long startNanos = System.nanoTime();
+
+        private Completion(Outcomes outcomes) {
+            this.outcomes = outcomes;
+        }
+
+        @Override
+        public <T> NetmeraCallBack<T> callBack() {
+            return new NetmeraCallBack<T>() {
+                @Override
+                protected void handleResponseData(T data) {
+                    complete(outcomes.succeeded);
+                }
+
+                @Override
+                protected void handleError(Response<T> response) {
+                    complete(outcomes.errors);
+                }
+
+                @Override
+                protected void handleException(Exception t) {
+                    complete(outcomes.failures);
+                }
+            };
+        }
+
+        private void complete(LongAdder outcome) {
+            if (completed.compareAndSet(false, true)) {
+                outcomes.latency.record(System.nanoTime() - startNanos);
+                outcome.increment();
+                outcomes.remaining.countDown();
+            }
+        }
+    }
+
+    public static final class TrafficReplayerBuilder {
+        private final Netmera netmera;
+        private double speed = 1;
+        private RequestFactory requestFactory = ReplayRequests.DEFAULT;
+        private long timeout = 60;
+
+        /**
+         * @param netmera client under test, e.g. built with the target host of a local stand-in server
+         */
+        public TrafficReplayerBuilder(Netmera netmera) {
+            Assert.notNull(netmera, "Netmera");
+            this.netmera = netmera;
+        }
+
+        /**
+         * @param speed 1 replays with the recorded gaps between calls, 10 with a tenth of them
+         */
+        public TrafficReplayerBuilder speed(double speed) {
+            Assert.mustBetween(0.01, 1000.0, speed, "Speed");
+            this.speed = speed;
+            return this;
+        }
+
+        /**
+         * @param requestFactory creates the calls of records, {@link ReplayRequests#DEFAULT} by default
+         */
+        public TrafficReplayerBuilder requestFactory(RequestFactory requestFactory) {
+            Assert.notNull(requestFactory, "Request Factory");
+            this.requestFactory = requestFactory;
+            return this;
+        }
+
+        /**
+         * @param timeout seconds to wait for calls after the last one is sent
+         */
+        public TrafficReplayerBuilder timeout(long timeout) {
+            Assert.mustBetween(1, 3600, timeout, "Timeout");
+            this.timeout = timeout;
+            return this;
+        }
+
+        public TrafficReplayer build() {
+            return new TrafficReplayer(this);
+        }
+    }
+}
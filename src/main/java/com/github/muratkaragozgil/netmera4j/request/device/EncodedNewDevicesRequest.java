@@ -0,0 +1,25 @@
+package com.github.muratkaragozgil.netmera4j.request.device;
+
+import lombok.Getter;
+import lombok.ToString;
+import okhttp3.RequestBody;
+
+/**
+ * Devices registered by a {@link com.github.muratkaragozgil.netmera4j.bulk.DeviceBatchWriter}, with a body encoded while the devices were added.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@ToString(exclude = "body")
+public class EncodedNewDevicesRequest {
+    private final int devices;
+    private final RequestBody body;
+
+    /**
+     * @param body json array of the devices with its exact content length
+     */
+    public EncodedNewDevicesRequest(int devices, RequestBody body) {
+        this.devices = devices;
+        this.body = body;
+    }
+}
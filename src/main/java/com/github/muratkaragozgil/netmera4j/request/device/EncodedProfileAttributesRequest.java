@@ -0,0 +1,25 @@
+package com.github.muratkaragozgil.netmera4j.request.device;
+
+import lombok.Getter;
+import lombok.ToString;
+import okhttp3.RequestBody;
+
+/**
+ * Profile attributes set by a {@link com.github.muratkaragozgil.netmera4j.bulk.ProfileBatchWriter}, with a body encoded while the users were added.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@ToString(exclude = "body")
+public class EncodedProfileAttributesRequest {
+    private final int users;
+    private final RequestBody body;
+
+    /**
+     * @param body json array of the users with its exact content length
+     */
+    public EncodedProfileAttributesRequest(int users, RequestBody body) {
+        this.users = users;
+        this.body = body;
+    }
+}
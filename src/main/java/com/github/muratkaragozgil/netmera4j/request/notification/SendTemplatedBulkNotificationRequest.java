@@ -0,0 +1,24 @@
+package com.github.muratkaragozgil.netmera4j.request.notification;
+
+import com.github.muratkaragozgil.netmera4j.json.MessageTemplate;
+import com.github.muratkaragozgil.netmera4j.model.notification.BulkMessage;
+import com.github.muratkaragozgil.netmera4j.model.notification.Target;
+import com.github.muratkaragozgil.netmera4j.util.NotEmpty;
+import lombok.*;
+
+/**
+ * Bulk notification of a pre-serialized message, only the target is serialized when it is sent.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class SendTemplatedBulkNotificationRequest {
+    @NotEmpty
+    private MessageTemplate<BulkMessage> template;
+    @NotEmpty
+    private Target target;
+}
@@ -0,0 +1,33 @@
+package com.github.muratkaragozgil.netmera4j.request.notification;
+
+import com.github.muratkaragozgil.netmera4j.json.MessageTemplate;
+import com.github.muratkaragozgil.netmera4j.model.notification.SingleMessage;
+import com.github.muratkaragozgil.netmera4j.model.notification.Target;
+import com.github.muratkaragozgil.netmera4j.util.NotEmpty;
+import lombok.*;
+
+import java.util.Map;
+
+/**
+ * Transactional notification of a pre-serialized message, only the params and the target are serialized when
+ * it is sent. Templated notifications are not grouped by transactional batching.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class SendTemplatedTransactionalNotificationRequest {
+    @NotEmpty
+    private String notificationKey;
+    @NotEmpty
+    private MessageTemplate<SingleMessage> template;
+    /**
+     * Params of this notification, the params of the template are sent when null.
+     */
+    private Map<String, Object> params;
+    @NotEmpty
+    private Target target;
+}
@@ -0,0 +1,21 @@
+package com.github.muratkaragozgil.netmera4j.request.notification;
+
+import com.github.muratkaragozgil.netmera4j.util.NotEmpty;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Sends several transactional notifications with a single {@code sendNotification} call.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class SendTransactionalNotificationInChunksRequest {
+    @NotEmpty
+    private List<SendTransactionalNotificationRequest> notifications;
+}
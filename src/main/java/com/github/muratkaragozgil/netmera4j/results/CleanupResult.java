@@ -0,0 +1,23 @@
+package com.github.muratkaragozgil.netmera4j.results;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Outcome of an {@link InvalidTokenCleaner} run, counts are per distinct installation.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class CleanupResult {
+    private int candidateCount;
+    private int disabledCount;
+    /**
+     * Installations whose token could not be found
+     */
+    private int unresolvedCount;
+    private int failedCount;
+}
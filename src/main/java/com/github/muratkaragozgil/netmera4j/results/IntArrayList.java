@@ -0,0 +1,28 @@
+package com.github.muratkaragozgil.netmera4j.results;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints.
+ *
+ * @author Murat Karagözgil
+ */
+final class IntArrayList {
+    private int[] values = new int[16];
+    private int size;
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,197 @@
+package com.github.muratkaragozgil.netmera4j.results;
+
+import com.github.muratkaragozgil.netmera4j.Netmera;
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.request.device.DisablePushRequestWithToken;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import retrofit2.Response;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Disables push of installations whose newest result in a {@link PushResultStore} failed with a permanent error code.
+ * Installations are resolved to tokens and disabled in batches of at most {@code ratePerSecond} per second,
+ * with at most {@code maxInFlight} installations being processed at the same time.
+ * <p>
+ * The api has no bulk disable by token, so every token is disabled with its own {@link DisablePushRequestWithToken}
+ * call and a cleanup of n installations makes n token lookups and n disable calls.
+ *
+ * @author Murat Karagözgil
+ */
+public class InvalidTokenCleaner {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvalidTokenCleaner.class);
+
+    private final Netmera netmera;
+    private final PushResultStore store;
+    private final Set<String> permanentErrorCodes;
+    private final TokenResolver tokenResolver;
+    private final int ratePerSecond;
+    private final int maxInFlight;
+
+    private InvalidTokenCleaner(InvalidTokenCleanerBuilder invalidTokenCleanerBuilder) {
+        this.netmera = invalidTokenCleanerBuilder.netmera;
+        this.store = invalidTokenCleanerBuilder.store;
+        this.permanentErrorCodes = invalidTokenCleanerBuilder.permanentErrorCodes;
+        this.tokenResolver = invalidTokenCleanerBuilder.tokenResolver != null ? invalidTokenCleanerBuilder.tokenResolver
+                : new UserDevicesTokenResolver(invalidTokenCleanerBuilder.netmera);
+        this.ratePerSecond = invalidTokenCleanerBuilder.ratePerSecond;
+        this.maxInFlight = invalidTokenCleanerBuilder.maxInFlight;
+    }
+
+    /**
+     * @return completes when every candidate installation is processed
+     */
+    public CompletableFuture<CleanupResult> clean() {
+        Deque<Integer> candidates = new ArrayDeque<>();
+        for (int row : store.latestRowPerInstallation()) {
+            if (permanentErrorCodes.contains(store.getErrorCode(row))) {
+                candidates.add(row);
+            }
+        }
+        return new Run(candidates).start();
+    }
+
+    private final class Run {
+        private final Deque<Integer> candidates;
+        private final int candidateCount;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger disabled = new AtomicInteger();
+        private final AtomicInteger unresolved = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final CompletableFuture<CleanupResult> result = new CompletableFuture<>();
+        private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "netmera-token-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private Run(Deque<Integer> candidates) {
+            this.candidates = candidates;
+            this.candidateCount = candidates.size();
+        }
+
+        private CompletableFuture<CleanupResult> start() {
+            if (candidates.isEmpty()) {
+                finish();
+            } else {
+                timer.scheduleAtFixedRate(this::nextBatch, 0, 1, TimeUnit.SECONDS);
+            }
+            return result;
+        }
+
+        private synchronized void nextBatch() {
+            for (int i = 0; i < ratePerSecond && inFlight.get() < maxInFlight; i++) {
+                Integer row = candidates.poll();
+                if (row == null) {
+                    return;
+                }
+                inFlight.incrementAndGet();
+                String installationId = store.getInstallationId(row);
+                tokenResolver.resolve(store.getExtId(row), installationId).whenComplete((token, t) -> {
+                    if (t != null) {
+                        logger.error("InvalidTokenCleaner::resolve::{}::{}", installationId, t.getMessage());
+                        completed(failed);
+                    } else if (token == null) {
+                        completed(unresolved);
+                    } else {
+                        disable(token);
+                    }
+                });
+            }
+        }
+
+        private void disable(String token) {
+            netmera.sendRequest(new DisablePushRequestWithToken(token), new NetmeraCallBack<Void>() {
+                @Override
+                protected void handleResponseCode(int httpStatus) {
+                    completed(httpStatus == 200 ? disabled : failed);
+                }
+
+                @Override
+                protected void handleResponseData(Void data) {
+                }
+
+                @Override
+                protected void handleError(Response<Void> response) {
+                }
+
+                @Override
+                protected void handleException(Exception t) {
+                    completed(failed);
+                }
+            });
+        }
+
+        private void completed(AtomicInteger counter) {
+            counter.incrementAndGet();
+            boolean last;
+            synchronized (this) {
+                last = inFlight.decrementAndGet() == 0 && candidates.isEmpty();
+            }
+            if (last) {
+                finish();
+            }
+        }
+
+        private void finish() {
+            timer.shutdown();
+            result.complete(new CleanupResult(candidateCount, disabled.get(), unresolved.get(), failed.get()));
+        }
+    }
+
+    public static final class InvalidTokenCleanerBuilder {
+        private final Netmera netmera;
+        private final PushResultStore store;
+        private Set<String> permanentErrorCodes = new HashSet<>();
+        private TokenResolver tokenResolver;
+        private int ratePerSecond = 10;
+        private int maxInFlight = 10;
+
+        public InvalidTokenCleanerBuilder(Netmera netmera, PushResultStore store) {
+            Assert.notNull(netmera, "Netmera");
+            Assert.notNull(store, "Store");
+            this.netmera = netmera;
+            this.store = store;
+        }
+
+        /**
+         * @param permanentErrorCodes error codes which mean the token will never work again
+         */
+        public InvalidTokenCleanerBuilder permanentErrorCodes(Collection<String> permanentErrorCodes) {
+            Assert.notNull(permanentErrorCodes, "Permanent Error Codes");
+            this.permanentErrorCodes = new HashSet<>(permanentErrorCodes);
+            return this;
+        }
+
+        /**
+         * @param tokenResolver resolves installation ids to tokens, {@link UserDevicesTokenResolver} by default
+         */
+        public InvalidTokenCleanerBuilder tokenResolver(TokenResolver tokenResolver) {
+            Assert.notNull(tokenResolver, "Token Resolver");
+            this.tokenResolver = tokenResolver;
+            return this;
+        }
+
+        public InvalidTokenCleanerBuilder ratePerSecond(int ratePerSecond) {
+            Assert.mustBetween(1, 10000, ratePerSecond, "Rate Per Second");
+            this.ratePerSecond = ratePerSecond;
+            return this;
+        }
+
+        public InvalidTokenCleanerBuilder maxInFlight(int maxInFlight) {
+            Assert.mustBetween(1, 1000, maxInFlight, "Max In Flight");
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        public InvalidTokenCleaner build() {
+            Assert.isTrue(!permanentErrorCodes.isEmpty(), "Permanent error codes must be set.");
+            return new InvalidTokenCleaner(this);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.muratkaragozgil.netmera4j.results;
+
+import com.github.muratkaragozgil.netmera4j.Netmera;
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.request.notification.GetPushResultsRequest;
+import com.github.muratkaragozgil.netmera4j.response.GetPushResultResponse;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads every page of a push result query into a {@link PushResultStore}. Pages are requested one after another
+ * by following {@code nextPage}.
+ *
+ * @author Murat Karagözgil
+ */
+public class PushResultLoader {
+
+    private final Netmera netmera;
+
+    public PushResultLoader(Netmera netmera) {
+        Assert.notNull(netmera, "Netmera");
+        this.netmera = netmera;
+    }
+
+    /**
+     * @return completes with the number of loaded rows, or exceptionally when a page can not be fetched.
+     * Rows of the pages fetched before a failure stay in the store.
+     */
+    public CompletableFuture<Integer> load(GetPushResultsRequest getPushResultsRequest, PushResultStore store) {
+        Assert.notNull(getPushResultsRequest, "Get Push Results Request");
+        Assert.notNull(store, "Store");
+        PageCallBack callBack = new PageCallBack(store);
+        netmera.sendRequest(getPushResultsRequest, callBack);
+        return callBack.result;
+    }
+
+    private final class PageCallBack extends NetmeraCallBack<GetPushResultResponse> {
+        private final PushResultStore store;
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+        private int loaded;
+
+        private PageCallBack(PushResultStore store) {
+            this.store = store;
+        }
+
+        @Override
+        protected void handleResponseData(GetPushResultResponse data) {
+            if (data != null && data.getList() != null) {
+                store.addAll(data.getList());
+                loaded += data.getList().size();
+            }
+            if (data != null && data.getNextPage() != null && data.getList() != null && !data.getList().isEmpty()) {
+                netmera.sendRequest(data, this);
+            } else {
+                result.complete(loaded);
+            }
+        }
+
+        @Override
+        protected void handleError(Response<GetPushResultResponse> response) {
+            result.completeExceptionally(new IOException("Push result page failed with http status " + response.code()));
+        }
+
+        @Override
+        protected void handleException(Exception t) {
+            result.completeExceptionally(t);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.github.muratkaragozgil.netmera4j.results;
+
+import com.github.muratkaragozgil.netmera4j.constant.Platform;
+import com.github.muratkaragozgil.netmera4j.constant.SendStatus;
+import com.github.muratkaragozgil.netmera4j.model.notification.SingleResult;
+
+import java.util.*;
+
+/**
+ * In-memory column store of {@link SingleResult}s. Every field is kept in its own primitive array. Error codes and
+ * message texts repeat across rows and are dictionary encoded, installation and external ids are mostly unique and
+ * are appended to byte arenas instead. Rows are indexed by error code and platform.
+ * <p>
+ * Rows are addressed by their insertion index.
+ *
+ * @author Murat Karagözgil
+ */
+public class PushResultStore {
+    private static final Platform[] PLATFORMS = Platform.values();
+    private static final SendStatus[] STATUSES = SendStatus.values();
+    private static final long NULL_TIMESTAMP = Long.MIN_VALUE;
+
+    private final StringDictionary errorCodeDictionary = new StringDictionary();
+    private final StringArena installationIdArena = new StringArena();
+    private final StringArena extIdArena = new StringArena();
+    private final StringDictionary textDictionary = new StringDictionary();
+
+    private byte[] platforms;
+    private byte[] statuses;
+    private int[] errorCodes;
+    private int[] installationIds;
+    private int[] extIds;
+    private int[] errorMsgs;
+    private int[] msgTitles;
+    private int[] msgTexts;
+    private long[] timeStamps;
+    private int size;
+
+    private final Map<Integer, IntArrayList> errorCodeIndex = new HashMap<>();
+    private final IntArrayList[] platformIndex = new IntArrayList[PLATFORMS.length];
+
+    public PushResultStore() {
+        this(1024);
+    }
+
+    public PushResultStore(int initialCapacity) {
+        allocate(Math.max(16, initialCapacity));
+        for (int i = 0; i < platformIndex.length; i++) {
+            platformIndex[i] = new IntArrayList();
+        }
+    }
+
+    public synchronized void add(SingleResult result) {
+        if (size == timeStamps.length) {
+            allocate(size * 2);
+        }
+        int row = size++;
+        platforms[row] = (byte) (result.getPlatform() == null ? -1 : result.getPlatform().ordinal());
+        statuses[row] = (byte) (result.getStatus() == null ? -1 : result.getStatus().ordinal());
+        errorCodes[row] = errorCodeDictionary.encode(result.getErrorCode());
+        installationIds[row] = installationIdArena.add(result.getInstallationId());
+        extIds[row] = extIdArena.add(result.getExtId());
+        errorMsgs[row] = textDictionary.encode(result.getErrorMsg());
+        msgTitles[row] = textDictionary.encode(result.getMsgTitle());
+        msgTexts[row] = textDictionary.encode(result.getMsgText());
+        timeStamps[row] = result.getTimeStamp() == null ? NULL_TIMESTAMP : result.getTimeStamp();
+        if (errorCodes[row] != StringDictionary.NULL) {
+            errorCodeIndex.computeIfAbsent(errorCodes[row], code -> new IntArrayList()).add(row);
+        }
+        if (platforms[row] >= 0) {
+            platformIndex[platforms[row]].add(row);
+        }
+    }
+
+    public synchronized void addAll(Collection<SingleResult> results) {
+        results.forEach(this::add);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized Platform getPlatform(int row) {
+        checkRow(row);
+        return platforms[row] < 0 ? null : PLATFORMS[platforms[row]];
+    }
+
+    public synchronized SendStatus getStatus(int row) {
+        checkRow(row);
+        return statuses[row] < 0 ? null : STATUSES[statuses[row]];
+    }
+
+    public synchronized String getErrorCode(int row) {
+        checkRow(row);
+        return errorCodeDictionary.decode(errorCodes[row]);
+    }
+
+    public synchronized String getInstallationId(int row) {
+        checkRow(row);
+        return installationIdArena.get(installationIds[row]);
+    }
+
+    public synchronized String getExtId(int row) {
+        checkRow(row);
+        return extIdArena.get(extIds[row]);
+    }
+
+    public synchronized Long getTimeStamp(int row) {
+        checkRow(row);
+        return timeStamps[row] == NULL_TIMESTAMP ? null : timeStamps[row];
+    }
+
+    /**
+     * @return a new {@link SingleResult} with the values of the row
+     */
+    public synchronized SingleResult getRow(int row) {
+        checkRow(row);
+        SingleResult result = new SingleResult();
+        result.setPlatform(getPlatform(row));
+        result.setStatus(getStatus(row));
+        result.setErrorCode(getErrorCode(row));
+        result.setInstallationId(getInstallationId(row));
+        result.setExtId(getExtId(row));
+        result.setErrorMsg(textDictionary.decode(errorMsgs[row]));
+        result.setMsgTitle(textDictionary.decode(msgTitles[row]));
+        result.setMsgText(textDictionary.decode(msgTexts[row]));
+        result.setTimeStamp(getTimeStamp(row));
+        return result;
+    }
+
+    /**
+     * @return rows with the error code in insertion order
+     */
+    public synchronized int[] rowsWithErrorCode(String errorCode) {
+        IntArrayList rows = errorCodeIndex.get(errorCodeDictionary.find(errorCode));
+        return rows == null ? new int[0] : rows.toArray();
+    }
+
+    public synchronized int[] rowsOfPlatform(Platform platform) {
+        return platformIndex[platform.ordinal()].toArray();
+    }
+
+    /**
+     * @return number of rows per error code
+     */
+    public synchronized Map<String, Integer> errorCodeCounts() {
+        Map<String, Integer> counts = new TreeMap<>();
+        errorCodeIndex.forEach((code, rows) -> counts.put(errorCodeDictionary.decode(code), rows.size()));
+        return counts;
+    }
+
+    public synchronized int countOfPlatform(Platform platform) {
+        return platformIndex[platform.ordinal()].size();
+    }
+
+    /**
+     * @return the newest row of every installation, rows without installation id are skipped
+     */
+    synchronized int[] latestRowPerInstallation() {
+        Map<String, Integer> latest = new HashMap<>();
+        for (int row = 0; row < size; row++) {
+            if (installationIds[row] == StringArena.NULL) {
+                continue;
+            }
+            String installationId = installationIdArena.get(installationIds[row]);
+            Integer previous = latest.get(installationId);
+            if (previous == null || timeStamps[row] >= timeStamps[previous]) {
+                latest.put(installationId, row);
+            }
+        }
+        return latest.values().stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+        }
+    }
+
+    private void allocate(int capacity) {
+        if (platforms == null) {
+            platforms = new byte[capacity];
+            statuses = new byte[capacity];
+            errorCodes = new int[capacity];
+            installationIds = new int[capacity];
+            extIds = new int[capacity];
+            errorMsgs = new int[capacity];
+            msgTitles = new int[capacity];
+            msgTexts = new int[capacity];
+            timeStamps = new long[capacity];
+        } else {
+            platforms = Arrays.copyOf(platforms, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            errorCodes = Arrays.copyOf(errorCodes, capacity);
+            installationIds = Arrays.copyOf(installationIds, capacity);
+            extIds = Arrays.copyOf(extIds, capacity);
+            errorMsgs = Arrays.copyOf(errorMsgs, capacity);
+            msgTitles = Arrays.copyOf(msgTitles, capacity);
+            msgTexts = Arrays.copyOf(msgTexts, capacity);
+            timeStamps = Arrays.copyOf(timeStamps, capacity);
+        }
+    }
+}
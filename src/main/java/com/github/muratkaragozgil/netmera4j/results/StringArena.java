@@ -0,0 +1,57 @@
+package com.github.muratkaragozgil.netmera4j.results;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Appends strings as utf-8 bytes into one growing byte array and refers to them by an int handle, null is
+ * encoded as -1. Meant for columns of mostly unique values, which a {@link StringDictionary} would store together
+ * with a map entry per value.
+ *
+ * @author Murat Karagözgil
+ */
+final class StringArena {
+    static final int NULL = -1;
+
+    private byte[] bytes = new byte[1024];
+    private int length;
+    // end offset of every value, the value starts at the end of the previous one
+    private int[] ends = new int[64];
+    private int size;
+
+    int add(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        if (length + encoded.length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + encoded.length));
+        }
+        System.arraycopy(encoded, 0, bytes, length, encoded.length);
+        length += encoded.length;
+        if (size == ends.length) {
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        ends[size] = length;
+        return size++;
+    }
+
+    String get(int handle) {
+        if (handle == NULL) {
+            return null;
+        }
+        int start = handle == 0 ? 0 : ends[handle - 1];
+        return new String(bytes, start, ends[handle] - start, StandardCharsets.UTF_8);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return bytes of the stored values
+     */
+    int byteCount() {
+        return length;
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.muratkaragozgil.netmera4j.results;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Finds the push token of an installation. Push results only contain installation ids while pushes are
+ * disabled by token.
+ *
+ * @author Murat Karagözgil
+ */
+@FunctionalInterface
+public interface TokenResolver {
+
+    /**
+     * @return completes with the token, or with null when the installation has no known token
+     */
+    CompletableFuture<String> resolve(String extId, String installationId);
+}
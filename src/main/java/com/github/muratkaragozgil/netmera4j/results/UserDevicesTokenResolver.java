@@ -0,0 +1,63 @@
+package com.github.muratkaragozgil.netmera4j.results;
+
+import com.github.muratkaragozgil.netmera4j.Netmera;
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.model.device.Device;
+import com.github.muratkaragozgil.netmera4j.request.device.GetUserDevicesRequest;
+import com.github.muratkaragozgil.netmera4j.response.GetUserDevicesResponse;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Resolves tokens by listing the devices of the external id and matching the installation id.
+ * Installations without an external id can not be resolved.
+ *
+ * @author Murat Karagözgil
+ */
+public class UserDevicesTokenResolver implements TokenResolver {
+
+    private final Netmera netmera;
+
+    public UserDevicesTokenResolver(Netmera netmera) {
+        Assert.notNull(netmera, "Netmera");
+        this.netmera = netmera;
+    }
+
+    @Override
+    public CompletableFuture<String> resolve(String extId, String installationId) {
+        CompletableFuture<String> token = new CompletableFuture<>();
+        if (extId == null || installationId == null) {
+            token.complete(null);
+            return token;
+        }
+        netmera.sendRequest(GetUserDevicesRequest.Builder(extId).build(), new NetmeraCallBack<GetUserDevicesResponse>() {
+            @Override
+            protected void handleResponseData(GetUserDevicesResponse data) {
+                String found = null;
+                if (data != null && data.getDevices() != null) {
+                    for (Device device : data.getDevices()) {
+                        if (installationId.equals(device.getInstallationId())) {
+                            found = device.getToken();
+                            break;
+                        }
+                    }
+                }
+                token.complete(found);
+            }
+
+            @Override
+            protected void handleError(Response<GetUserDevicesResponse> response) {
+                token.completeExceptionally(new IOException("User devices of " + extId + " failed with http status " + response.code()));
+            }
+
+            @Override
+            protected void handleException(Exception t) {
+                token.completeExceptionally(t);
+            }
+        });
+        return token;
+    }
+}
@@ -0,0 +1,403 @@
+package com.github.muratkaragozgil.netmera4j.schedule;
+
+import com.github.muratkaragozgil.netmera4j.Netmera;
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.json.NetmeraGson;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTransactionalNotificationInChunksRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTransactionalNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends transactional notifications after a delay, for large numbers of pending notifications such as reminders.
+ * <p>
+ * Pending notifications are kept in a {@link TimingWheel} which is advanced every {@code tick} by a single timer
+ * thread, so scheduling and cancelling are O(1) and no task is created per notification. Due notifications are
+ * grouped by notification key and sent in lists of at most {@code maxBatchSize}, at most {@code maxInFlight} calls
+ * are in flight at the same time. Notifications are sent at their due time rounded up to the next tick.
+ * <p>
+ * With a journal file every schedule, cancel and completed dispatch is appended to the file, which is flushed every
+ * tick. A started scheduler recovers the pending notifications of the journal and sends the overdue ones
+ * immediately. A notification whose dispatch was in flight during a crash is sent again.
+ *
+ * @author Murat Karagözgil
+ */
+public class DelayedNotificationScheduler implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DelayedNotificationScheduler.class);
+
+    private static final int WHEEL_BITS = 8;
+    private static final int WHEEL_LEVELS = 4;
+    private static final int MIN_COMPACTION_RECORDS = 100000;
+    private static final long STOP_TIMEOUT = 10;
+
+    private final Netmera netmera;
+    private final long tick;
+    private final int maxBatchSize;
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final Path journalPath;
+    private final TimingWheel<Scheduled> wheel;
+    private final Map<Long, TimingWheel.Node<Scheduled>> pending = new HashMap<>();
+    // dispatched but not completed, kept by compactions so that a crash sends them again
+    private final Map<Long, Scheduled> inFlight = new HashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "netmera-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private ScheduleJournal journal;
+    private long nextId = 1;
+    private boolean started;
+
+    private DelayedNotificationScheduler(DelayedNotificationSchedulerBuilder delayedNotificationSchedulerBuilder) {
+        this.netmera = delayedNotificationSchedulerBuilder.netmera;
+        this.tick = delayedNotificationSchedulerBuilder.tick;
+        this.maxBatchSize = delayedNotificationSchedulerBuilder.maxBatchSize;
+        this.maxInFlight = delayedNotificationSchedulerBuilder.maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+        this.journalPath = delayedNotificationSchedulerBuilder.journal;
+        this.wheel = new TimingWheel<>(WHEEL_BITS, WHEEL_LEVELS, System.currentTimeMillis() / tick);
+    }
+
+    /**
+     * Recovers the pending notifications of the journal, if there is one, and starts the timer.
+     */
+    public synchronized void start() throws IOException {
+        Assert.state(!started, "Scheduler is already started");
+        if (journalPath != null) {
+            journal = new ScheduleJournal(journalPath);
+            List<ScheduleJournal.Entry> recovered = journal.recover();
+            for (ScheduleJournal.Entry entry : recovered) {
+                SendTransactionalNotificationRequest request = NetmeraGson.requestReader()
+                        .fromJson(new String(entry.getRequest(), StandardCharsets.UTF_8), SendTransactionalNotificationRequest.class);
+                add(entry.getId(), request, entry.getDueAt());
+            }
+            nextId = journal.getMaxId() + 1;
+            journal.compact(recovered);
+            logger.info("DelayedNotificationScheduler::recovered::{}", recovered.size());
+        }
+        started = true;
+        timer.scheduleWithFixedDelay(this::tick, tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the timer, waits up to 10 seconds for the calls in flight and closes the journal. Pending notifications
+     * are kept in the journal.
+     */
+    public void stop() {
+        timer.shutdownNow();
+        try {
+            // completed calls are written to the journal, so they are not sent again after a restart
+            if (timer.awaitTermination(STOP_TIMEOUT, TimeUnit.SECONDS) && permits.tryAcquire(maxInFlight, STOP_TIMEOUT, TimeUnit.SECONDS)) {
+                permits.release(maxInFlight);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            started = false;
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    logger.error("DelayedNotificationScheduler::journal::{}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    /**
+     * @return id of the scheduled notification, used to cancel it
+     * @throws UncheckedIOException if the journal can not be written
+     */
+    public long schedule(SendTransactionalNotificationRequest request, long delay, TimeUnit unit) {
+        Assert.notNull(unit, "Unit");
+        Assert.isTrue(delay >= 0, "Delay %s must not be negative", delay);
+        return scheduleAt(request, System.currentTimeMillis() + unit.toMillis(delay));
+    }
+
+    /**
+     * @param dueAt epoch milliseconds the notification is sent at, a past time sends it with the next tick
+     * @return id of the scheduled notification, used to cancel it
+     * @throws UncheckedIOException if the journal can not be written
+     */
+    public long scheduleAt(SendTransactionalNotificationRequest request, long dueAt) {
+        Assert.notNull(request, "Request");
+        byte[] json = journalPath == null ? null : NetmeraGson.get().toJson(request).getBytes(StandardCharsets.UTF_8);
+        synchronized (this) {
+            Assert.state(started, "Scheduler is not started");
+            long id = nextId++;
+            if (journal != null) {
+                try {
+                    journal.scheduled(id, dueAt, json);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            add(id, request, dueAt);
+            return id;
+        }
+    }
+
+    /**
+     * @return false when the notification is already dispatched, cancelled or unknown
+     * @throws UncheckedIOException if the journal can not be written
+     */
+    public synchronized boolean cancel(long id) {
+        TimingWheel.Node<Scheduled> node = pending.remove(id);
+        if (node == null || !wheel.remove(node)) {
+            return false;
+        }
+        if (journal != null) {
+            try {
+                journal.cancelled(id);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return number of notifications waiting for their due time
+     */
+    public synchronized int size() {
+        return wheel.size();
+    }
+
+    public long getDispatched() {
+        return dispatched.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    private void add(long id, SendTransactionalNotificationRequest request, long dueAt) {
+        // rounded up, notifications are never sent early
+        long dueTick = (dueAt + tick - 1) / tick;
+        pending.put(id, wheel.add(new Scheduled(id, request, dueAt), dueTick));
+    }
+
+    private void tick() {
+        try {
+            List<Scheduled> due = new ArrayList<>();
+            synchronized (this) {
+                wheel.advance(System.currentTimeMillis() / tick, due::add);
+                for (Scheduled scheduled : due) {
+                    pending.remove(scheduled.id);
+                    if (journal != null) {
+                        inFlight.put(scheduled.id, scheduled);
+                    }
+                }
+                if (journal != null) {
+                    journal.flush();
+                    if (journal.getRecords() > 2L * (pending.size() + inFlight.size()) + MIN_COMPACTION_RECORDS) {
+                        journal.compact(entries());
+                    }
+                }
+            }
+            dispatch(due);
+        } catch (IOException e) {
+            logger.error("DelayedNotificationScheduler::journal::{}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // the timer stops on an uncaught exception
+            logger.error("DelayedNotificationScheduler::tick::{}", e.toString());
+        }
+    }
+
+    private List<ScheduleJournal.Entry> entries() {
+        List<ScheduleJournal.Entry> entries = new ArrayList<>(pending.size() + inFlight.size());
+        for (Scheduled scheduled : inFlight.values()) {
+            entries.add(scheduled.toEntry());
+        }
+        for (TimingWheel.Node<Scheduled> node : pending.values()) {
+            entries.add(node.getValue().toEntry());
+        }
+        return entries;
+    }
+
+    private void dispatch(List<Scheduled> due) throws InterruptedException {
+        Map<String, List<Scheduled>> groups = new LinkedHashMap<>();
+        for (Scheduled scheduled : due) {
+            groups.computeIfAbsent(scheduled.request.getNotificationKey(), key -> new ArrayList<>()).add(scheduled);
+        }
+        for (List<Scheduled> group : groups.values()) {
+            for (int from = 0; from < group.size(); from += maxBatchSize) {
+                List<Scheduled> batch = group.subList(from, Math.min(from + maxBatchSize, group.size()));
+                List<SendTransactionalNotificationRequest> requests = new ArrayList<>(batch.size());
+                for (Scheduled scheduled : batch) {
+                    requests.add(scheduled.request);
+                }
+                permits.acquire();
+                BatchCallBack callBack = new BatchCallBack(batch);
+                try {
+                    netmera.sendRequest(new SendTransactionalNotificationInChunksRequest(requests), callBack);
+                } catch (RuntimeException e) {
+                    callBack.completed(e.toString());
+                }
+            }
+        }
+    }
+
+    private void completed(List<Scheduled> batch, String failure) {
+        if (failure == null) {
+            dispatched.add(batch.size());
+        } else {
+            failed.add(batch.size());
+            logger.warn("DelayedNotificationScheduler::dispatch failed::{}::{}", batch.get(0).request.getNotificationKey(), failure);
+        }
+        // the permit is released after the journal is written, stop waits for it
+        try {
+            synchronized (this) {
+                if (journal == null || !started) {
+                    return;
+                }
+                for (Scheduled scheduled : batch) {
+                    inFlight.remove(scheduled.id);
+                    journal.dispatched(scheduled.id);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("DelayedNotificationScheduler::journal::{}", e.getMessage());
+        } finally {
+            permits.release();
+        }
+    }
+
+    private final class BatchCallBack extends NetmeraCallBack<Void> {
+        private final List<Scheduled> batch;
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private BatchCallBack(List<Scheduled> batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onFailure(Call<Void> call, Throwable t) {
+            super.onFailure(call, t);
+            if (!(t instanceof Exception)) {
+                completed(t.toString());
+            }
+        }
+
+        @Override
+        protected void handleResponseCode(int httpStatus) {
+            completed(httpStatus == 200 ? null : "Http status " + httpStatus);
+        }
+
+        @Override
+        protected void handleResponseData(Void data) {
+        }
+
+        @Override
+        protected void handleError(Response<Void> response) {
+        }
+
+        @Override
+        protected void handleException(Exception t) {
+            completed(t.toString());
+        }
+
+        private void completed(String failure) {
+            if (completed.compareAndSet(false, true)) {
+                DelayedNotificationScheduler.this.completed(batch, failure);
+            }
+        }
+    }
+
+    private static final class Scheduled {
+        private final long id;
+        private final SendTransactionalNotificationRequest request;
+        private final long dueAt;
+
+        private Scheduled(long id, SendTransactionalNotificationRequest request, long dueAt) {
+            this.id = id;
+            this.request = request;
+            this.dueAt = dueAt;
+        }
+
+        private ScheduleJournal.Entry toEntry() {
+            return new ScheduleJournal.Entry(id, dueAt, NetmeraGson.get().toJson(request).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    public static final class DelayedNotificationSchedulerBuilder {
+        private final Netmera netmera;
+        private long tick = 100;
+        private int maxBatchSize = 500;
+        private int maxInFlight = 4;
+        private Path journal;
+
+        public DelayedNotificationSchedulerBuilder(Netmera netmera) {
+            Assert.notNull(netmera, "Netmera");
+            this.netmera = netmera;
+        }
+
+        /**
+         * @param tick milliseconds between two advances of the wheel, the precision of due times
+         */
+        public DelayedNotificationSchedulerBuilder tick(long tick) {
+            Assert.mustBetween(10, 60000, tick, "Tick");
+            this.tick = tick;
+            return this;
+        }
+
+        /**
+         * @param maxBatchSize maximum number of notifications sent in a single call
+         */
+        public DelayedNotificationSchedulerBuilder maxBatchSize(int maxBatchSize) {
+            Assert.mustBetween(1, 1000, maxBatchSize, "Max Batch Size");
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * @param maxInFlight maximum number of calls in flight
+         */
+        public DelayedNotificationSchedulerBuilder maxInFlight(int maxInFlight) {
+            Assert.mustBetween(1, 1000, maxInFlight, "Max In Flight");
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * @param journal file the pending notifications are kept in, recovered when the scheduler starts
+         */
+        public DelayedNotificationSchedulerBuilder journal(Path journal) {
+            Assert.notNull(journal, "Journal");
+            this.journal = journal;
+            return this;
+        }
+
+        public DelayedNotificationScheduler build() {
+            return new DelayedNotificationScheduler(this);
+        }
+    }
+}
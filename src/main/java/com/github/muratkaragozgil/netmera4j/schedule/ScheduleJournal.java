@@ -0,0 +1,157 @@
+package com.github.muratkaragozgil.netmera4j.schedule;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only log of scheduled, cancelled and dispatched notifications. The pending schedules are recovered by
+ * replaying the log, a record cut off by a crash ends it. The log is rewritten with only the pending schedules when
+ * it is opened and when most of its records are obsolete.
+ *
+ * @author Murat Karagözgil
+ */
+final class ScheduleJournal implements Closeable {
+    private static final int MAGIC = 0x4E4D534A;
+    private static final int VERSION = 1;
+    private static final byte SCHEDULED = 1;
+    private static final byte CANCELLED = 2;
+    private static final byte DISPATCHED = 3;
+
+    private final Path path;
+    private DataOutputStream out;
+    private long records;
+    private long maxId;
+
+    ScheduleJournal(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * @return schedules which were neither cancelled nor dispatched, in the order they were scheduled
+     */
+    List<Entry> recover() throws IOException {
+        Map<Long, Entry> pending = new LinkedHashMap<>();
+        if (!Files.exists(path)) {
+            return new ArrayList<>();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a schedule journal: " + path);
+            }
+            while (true) {
+                byte type = in.readByte();
+                long id = in.readLong();
+                maxId = Math.max(maxId, id);
+                if (type == SCHEDULED) {
+                    long dueAt = in.readLong();
+                    byte[] request = new byte[in.readInt()];
+                    in.readFully(request);
+                    pending.put(id, new Entry(id, dueAt, request));
+                } else if (type == CANCELLED || type == DISPATCHED) {
+                    pending.remove(id);
+                } else {
+                    throw new IOException("Corrupt schedule journal: " + path);
+                }
+            }
+        } catch (EOFException e) {
+            // the log ends, possibly with a record cut off by a crash
+        }
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * @return the largest id found by {@link #recover()}
+     */
+    long getMaxId() {
+        return maxId;
+    }
+
+    long getRecords() {
+        return records;
+    }
+
+    void scheduled(long id, long dueAt, byte[] request) throws IOException {
+        out.writeByte(SCHEDULED);
+        out.writeLong(id);
+        out.writeLong(dueAt);
+        out.writeInt(request.length);
+        out.write(request);
+        records++;
+    }
+
+    void cancelled(long id) throws IOException {
+        out.writeByte(CANCELLED);
+        out.writeLong(id);
+        records++;
+    }
+
+    void dispatched(long id) throws IOException {
+        out.writeByte(DISPATCHED);
+        out.writeLong(id);
+        records++;
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Writes the pending schedules to a temporary file, moves it over the log and continues appending to it.
+     */
+    void compact(Collection<Entry> pending) throws IOException {
+        if (out != null) {
+            out.close();
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream compacted = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out = compacted;
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            records = 0;
+            for (Entry entry : pending) {
+                scheduled(entry.id, entry.dueAt, entry.request);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path, StandardOpenOption.APPEND)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+        }
+    }
+
+    static final class Entry {
+        private final long id;
+        private final long dueAt;
+        private final byte[] request;
+
+        Entry(long id, long dueAt, byte[] request) {
+            this.id = id;
+            this.dueAt = dueAt;
+            this.request = request;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        long getDueAt() {
+            return dueAt;
+        }
+
+        byte[] getRequest() {
+            return request;
+        }
+    }
+}
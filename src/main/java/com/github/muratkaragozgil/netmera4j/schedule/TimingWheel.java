@@ -0,0 +1,139 @@
+package com.github.muratkaragozgil.netmera4j.schedule;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed hierarchical timing wheel. Level 0 has one slot per tick, every higher level has slots as long as a whole
+ * revolution of the level below. Entries are kept in the level their delay fits in and cascade to lower levels as
+ * their time comes closer, so adding and removing an entry is O(1) and a tick touches only due or cascading entries.
+ * Entries beyond the range of the top level are cascaded again until they fit.
+ * <p>
+ * Not thread safe.
+ *
+ * @author Murat Karagözgil
+ */
+final class TimingWheel<T> {
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final Node<T>[][] slots;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimingWheel(int bits, int levels, long currentTick) {
+        this.bits = bits;
+        this.mask = (1 << bits) - 1;
+        this.levels = levels;
+        this.currentTick = currentTick;
+        this.slots = new Node[levels][1 << bits];
+        for (Node<T>[] level : slots) {
+            for (int slot = 0; slot < level.length; slot++) {
+                Node<T> sentinel = new Node<>(null, 0);
+                sentinel.previous = sentinel;
+                sentinel.next = sentinel;
+                level[slot] = sentinel;
+            }
+        }
+    }
+
+    long getCurrentTick() {
+        return currentTick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param dueTick tick the entry is due at, entries due at or before the current tick are due at the next one
+     */
+    Node<T> add(T value, long dueTick) {
+        Node<T> node = new Node<>(value, dueTick);
+        insert(node, 1);
+        size++;
+        return node;
+    }
+
+    /**
+     * @return false when the entry was already due or removed
+     */
+    boolean remove(Node<T> node) {
+        if (node.next == null) {
+            return false;
+        }
+        unlink(node);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances the wheel tick by tick and passes the entries due until {@code tick} to {@code due}, in tick order.
+     */
+    void advance(long tick, Consumer<T> due) {
+        while (currentTick < tick) {
+            currentTick++;
+            for (int level = 1; level < levels && (currentTick & ((1L << (bits * level)) - 1)) == 0; level++) {
+                Node<T> sentinel = slots[level][(int) (currentTick >>> (bits * level)) & mask];
+                Node<T> node = sentinel.next;
+                sentinel.next = sentinel;
+                sentinel.previous = sentinel;
+                while (node != sentinel) {
+                    Node<T> next = node.next;
+                    // entries due now go to the level 0 slot which is expired next
+                    insert(node, 0);
+                    node = next;
+                }
+            }
+            Node<T> sentinel = slots[0][(int) currentTick & mask];
+            while (sentinel.next != sentinel) {
+                Node<T> node = sentinel.next;
+                unlink(node);
+                size--;
+                due.accept(node.value);
+            }
+        }
+    }
+
+    private void insert(Node<T> node, long minDelay) {
+        long delay = Math.max(minDelay, node.dueTick - currentTick);
+        int level = 0;
+        while (level < levels - 1 && delay >= 1L << (bits * (level + 1))) {
+            level++;
+        }
+        // beyond the top level the entry waits for a whole revolution and cascades again
+        long slotTick = Math.min(currentTick + delay, currentTick + (1L << (bits * levels)) - 1);
+        Node<T> sentinel = slots[level][(int) (slotTick >>> (bits * level)) & mask];
+        node.previous = sentinel.previous;
+        node.next = sentinel;
+        sentinel.previous.next = node;
+        sentinel.previous = node;
+    }
+
+    private static <T> void unlink(Node<T> node) {
+        node.previous.next = node.next;
+        node.next.previous = node.previous;
+        node.previous = null;
+        node.next = null;
+    }
+
+    static final class Node<T> {
+        private final T value;
+        private final long dueTick;
+        private Node<T> previous;
+        private Node<T> next;
+
+        private Node(T value, long dueTick) {
+            this.value = value;
+            this.dueTick = dueTick;
+        }
+
+        T getValue() {
+            return value;
+        }
+
+        long getDueTick() {
+            return dueTick;
+        }
+    }
+}
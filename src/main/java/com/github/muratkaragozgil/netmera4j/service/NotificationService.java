@@ -3,6 +3,8 @@ package com.github.muratkaragozgil.netmera4j.service;
 import com.github.muratkaragozgil.netmera4j.request.notification.CreateTransactionalNotificationRequest;
 import com.github.muratkaragozgil.netmera4j.request.notification.CreateGeofenceRequest;
 import com.github.muratkaragozgil.netmera4j.request.notification.SendBulkNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTemplatedBulkNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTemplatedTransactionalNotificationRequest;
 import com.github.muratkaragozgil.netmera4j.request.notification.SendTransactionalNotificationRequest;
 import com.github.muratkaragozgil.netmera4j.response.GetPushResultResponse;
 import com.github.muratkaragozgil.netmera4j.response.GetPushStatsInDateRangeResponse;
@@ -24,9 +26,18 @@ public interface NotificationService {
     @POST("/rest/3.0/sendNotification")
     Call<Void> sendNotification(@Body SendTransactionalNotificationRequest sendTransactionalNotificationRequest);
 
+    @POST("/rest/3.0/sendBulkNotification")
+    Call<NotificationResponse> sendTemplatedBulkNotification(@Body SendTemplatedBulkNotificationRequest sendTemplatedBulkNotificationRequest);
+
+    @POST("/rest/3.0/sendNotification")
+    Call<Void> sendTemplatedNotification(@Body SendTemplatedTransactionalNotificationRequest sendTemplatedTransactionalNotificationRequest);
+
     @POST("/rest/3.0/sendNotification")
     Call<Void> sendNotificationInChunks(@Body List<SendBulkNotificationRequest> sendBulkNotificationRequests);
 
+    @POST("/rest/3.0/sendNotification")
+    Call<Void> sendTransactionalNotificationInChunks(@Body List<SendTransactionalNotificationRequest> sendTransactionalNotificationRequests);
+
     @POST("/rest/3.0/createNotificationDefinition")
     Call<NotificationResponse> createNotificationDefinition(@Body CreateTransactionalNotificationRequest createTransactionalNotificationRequest);
 
@@ -5,6 +5,7 @@ import com.github.muratkaragozgil.netmera4j.request.device.*;
 import com.github.muratkaragozgil.netmera4j.response.GetDeviceTokensResponse;
 import com.github.muratkaragozgil.netmera4j.response.GetProfileAttributesResponse;
 import com.github.muratkaragozgil.netmera4j.response.GetUserDevicesResponse;
+import okhttp3.RequestBody;
 import retrofit2.Call;
 import retrofit2.http.*;
 
@@ -18,6 +19,9 @@ public interface UserService {
     @POST("/rest/3.0/registerUsers")
     Call<Void> createNewDevices(@Body List<NewDevice> deviceList);
 
+    @POST("/rest/3.0/registerUsers")
+    Call<Void> createNewDevices(@Body RequestBody encodedDeviceList);
+
     @POST("/rest/3.0/disablePush")
     Call<Void> disablePushWithExternalId(@Body DisablePushRequestWithExternalId disablePushRequestWithExternalId);
 
@@ -42,6 +46,9 @@ public interface UserService {
     @POST("/rest/3.0/setProfileAttributes")
     Call<Void> setProfileAttributes(@Body List<UserAndProfileAttributeMap> userAndProfileAttributeMaps);
 
+    @POST("/rest/3.0/setProfileAttributes")
+    Call<Void> setProfileAttributes(@Body RequestBody encodedUserAndProfileAttributeMaps);
+
     @POST("/rest/3.0/unsetProfileAttributes")
     Call<Void> unsetProfileAttributes(@Body List<SingleUnsetObject> userAndProfileAttributeLists);
 
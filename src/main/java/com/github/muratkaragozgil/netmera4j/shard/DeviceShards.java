@@ -0,0 +1,49 @@
+package com.github.muratkaragozgil.netmera4j.shard;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shards the device tokens of a {@link ShardedNetmera} were registered on. A device registered with an external id
+ * belongs to the app of its user, not to the shard its token hashes to, so the later requests of the token are sent
+ * there. The least recently used tokens are forgotten beyond {@code maxTokens}.
+ * <p>
+ * Thread safe.
+ *
+ * @author Murat Karagözgil
+ */
+final class DeviceShards {
+
+    private final Map<String, String> shards;
+
+    DeviceShards(int maxTokens) {
+        this.shards = new BoundedTokens(maxTokens);
+    }
+
+    synchronized void put(String token, String shard) {
+        shards.put(token, shard);
+    }
+
+    /**
+     * @return name of the shard the token was registered on, null if the token is unknown
+     */
+    synchronized String get(String token) {
+        return shards.get(token);
+    }
+
+    private static final class BoundedTokens extends LinkedHashMap<String, String> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxTokens;
+
+        private BoundedTokens(int maxTokens) {
+            super(16, 0.75f, true);
+            this.maxTokens = maxTokens;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > maxTokens;
+        }
+    }
+}
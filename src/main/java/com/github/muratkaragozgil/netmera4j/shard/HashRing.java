@@ -0,0 +1,70 @@
+package com.github.muratkaragozgil.netmera4j.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Consistent hash ring of shards. Every shard has {@code virtualNodes * weight} points on the ring and a key
+ * belongs to the shard of the first point at or after its hash, so adding or removing a shard only moves the keys
+ * of the points it gains or loses.
+ *
+ * @author Murat Karagözgil
+ */
+final class HashRing<S> {
+
+    private final long[] points;
+    private final Object[] owners;
+
+    /**
+     * @param names   names of the shards, the positions of their points only depend on their names
+     * @param weights number of points of the shards in units of {@code virtualNodes}
+     */
+    HashRing(List<S> shards, List<String> names, List<Integer> weights, int virtualNodes) {
+        int size = 0;
+        for (Integer weight : weights) {
+            size += virtualNodes * weight;
+        }
+        // pairs of point hash and shard index, sorted by hash
+        long[][] ring = new long[size][];
+        int point = 0;
+        for (int shard = 0; shard < shards.size(); shard++) {
+            for (int node = 0; node < virtualNodes * weights.get(shard); node++) {
+                ring[point++] = new long[]{hash(names.get(shard) + "#" + node), shard};
+            }
+        }
+        Arrays.sort(ring, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[size];
+        this.owners = new Object[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = ring[i][0];
+            owners[i] = shards.get((int) ring[i][1]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    S get(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return (S) owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * FNV-1a of the UTF-8 bytes followed by the MurmurHash3 finalizer, which spreads similar keys over the ring.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
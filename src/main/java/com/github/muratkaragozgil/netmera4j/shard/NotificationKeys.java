@@ -0,0 +1,93 @@
+package com.github.muratkaragozgil.netmera4j.shard;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keys of the notifications of a {@link ShardedNetmera} in every shard. A notification created in several apps has a
+ * key in each of them, the sharded client gives the caller a key of its own and translates it to the key of each
+ * shard. Issued keys are negative, so they never collide with the keys of an app. The oldest keys are forgotten
+ * beyond {@code maxKeys}.
+ * <p>
+ * Thread safe.
+ *
+ * @author Murat Karagözgil
+ */
+final class NotificationKeys {
+
+    private final Map<String, Map<String, String>> keys;
+    // shard name and key of the shard to the key of the caller
+    private final Map<String, String> callerKeys = new HashMap<>();
+    private int issued;
+
+    NotificationKeys(int maxKeys) {
+        this.keys = new BoundedKeys(maxKeys, callerKeys);
+    }
+
+    /**
+     * @param shardKeys key of the notification in every shard it exists in, keyed by shard name
+     * @return key of the caller, a negative number
+     */
+    synchronized String issue(Map<String, String> shardKeys) {
+        String key = String.valueOf(-++issued);
+        put(key, shardKeys);
+        return key;
+    }
+
+    synchronized void put(String key, Map<String, String> shardKeys) {
+        // keys issued before a restart are not issued again
+        if (key.startsWith("-")) {
+            try {
+                issued = Math.max(issued, -Integer.parseInt(key));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        Map<String, String> previous = keys.remove(key);
+        if (previous != null) {
+            previous.forEach((shard, shardKey) -> callerKeys.remove(shard + "#" + shardKey));
+        }
+        Map<String, String> copy = Collections.unmodifiableMap(new LinkedHashMap<>(shardKeys));
+        copy.forEach((shard, shardKey) -> callerKeys.put(shard + "#" + shardKey, key));
+        keys.put(key, copy);
+    }
+
+    /**
+     * @return keys of the shards keyed by shard name, null if the key is unknown
+     */
+    synchronized Map<String, String> get(String key) {
+        return keys.get(key);
+    }
+
+    /**
+     * @return key of the caller for the key of a shard, null if the key of the shard is unknown
+     */
+    synchronized String callerKey(String shard, String shardKey) {
+        return callerKeys.get(shard + "#" + shardKey);
+    }
+
+    /**
+     * Forgets the oldest keys beyond {@code maxKeys}, together with their keys of the shards.
+     */
+    private static final class BoundedKeys extends LinkedHashMap<String, Map<String, String>> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxKeys;
+        private final Map<String, String> callerKeys;
+
+        private BoundedKeys(int maxKeys, Map<String, String> callerKeys) {
+            this.maxKeys = maxKeys;
+            this.callerKeys = callerKeys;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Map<String, String>> eldest) {
+            if (size() <= maxKeys) {
+                return false;
+            }
+            eldest.getValue().forEach((shard, shardKey) -> callerKeys.remove(shard + "#" + shardKey));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.muratkaragozgil.netmera4j.shard;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Calls of one shard of a {@link ShardedNetmera} since it was added. A request split between shards counts as a
+ * call of every shard it is sent to.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@ToString
+public class ShardStats {
+    private final String name;
+    private final int weight;
+    private final long calls;
+    private final int inFlight;
+    /**
+     * Calls completed with a non 2xx response.
+     */
+    private final long errors;
+    /**
+     * Calls failed without a response.
+     */
+    private final long failures;
+    private final long p50Micros;
+    private final long p99Micros;
+
+    ShardStats(String name, int weight, long calls, int inFlight, long errors, long failures, long p50Micros, long p99Micros) {
+        this.name = name;
+        this.weight = weight;
+        this.calls = calls;
+        this.inFlight = inFlight;
+        this.errors = errors;
+        this.failures = failures;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+    }
+}
@@ -0,0 +1,1009 @@
+package com.github.muratkaragozgil.netmera4j.shard;
+
+import com.github.muratkaragozgil.netmera4j.Netmera;
+import com.github.muratkaragozgil.netmera4j.callback.ForwardingNetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.constant.Platform;
+import com.github.muratkaragozgil.netmera4j.exception.ValidationException;
+import com.github.muratkaragozgil.netmera4j.metrics.LatencyHistogram;
+import com.github.muratkaragozgil.netmera4j.model.device.*;
+import com.github.muratkaragozgil.netmera4j.model.notification.AdvanceTarget;
+import com.github.muratkaragozgil.netmera4j.model.notification.BasicTarget;
+import com.github.muratkaragozgil.netmera4j.model.notification.SingleStat;
+import com.github.muratkaragozgil.netmera4j.model.notification.Target;
+import com.github.muratkaragozgil.netmera4j.request.device.*;
+import com.github.muratkaragozgil.netmera4j.request.event.FireEventsRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.*;
+import com.github.muratkaragozgil.netmera4j.response.*;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * {@link Netmera} over several clients, one per rest api key (shard), for workloads over the quota of one key.
+ * Callers use it like a single client:
+ * <ul>
+ * <li>requests of a user are sent to the shard of its external id on a consistent hash ring, devices without an
+ * external id to the shard of their token, requests of a device token to the shard its device was registered on
+ * and to the shard of the token when it was not registered with the sharded client,</li>
+ * <li>requests of many users are split by shard and the call back is called once, with the first failure, else the
+ * first error response, else the response of the first shard, entries without a key go to the shard with the
+ * fewest calls in flight for its weight,</li>
+ * <li>notifications targeting only external ids are split the same way, other targets are sent to every shard since
+ * each app only reaches its own users,</li>
+ * <li>transactional notification definitions, geofences and profile attribute deletes are sent to every shard,</li>
+ * <li>push stats of a notification are queried from every shard it was sent to and merged, push stats in a date
+ * range from every shard, push results of a user or device token from its shard,</li>
+ * <li>other push results, device token pages and encoded batches belong to one app, with several shards they fail
+ * with a {@link ValidationException}, use {@link #getShard(String)} for them.</li>
+ * </ul>
+ * With several shards a notification created or sent in more than one app has a key in each. The key in the
+ * response of a transactional notification definition or of a bulk notification is then issued by the sharded
+ * client, a negative number which is translated to the key of every shard in later transactional sends and push
+ * stats queries. Transactional notifications without such a key fail, {@link #getNotificationKeys(String)} and
+ * {@link #putNotificationKeys(String, Map)} keep the keys across restarts and add the keys of notifications defined
+ * in the apps. The last 100000 keys are kept, as are the shards of the last 100000 registered device tokens.
+ * <p>
+ * Shards can be added and removed while requests are sent, only the users of the points the changed shard gains or
+ * loses on the ring move to another shard. {@link #close()} and {@link #flush()} are passed to the current shards.
+ *
+ * @author Murat Karagözgil
+ */
+public class ShardedNetmera implements Netmera {
+
+    private static final int MAX_NOTIFICATION_KEYS = 100000;
+    private static final int MAX_DEVICE_TOKENS = 100000;
+
+    private final int virtualNodes;
+    private final NotificationKeys notificationKeys = new NotificationKeys(MAX_NOTIFICATION_KEYS);
+    private final DeviceShards deviceShards = new DeviceShards(MAX_DEVICE_TOKENS);
+    // page responses and the shards they came from, the next page is requested from the same shard
+    private final Map<Object, Shard> pages = Collections.synchronizedMap(new WeakHashMap<>());
+    private volatile Shards shards;
+
+    private ShardedNetmera(ShardedNetmeraBuilder shardedNetmeraBuilder) {
+        this.virtualNodes = shardedNetmeraBuilder.virtualNodes;
+        this.shards = new Shards(new ArrayList<>(shardedNetmeraBuilder.shards), virtualNodes);
+    }
+
+    /**
+     * @param weight share of the users of the shard, relative to the other shards
+     * @throws IllegalArgumentException if a shard with the same name exists
+     */
+    public synchronized void addShard(String name, Netmera netmera, int weight) {
+        List<Shard> list = new ArrayList<>(shards.list);
+        list.add(newShard(list, name, netmera, weight));
+        shards = new Shards(list, virtualNodes);
+    }
+
+    /**
+     * Calls in flight on the shard complete, new requests of its users are sent to the shards which take its points.
+     * The client of the shard is not closed.
+     *
+     * @throws IllegalStateException if it is the last shard
+     */
+    public synchronized void removeShard(String name) {
+        List<Shard> list = new ArrayList<>(shards.list);
+        Assert.isTrue(list.removeIf(shard -> shard.name.equals(name)), "No shard named %s.", name);
+        Assert.state(!list.isEmpty(), "The last shard can not be removed.");
+        shards = new Shards(list, virtualNodes);
+    }
+
+    /**
+     * @return name of the shard which gets the requests of {@code extId}
+     */
+    public String shardOf(String extId) {
+        Assert.notNullOrEmpty(extId, "External Id");
+        return shards.ring.get(extId).name;
+    }
+
+    /**
+     * @return client of the shard, for requests of its app only
+     * @throws IllegalArgumentException if there is no shard with the name
+     */
+    public Netmera getShard(String name) {
+        for (Shard shard : shards.list) {
+            if (shard.name.equals(name)) {
+                return shard.netmera;
+            }
+        }
+        throw new IllegalArgumentException("No shard named " + name + ".");
+    }
+
+    /**
+     * @return key of the notification in every shard keyed by shard name, empty if the key is unknown
+     */
+    public Map<String, String> getNotificationKeys(String notificationKey) {
+        Assert.notNullOrEmpty(notificationKey, "Notification Key");
+        Map<String, String> keys = notificationKeys.get(notificationKey);
+        return keys == null ? Collections.emptyMap() : keys;
+    }
+
+    /**
+     * Defines a notification key which is translated to the key of every shard, e.g. a key issued before a restart
+     * or the key of a transactional notification defined in each app.
+     *
+     * @param shardKeys key of the notification in every shard keyed by shard name
+     */
+    public void putNotificationKeys(String notificationKey, Map<String, String> shardKeys) {
+        Assert.notNullOrEmpty(notificationKey, "Notification Key");
+        Assert.notNull(shardKeys, "Shard Keys");
+        Assert.isTrue(!shardKeys.isEmpty(), "Notification %s has no shard keys.", notificationKey);
+        notificationKeys.put(notificationKey, shardKeys);
+    }
+
+    /**
+     * @return stats of the current shards in the order they were added
+     */
+    public List<ShardStats> getShardStats() {
+        List<ShardStats> stats = new ArrayList<>();
+        for (Shard shard : shards.list) {
+            stats.add(shard.stats());
+        }
+        return stats;
+    }
+
+    /**
+     * Closes the clients of the current shards, a failure to close one does not stop the others.
+     */
+    @Override
+    public void close() {
+        RuntimeException failure = null;
+        for (Shard shard : shards.list) {
+            try {
+                shard.netmera.close();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void flush() {
+        for (Shard shard : shards.list) {
+            shard.netmera.flush();
+        }
+    }
+
+    // Device Requests
+    @Override
+    public void sendRequest(AddNewDevicesRequest addNewDevicesRequest, NetmeraCallBack<Void> callBack) {
+        Shards current = shards;
+        Function<NewDevice, String> keyOf = device -> device.getExtId() == null || device.getExtId().isEmpty() ? device.getDeviceToken() : device.getExtId();
+        if (addNewDevicesRequest.getDeviceList() != null) {
+            for (NewDevice device : addNewDevicesRequest.getDeviceList()) {
+                String key = device == null ? null : keyOf.apply(device);
+                if (key != null && !key.isEmpty() && device.getDeviceToken() != null) {
+                    deviceShards.put(device.getDeviceToken(), current.ring.get(key).name);
+                }
+            }
+        }
+        split(current, addNewDevicesRequest, addNewDevicesRequest.getDeviceList(), keyOf,
+                devices -> AddNewDevicesRequest.AddNewDevicesRequestBuilder.withDeviceList(devices).build(), Netmera::sendRequest, callBack);
+    }
+
+    /**
+     * Encoded devices can not be split, write a batch per shard with the help of {@link #shardOf(String)} and send
+     * it with {@link #getShard(String)}. Their tokens are not recorded, send the requests of those tokens with
+     * {@link #getShard(String)} too.
+     */
+    @Override
+    public void sendRequest(EncodedNewDevicesRequest encodedNewDevicesRequest, NetmeraCallBack<Void> callBack) {
+        sendToOneApp(encodedNewDevicesRequest, "Encoded devices", Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(DisablePushRequestWithExternalId disablePushRequestWithExternalId, NetmeraCallBack<Void> callBack) {
+        send(route(disablePushRequestWithExternalId.getExtId()), disablePushRequestWithExternalId, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(DisablePushRequestWithToken disablePushRequestWithToken, NetmeraCallBack<Void> callBack) {
+        send(routeDevice(disablePushRequestWithToken.getDeviceToken()), disablePushRequestWithToken, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(EnablePushRequestWithExternalId enablePushRequestWithExternalId, NetmeraCallBack<Void> callBack) {
+        send(route(enablePushRequestWithExternalId.getExtId()), enablePushRequestWithExternalId, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(EnablePushRequestWithToken enablePushRequestWithToken, NetmeraCallBack<Void> callBack) {
+        send(routeDevice(enablePushRequestWithToken.getDeviceToken()), enablePushRequestWithToken, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(AddTagToUsersRequest addTagToUsersRequest, NetmeraCallBack<Void> callBack) {
+        split(addTagToUsersRequest, addTagToUsersRequest.getExtIds(), Function.identity(),
+                extIds -> new AddTagToUsersRequest(addTagToUsersRequest.getTag(), extIds), Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(RemoveTagFromUsersRequest removeTagFromUsersRequest, NetmeraCallBack<Void> callBack) {
+        split(removeTagFromUsersRequest, removeTagFromUsersRequest.getExtIds(), Function.identity(),
+                extIds -> new RemoveTagFromUsersRequest(removeTagFromUsersRequest.getTag(), extIds), Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(SetCategoryPreferenceRequest setCategoryPreferenceRequest, NetmeraCallBack<Void> callBack) {
+        split(setCategoryPreferenceRequest, setCategoryPreferenceRequest.getCategories(), Category::getExtId,
+                SetCategoryPreferenceRequest::new, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(AddProfileAttributeRequest addProfileAttributeRequest, NetmeraCallBack<Void> callBack) {
+        split(addProfileAttributeRequest, addProfileAttributeRequest.getUserAndProfileAttributeMaps(), UserAndProfileAttributeMap::getExtId,
+                AddProfileAttributeRequest::new, Netmera::sendRequest, callBack);
+    }
+
+    /**
+     * Encoded users can not be split, write a batch per shard with the help of {@link #shardOf(String)} and send it
+     * with {@link #getShard(String)}.
+     */
+    @Override
+    public void sendRequest(EncodedProfileAttributesRequest encodedProfileAttributesRequest, NetmeraCallBack<Void> callBack) {
+        sendToOneApp(encodedProfileAttributesRequest, "Encoded profile attributes", Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(UnsetProfileAttributesRequest unsetProfileAttributesRequest, NetmeraCallBack<Void> callBack) {
+        split(unsetProfileAttributesRequest, unsetProfileAttributesRequest.getSingleUnsetObjects(), SingleUnsetObject::getExtId,
+                singleUnsetObjects -> UnsetProfileAttributesRequest.UnsetProfileAttributesRequestBuilder.UnsetProfileAttributesRequest()
+                        .userAndProfileAttributeLists(singleUnsetObjects).build(), Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(GetProfileAttributesRequest getProfileAttributesRequest, NetmeraCallBack<GetProfileAttributesResponse> callBack) {
+        send(route(getProfileAttributesRequest.getExternalId()), getProfileAttributesRequest, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(PushProfileAttributesToUserRequest pushProfileAttributesToUserRequest, NetmeraCallBack<Void> callBack) {
+        split(pushProfileAttributesToUserRequest, pushProfileAttributesToUserRequest.getUserAndProfileAttributeLists(), UserAndProfileAttributeList::getExtId,
+                PushProfileAttributesToUserRequest::new, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(PullProfileAttributesFromUserRequest pullProfileAttributesFromUserRequest, NetmeraCallBack<Void> callBack) {
+        split(pullProfileAttributesFromUserRequest, pullProfileAttributesFromUserRequest.getUserAndProfileAttributeLists(), UserAndProfileAttributeList::getExtId,
+                PullProfileAttributesFromUserRequest::new, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(DeleteProfileAttributeFromAllUsersRequest deleteProfileAttributeFromAllUsersRequest, NetmeraCallBack<Void> callBack) {
+        send(everyShard(shards, deleteProfileAttributeFromAllUsersRequest), Netmera::sendRequest, callBack, null);
+    }
+
+    @Override
+    public void sendRequest(GetUserDevicesRequest getUserDevices, NetmeraCallBack<GetUserDevicesResponse> callBack) {
+        send(route(getUserDevices.getExternalId()), getUserDevices, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(GetDeviceTokensRequest getDeviceTokensRequest, NetmeraCallBack<GetDeviceTokensResponse> callBack) {
+        sendToOneApp(getDeviceTokensRequest, "Device tokens", Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(GetDeviceTokensResponse getDeviceTokensResponse, NetmeraCallBack<GetDeviceTokensResponse> callBack) {
+        sendNextPage(getDeviceTokensResponse, "Device tokens", Netmera::sendRequest, callBack);
+    }
+
+    // Notification Requests
+    @Override
+    public void sendRequest(SendBulkNotificationRequest sendBulkNotificationRequest, NetmeraCallBack<NotificationResponse> callBack) {
+        Shards current = shards;
+        send(targeted(current, sendBulkNotificationRequest, sendBulkNotificationRequest.getTarget(),
+                target -> new SendBulkNotificationRequest(sendBulkNotificationRequest.getMessage(), target)),
+                Netmera::sendRequest, callBack, issuingKey(current));
+    }
+
+    @Override
+    public void sendRequest(SendTransactionalNotificationRequest sendTransactionalNotificationRequest, NetmeraCallBack<Void> callBack) {
+        Shards current = shards;
+        sendLocalized(targeted(current, sendTransactionalNotificationRequest, sendTransactionalNotificationRequest.getTarget(),
+                target -> retarget(sendTransactionalNotificationRequest, target)),
+                (shard, notification) -> localize(current, shard, notification), Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(SendTemplatedBulkNotificationRequest sendTemplatedBulkNotificationRequest, NetmeraCallBack<NotificationResponse> callBack) {
+        Shards current = shards;
+        send(targeted(current, sendTemplatedBulkNotificationRequest, sendTemplatedBulkNotificationRequest.getTarget(),
+                target -> new SendTemplatedBulkNotificationRequest(sendTemplatedBulkNotificationRequest.getTemplate(), target)),
+                Netmera::sendRequest, callBack, issuingKey(current));
+    }
+
+    @Override
+    public void sendRequest(SendTemplatedTransactionalNotificationRequest sendTemplatedTransactionalNotificationRequest, NetmeraCallBack<Void> callBack) {
+        Shards current = shards;
+        sendLocalized(targeted(current, sendTemplatedTransactionalNotificationRequest, sendTemplatedTransactionalNotificationRequest.getTarget(),
+                target -> new SendTemplatedTransactionalNotificationRequest(sendTemplatedTransactionalNotificationRequest.getNotificationKey(),
+                        sendTemplatedTransactionalNotificationRequest.getTemplate(), sendTemplatedTransactionalNotificationRequest.getParams(), target)),
+                (shard, notification) -> {
+                    String key = shardKey(current, shard, notification.getNotificationKey());
+                    return Objects.equals(key, notification.getNotificationKey()) ? notification
+                            : new SendTemplatedTransactionalNotificationRequest(key, notification.getTemplate(), notification.getParams(), notification.getTarget());
+                }, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(List<SendBulkNotificationRequest> sendBulkNotificationRequests, NetmeraCallBack<Void> callBack) {
+        send(grouped(shards, sendBulkNotificationRequests, SendBulkNotificationRequest::getTarget,
+                (notification, target) -> new SendBulkNotificationRequest(notification.getMessage(), target), Function.identity()),
+                (Netmera netmera, List<SendBulkNotificationRequest> notifications, NetmeraCallBack<Void> partCallBack) -> netmera.sendRequest(notifications, partCallBack),
+                callBack, null);
+    }
+
+    @Override
+    public void sendRequest(SendTransactionalNotificationInChunksRequest sendTransactionalNotificationInChunksRequest, NetmeraCallBack<Void> callBack) {
+        Shards current = shards;
+        sendLocalized(grouped(current, sendTransactionalNotificationInChunksRequest.getNotifications(), SendTransactionalNotificationRequest::getTarget,
+                ShardedNetmera::retarget, SendTransactionalNotificationInChunksRequest::new),
+                (shard, chunks) -> {
+                    List<SendTransactionalNotificationRequest> notifications = new ArrayList<>();
+                    for (SendTransactionalNotificationRequest notification : chunks.getNotifications()) {
+                        notifications.add(localize(current, shard, notification));
+                    }
+                    return new SendTransactionalNotificationInChunksRequest(notifications);
+                }, Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(CreateTransactionalNotificationRequest createTransactionalNotificationRequest, NetmeraCallBack<NotificationResponse> callBack) {
+        Shards current = shards;
+        send(everyShard(current, createTransactionalNotificationRequest), Netmera::sendRequest, callBack, issuingKey(current));
+    }
+
+    @Override
+    public void sendRequest(GetPushStatsRequest getPushStatsRequest, NetmeraCallBack<GetPushStatsResponse> callBack) {
+        Integer notificationKey = getPushStatsRequest.getNotificationKey();
+        Map<String, String> keys = notificationKey == null ? null : notificationKeys.get(String.valueOf(notificationKey));
+        if (keys == null) {
+            sendToOneApp(getPushStatsRequest, "Push stats of notifications not sent with the sharded client", Netmera::sendRequest, callBack);
+            return;
+        }
+        Map<Shard, GetPushStatsRequest> requests = new LinkedHashMap<>();
+        for (Shard shard : shards.list) {
+            Integer shardKey = integerKey(keys.get(shard.name));
+            if (shardKey != null) {
+                requests.put(shard, new GetPushStatsRequest(shardKey));
+            }
+        }
+        if (requests.isEmpty()) {
+            callBack.onFailure(null, new ValidationException("Notification " + notificationKey + " has no key on the current shards."));
+            return;
+        }
+        send(requests, Netmera::sendRequest, callBack, responses -> mergeStats(notificationKey, responses.values()));
+    }
+
+    @Override
+    public void sendRequest(GetPushStatsInDateRangeRequest getPushStatsInDateRangeRequest, NetmeraCallBack<GetPushStatsInDateRangeResponse> callBack) {
+        send(everyShard(shards, getPushStatsInDateRangeRequest), Netmera::sendRequest, callBack, this::mergeMessages);
+    }
+
+    @Override
+    public void sendRequest(GetPushResultsRequest getPushResultsRequest, NetmeraCallBack<GetPushResultResponse> callBack) {
+        if (getPushResultsRequest.getExtId() != null && !getPushResultsRequest.getExtId().isEmpty()) {
+            sendPaged(route(getPushResultsRequest.getExtId()), getPushResultsRequest, Netmera::sendRequest, callBack);
+        } else if (getPushResultsRequest.getToken() != null && !getPushResultsRequest.getToken().isEmpty()) {
+            sendPaged(routeDevice(getPushResultsRequest.getToken()), getPushResultsRequest, Netmera::sendRequest, callBack);
+        } else {
+            sendToOneApp(getPushResultsRequest, "Push results of all users", Netmera::sendRequest, callBack);
+        }
+    }
+
+    @Override
+    public void sendRequest(GetPushResultResponse getPushResultResponse, NetmeraCallBack<GetPushResultResponse> callBack) {
+        sendNextPage(getPushResultResponse, "Push results of all users", Netmera::sendRequest, callBack);
+    }
+
+    @Override
+    public void sendRequest(CreateGeofenceRequest createGeofenceRequest, NetmeraCallBack<Void> callBack) {
+        send(everyShard(shards, createGeofenceRequest), Netmera::sendRequest, callBack, null);
+    }
+
+    @Override
+    public void sendRequest(FireEventsRequest fireEventsRequest, NetmeraCallBack<Void> callBack) {
+        split(fireEventsRequest, fireEventsRequest.getEventList(), event -> (String) event.getParameters().get("extId"),
+                FireEventsRequest::new, Netmera::sendRequest, callBack);
+    }
+
+    private static SendTransactionalNotificationRequest retarget(SendTransactionalNotificationRequest notification, Target target) {
+        return new SendTransactionalNotificationRequest(notification.getNotificationKey(), notification.getMessage(), target);
+    }
+
+    private SendTransactionalNotificationRequest localize(Shards current, Shard shard, SendTransactionalNotificationRequest notification) {
+        String key = shardKey(current, shard, notification.getNotificationKey());
+        return Objects.equals(key, notification.getNotificationKey()) ? notification
+                : new SendTransactionalNotificationRequest(key, notification.getMessage(), notification.getTarget());
+    }
+
+    /**
+     * @return key of the notification in the shard, an unknown key is kept as it is when there is a single shard
+     * @throws ValidationException if the shard has no key for the notification
+     */
+    private String shardKey(Shards current, Shard shard, String notificationKey) {
+        if (notificationKey == null) {
+            return null;
+        }
+        Map<String, String> keys = notificationKeys.get(notificationKey);
+        if (keys == null) {
+            if (current.list.size() == 1) {
+                return notificationKey;
+            }
+            throw new ValidationException("Notification " + notificationKey + " is not known to the sharded client, create it with the"
+                    + " sharded client or put its keys.");
+        }
+        String shardKey = keys.get(shard.name);
+        if (shardKey == null) {
+            throw new ValidationException("Notification " + notificationKey + " has no key on shard " + shard.name + ".");
+        }
+        return shardKey;
+    }
+
+    private static Integer integerKey(String key) {
+        if (key == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(key);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return merger which issues a key for the keys of the shards, null when there is a single shard whose keys are
+     * passed as they are
+     */
+    private Merger<NotificationResponse> issuingKey(Shards current) {
+        if (current.list.size() == 1) {
+            return null;
+        }
+        return responses -> {
+            Map<String, String> shardKeys = new LinkedHashMap<>();
+            responses.forEach((shard, response) -> {
+                if (response != null && response.getNotificationKey() != null) {
+                    shardKeys.put(shard.name, String.valueOf(response.getNotificationKey()));
+                }
+            });
+            if (shardKeys.isEmpty()) {
+                return responses.values().iterator().next();
+            }
+            NotificationResponse issued = new NotificationResponse();
+            issued.setNotificationKey(Integer.valueOf(notificationKeys.issue(shardKeys)));
+            return issued;
+        };
+    }
+
+    /**
+     * Sums the stats of the shards per platform, the send covers the earliest start and the latest end.
+     */
+    private static GetPushStatsResponse mergeStats(Integer notificationKey, Collection<GetPushStatsResponse> responses) {
+        GetPushStatsResponse merged = new GetPushStatsResponse();
+        merged.setNotificationKey(notificationKey);
+        Map<Platform, SingleStat> stats = new LinkedHashMap<>();
+        for (GetPushStatsResponse response : responses) {
+            if (response == null) {
+                continue;
+            }
+            if (merged.getStatus() == null) {
+                merged.setStatus(response.getStatus());
+            }
+            merged.setStartDate(response.getStartDate() == null || merged.getStartDate() != null && merged.getStartDate() < response.getStartDate()
+                    ? merged.getStartDate() : response.getStartDate());
+            merged.setEndDate(response.getEndDate() == null || merged.getEndDate() != null && merged.getEndDate() > response.getEndDate()
+                    ? merged.getEndDate() : response.getEndDate());
+            if (response.getStats() == null) {
+                continue;
+            }
+            for (SingleStat stat : response.getStats()) {
+                SingleStat sum = stats.computeIfAbsent(stat.getPlatform(), platform -> {
+                    SingleStat empty = new SingleStat();
+                    empty.setPlatform(platform);
+                    return empty;
+                });
+                sum.setSent(add(sum.getSent(), stat.getSent()));
+                sum.setFailed(add(sum.getFailed(), stat.getFailed()));
+                sum.setClicked(add(sum.getClicked(), stat.getClicked()));
+            }
+        }
+        merged.setStats(new ArrayList<>(stats.values()));
+        return merged;
+    }
+
+    private static Integer add(Integer sum, Integer value) {
+        if (value == null) {
+            return sum;
+        }
+        return sum == null ? value : Integer.valueOf(sum + value);
+    }
+
+    /**
+     * Merges the messages of a notification sent to several shards under its issued key, keeps the others as they are.
+     */
+    private GetPushStatsInDateRangeResponse mergeMessages(Map<Shard, GetPushStatsInDateRangeResponse> responses) {
+        Map<Integer, List<GetPushStatsResponse>> issued = new LinkedHashMap<>();
+        List<GetPushStatsResponse> messages = new ArrayList<>();
+        responses.forEach((shard, response) -> {
+            if (response == null || response.getMessages() == null) {
+                return;
+            }
+            for (GetPushStatsResponse message : response.getMessages()) {
+                Integer key = message.getNotificationKey() == null ? null
+                        : integerKey(notificationKeys.callerKey(shard.name, String.valueOf(message.getNotificationKey())));
+                if (key == null) {
+                    messages.add(message);
+                } else {
+                    issued.computeIfAbsent(key, k -> new ArrayList<>()).add(message);
+                }
+            }
+        });
+        issued.forEach((key, parts) -> messages.add(mergeStats(key, parts)));
+        GetPushStatsInDateRangeResponse merged = new GetPushStatsInDateRangeResponse();
+        merged.setMessages(messages);
+        return merged;
+    }
+
+    private Shard route(String key) {
+        Shards current = shards;
+        return key == null || key.isEmpty() ? leastLoaded(current) : current.ring.get(key);
+    }
+
+    /**
+     * @return shard the device of the token was registered on, the shard of the token if it is unknown or its shard
+     * was removed
+     */
+    private Shard routeDevice(String token) {
+        Shards current = shards;
+        String name = token == null ? null : deviceShards.get(token);
+        if (name != null) {
+            for (Shard shard : current.list) {
+                if (shard.name.equals(name)) {
+                    return shard;
+                }
+            }
+        }
+        return token == null || token.isEmpty() ? leastLoaded(current) : current.ring.get(token);
+    }
+
+    /**
+     * Sends a request of one app to the single shard, fails it when there are several shards.
+     */
+    private <R, T> void sendToOneApp(R request, String what, Sender<R, T> sender, NetmeraCallBack<T> callBack) {
+        Shards current = shards;
+        if (current.list.size() > 1) {
+            callBack.onFailure(null, new ValidationException(what + " belong to one app, send them with getShard(name) when there are"
+                    + " several shards."));
+            return;
+        }
+        sendPaged(current.list.get(0), request, sender, callBack);
+    }
+
+    /**
+     * Sends a request whose response may have a next page, and remembers the shard of the response.
+     */
+    private <R, T> void sendPaged(Shard shard, R request, Sender<R, T> sender, NetmeraCallBack<T> callBack) {
+        send(shard, request, sender, new ForwardingNetmeraCallBack<T>(callBack) {
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                if (response.body() != null) {
+                    pages.put(response.body(), shard);
+                }
+                super.onResponse(call, response);
+            }
+        });
+    }
+
+    private <R, T> void sendNextPage(R page, String what, Sender<R, T> sender, NetmeraCallBack<T> callBack) {
+        Shard shard = pages.get(page);
+        if (shard == null) {
+            sendToOneApp(page, what, sender, callBack);
+        } else {
+            sendPaged(shard, page, sender, callBack);
+        }
+    }
+
+    /**
+     * @return shard with the fewest calls in flight for its weight, the first of them on a tie
+     */
+    private static Shard leastLoaded(Shards current) {
+        Shard least = current.list.get(0);
+        for (Shard shard : current.list) {
+            if ((long) shard.inFlight.get() * least.weight < (long) least.inFlight.get() * shard.weight) {
+                least = shard;
+            }
+        }
+        return least;
+    }
+
+    /**
+     * Groups entries by the shards of their keys, entries without one go together to the least loaded shard.
+     */
+    private static <E> Map<Shard, List<E>> partition(Shards current, List<E> entries, Function<E, String> keyOf) {
+        Map<Shard, List<E>> parts = new LinkedHashMap<>();
+        Shard keyless = null;
+        for (E entry : entries) {
+            String key = entry == null ? null : keyOf.apply(entry);
+            Shard shard;
+            if (key == null || key.isEmpty()) {
+                if (keyless == null) {
+                    keyless = leastLoaded(current);
+                }
+                shard = keyless;
+            } else {
+                shard = current.ring.get(key);
+            }
+            parts.computeIfAbsent(shard, k -> new ArrayList<>()).add(entry);
+        }
+        return parts;
+    }
+
+    private <R, E, T> void split(R request, List<E> entries, Function<E, String> keyOf, Function<List<E>, R> rebuild,
+                                 Sender<R, T> sender, NetmeraCallBack<T> callBack) {
+        split(shards, request, entries, keyOf, rebuild, sender, callBack);
+    }
+
+    private static <R, E, T> void split(Shards current, R request, List<E> entries, Function<E, String> keyOf, Function<List<E>, R> rebuild,
+                                        Sender<R, T> sender, NetmeraCallBack<T> callBack) {
+        if (entries == null || entries.isEmpty()) {
+            send(leastLoaded(current), request, sender, callBack);
+            return;
+        }
+        Map<Shard, List<E>> parts = partition(current, entries, keyOf);
+        Map<Shard, R> requests = new LinkedHashMap<>();
+        if (parts.size() == 1) {
+            requests.put(parts.keySet().iterator().next(), request);
+        } else {
+            parts.forEach((shard, part) -> requests.put(shard, rebuild.apply(part)));
+        }
+        send(requests, sender, callBack, null);
+    }
+
+    /**
+     * @return targets of the shards of its external ids, null if the target is not only a list of external ids
+     */
+    private static Map<Shard, Target> splitTarget(Shards current, Target target) {
+        if (!isExternalIdTarget(target)) {
+            return null;
+        }
+        Map<Shard, List<String>> parts = partition(current, target.getExtId(), Function.identity());
+        if (parts.size() == 1) {
+            return Collections.singletonMap(parts.keySet().iterator().next(), target);
+        }
+        Map<Shard, Target> targets = new LinkedHashMap<>();
+        parts.forEach((shard, extIds) -> targets.put(shard, new Target.TargetBuilder().externalId(extIds).build()));
+        return targets;
+    }
+
+    private static boolean isExternalIdTarget(Target target) {
+        if (target == null || target.isSendToAll() || target.getExtId() == null || target.getExtId().isEmpty()
+                || target.getLocation() != null || target.getDeviceToken() != null || target.getProfile() != null) {
+            return false;
+        }
+        if (target instanceof BasicTarget) {
+            return ((BasicTarget) target).getTag() == null && ((BasicTarget) target).getSegment() == null;
+        }
+        if (target instanceof AdvanceTarget) {
+            return ((AdvanceTarget) target).getTag() == null && ((AdvanceTarget) target).getSegment() == null;
+        }
+        return true;
+    }
+
+    /**
+     * @return the request for the shards of its external ids, for every shard when it has another target
+     */
+    private static <R> Map<Shard, R> targeted(Shards current, R request, Target target, Function<Target, R> retarget) {
+        Map<Shard, Target> targets = splitTarget(current, target);
+        if (targets == null) {
+            return everyShard(current, request);
+        }
+        Map<Shard, R> requests = new LinkedHashMap<>();
+        targets.forEach((shard, shardTarget) -> requests.put(shard, shardTarget == target ? request : retarget.apply(shardTarget)));
+        return requests;
+    }
+
+    /**
+     * @return one request per shard with the notifications of its users and the notifications of every shard
+     */
+    private static <N, R> Map<Shard, R> grouped(Shards current, List<N> notifications, Function<N, Target> targetOf,
+                                                BiFunction<N, Target, N> retarget, Function<List<N>, R> rebuild) {
+        if (notifications == null || notifications.isEmpty()) {
+            return Collections.singletonMap(leastLoaded(current), rebuild.apply(notifications));
+        }
+        Map<Shard, List<N>> groups = new LinkedHashMap<>();
+        for (N notification : notifications) {
+            Target target = targetOf.apply(notification);
+            Map<Shard, Target> targets = splitTarget(current, target);
+            if (targets == null) {
+                current.list.forEach(shard -> groups.computeIfAbsent(shard, key -> new ArrayList<>()).add(notification));
+            } else {
+                targets.forEach((shard, shardTarget) -> groups.computeIfAbsent(shard, key -> new ArrayList<>())
+                        .add(shardTarget == target ? notification : retarget.apply(notification, shardTarget)));
+            }
+        }
+        Map<Shard, R> requests = new LinkedHashMap<>();
+        groups.forEach((shard, group) -> requests.put(shard, rebuild.apply(group)));
+        return requests;
+    }
+
+    private static <R> Map<Shard, R> everyShard(Shards current, R request) {
+        Map<Shard, R> requests = new LinkedHashMap<>();
+        current.list.forEach(shard -> requests.put(shard, request));
+        return requests;
+    }
+
+    /**
+     * Sends the requests with the notification keys of their shards, fails the call back without sending anything
+     * if a shard has no key.
+     */
+    private static <R, T> void sendLocalized(Map<Shard, R> requests, BiFunction<Shard, R, R> localize, Sender<R, T> sender,
+                                             NetmeraCallBack<T> callBack) {
+        Map<Shard, R> localized = new LinkedHashMap<>();
+        try {
+            requests.forEach((shard, request) -> localized.put(shard, localize.apply(shard, request)));
+        } catch (ValidationException e) {
+            callBack.onFailure(null, e);
+            return;
+        }
+        send(localized, sender, callBack, null);
+    }
+
+    /**
+     * @param merger merges the bodies of the shards when every part succeeded, null passes the response of the first
+     *               shard
+     */
+    private static <R, T> void send(Map<Shard, R> requests, Sender<R, T> sender, NetmeraCallBack<T> callBack, Merger<T> merger) {
+        if (requests.size() == 1 && merger == null) {
+            Map.Entry<Shard, R> request = requests.entrySet().iterator().next();
+            send(request.getKey(), request.getValue(), sender, callBack);
+            return;
+        }
+        MergingCallBack<T> merging = new MergingCallBack<>(callBack, new ArrayList<>(requests.keySet()), merger);
+        int part = 0;
+        for (Map.Entry<Shard, R> request : requests.entrySet()) {
+            NetmeraCallBack<T> partCallBack = merging.part(part++);
+            try {
+                send(request.getKey(), request.getValue(), sender, partCallBack);
+            } catch (RuntimeException e) {
+                // the other parts may be sent already, the call back is called once with the failure
+                partCallBack.onFailure(null, e);
+            }
+        }
+    }
+
+    private static <R, T> void send(Shard shard, R request, Sender<R, T> sender, NetmeraCallBack<T> callBack) {
+        ShardCallBack<T> shardCallBack = new ShardCallBack<>(shard, callBack);
+        try {
+            sender.send(shard.netmera, request, shardCallBack);
+        } catch (RuntimeException e) {
+            shard.completed(shardCallBack.startNanos, false, true);
+            throw e;
+        }
+    }
+
+    private interface Merger<T> {
+        T merge(Map<Shard, T> bodies);
+    }
+
+    private interface Sender<R, T> {
+        void send(Netmera netmera, R request, NetmeraCallBack<T> callBack);
+    }
+
+    private static final class Shards {
+        private final List<Shard> list;
+        private final HashRing<Shard> ring;
+
+        private Shards(List<Shard> list, int virtualNodes) {
+            List<String> names = new ArrayList<>(list.size());
+            List<Integer> weights = new ArrayList<>(list.size());
+            for (Shard shard : list) {
+                names.add(shard.name);
+                weights.add(shard.weight);
+            }
+            this.list = Collections.unmodifiableList(list);
+            this.ring = new HashRing<>(list, names, weights, virtualNodes);
+        }
+    }
+
+    private static Shard newShard(List<Shard> shards, String name, Netmera netmera, int weight) {
+        Assert.notNullOrEmpty(name, "Shard Name");
+        Assert.notNull(netmera, "Netmera");
+        Assert.mustBetween(1, 100, weight, "Weight");
+        for (Shard shard : shards) {
+            Assert.isTrue(!shard.name.equals(name), "Shard %s already exists.", name);
+        }
+        return new Shard(name, netmera, weight);
+    }
+
+    private static final class Shard {
+        private final String name;
+        private final Netmera netmera;
+        private final int weight;
+        private final LongAdder calls = new LongAdder();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Shard(String name, Netmera netmera, int weight) {
+            this.name = name;
+            this.netmera = netmera;
+            this.weight = weight;
+        }
+
+        private void started() {
+            calls.increment();
+            inFlight.incrementAndGet();
+        }
+
+        private void completed(long startNanos, boolean successful, boolean failed) {
+            inFlight.decrementAndGet();
+            latency.record(System.nanoTime() - startNanos);
+            if (failed) {
+                failures.increment();
+            } else if (!successful) {
+                errors.increment();
+            }
+        }
+
+        private ShardStats stats() {
+            return new ShardStats(name, weight, calls.sum(), inFlight.get(), errors.sum(), failures.sum(),
+                    TimeUnit.NANOSECONDS.toMicros(latency.getValueAtPercentile(50)), TimeUnit.NANOSECONDS.toMicros(latency.getValueAtPercentile(99)));
+        }
+    }
+
+    private static final class ShardCallBack<T> extends ForwardingNetmeraCallBack<T> {
+        private final Shard shard;
+        private final long startNanos = System.nanoTime();
+
+        private ShardCallBack(Shard shard, NetmeraCallBack<T> delegate) {
+            super(delegate);
+            this.shard = shard;
+            shard.started();
+        }
+
+        @Override
+        public void onResponse(Call<T> call, Response<T> response) {
+            shard.completed(startNanos, response.isSuccessful(), false);
+            super.onResponse(call, response);
+        }
+
+        @Override
+        public void onFailure(Call<T> call, Throwable t) {
+            shard.completed(startNanos, false, true);
+            super.onFailure(call, t);
+        }
+    }
+
+    /**
+     * Calls the call back of a split request once, when every part has completed.
+     */
+    private static final class MergingCallBack<T> {
+        private final NetmeraCallBack<T> callBack;
+        private final List<Shard> shards;
+        private final Merger<T> merger;
+        private final Call<?>[] calls;
+        private final Object[] outcomes;
+        private final AtomicInteger remaining;
+
+        private MergingCallBack(NetmeraCallBack<T> callBack, List<Shard> shards, Merger<T> merger) {
+            this.callBack = callBack;
+            this.shards = shards;
+            this.merger = merger;
+            this.calls = new Call<?>[shards.size()];
+            this.outcomes = new Object[shards.size()];
+            this.remaining = new AtomicInteger(shards.size());
+        }
+
+        private NetmeraCallBack<T> part(int index) {
+            return new ForwardingNetmeraCallBack<T>(callBack) {
+                @Override
+                public void onResponse(Call<T> call, Response<T> response) {
+                    complete(index, call, response);
+                }
+
+                @Override
+                public void onFailure(Call<T> call, Throwable t) {
+                    complete(index, call, t);
+                }
+            };
+        }
+
+        private void complete(int index, Call<T> call, Object outcome) {
+            calls[index] = call;
+            outcomes[index] = outcome;
+            if (remaining.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void finish() {
+            for (int i = 0; i < outcomes.length; i++) {
+                if (outcomes[i] instanceof Throwable) {
+                    callBack.onFailure((Call<T>) calls[i], (Throwable) outcomes[i]);
+                    return;
+                }
+            }
+            for (int i = 0; i < outcomes.length; i++) {
+                if (!((Response<T>) outcomes[i]).isSuccessful()) {
+                    callBack.onResponse((Call<T>) calls[i], (Response<T>) outcomes[i]);
+                    return;
+                }
+            }
+            Response<T> first = (Response<T>) outcomes[0];
+            if (merger == null) {
+                callBack.onResponse((Call<T>) calls[0], first);
+                return;
+            }
+            Map<Shard, T> bodies = new LinkedHashMap<>();
+            for (int i = 0; i < outcomes.length; i++) {
+                bodies.put(shards.get(i), ((Response<T>) outcomes[i]).body());
+            }
+            T merged;
+            try {
+                merged = merger.merge(bodies);
+            } catch (RuntimeException e) {
+                callBack.onFailure((Call<T>) calls[0], e);
+                return;
+            }
+            callBack.onResponse((Call<T>) calls[0], Response.success(merged, first.raw()));
+        }
+    }
+
+    public static final class ShardedNetmeraBuilder {
+        private final List<Shard> shards = new ArrayList<>();
+        private int virtualNodes = 160;
+
+        /**
+         * Adds a shard of weight 1.
+         *
+         * @param name    stable name of the shard, e.g. the name of its app, the ring is built from the names
+         * @param netmera client of the rest api key of the shard
+         */
+        public ShardedNetmeraBuilder addShard(String name, Netmera netmera) {
+            return addShard(name, netmera, 1);
+        }
+
+        /**
+         * @param weight share of the users of the shard, relative to the other shards
+         */
+        public ShardedNetmeraBuilder addShard(String name, Netmera netmera, int weight) {
+            shards.add(newShard(shards, name, netmera, weight));
+            return this;
+        }
+
+        /**
+         * @param virtualNodes points of a shard of weight 1 on the hash ring, more points spread users more evenly
+         */
+        public ShardedNetmeraBuilder virtualNodes(int virtualNodes) {
+            Assert.mustBetween(1, 1000, virtualNodes, "Virtual Nodes");
+            this.virtualNodes = virtualNodes;
+            return this;
+        }
+
+        /**
+         * @throws IllegalStateException if no shard is added
+         */
+        public ShardedNetmera build() {
+            Assert.state(!shards.isEmpty(), "At least one shard must be added.");
+            return new ShardedNetmera(this);
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package com.github.muratkaragozgil.netmera4j.snapshot;
+
+import com.github.muratkaragozgil.netmera4j.constant.Platform;
+import com.github.muratkaragozgil.netmera4j.model.device.Device;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Read-only, memory-mapped snapshot of devices. Lookups by token and installation id go through open addressing
+ * hash indexes in the file, platform and push permission are kept in bitsets. Devices are addressed by their
+ * record number.
+ * <p>
+ * File layout: a 64 byte header, fixed size records, one bitset per platform, the push permitted bitset,
+ * the token index, the installation id index and a heap of length prefixed UTF-8 strings.
+ *
+ * @author Murat Karagözgil
+ */
+public class DeviceSnapshot {
+    private static final int MAGIC = 0x4E4D4453;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 16;
+    private static final int NULL_STRING = -1;
+    private static final Platform[] PLATFORMS = Platform.values();
+
+    private final ByteBuffer buffer;
+    private final int recordCount;
+    private final int indexCapacity;
+    private final long createdAt;
+    private final long syncOffset;
+    private final long fullRebuildAt;
+    private final int bitsetWords;
+    private final int platformBitsetsOffset;
+    private final int pushBitsetOffset;
+    private final int tokenIndexOffset;
+    private final int installationIndexOffset;
+    private final int heapOffset;
+
+    private DeviceSnapshot(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a device snapshot file.");
+        }
+        this.buffer = buffer;
+        this.recordCount = buffer.getInt(8);
+        this.indexCapacity = buffer.getInt(12);
+        this.createdAt = buffer.getLong(16);
+        this.syncOffset = buffer.getLong(24);
+        this.fullRebuildAt = buffer.getLong(32);
+        this.bitsetWords = (recordCount + 63) / 64;
+        this.platformBitsetsOffset = HEADER_SIZE + recordCount * RECORD_SIZE;
+        this.pushBitsetOffset = platformBitsetsOffset + PLATFORMS.length * bitsetWords * 8;
+        this.tokenIndexOffset = pushBitsetOffset + bitsetWords * 8;
+        this.installationIndexOffset = tokenIndexOffset + indexCapacity * 8;
+        this.heapOffset = installationIndexOffset + indexCapacity * 8;
+    }
+
+    public static DeviceSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new DeviceSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes the devices to a temporary file next to {@code path} and atomically moves it over {@code path}.
+     * Readers of the previous file keep their mapping.
+     */
+    static DeviceSnapshot write(Path path, Collection<Device> devices, long syncOffset, long fullRebuildAt) throws IOException {
+        return write(path, null, devices, syncOffset, fullRebuildAt);
+    }
+
+    /**
+     * Writes the records of {@code base} followed by {@code devices} to a temporary file next to {@code path} and
+     * atomically moves it over {@code path}. Records of the base with the installation id of a device, or with the
+     * token of a device when both have no installation id, are replaced by the device. The base records are copied
+     * byte by byte together with their index entries, they are not decoded.
+     *
+     * @param base    snapshot the devices are merged into, null to write the devices alone
+     * @param devices devices with distinct installation ids, or tokens when they have no installation id
+     */
+    static DeviceSnapshot write(Path path, DeviceSnapshot base, Collection<Device> devices, long syncOffset, long fullRebuildAt) throws IOException {
+        // new record number of every base record, -1 when the record is replaced
+        int[] renumbered = new int[base == null ? 0 : base.recordCount];
+        int keptCount = 0;
+        long heapSize = 0;
+        if (base != null) {
+            BitSet replaced = new BitSet(base.recordCount);
+            for (Device device : devices) {
+                int record = base.findReplaced(device);
+                if (record >= 0) {
+                    replaced.set(record);
+                }
+            }
+            for (int record = 0; record < base.recordCount; record++) {
+                if (replaced.get(record)) {
+                    renumbered[record] = -1;
+                } else {
+                    renumbered[record] = keptCount++;
+                    heapSize += base.heapSizeOf(record);
+                }
+            }
+        }
+        int recordCount = keptCount + devices.size();
+        int indexCapacity = Integer.highestOneBit(Math.max(8, recordCount) * 2 - 1) << 1;
+        int bitsetWords = (recordCount + 63) / 64;
+        for (Device device : devices) {
+            heapSize += heapSize(device.getToken()) + heapSize(device.getInstallationId()) + heapSize(device.getDeviceModel());
+        }
+        long size = HEADER_SIZE + (long) recordCount * RECORD_SIZE + (PLATFORMS.length + 1L) * bitsetWords * 8
+                + indexCapacity * 16L + heapSize;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Device snapshot can not be larger than 2GB.");
+        }
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (RandomAccessFile file = new RandomAccessFile(temporary.toFile(), "rw")) {
+            file.setLength(size);
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, recordCount);
+            buffer.putInt(12, indexCapacity);
+            buffer.putLong(16, System.currentTimeMillis());
+            buffer.putLong(24, syncOffset);
+            buffer.putLong(32, fullRebuildAt);
+            DeviceSnapshot snapshot = new DeviceSnapshot(buffer);
+            int heapPosition = 0;
+            int record = 0;
+            for (int baseRecord = 0; baseRecord < renumbered.length; baseRecord++) {
+                if (renumbered[baseRecord] < 0) {
+                    continue;
+                }
+                int recordOffset = HEADER_SIZE + record * RECORD_SIZE;
+                int baseRecordOffset = HEADER_SIZE + baseRecord * RECORD_SIZE;
+                for (int field = 0; field < 12; field += 4) {
+                    int basePosition = base.buffer.getInt(baseRecordOffset + field);
+                    buffer.putInt(recordOffset + field, basePosition == NULL_STRING ? NULL_STRING : heapPosition);
+                    heapPosition = snapshot.copyString(heapPosition, base, basePosition);
+                }
+                byte platform = base.buffer.get(baseRecordOffset + 12);
+                byte pushPermitted = base.buffer.get(baseRecordOffset + 13);
+                buffer.put(recordOffset + 12, platform);
+                buffer.put(recordOffset + 13, pushPermitted);
+                if (platform >= 0 && platform < PLATFORMS.length) {
+                    snapshot.setBit(snapshot.platformBitsetsOffset + platform * bitsetWords * 8, record);
+                }
+                if (pushPermitted != 0) {
+                    snapshot.setBit(snapshot.pushBitsetOffset, record);
+                }
+                record++;
+            }
+            if (base != null) {
+                snapshot.copyIndex(base, base.tokenIndexOffset, snapshot.tokenIndexOffset, renumbered);
+                snapshot.copyIndex(base, base.installationIndexOffset, snapshot.installationIndexOffset, renumbered);
+            }
+            for (Device device : devices) {
+                int recordOffset = HEADER_SIZE + record * RECORD_SIZE;
+                int tokenPosition = heapPosition;
+                heapPosition = snapshot.putString(heapPosition, device.getToken());
+                int installationIdPosition = heapPosition;
+                heapPosition = snapshot.putString(heapPosition, device.getInstallationId());
+                int deviceModelPosition = heapPosition;
+                heapPosition = snapshot.putString(heapPosition, device.getDeviceModel());
+                buffer.putInt(recordOffset, device.getToken() == null ? NULL_STRING : tokenPosition);
+                buffer.putInt(recordOffset + 4, device.getInstallationId() == null ? NULL_STRING : installationIdPosition);
+                buffer.putInt(recordOffset + 8, device.getDeviceModel() == null ? NULL_STRING : deviceModelPosition);
+                buffer.put(recordOffset + 12, (byte) (device.getPlatform() == null ? -1 : device.getPlatform().ordinal()));
+                buffer.put(recordOffset + 13, (byte) (device.isPushPermitted() ? 1 : 0));
+                if (device.getPlatform() != null) {
+                    snapshot.setBit(snapshot.platformBitsetsOffset + device.getPlatform().ordinal() * bitsetWords * 8, record);
+                }
+                if (device.isPushPermitted()) {
+                    snapshot.setBit(snapshot.pushBitsetOffset, record);
+                }
+                snapshot.insert(snapshot.tokenIndexOffset, device.getToken(), record);
+                snapshot.insert(snapshot.installationIndexOffset, device.getInstallationId(), record);
+                record++;
+            }
+            buffer.force();
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return open(path);
+    }
+
+    public int size() {
+        return recordCount;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * @return time of the full rebuild which this snapshot was incrementally built on
+     */
+    public long getFullRebuildAt() {
+        return fullRebuildAt;
+    }
+
+    /**
+     * @return number of devices fetched from the device token list when this snapshot was written
+     */
+    public long getSyncOffset() {
+        return syncOffset;
+    }
+
+    /**
+     * @return record number of the device with the token, -1 when there is none
+     */
+    public int findByToken(String token) {
+        return find(tokenIndexOffset, 0, token);
+    }
+
+    /**
+     * @return record number of the device with the installation id, -1 when there is none
+     */
+    public int findByInstallationId(String installationId) {
+        return find(installationIndexOffset, 4, installationId);
+    }
+
+    public String getToken(int record) {
+        return getString(recordOffset(record));
+    }
+
+    public String getInstallationId(int record) {
+        return getString(recordOffset(record) + 4);
+    }
+
+    public String getDeviceModel(int record) {
+        return getString(recordOffset(record) + 8);
+    }
+
+    public Platform getPlatform(int record) {
+        byte platform = buffer.get(recordOffset(record) + 12);
+        return platform < 0 || platform >= PLATFORMS.length ? null : PLATFORMS[platform];
+    }
+
+    public boolean isPushPermitted(int record) {
+        return buffer.get(recordOffset(record) + 13) != 0;
+    }
+
+    /**
+     * @return true when the token belongs to a push permitted device of the platform
+     */
+    public boolean isPushPermitted(String token, Platform platform) {
+        int record = findByToken(token);
+        return record >= 0 && isPushPermitted(record) && getPlatform(record) == platform;
+    }
+
+    public int countOfPlatform(Platform platform) {
+        int count = 0;
+        int bitsetOffset = platformBitsetsOffset + platform.ordinal() * bitsetWords * 8;
+        for (int word = 0; word < bitsetWords; word++) {
+            count += Long.bitCount(buffer.getLong(bitsetOffset + word * 8));
+        }
+        return count;
+    }
+
+    public int countPushPermitted(Platform platform) {
+        int count = 0;
+        int bitsetOffset = platformBitsetsOffset + platform.ordinal() * bitsetWords * 8;
+        for (int word = 0; word < bitsetWords; word++) {
+            count += Long.bitCount(buffer.getLong(bitsetOffset + word * 8) & buffer.getLong(pushBitsetOffset + word * 8));
+        }
+        return count;
+    }
+
+    public Device getDevice(int record) {
+        Device device = new Device();
+        device.setToken(getToken(record));
+        device.setInstallationId(getInstallationId(record));
+        device.setDeviceModel(getDeviceModel(record));
+        device.setPlatform(getPlatform(record));
+        device.setPushPermitted(isPushPermitted(record));
+        return device;
+    }
+
+    /**
+     * @return record the device replaces, -1 when the device is new
+     */
+    private int findReplaced(Device device) {
+        if (device.getInstallationId() != null) {
+            return findByInstallationId(device.getInstallationId());
+        }
+        int record = findByToken(device.getToken());
+        return record >= 0 && buffer.getInt(recordOffset(record) + 4) == NULL_STRING ? record : -1;
+    }
+
+    private long heapSizeOf(int record) {
+        long size = 0;
+        for (int field = 0; field < 12; field += 4) {
+            int heapPosition = buffer.getInt(recordOffset(record) + field);
+            if (heapPosition != NULL_STRING) {
+                size += 2 + (buffer.getShort(heapOffset + heapPosition) & 0xFFFF);
+            }
+        }
+        return size;
+    }
+
+    private int recordOffset(int record) {
+        if (record < 0 || record >= recordCount) {
+            throw new IndexOutOfBoundsException("Record: " + record + ", Size: " + recordCount);
+        }
+        return HEADER_SIZE + record * RECORD_SIZE;
+    }
+
+    private int find(int indexOffset, int fieldOffset, String value) {
+        if (value == null || recordCount == 0) {
+            return -1;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(value);
+        int mask = indexCapacity - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long entry = buffer.getLong(indexOffset + slot * 8);
+            if (entry == 0) {
+                return -1;
+            }
+            int record = (int) entry - 1;
+            if ((int) (entry >>> 32) == hash && equalsAt(buffer.getInt(HEADER_SIZE + record * RECORD_SIZE + fieldOffset), bytes)) {
+                return record;
+            }
+        }
+    }
+
+    private void insert(int indexOffset, String value, int record) {
+        if (value != null) {
+            insert(indexOffset, hash(value), record);
+        }
+    }
+
+    private void insert(int indexOffset, int hash, int record) {
+        int mask = indexCapacity - 1;
+        int slot = hash & mask;
+        while (buffer.getLong(indexOffset + slot * 8) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        buffer.putLong(indexOffset + slot * 8, ((long) hash << 32) | (record + 1L));
+    }
+
+    private boolean equalsAt(int heapPosition, byte[] bytes) {
+        if (heapPosition == NULL_STRING) {
+            return false;
+        }
+        int position = heapOffset + heapPosition;
+        if ((buffer.getShort(position) & 0xFFFF) != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(position + 2 + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves the index entries of the kept base records to their new record numbers, the stored hashes are reused.
+     */
+    private void copyIndex(DeviceSnapshot base, int baseIndexOffset, int indexOffset, int[] renumbered) {
+        for (int slot = 0; slot < base.indexCapacity; slot++) {
+            long entry = base.buffer.getLong(baseIndexOffset + slot * 8);
+            if (entry != 0 && renumbered[(int) entry - 1] >= 0) {
+                insert(indexOffset, (int) (entry >>> 32), renumbered[(int) entry - 1]);
+            }
+        }
+    }
+
+    /**
+     * @return heap position after the string copied from the heap of {@code base}
+     */
+    private int copyString(int heapPosition, DeviceSnapshot base, int baseHeapPosition) {
+        if (baseHeapPosition == NULL_STRING) {
+            return heapPosition;
+        }
+        int length = 2 + (base.buffer.getShort(base.heapOffset + baseHeapPosition) & 0xFFFF);
+        ByteBuffer source = base.buffer.duplicate();
+        source.limit(base.heapOffset + baseHeapPosition + length);
+        source.position(base.heapOffset + baseHeapPosition);
+        ByteBuffer target = buffer.duplicate();
+        target.position(heapOffset + heapPosition);
+        target.put(source);
+        return heapPosition + length;
+    }
+
+    private String getString(int fieldOffset) {
+        int heapPosition = buffer.getInt(fieldOffset);
+        if (heapPosition == NULL_STRING) {
+            return null;
+        }
+        int position = heapOffset + heapPosition;
+        byte[] bytes = new byte[buffer.getShort(position) & 0xFFFF];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(position + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int putString(int heapPosition, String value) {
+        if (value == null) {
+            return heapPosition;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort(heapOffset + heapPosition, (short) bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            buffer.put(heapOffset + heapPosition + 2 + i, bytes[i]);
+        }
+        return heapPosition + 2 + bytes.length;
+    }
+
+    private void setBit(int bitsetOffset, int record) {
+        int position = bitsetOffset + (record >>> 6) * 8;
+        buffer.putLong(position, buffer.getLong(position) | (1L << record));
+    }
+
+    private static long heapSize(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int length = value.getBytes(StandardCharsets.UTF_8).length;
+        if (length > 0xFFFF) {
+            throw new IllegalArgumentException("Device field is too long: " + length + " bytes.");
+        }
+        return 2 + length;
+    }
+
+    private static int hash(String value) {
+        int hash = value.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        return "DeviceSnapshot(size=" + recordCount + ", syncOffset=" + syncOffset + ", createdAt=" + createdAt
+                + ", fullRebuildAt=" + fullRebuildAt + ")";
+    }
+}
@@ -0,0 +1,219 @@
+package com.github.muratkaragozgil.netmera4j.snapshot;
+
+import com.github.muratkaragozgil.netmera4j.Netmera;
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.model.device.Device;
+import com.github.muratkaragozgil.netmera4j.request.device.GetDeviceTokensRequest;
+import com.github.muratkaragozgil.netmera4j.response.GetDeviceTokensResponse;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Keeps a {@link DeviceSnapshot} file up to date from the device token list.
+ * <p>
+ * An incremental refresh continues the device token list from the offset stored in the current snapshot and
+ * adds or replaces the fetched devices by installation id. Changes of already fetched devices, like a disabled
+ * push permission, are only visible after a full rebuild which fetches the list from the beginning. The last
+ * snapshot is opened at start, so a restart continues from its offset.
+ * <p>
+ * Snapshot files are never changed in place, so readers keep a consistent mapping. A refresh which fetched devices
+ * therefore writes a new file, the records of the current snapshot are copied into it as bytes without being decoded.
+ * A refresh whose base was replaced while it was fetching, by a rebuild or another refresh, is dropped.
+ *
+ * @author Murat Karagözgil
+ */
+public class DeviceSnapshotSync {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceSnapshotSync.class);
+
+    private final Netmera netmera;
+    private final Path path;
+    private final int pageSize;
+    private final long refreshInterval;
+    private final long fullRebuildInterval;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "netmera-device-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile DeviceSnapshot snapshot;
+    // incremented by every swap, guarded by this
+    private long generation;
+
+    private DeviceSnapshotSync(DeviceSnapshotSyncBuilder deviceSnapshotSyncBuilder) {
+        this.netmera = deviceSnapshotSyncBuilder.netmera;
+        this.path = deviceSnapshotSyncBuilder.path;
+        this.pageSize = deviceSnapshotSyncBuilder.pageSize;
+        this.refreshInterval = TimeUnit.MINUTES.toMillis(deviceSnapshotSyncBuilder.refreshInterval);
+        this.fullRebuildInterval = TimeUnit.HOURS.toMillis(deviceSnapshotSyncBuilder.fullRebuildInterval);
+    }
+
+    /**
+     * Opens the existing snapshot file, if there is one, and schedules the periodic refreshes.
+     * The first refresh runs immediately.
+     */
+    public void start() throws IOException {
+        if (Files.exists(path)) {
+            snapshot = DeviceSnapshot.open(path);
+        }
+        timer.scheduleWithFixedDelay(() -> {
+            try {
+                // a hanging refresh must not hold the timer, the next one starts after an interval
+                refresh().get(refreshInterval, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                logger.error("DeviceSnapshotSync::refresh::{}", e.getCause().getMessage());
+            } catch (TimeoutException e) {
+                logger.warn("DeviceSnapshotSync::refresh::timed out after {} ms", refreshInterval);
+            }
+        }, 0, refreshInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * @return the current snapshot, null until the first snapshot is written
+     */
+    public DeviceSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Runs an incremental refresh, or a full rebuild when there is no snapshot or the last full rebuild
+     * is older than {@code fullRebuildInterval}.
+     */
+    public CompletableFuture<DeviceSnapshot> refresh() {
+        DeviceSnapshot current = snapshot;
+        boolean full = current == null || System.currentTimeMillis() - current.getFullRebuildAt() >= fullRebuildInterval;
+        return full ? rebuild() : fetch(current, current.getSyncOffset());
+    }
+
+    public CompletableFuture<DeviceSnapshot> rebuild() {
+        return fetch(null, 0);
+    }
+
+    private CompletableFuture<DeviceSnapshot> fetch(DeviceSnapshot base, long offset) {
+        CompletableFuture<DeviceSnapshot> result = new CompletableFuture<>();
+        if (offset > Integer.MAX_VALUE) {
+            result.completeExceptionally(new IOException("Device token list can not be continued from offset " + offset + "."));
+            return result;
+        }
+        long generation = generation();
+        List<Device> fetched = new ArrayList<>();
+        long started = System.currentTimeMillis();
+        NetmeraCallBack<GetDeviceTokensResponse> callBack = new NetmeraCallBack<GetDeviceTokensResponse>() {
+            @Override
+            protected void handleResponseData(GetDeviceTokensResponse data) {
+                List<Device> devices = data == null ? null : data.getDevices();
+                if (devices != null) {
+                    fetched.addAll(devices);
+                }
+                if (data != null && data.getNextPage() != null && devices != null && !devices.isEmpty()) {
+                    netmera.sendRequest(data, this);
+                    return;
+                }
+                try {
+                    result.complete(swap(base, generation, fetched, offset + fetched.size(), base == null ? started : base.getFullRebuildAt()));
+                } catch (IOException | RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            protected void handleError(Response<GetDeviceTokensResponse> response) {
+                result.completeExceptionally(new IOException("Device tokens failed with http status " + response.code()));
+            }
+
+            @Override
+            protected void handleException(Exception t) {
+                result.completeExceptionally(t);
+            }
+        };
+        netmera.sendRequest(new GetDeviceTokensRequest(pageSize, Math.toIntExact(offset)), callBack);
+        return result;
+    }
+
+    private synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * @param generation generation of the sync when the fetch started
+     */
+    private synchronized DeviceSnapshot swap(DeviceSnapshot base, long generation, List<Device> fetched, long syncOffset, long fullRebuildAt) throws IOException {
+        if (generation != this.generation && (base != null || snapshot.getFullRebuildAt() > fullRebuildAt)) {
+            // the snapshot was swapped during the fetch, an incremental refresh would write over it with its older base
+            logger.info("DeviceSnapshotSync::dropped::{} devices fetched for an outdated snapshot", fetched.size());
+            return snapshot;
+        }
+        if (base != null && fetched.isEmpty()) {
+            return base;
+        }
+        Map<String, Device> devices = new LinkedHashMap<>();
+        for (Device device : fetched) {
+            devices.put(key(device), device);
+        }
+        snapshot = DeviceSnapshot.write(path, base, devices.values(), syncOffset, fullRebuildAt);
+        this.generation++;
+        logger.info("DeviceSnapshotSync::swapped::{}", snapshot);
+        return snapshot;
+    }
+
+    private static String key(Device device) {
+        return device.getInstallationId() != null ? device.getInstallationId() : "token:" + device.getToken();
+    }
+
+    public static final class DeviceSnapshotSyncBuilder {
+        private final Netmera netmera;
+        private final Path path;
+        private int pageSize = 1000;
+        private int refreshInterval = 15;
+        private int fullRebuildInterval = 24;
+
+        public DeviceSnapshotSyncBuilder(Netmera netmera, Path path) {
+            Assert.notNull(netmera, "Netmera");
+            Assert.notNull(path, "Path");
+            this.netmera = netmera;
+            this.path = path;
+        }
+
+        public DeviceSnapshotSyncBuilder pageSize(int pageSize) {
+            Assert.mustBetween(1, 10000, pageSize, "Page Size");
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * @param refreshInterval minutes between incremental refreshes
+         */
+        public DeviceSnapshotSyncBuilder refreshInterval(int refreshInterval) {
+            Assert.mustBetween(1, 24 * 60, refreshInterval, "Refresh Interval");
+            this.refreshInterval = refreshInterval;
+            return this;
+        }
+
+        /**
+         * @param fullRebuildInterval hours between full rebuilds
+         */
+        public DeviceSnapshotSyncBuilder fullRebuildInterval(int fullRebuildInterval) {
+            Assert.mustBetween(1, 24 * 30, fullRebuildInterval, "Full Rebuild Interval");
+            this.fullRebuildInterval = fullRebuildInterval;
+            return this;
+        }
+
+        public DeviceSnapshotSync build() {
+            return new DeviceSnapshotSync(this);
+        }
+    }
+}
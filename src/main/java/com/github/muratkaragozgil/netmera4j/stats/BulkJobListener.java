@@ -0,0 +1,13 @@
+package com.github.muratkaragozgil.netmera4j.stats;
+
+/**
+ * Receives status and stat changes of bulk notifications tracked by a {@link BulkJobTracker}.
+ * Called on http client threads, implementations should return quickly.
+ *
+ * @author Murat Karagözgil
+ */
+@FunctionalInterface
+public interface BulkJobListener {
+
+    void onUpdate(BulkJobUpdate update);
+}
@@ -0,0 +1,367 @@
+package com.github.muratkaragozgil.netmera4j.stats;
+
+import com.github.muratkaragozgil.netmera4j.Netmera;
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.constant.SendStatus;
+import com.github.muratkaragozgil.netmera4j.model.notification.SingleStat;
+import com.github.muratkaragozgil.netmera4j.request.notification.GetPushStatsInDateRangeRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.GetPushStatsRequest;
+import com.github.muratkaragozgil.netmera4j.response.GetPushStatsInDateRangeResponse;
+import com.github.muratkaragozgil.netmera4j.response.GetPushStatsResponse;
+import com.github.muratkaragozgil.netmera4j.response.NotificationResponse;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import retrofit2.Response;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.LongSupplier;
+
+/**
+ * Polls the stats of bulk notifications until they are {@link SendStatus#FINISHED} or {@link SendStatus#STOPPED}.
+ * <p>
+ * Every job is polled after {@code initialInterval} seconds, the interval grows by {@code backoffMultiplier}
+ * up to {@code maxInterval} while the status does not change and is reset when it changes. When at least
+ * {@code rangeThreshold} jobs are due together they are polled with a single date range call, jobs missing
+ * in its response are polled one by one.
+ *
+ * @author Murat Karagözgil
+ */
+public class BulkJobTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkJobTracker.class);
+    // date range polls start this much before the registration of the oldest due job
+    private static final long RANGE_MARGIN = TimeUnit.HOURS.toMillis(1);
+
+    private final Netmera netmera;
+    private final long initialInterval;
+    private final long maxInterval;
+    private final double backoffMultiplier;
+    private final int rangeThreshold;
+    private final long jobTimeout;
+    private final LongSupplier clock;
+    private final List<BulkJobListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<Integer, Job> jobs = new HashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "netmera-job-tracker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private BulkJobTracker(BulkJobTrackerBuilder bulkJobTrackerBuilder) {
+        this.netmera = bulkJobTrackerBuilder.netmera;
+        this.initialInterval = TimeUnit.SECONDS.toMillis(bulkJobTrackerBuilder.initialInterval);
+        this.maxInterval = TimeUnit.SECONDS.toMillis(bulkJobTrackerBuilder.maxInterval);
+        this.backoffMultiplier = bulkJobTrackerBuilder.backoffMultiplier;
+        this.rangeThreshold = bulkJobTrackerBuilder.rangeThreshold;
+        this.jobTimeout = TimeUnit.MINUTES.toMillis(bulkJobTrackerBuilder.jobTimeout);
+        this.clock = bulkJobTrackerBuilder.clock;
+        long tick = Math.min(1000, initialInterval);
+        timer.scheduleWithFixedDelay(() -> {
+            // an exception escaping the task would cancel every later poll
+            try {
+                pollDueJobs();
+            } catch (RuntimeException e) {
+                logger.error("BulkJobTracker::pollDueJobs::{}", e.getMessage());
+            }
+        }, tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    public void addListener(BulkJobListener listener) {
+        Assert.notNull(listener, "Listener");
+        listeners.add(listener);
+    }
+
+    public void removeListener(BulkJobListener listener) {
+        listeners.remove(listener);
+    }
+
+    public CompletableFuture<GetPushStatsResponse> track(NotificationResponse notificationResponse) {
+        Assert.notNull(notificationResponse, "Notification Response");
+        return track(notificationResponse.getNotificationKey());
+    }
+
+    /**
+     * Starts tracking a notification, tracking an already tracked notification returns its existing future.
+     *
+     * @return completes with the last stats when the notification reaches a terminal status, or exceptionally
+     * with a {@link TimeoutException} after {@code jobTimeout} minutes
+     */
+    public CompletableFuture<GetPushStatsResponse> track(Integer notificationKey) {
+        Assert.notNull(notificationKey, "Notification Key");
+        synchronized (jobs) {
+            return jobs.computeIfAbsent(notificationKey, key -> new Job(key, clock.getAsLong())).result;
+        }
+    }
+
+    public int getTrackedCount() {
+        synchronized (jobs) {
+            return jobs.size();
+        }
+    }
+
+    /**
+     * Stops polling, futures of unfinished jobs are cancelled.
+     */
+    public void shutdown() {
+        timer.shutdownNow();
+        List<Job> unfinished;
+        synchronized (jobs) {
+            unfinished = new ArrayList<>(jobs.values());
+            jobs.clear();
+        }
+        unfinished.forEach(job -> job.result.cancel(false));
+    }
+
+    void pollDueJobs() {
+        long now = clock.getAsLong();
+        List<Job> due = new ArrayList<>();
+        List<Job> expired = new ArrayList<>();
+        synchronized (jobs) {
+            for (Iterator<Job> iterator = jobs.values().iterator(); iterator.hasNext(); ) {
+                Job job = iterator.next();
+                if (now - job.registeredAt > jobTimeout) {
+                    iterator.remove();
+                    expired.add(job);
+                } else if (!job.polling && job.nextPollAt <= now) {
+                    job.polling = true;
+                    due.add(job);
+                }
+            }
+        }
+        expired.forEach(job -> job.result.completeExceptionally(new TimeoutException("Notification " + job.notificationKey + " did not finish in time.")));
+        if (due.size() >= rangeThreshold) {
+            pollRange(due, now);
+        } else {
+            due.forEach(this::poll);
+        }
+    }
+
+    private void poll(Job job) {
+        try {
+            sendPoll(job);
+        } catch (RuntimeException e) {
+            failed(job, e);
+        }
+    }
+
+    private void sendPoll(Job job) {
+        netmera.sendRequest(new GetPushStatsRequest(job.notificationKey), new NetmeraCallBack<GetPushStatsResponse>() {
+            @Override
+            protected void handleResponseData(GetPushStatsResponse data) {
+                polled(job, data);
+            }
+
+            @Override
+            protected void handleError(Response<GetPushStatsResponse> response) {
+                polled(job, null);
+            }
+
+            @Override
+            protected void handleException(Exception t) {
+                polled(job, null);
+            }
+        });
+    }
+
+    private void pollRange(List<Job> due, long now) {
+        long startDate = due.stream().mapToLong(job -> job.startDate != null ? job.startDate : job.registeredAt - RANGE_MARGIN).min().getAsLong();
+        try {
+            sendRangePoll(due, startDate, now);
+        } catch (RuntimeException e) {
+            logger.error("BulkJobTracker::pollRange::{}", e.getMessage());
+            due.forEach(this::poll);
+        }
+    }
+
+    private void sendRangePoll(List<Job> due, long startDate, long now) {
+        netmera.sendRequest(new GetPushStatsInDateRangeRequest(startDate, now + RANGE_MARGIN), new NetmeraCallBack<GetPushStatsInDateRangeResponse>() {
+            @Override
+            protected void handleResponseData(GetPushStatsInDateRangeResponse data) {
+                Map<Integer, GetPushStatsResponse> messages = new HashMap<>();
+                if (data != null && data.getMessages() != null) {
+                    data.getMessages().forEach(message -> messages.put(message.getNotificationKey(), message));
+                }
+                for (Job job : due) {
+                    GetPushStatsResponse message = messages.get(job.notificationKey);
+                    if (message != null) {
+                        polled(job, message);
+                    } else {
+                        poll(job);
+                    }
+                }
+            }
+
+            @Override
+            protected void handleError(Response<GetPushStatsInDateRangeResponse> response) {
+                due.forEach(BulkJobTracker.this::poll);
+            }
+
+            @Override
+            protected void handleException(Exception t) {
+                due.forEach(BulkJobTracker.this::poll);
+            }
+        });
+    }
+
+    /**
+     * Gives up a job whose poll could not be sent.
+     */
+    private void failed(Job job, RuntimeException e) {
+        logger.error("BulkJobTracker::poll::{}", e.getMessage());
+        synchronized (jobs) {
+            job.polling = false;
+            jobs.remove(job.notificationKey, job);
+        }
+        job.result.completeExceptionally(e);
+    }
+
+    /**
+     * @param stats stats of the job, null when the poll failed
+     */
+    private void polled(Job job, GetPushStatsResponse stats) {
+        BulkJobUpdate update = null;
+        boolean terminal = false;
+        synchronized (jobs) {
+            job.polling = false;
+            if (jobs.get(job.notificationKey) != job) {
+                return;
+            }
+            if (stats == null) {
+                job.interval = nextInterval(job.interval);
+            } else {
+                long sent = 0, failed = 0, clicked = 0;
+                if (stats.getStats() != null) {
+                    for (SingleStat stat : stats.getStats()) {
+                        sent += stat.getSent() == null ? 0 : stat.getSent();
+                        failed += stat.getFailed() == null ? 0 : stat.getFailed();
+                        clicked += stat.getClicked() == null ? 0 : stat.getClicked();
+                    }
+                }
+                if (stats.getStatus() != job.status || sent != job.sent || failed != job.failed || clicked != job.clicked) {
+                    update = new BulkJobUpdate(job.notificationKey, job.status, stats.getStatus(), sent, failed, clicked,
+                            sent - job.sent, failed - job.failed, clicked - job.clicked);
+                }
+                job.interval = stats.getStatus() != job.status ? initialInterval : nextInterval(job.interval);
+                job.status = stats.getStatus();
+                job.startDate = stats.getStartDate();
+                job.sent = sent;
+                job.failed = failed;
+                job.clicked = clicked;
+                terminal = job.status == SendStatus.FINISHED || job.status == SendStatus.STOPPED;
+                if (terminal) {
+                    jobs.remove(job.notificationKey);
+                }
+            }
+            job.nextPollAt = clock.getAsLong() + job.interval;
+        }
+        if (update != null) {
+            for (BulkJobListener listener : listeners) {
+                try {
+                    listener.onUpdate(update);
+                } catch (RuntimeException e) {
+                    logger.error("BulkJobTracker::listener::{}", e.getMessage());
+                }
+            }
+        }
+        if (terminal) {
+            job.result.complete(stats);
+        }
+    }
+
+    private long nextInterval(long interval) {
+        return Math.min(maxInterval, (long) (interval * backoffMultiplier));
+    }
+
+    private final class Job {
+        private final int notificationKey;
+        private final long registeredAt;
+        private final CompletableFuture<GetPushStatsResponse> result = new CompletableFuture<>();
+        private long interval = initialInterval;
+        private long nextPollAt;
+        private boolean polling;
+        private SendStatus status;
+        private Long startDate;
+        private long sent;
+        private long failed;
+        private long clicked;
+
+        private Job(int notificationKey, long registeredAt) {
+            this.notificationKey = notificationKey;
+            this.registeredAt = registeredAt;
+            this.nextPollAt = registeredAt + initialInterval;
+        }
+    }
+
+    public static final class BulkJobTrackerBuilder {
+        private final Netmera netmera;
+        private int initialInterval = 5;
+        private int maxInterval = 300;
+        private double backoffMultiplier = 2;
+        private int rangeThreshold = 10;
+        private int jobTimeout = 24 * 60;
+        private LongSupplier clock = System::currentTimeMillis;
+
+        public BulkJobTrackerBuilder(Netmera netmera) {
+            Assert.notNull(netmera, "Netmera");
+            this.netmera = netmera;
+        }
+
+        /**
+         * @param initialInterval seconds before the first poll and after a status change
+         */
+        public BulkJobTrackerBuilder initialInterval(int initialInterval) {
+            Assert.mustBetween(1, 3600, initialInterval, "Initial Interval");
+            this.initialInterval = initialInterval;
+            return this;
+        }
+
+        /**
+         * @param maxInterval upper limit of the poll interval in seconds
+         */
+        public BulkJobTrackerBuilder maxInterval(int maxInterval) {
+            Assert.mustBetween(1, 86400, maxInterval, "Max Interval");
+            this.maxInterval = maxInterval;
+            return this;
+        }
+
+        public BulkJobTrackerBuilder backoffMultiplier(double backoffMultiplier) {
+            Assert.mustBetween(1.0, 10.0, backoffMultiplier, "Backoff Multiplier");
+            this.backoffMultiplier = backoffMultiplier;
+            return this;
+        }
+
+        /**
+         * @param rangeThreshold minimum number of due jobs which are polled with a single date range call
+         */
+        public BulkJobTrackerBuilder rangeThreshold(int rangeThreshold) {
+            Assert.mustBetween(2, 100000, rangeThreshold, "Range Threshold");
+            this.rangeThreshold = rangeThreshold;
+            return this;
+        }
+
+        /**
+         * @param jobTimeout minutes after which an unfinished job is given up
+         */
+        public BulkJobTrackerBuilder jobTimeout(int jobTimeout) {
+            Assert.mustBetween(1, 7 * 24 * 60, jobTimeout, "Job Timeout");
+            this.jobTimeout = jobTimeout;
+            return this;
+        }
+
+        /**
+         * @param clock milliseconds the poll times are computed with, tests move it instead of waiting
+         */
+        BulkJobTrackerBuilder clock(LongSupplier clock) {
+            Assert.notNull(clock, "Clock");
+            this.clock = clock;
+            return this;
+        }
+
+        public BulkJobTracker build() {
+            Assert.mustBetween(initialInterval, 86400, maxInterval, "Max Interval");
+            return new BulkJobTracker(this);
+        }
+    }
+}
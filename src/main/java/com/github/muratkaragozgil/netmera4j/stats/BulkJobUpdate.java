@@ -0,0 +1,30 @@
+package com.github.muratkaragozgil.netmera4j.stats;
+
+import com.github.muratkaragozgil.netmera4j.constant.SendStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Change of a tracked bulk notification between two polls. Counts are summed over all platforms.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BulkJobUpdate {
+    private int notificationKey;
+    private SendStatus previousStatus;
+    private SendStatus status;
+    private long sent;
+    private long failed;
+    private long clicked;
+    private long sentDelta;
+    private long failedDelta;
+    private long clickedDelta;
+
+    public boolean isStatusChanged() {
+        return previousStatus != status;
+    }
+}
@@ -0,0 +1,161 @@
+package com.github.muratkaragozgil.netmera4j.stats;
+
+import com.github.muratkaragozgil.netmera4j.Netmera;
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.request.notification.GetPushStatsInDateRangeRequest;
+import com.github.muratkaragozgil.netmera4j.response.GetPushStatsInDateRangeResponse;
+import com.github.muratkaragozgil.netmera4j.response.GetPushStatsResponse;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches push stats of long date ranges. The range is split into sub-ranges of at most {@code sliceMillis}
+ * which are fetched with at most {@code maxConcurrency} concurrent calls. Notifications returned by more than
+ * one sub-range are merged by notification key, notifications without a key are all kept.
+ *
+ * @author Murat Karagözgil
+ */
+public class PushStatsQueryEngine {
+
+    private final Netmera netmera;
+    private final long sliceMillis;
+    private final int maxConcurrency;
+
+    private PushStatsQueryEngine(PushStatsQueryEngineBuilder pushStatsQueryEngineBuilder) {
+        this.netmera = pushStatsQueryEngineBuilder.netmera;
+        this.sliceMillis = pushStatsQueryEngineBuilder.sliceMillis;
+        this.maxConcurrency = pushStatsQueryEngineBuilder.maxConcurrency;
+    }
+
+    /**
+     * @param startDate start of the range in epoch millis
+     * @param endDate   end of the range in epoch millis
+     * @return completes with the merged report, or exceptionally when a sub-range can not be fetched
+     */
+    public CompletableFuture<PushStatsReport> query(long startDate, long endDate) {
+        if (endDate < startDate) {
+            throw new IllegalArgumentException("End date must not be before start date.");
+        }
+        Query query = new Query(startDate, endDate);
+        for (long sliceStart = startDate; ; sliceStart += sliceMillis) {
+            long sliceEnd = Math.min(endDate, sliceStart + sliceMillis);
+            query.slices.add(new long[]{sliceStart, sliceEnd});
+            if (sliceEnd == endDate) {
+                break;
+            }
+        }
+        query.remaining = query.slices.size();
+        for (int i = 0; i < maxConcurrency; i++) {
+            query.next();
+        }
+        return query.result;
+    }
+
+    private final class Query {
+        private final long startDate;
+        private final long endDate;
+        private final Deque<long[]> slices = new ArrayDeque<>();
+        private final Map<Integer, GetPushStatsResponse> messages = new HashMap<>();
+        private final List<GetPushStatsResponse> unkeyedMessages = new ArrayList<>();
+        private final CompletableFuture<PushStatsReport> result = new CompletableFuture<>();
+        private int remaining;
+
+        private Query(long startDate, long endDate) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        private void next() {
+            long[] slice;
+            synchronized (this) {
+                slice = result.isDone() ? null : slices.poll();
+            }
+            if (slice != null) {
+                fetch(slice[0], slice[1]);
+            }
+        }
+
+        private void fetch(long sliceStart, long sliceEnd) {
+            netmera.sendRequest(new GetPushStatsInDateRangeRequest(sliceStart, sliceEnd), new NetmeraCallBack<GetPushStatsInDateRangeResponse>() {
+                @Override
+                protected void handleResponseData(GetPushStatsInDateRangeResponse data) {
+                    completed(data == null ? null : data.getMessages());
+                }
+
+                @Override
+                protected void handleError(Response<GetPushStatsInDateRangeResponse> response) {
+                    result.completeExceptionally(new IOException("Push stats of [" + sliceStart + ", " + sliceEnd + "] failed with http status " + response.code()));
+                }
+
+                @Override
+                protected void handleException(Exception t) {
+                    result.completeExceptionally(t);
+                }
+            });
+        }
+
+        private void completed(List<GetPushStatsResponse> sliceMessages) {
+            boolean last;
+            synchronized (this) {
+                if (sliceMessages != null) {
+                    for (GetPushStatsResponse message : sliceMessages) {
+                        if (message.getNotificationKey() == null) {
+                            // can not be matched with other sub-ranges, merging them would drop their stats
+                            unkeyedMessages.add(message);
+                        } else {
+                            // a notification which spans sub-ranges has the same stats in all of them
+                            messages.putIfAbsent(message.getNotificationKey(), message);
+                        }
+                    }
+                }
+                last = --remaining == 0;
+            }
+            if (last) {
+                List<GetPushStatsResponse> merged = new ArrayList<>(messages.values());
+                merged.sort(Comparator.comparing(GetPushStatsResponse::getNotificationKey));
+                merged.addAll(unkeyedMessages);
+                result.complete(new PushStatsReport(startDate, endDate, merged));
+            } else {
+                next();
+            }
+        }
+    }
+
+    public static final class PushStatsQueryEngineBuilder {
+        private final Netmera netmera;
+        private long sliceMillis = TimeUnit.DAYS.toMillis(7);
+        private int maxConcurrency = 4;
+
+        public PushStatsQueryEngineBuilder(Netmera netmera) {
+            Assert.notNull(netmera, "Netmera");
+            this.netmera = netmera;
+        }
+
+        /**
+         * @param sliceDays maximum length of a sub-range in days
+         */
+        public PushStatsQueryEngineBuilder sliceDays(int sliceDays) {
+            Assert.mustBetween(1, 366, sliceDays, "Slice Days");
+            this.sliceMillis = TimeUnit.DAYS.toMillis(sliceDays);
+            return this;
+        }
+
+        /**
+         * @param maxConcurrency maximum number of sub-ranges fetched at the same time
+         */
+        public PushStatsQueryEngineBuilder maxConcurrency(int maxConcurrency) {
+            Assert.mustBetween(1, 64, maxConcurrency, "Max Concurrency");
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        public PushStatsQueryEngine build() {
+            return new PushStatsQueryEngine(this);
+        }
+    }
+}
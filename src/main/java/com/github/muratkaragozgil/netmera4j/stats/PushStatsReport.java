@@ -0,0 +1,106 @@
+package com.github.muratkaragozgil.netmera4j.stats;
+
+import com.github.muratkaragozgil.netmera4j.constant.Platform;
+import com.github.muratkaragozgil.netmera4j.model.notification.SingleStat;
+import com.github.muratkaragozgil.netmera4j.response.GetPushStatsResponse;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Push stats of a date range. Every notification is listed once and its stats are summed into
+ * totals and per platform counters.
+ *
+ * @author Murat Karagözgil
+ */
+public class PushStatsReport {
+    private static final Platform[] PLATFORMS = Platform.values();
+
+    @Getter
+    private long startDate;
+    @Getter
+    private long endDate;
+    @Getter
+    private List<GetPushStatsResponse> messages;
+    @Getter
+    private long totalSent;
+    @Getter
+    private long totalFailed;
+    @Getter
+    private long totalClicked;
+    private final long[] sent = new long[PLATFORMS.length];
+    private final long[] failed = new long[PLATFORMS.length];
+    private final long[] clicked = new long[PLATFORMS.length];
+
+    PushStatsReport(long startDate, long endDate, List<GetPushStatsResponse> messages) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.messages = messages;
+        for (GetPushStatsResponse message : messages) {
+            if (message.getStats() == null) {
+                continue;
+            }
+            for (SingleStat stat : message.getStats()) {
+                int sentCount = count(stat.getSent());
+                int failedCount = count(stat.getFailed());
+                int clickedCount = count(stat.getClicked());
+                totalSent += sentCount;
+                totalFailed += failedCount;
+                totalClicked += clickedCount;
+                // stats of platforms unknown to this version are only counted in totals
+                if (stat.getPlatform() != null) {
+                    int platform = stat.getPlatform().ordinal();
+                    sent[platform] += sentCount;
+                    failed[platform] += failedCount;
+                    clicked[platform] += clickedCount;
+                }
+            }
+        }
+    }
+
+    public long getSent(Platform platform) {
+        return sent[platform.ordinal()];
+    }
+
+    public long getFailed(Platform platform) {
+        return failed[platform.ordinal()];
+    }
+
+    public long getClicked(Platform platform) {
+        return clicked[platform.ordinal()];
+    }
+
+    /**
+     * @return clicked / sent of all platforms, 0 when nothing was sent
+     */
+    public double getClickRate() {
+        return totalSent == 0 ? 0 : (double) totalClicked / totalSent;
+    }
+
+    public double getClickRate(Platform platform) {
+        long platformSent = getSent(platform);
+        return platformSent == 0 ? 0 : (double) getClicked(platform) / platformSent;
+    }
+
+    private static int count(Integer value) {
+        return value == null ? 0 : value;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("PushStatsReport(startDate=").append(startDate)
+                .append(", endDate=").append(endDate)
+                .append(", messages=").append(messages.size())
+                .append(", totalSent=").append(totalSent)
+                .append(", totalFailed=").append(totalFailed)
+                .append(", totalClicked=").append(totalClicked);
+        for (Platform platform : PLATFORMS) {
+            if (sent[platform.ordinal()] != 0 || failed[platform.ordinal()] != 0) {
+                builder.append(", ").append(platform).append("=").append(sent[platform.ordinal()])
+                        .append("/").append(failed[platform.ordinal()])
+                        .append("/").append(clicked[platform.ordinal()]);
+            }
+        }
+        return builder.append(")").toString();
+    }
+}
@@ -0,0 +1,313 @@
+package com.github.muratkaragozgil.netmera4j.sync;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Read-only, memory-mapped fingerprints of the last synced snapshot: per user the 64 bit hashes of the external id
+ * and of every attribute value, and the codes of attribute names and tags in a shared dictionary. Values are hashed
+ * in a canonical form, so {@code 5} and {@code 5.0} or maps with another key order have the same fingerprint.
+ * <p>
+ * File layout: an 8 byte header, the records in the order they were written, the dictionary of length prefixed
+ * UTF-8 strings, the index of external id hashes and record offsets sorted by hash and a 16 byte trailer.
+ *
+ * @author Murat Karagözgil
+ */
+final class ProfileFingerprints {
+    private static final int MAGIC = 0x4E4D5046;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int TRAILER_SIZE = 16;
+    private static final int INDEX_ENTRY_SIZE = 12;
+    private static final long PRIME = 0x100000001B3L;
+    private static final long SEED = 0xCBF29CE484222325L;
+
+    private final ByteBuffer buffer;
+    private final int userCount;
+    private final int indexOffset;
+    private final String[] dictionary;
+
+    private ProfileFingerprints(ByteBuffer buffer) throws IOException {
+        int size = buffer.capacity();
+        if (size < HEADER_SIZE + TRAILER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || buffer.getInt(size - 4) != MAGIC) {
+            throw new IOException("Not a profile fingerprints file.");
+        }
+        this.buffer = buffer;
+        this.userCount = buffer.getInt(size - TRAILER_SIZE);
+        int dictionaryOffset = buffer.getInt(size - TRAILER_SIZE + 4);
+        this.indexOffset = buffer.getInt(size - TRAILER_SIZE + 8);
+        ByteBuffer strings = buffer.duplicate();
+        strings.position(dictionaryOffset);
+        this.dictionary = new String[readVarInt(strings)];
+        for (int i = 0; i < dictionary.length; i++) {
+            byte[] bytes = new byte[readVarInt(strings)];
+            strings.get(bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @return fingerprints of the file, null when the file does not exist
+     */
+    static ProfileFingerprints open(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ProfileFingerprints(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    int size() {
+        return userCount;
+    }
+
+    /**
+     * @return index position of the user, -1 when there is none
+     */
+    int find(long extIdHash) {
+        int low = 0;
+        int high = userCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long hash = buffer.getLong(indexOffset + middle * INDEX_ENTRY_SIZE);
+            if (hash < extIdHash) {
+                low = middle + 1;
+            } else if (hash > extIdHash) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the attribute value hashes and tags of the user at the index position to the given collections.
+     */
+    void read(int position, Map<String, Long> attributes, Set<String> tags) {
+        ByteBuffer record = buffer.duplicate();
+        record.position(buffer.getInt(indexOffset + position * INDEX_ENTRY_SIZE + 8));
+        int attributeCount = readVarInt(record);
+        for (int i = 0; i < attributeCount; i++) {
+            String name = dictionary[readVarInt(record)];
+            attributes.put(name, record.getLong());
+        }
+        int tagCount = readVarInt(record);
+        for (int i = 0; i < tagCount; i++) {
+            tags.add(dictionary[readVarInt(record)]);
+        }
+    }
+
+    static long hashExtId(String extId) {
+        return finish(hashChars(SEED, extId));
+    }
+
+    static long hashValue(Object value) {
+        return finish(update(SEED, value));
+    }
+
+    private static long update(long hash, Object value) {
+        if (value == null) {
+            return step(hash, 0);
+        }
+        if (value instanceof Boolean) {
+            return step(hash, (Boolean) value ? 1 : 2);
+        }
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            double real = number.doubleValue();
+            // integral values hash alike whatever their type, json numbers come back as doubles or longs
+            boolean integral = value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte
+                    || real == Math.rint(real) && Math.abs(real) < 0x1p63;
+            return integral ? step(step(hash, 3), number.longValue()) : step(step(hash, 4), Double.doubleToLongBits(real));
+        }
+        if (value instanceof Date) {
+            return step(step(hash, 5), ((Date) value).getTime());
+        }
+        if (value instanceof Collection) {
+            hash = step(hash, 6);
+            for (Object element : (Collection<?>) value) {
+                hash = update(hash, element);
+            }
+            return step(hash, ((Collection<?>) value).size());
+        }
+        if (value instanceof Map) {
+            TreeMap<String, Object> sorted = new TreeMap<>();
+            ((Map<?, ?>) value).forEach((key, element) -> sorted.put(String.valueOf(key), element));
+            hash = step(hash, 7);
+            for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+                hash = update(hashChars(hash, entry.getKey()), entry.getValue());
+            }
+            return step(hash, sorted.size());
+        }
+        return hashChars(step(hash, 8), value.toString());
+    }
+
+    private static long hashChars(long hash, CharSequence chars) {
+        for (int i = 0; i < chars.length(); i++) {
+            hash = step(hash, chars.charAt(i));
+        }
+        return step(hash, chars.length());
+    }
+
+    private static long step(long hash, long value) {
+        return (hash ^ value) * PRIME;
+    }
+
+    private static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ hash >>> 33;
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Writes the fingerprints of a new snapshot. Records are written as they come, the index is sorted when the
+     * writer is finished.
+     */
+    static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private long[] hashes = new long[1024];
+        private int[] offsets = new int[1024];
+        private int userCount;
+
+        Writer(Path path) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        void add(long extIdHash, Map<String, Long> attributes, Collection<String> tags) throws IOException {
+            if (userCount == hashes.length) {
+                hashes = Arrays.copyOf(hashes, userCount * 2);
+                offsets = Arrays.copyOf(offsets, userCount * 2);
+            }
+            hashes[userCount] = extIdHash;
+            offsets[userCount] = checkedSize();
+            userCount++;
+            writeVarInt(attributes.size());
+            for (Map.Entry<String, Long> attribute : attributes.entrySet()) {
+                writeVarInt(encode(attribute.getKey()));
+                out.writeLong(attribute.getValue());
+            }
+            writeVarInt(tags.size());
+            for (String tag : tags) {
+                writeVarInt(encode(tag));
+            }
+        }
+
+        void finish() throws IOException {
+            int dictionaryOffset = checkedSize();
+            writeVarInt(strings.size());
+            for (String string : strings) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(bytes.length);
+                out.write(bytes);
+            }
+            int indexOffset = checkedSize();
+            sort(hashes, offsets, 0, userCount - 1);
+            for (int i = 0; i < userCount; i++) {
+                out.writeLong(hashes[i]);
+                out.writeInt(offsets[i]);
+            }
+            if ((long) checkedSize() + TRAILER_SIZE > Integer.MAX_VALUE) {
+                throw new IOException("Profile fingerprints can not be larger than 2GB.");
+            }
+            out.writeInt(userCount);
+            out.writeInt(dictionaryOffset);
+            out.writeInt(indexOffset);
+            out.writeInt(MAGIC);
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private int encode(String string) {
+            Integer code = codes.get(string);
+            if (code == null) {
+                code = strings.size();
+                strings.add(string);
+                codes.put(string, code);
+            }
+            return code;
+        }
+
+        private int checkedSize() throws IOException {
+            // DataOutputStream stops counting at Integer.MAX_VALUE
+            if (out.size() == Integer.MAX_VALUE) {
+                throw new IOException("Profile fingerprints can not be larger than 2GB.");
+            }
+            return out.size();
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        private static void sort(long[] keys, int[] values, int low, int high) {
+            while (low < high) {
+                long pivot = keys[(low + high) >>> 1];
+                int i = low;
+                int j = high;
+                while (i <= j) {
+                    while (keys[i] < pivot) {
+                        i++;
+                    }
+                    while (keys[j] > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        long key = keys[i];
+                        keys[i] = keys[j];
+                        keys[j] = key;
+                        int value = values[i];
+                        values[i] = values[j];
+                        values[j] = value;
+                        i++;
+                        j--;
+                    }
+                }
+                // recurse into the smaller half to bound the stack depth
+                if (j - low < high - i) {
+                    sort(keys, values, low, j);
+                    low = i;
+                } else {
+                    sort(keys, values, i, high);
+                    high = j;
+                }
+            }
+        }
+    }
+}
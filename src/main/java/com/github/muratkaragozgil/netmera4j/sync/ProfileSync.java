@@ -0,0 +1,368 @@
+package com.github.muratkaragozgil.netmera4j.sync;
+
+import com.github.muratkaragozgil.netmera4j.Netmera;
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.model.device.SingleUnsetObject;
+import com.github.muratkaragozgil.netmera4j.model.device.UserAndProfileAttributeMap;
+import com.github.muratkaragozgil.netmera4j.request.device.AddProfileAttributeRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.AddTagToUsersRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.RemoveTagFromUsersRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.UnsetProfileAttributesRequest;
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Syncs profile attributes and tags of users to Netmera by sending only what changed since the last sync.
+ * <p>
+ * The fingerprints of the last synced snapshot are kept in a local file. Every user of a new snapshot is looked up
+ * there by the hash of its external id, changed and new attributes are sent with {@code setProfileAttributes},
+ * removed ones with {@code unsetProfileAttributes} and added and removed tags with tag requests grouped by tag.
+ * Unchanged users cost no call. Users missing from the new snapshot are left as they are and are synced again in
+ * full when they come back.
+ * <p>
+ * The fingerprints are replaced only when every call succeeded, a failed sync is repeated by the next one.
+ *
+ * @author Murat Karagözgil
+ */
+public class ProfileSync {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfileSync.class);
+
+    private final Netmera netmera;
+    private final Path fingerprints;
+    private final int batchSize;
+    private final int maxInFlight;
+
+    private ProfileSync(ProfileSyncBuilder profileSyncBuilder) {
+        this.netmera = profileSyncBuilder.netmera;
+        this.fingerprints = profileSyncBuilder.fingerprints;
+        this.batchSize = profileSyncBuilder.batchSize;
+        this.maxInFlight = profileSyncBuilder.maxInFlight;
+    }
+
+    /**
+     * Compares the snapshot with the fingerprints of the last sync and sends the differences. The calling thread
+     * reads the snapshot and blocks while {@code maxInFlight} calls are in flight, the returned future completes when
+     * every call has completed and the fingerprints are written.
+     *
+     * @param snapshot every user with its full profile and tags, each external id once
+     */
+    public CompletableFuture<ProfileSyncResult> sync(Iterable<UserProfile> snapshot) {
+        Assert.notNull(snapshot, "Snapshot");
+        Path temporary = fingerprints.resolveSibling(fingerprints.getFileName() + ".tmp");
+        Sync sync;
+        try {
+            sync = new Sync(ProfileFingerprints.open(fingerprints), temporary);
+        } catch (IOException e) {
+            CompletableFuture<ProfileSyncResult> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        try (ProfileFingerprints.Writer writer = sync.writer) {
+            for (UserProfile user : snapshot) {
+                sync.diff(user);
+            }
+            sync.flush();
+            writer.finish();
+            sync.written = true;
+        } catch (IOException e) {
+            sync.error = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sync.error = e;
+        }
+        sync.finish();
+        return sync.result;
+    }
+
+    private final class Sync {
+        private final ProfileFingerprints previous;
+        private final Path temporary;
+        private final ProfileFingerprints.Writer writer;
+        private final BitSet seen = new BitSet();
+        private final Semaphore permits = new Semaphore(maxInFlight);
+        // the producer holds one pending slot until all changes are sent
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final CompletableFuture<ProfileSyncResult> result = new CompletableFuture<>();
+        private final Map<String, Long> previousAttributes = new HashMap<>();
+        private final Set<String> previousTags = new HashSet<>();
+        private final Map<String, Long> attributes = new HashMap<>();
+        private List<UserAndProfileAttributeMap> profiles = new ArrayList<>();
+        private List<SingleUnsetObject> unsets = new ArrayList<>();
+        private final Map<String, List<String>> addedTags = new HashMap<>();
+        private final Map<String, List<String>> removedTags = new HashMap<>();
+        private long users;
+        private long newUsers;
+        private long unchangedUsers;
+        private long attributesSet;
+        private long attributesUnset;
+        private long tagsAdded;
+        private long tagsRemoved;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failedCalls = new LongAdder();
+        private volatile boolean written;
+        private volatile Exception error;
+
+        private Sync(ProfileFingerprints previous, Path temporary) throws IOException {
+            this.previous = previous;
+            this.temporary = temporary;
+            this.writer = new ProfileFingerprints.Writer(temporary);
+        }
+
+        private void diff(UserProfile user) throws IOException, InterruptedException {
+            users++;
+            String extId = user.getExtId();
+            long extIdHash = ProfileFingerprints.hashExtId(extId);
+            previousAttributes.clear();
+            previousTags.clear();
+            int position = previous == null ? -1 : previous.find(extIdHash);
+            if (position >= 0) {
+                previous.read(position, previousAttributes, previousTags);
+                seen.set(position);
+            } else {
+                newUsers++;
+            }
+
+            attributes.clear();
+            Map<String, Object> changed = null;
+            for (Map.Entry<String, Object> attribute : user.getProfile().entrySet()) {
+                if (attribute.getValue() == null) {
+                    continue;
+                }
+                long hash = ProfileFingerprints.hashValue(attribute.getValue());
+                attributes.put(attribute.getKey(), hash);
+                Long previousHash = previousAttributes.get(attribute.getKey());
+                if (previousHash == null || previousHash != hash) {
+                    if (changed == null) {
+                        changed = new LinkedHashMap<>();
+                    }
+                    changed.put(attribute.getKey(), attribute.getValue());
+                }
+            }
+            List<Object> removed = null;
+            for (String name : previousAttributes.keySet()) {
+                if (!attributes.containsKey(name)) {
+                    if (removed == null) {
+                        removed = new ArrayList<>();
+                    }
+                    removed.add(name);
+                }
+            }
+            boolean tagsChanged = false;
+            for (String tag : user.getTags()) {
+                if (!previousTags.remove(tag)) {
+                    tagsChanged = true;
+                    tagsAdded++;
+                    addTag(addedTags, tag, extId, true);
+                }
+            }
+            // what is left of the previous tags was removed
+            for (String tag : previousTags) {
+                tagsChanged = true;
+                tagsRemoved++;
+                addTag(removedTags, tag, extId, false);
+            }
+
+            if (changed != null) {
+                attributesSet += changed.size();
+                profiles.add(new UserAndProfileAttributeMap(extId, changed));
+                if (profiles.size() == batchSize) {
+                    sendProfiles();
+                }
+            }
+            if (removed != null) {
+                attributesUnset += removed.size();
+                unsets.add(SingleUnsetObject.builder().extId(extId).profile(removed).build());
+                if (unsets.size() == batchSize) {
+                    sendUnsets();
+                }
+            }
+            if (changed == null && removed == null && !tagsChanged) {
+                unchangedUsers++;
+            }
+            writer.add(extIdHash, attributes, user.getTags());
+        }
+
+        private void addTag(Map<String, List<String>> tags, String tag, String extId, boolean add) throws InterruptedException {
+            List<String> extIds = tags.computeIfAbsent(tag, key -> new ArrayList<>());
+            extIds.add(extId);
+            if (extIds.size() == batchSize) {
+                tags.remove(tag);
+                sendTag(tag, extIds, add);
+            }
+        }
+
+        private void flush() throws InterruptedException {
+            if (!profiles.isEmpty()) {
+                sendProfiles();
+            }
+            if (!unsets.isEmpty()) {
+                sendUnsets();
+            }
+            for (Map.Entry<String, List<String>> tag : addedTags.entrySet()) {
+                sendTag(tag.getKey(), tag.getValue(), true);
+            }
+            for (Map.Entry<String, List<String>> tag : removedTags.entrySet()) {
+                sendTag(tag.getKey(), tag.getValue(), false);
+            }
+            addedTags.clear();
+            removedTags.clear();
+        }
+
+        private void sendProfiles() throws InterruptedException {
+            AddProfileAttributeRequest request = new AddProfileAttributeRequest(profiles);
+            profiles = new ArrayList<>(batchSize);
+            send(callBack -> netmera.sendRequest(request, callBack));
+        }
+
+        private void sendUnsets() throws InterruptedException {
+            UnsetProfileAttributesRequest request = UnsetProfileAttributesRequest.UnsetProfileAttributesRequestBuilder.UnsetProfileAttributesRequest()
+                    .userAndProfileAttributeLists(unsets)
+                    .build();
+            unsets = new ArrayList<>(batchSize);
+            send(callBack -> netmera.sendRequest(request, callBack));
+        }
+
+        private void sendTag(String tag, List<String> extIds, boolean add) throws InterruptedException {
+            if (add) {
+                AddTagToUsersRequest request = new AddTagToUsersRequest(tag, extIds);
+                send(callBack -> netmera.sendRequest(request, callBack));
+            } else {
+                RemoveTagFromUsersRequest request = new RemoveTagFromUsersRequest(tag, extIds);
+                send(callBack -> netmera.sendRequest(request, callBack));
+            }
+        }
+
+        private void send(Consumer<NetmeraCallBack<Void>> sender) throws InterruptedException {
+            permits.acquire();
+            pending.incrementAndGet();
+            SyncCallBack callBack = new SyncCallBack();
+            try {
+                sender.accept(callBack);
+            } catch (RuntimeException e) {
+                logger.error("ProfileSync::call not sent::{}", e.toString());
+                callBack.completed(false);
+            }
+        }
+
+        /**
+         * Completes its call once, whether it ends with a response, an exception or an error.
+         */
+        private final class SyncCallBack extends NetmeraCallBack<Void> {
+            private final AtomicBoolean completed = new AtomicBoolean();
+
+            @Override
+            public void onFailure(Call<Void> call, Throwable t) {
+                super.onFailure(call, t);
+                if (!(t instanceof Exception)) {
+                    completed(false);
+                }
+            }
+
+            @Override
+            protected void handleResponseCode(int httpStatus) {
+                completed(httpStatus == 200);
+            }
+
+            @Override
+            protected void handleResponseData(Void data) {
+            }
+
+            @Override
+            protected void handleError(Response<Void> response) {
+            }
+
+            @Override
+            protected void handleException(Exception t) {
+                completed(false);
+            }
+
+            private void completed(boolean successful) {
+                if (completed.compareAndSet(false, true)) {
+                    (successful ? calls : failedCalls).increment();
+                    permits.release();
+                    finish();
+                }
+            }
+        }
+
+        private void finish() {
+            if (pending.decrementAndGet() != 0) {
+                return;
+            }
+            try {
+                if (error == null && written && failedCalls.sum() == 0) {
+                    Files.move(temporary, fingerprints, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } else {
+                    Files.deleteIfExists(temporary);
+                }
+            } catch (IOException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+            if (error != null) {
+                logger.error("ProfileSync::sync failed::{}", error.toString());
+                result.completeExceptionally(error);
+                return;
+            }
+            long missingUsers = previous == null ? 0 : previous.size() - seen.cardinality();
+            result.complete(new ProfileSyncResult(users, newUsers, unchangedUsers, missingUsers, attributesSet, attributesUnset,
+                    tagsAdded, tagsRemoved, calls.sum(), failedCalls.sum()));
+        }
+    }
+
+    public static final class ProfileSyncBuilder {
+        private final Netmera netmera;
+        private final Path fingerprints;
+        private int batchSize = 1000;
+        private int maxInFlight = 4;
+
+        /**
+         * @param fingerprints file of the last synced snapshot, created by the first sync
+         */
+        public ProfileSyncBuilder(Netmera netmera, Path fingerprints) {
+            Assert.notNull(netmera, "Netmera");
+            Assert.notNull(fingerprints, "Fingerprints");
+            this.netmera = netmera;
+            this.fingerprints = fingerprints;
+        }
+
+        /**
+         * @param batchSize maximum number of users sent in a single call
+         */
+        public ProfileSyncBuilder batchSize(int batchSize) {
+            Assert.mustBetween(1, 100000, batchSize, "Batch Size");
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * @param maxInFlight maximum number of calls in flight
+         */
+        public ProfileSyncBuilder maxInFlight(int maxInFlight) {
+            Assert.mustBetween(1, 1000, maxInFlight, "Max In Flight");
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        public ProfileSync build() {
+            return new ProfileSync(this);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.muratkaragozgil.netmera4j.sync;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Outcome of a {@link ProfileSync} run.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@ToString
+public class ProfileSyncResult {
+    private final long users;
+    private final long newUsers;
+    private final long unchangedUsers;
+    /**
+     * Users of the previous snapshot which are missing from this one, they are left as they are.
+     */
+    private final long missingUsers;
+    private final long attributesSet;
+    private final long attributesUnset;
+    private final long tagsAdded;
+    private final long tagsRemoved;
+    private final long calls;
+    private final long failedCalls;
+
+    ProfileSyncResult(long users, long newUsers, long unchangedUsers, long missingUsers, long attributesSet, long attributesUnset,
+                      long tagsAdded, long tagsRemoved, long calls, long failedCalls) {
+        this.users = users;
+        this.newUsers = newUsers;
+        this.unchangedUsers = unchangedUsers;
+        this.missingUsers = missingUsers;
+        this.attributesSet = attributesSet;
+        this.attributesUnset = attributesUnset;
+        this.tagsAdded = tagsAdded;
+        this.tagsRemoved = tagsRemoved;
+        this.calls = calls;
+        this.failedCalls = failedCalls;
+    }
+
+    /**
+     * @return whether every call succeeded and the fingerprints were replaced by this snapshot
+     */
+    public boolean isSuccessful() {
+        return failedCalls == 0;
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.muratkaragozgil.netmera4j.sync;
+
+import com.github.muratkaragozgil.netmera4j.util.Assert;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Profile attributes and tags of a user in a {@link ProfileSync} snapshot. Attributes with a null value are treated
+ * as not set.
+ *
+ * @author Murat Karagözgil
+ */
+@Getter
+@ToString
+public class UserProfile {
+    private final String extId;
+    private final Map<String, Object> profile;
+    private final Set<String> tags;
+
+    public UserProfile(String extId, Map<String, Object> profile, Set<String> tags) {
+        Assert.notNull(extId, "External Id");
+        this.extId = extId;
+        this.profile = profile == null ? Collections.emptyMap() : profile;
+        this.tags = tags == null ? Collections.emptySet() : tags;
+    }
+}
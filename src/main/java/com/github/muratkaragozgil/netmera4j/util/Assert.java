@@ -50,6 +50,12 @@ public final class Assert {
         }
     }
 
+    public static void mustBetween(double min, double max, Double value, String parameterName) {
+        if (value < min || value > max) {
+            throw new ValidationException(parameterName + " must be between (" + min + " - " + max + ")!");
+        }
+    }
+
     public static <T> T notNull(T reference, String parameterName) {
         if (reference == null)
             throw new NullPointerException(parameterName + " cannot be null!");
@@ -34,13 +34,13 @@ public class NetmeraProxy implements InvocationHandler {
     public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
         Object result;
         try {
-            Object requestObject = args[0];
-            Class firstArgument = requestObject.getClass();
-
-            // TODO exception handling will activate again
-            for (Field field : firstArgument.getDeclaredFields()) {
-                // TODO maybe added inner fields
-                if (validateField(requestObject, field)) return null;
+            if (args == null || args.length == 0) {
+                return m.invoke(netmeraApi, args);
+            }
+            String violation = validate(args[0]);
+            if (violation != null) {
+                logger.warning(violation);
+                return null;
             }
 
             result = m.invoke(netmeraApi, args);
@@ -50,39 +50,49 @@ public class NetmeraProxy implements InvocationHandler {
         return result;
     }
 
-    private boolean validateField(Object requestObject, Field field) throws IllegalAccessException {
+    /**
+     * Checks the {@link NotNull} and {@link NotEmpty} fields of a request.
+     *
+     * @return description of the first invalid field, null if the request is valid
+     */
+    public static String validate(Object requestObject) {
+        // TODO maybe added inner fields
+        try {
+            for (Field field : requestObject.getClass().getDeclaredFields()) {
+                String violation = validateField(requestObject, field);
+                if (violation != null) {
+                    return violation;
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        return null;
+    }
+
+    private static String validateField(Object requestObject, Field field) throws IllegalAccessException {
         if (field.isAnnotationPresent(NotNull.class)) {
             field.setAccessible(true);
             Object value = field.get(requestObject);
             if (value == null) {
-                logger.warning(field + " : value is null!");
-//                        throw new ValidationException(field + " : value is null!");
-                return true;
+                return field + " : value is null!";
             }
         } else if (field.isAnnotationPresent(NotEmpty.class)) {
             field.setAccessible(true);
             Object value = field.get(requestObject);
             if (value == null) {
-                logger.warning(field + " : value is null!");
-//                        throw new ValidationException(field + " : value is null!");
-                return true;
+                return field + " : value is null!";
             } else if (value instanceof String) {
                 if (StringUtils.isEmpty((String) value)) {
-                    logger.warning(field + " : value is empty!");
-//                            throw new ValidationException(field + " : value is empty!");
-                    return true;
+                    return field + " : value is empty!";
                 }
             } else if (value instanceof ArrayList) {
                 if (((ArrayList) value).size() == 0) {
-                    logger.warning(field + " : list is empty!");
-//                            throw new ValidationException(field + " : list is empty!");
-                    return true;
+                    return field + " : list is empty!";
                 }
             } else if (value instanceof List) {
                 if (((List) value).size() == 0) {
-                    logger.warning(field + " : list is empty!");
-//                            throw new ValidationException(field + " : list is empty!");
-                    return true;
+                    return field + " : list is empty!";
                 }
             } else if (value instanceof Map) {
                 if (((Map) value).size() == 0) {
@@ -90,6 +100,6 @@ public class NetmeraProxy implements InvocationHandler {
                 }
             }
         }
-        return false;
+        return null;
     }
 }
@@ -0,0 +1,188 @@
+package com.github.muratkaragozgil.netmera4j;
+
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * {@link Netmera} of tests. Records the sent requests and completes their call backs with the outcome given by a
+ * responder: an http status, a {@link Response} or a {@link Throwable}. Requests the responder returns null for are
+ * held until the test completes them. Calls of methods without a call back, e.g. {@code close()}, are counted.
+ *
+ * @author Murat Karagözgil
+ */
+public class FakeNetmera {
+
+    private final List<Object> requests = Collections.synchronizedList(new ArrayList<>());
+    private final BlockingQueue<Sent> held = new LinkedBlockingQueue<>();
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private final Function<Object, Object> responder;
+    private final Netmera netmera;
+
+    public FakeNetmera(Function<Object, Object> responder) {
+        this.responder = responder;
+        this.netmera = (Netmera) Proxy.newProxyInstance(Netmera.class.getClassLoader(), new Class<?>[]{Netmera.class}, (proxy, method, args) -> {
+            if (args == null || args.length != 2 || !(args[1] instanceof NetmeraCallBack)) {
+                calls.computeIfAbsent(method.getName(), name -> new AtomicInteger()).incrementAndGet();
+                return null;
+            }
+            send(args[0], (NetmeraCallBack<?>) args[1]);
+            return null;
+        });
+    }
+
+    /**
+     * @return fake which completes every request with {@code httpStatus}
+     */
+    public static FakeNetmera responding(int httpStatus) {
+        return new FakeNetmera(request -> httpStatus);
+    }
+
+    /**
+     * @return fake which holds every request until the test completes it
+     */
+    public static FakeNetmera holding() {
+        return new FakeNetmera(request -> null);
+    }
+
+    public Netmera netmera() {
+        return netmera;
+    }
+
+    public List<Object> requests() {
+        synchronized (requests) {
+            return new ArrayList<>(requests);
+        }
+    }
+
+    public <R> List<R> requests(Class<R> type) {
+        List<R> typed = new ArrayList<>();
+        for (Object request : requests()) {
+            if (type.isInstance(request)) {
+                typed.add(type.cast(request));
+            }
+        }
+        return typed;
+    }
+
+    /**
+     * @return the oldest held request, waits at most 5 seconds for one
+     */
+    public Sent nextHeld() throws InterruptedException {
+        Sent sent = held.poll(5, TimeUnit.SECONDS);
+        if (sent == null) {
+            throw new AssertionError("No request is sent.");
+        }
+        return sent;
+    }
+
+    public int heldCount() {
+        return held.size();
+    }
+
+    /**
+     * @return number of calls of the method without a call back, e.g. {@code close}
+     */
+    public int calls(String method) {
+        AtomicInteger count = calls.get(method);
+        return count == null ? 0 : count.get();
+    }
+
+    private void send(Object request, NetmeraCallBack<?> callBack) {
+        requests.add(request);
+        Sent sent = new Sent(request, callBack);
+        Object outcome = responder.apply(request);
+        if (outcome == null) {
+            held.add(sent);
+        } else {
+            sent.complete(outcome);
+        }
+    }
+
+    public static final class Sent {
+        private final Object request;
+        private final NetmeraCallBack<?> callBack;
+
+        private Sent(Object request, NetmeraCallBack<?> callBack) {
+            this.request = request;
+            this.callBack = callBack;
+        }
+
+        public Object getRequest() {
+            return request;
+        }
+
+        /**
+         * @param outcome http status, {@link Response} or {@link Throwable} the call back is called with
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public void complete(Object outcome) {
+            NetmeraCallBack raw = callBack;
+            Call call = new FakeCall();
+            if (outcome instanceof Throwable) {
+                raw.onFailure(call, (Throwable) outcome);
+            } else if (outcome instanceof Response) {
+                raw.onResponse(call, (Response) outcome);
+            } else {
+                int httpStatus = (Integer) outcome;
+                raw.onResponse(call, httpStatus < 300 ? Response.success(httpStatus, null)
+                        : Response.error(httpStatus, ResponseBody.create(MediaType.get("application/json"), "{}")));
+            }
+        }
+    }
+
+    private static final class FakeCall implements Call<Object> {
+        private volatile boolean canceled;
+
+        @Override
+        public Response<Object> execute() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void enqueue(Callback<Object> callback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @Override
+        public Call<Object> clone() {
+            return new FakeCall();
+        }
+
+        @Override
+        public Request request() {
+            return new Request.Builder().url("http://localhost/fake").build();
+        }
+    }
+}
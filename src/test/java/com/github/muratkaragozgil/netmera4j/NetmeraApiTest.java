@@ -1,13 +1,25 @@
 package com.github.muratkaragozgil.netmera4j;
 
+import com.github.muratkaragozgil.netmera4j.bulk.ProfileBatchWriter;
 import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.constant.Platform;
 import com.github.muratkaragozgil.netmera4j.exception.ValidationException;
+import com.github.muratkaragozgil.netmera4j.model.api.NetmeraWarmUp;
+import com.github.muratkaragozgil.netmera4j.replay.TrafficReplayer;
 import com.github.muratkaragozgil.netmera4j.request.device.AddNewDevicesRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.AddTagToUsersRequest;
+import com.github.muratkaragozgil.netmera4j.results.InvalidTokenCleaner;
+import com.github.muratkaragozgil.netmera4j.results.PushResultStore;
+import com.github.muratkaragozgil.netmera4j.stats.PushStatsQueryEngine;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import retrofit2.Call;
 import retrofit2.Response;
 
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * @author Murat Karagözgil
@@ -84,11 +96,101 @@ public class NetmeraApiTest {
         assertThrows(NullPointerException.class, () -> new NetmeraApi.NetmeraApiBuilder(TARGET_HOST, REST_API_KEY).withConnectionPool(null).build());
     }
 
+    @Test
+    public void shouldThrowNullPointerExceptionExceptionWhenSetMetricsNull() {
+        assertThrows(NullPointerException.class, () -> new NetmeraApi.NetmeraApiBuilder(TARGET_HOST, REST_API_KEY).withMetrics(null).build());
+    }
+
+    @Test
+    public void shouldThrowNullPointerExceptionExceptionWhenSetLoggingPolicyNull() {
+        assertThrows(NullPointerException.class, () -> new NetmeraApi.NetmeraApiBuilder(TARGET_HOST, REST_API_KEY).withLoggingPolicy(null).build());
+    }
+
+    @Test
+    public void shouldThrowNullPointerExceptionExceptionWhenSetWarmUpNull() {
+        assertThrows(NullPointerException.class, () -> new NetmeraApi.NetmeraApiBuilder(TARGET_HOST, REST_API_KEY).withWarmUp(null).build());
+    }
+
+    @Test
+    public void shouldThrowValidationExceptionWhenSetWarmUpConnectionsIsZero() {
+        assertThrows(ValidationException.class, () -> new NetmeraWarmUp.NetmeraWarmUpBuilder().connections(0).build());
+    }
+
+    @Test
+    public void shouldThrowValidationExceptionWhenTenantRestApiKeyIsEmpty() {
+        assertThrows(ValidationException.class, () -> new NetmeraClientFactory.NetmeraClientFactoryBuilder(TARGET_HOST).build().forApiKey(""));
+    }
+
+    @Test
+    public void shouldThrowNullPointerExceptionWhenSetTransactionalBatchingIsNull() {
+        assertThrows(NullPointerException.class, () -> new NetmeraApi.NetmeraApiBuilder(TARGET_HOST, REST_API_KEY).withTransactionalBatching(null).build());
+    }
+
+    @Test
+    public void shouldThrowValidationExceptionWhenSetStatsSliceDaysIsZero() {
+        assertThrows(ValidationException.class, () -> new PushStatsQueryEngine.PushStatsQueryEngineBuilder(netmera).sliceDays(0).build());
+    }
+
+    @Test
+    public void shouldThrowIllegalArgumentExceptionWhenPermanentErrorCodesAreNotSet() {
+        assertThrows(IllegalArgumentException.class, () -> new InvalidTokenCleaner.InvalidTokenCleanerBuilder(netmera, new PushResultStore()).build());
+    }
+
+    @Test
+    public void shouldThrowIllegalArgumentExceptionWhenPlatformIsUnknown() {
+        assertThrows(IllegalArgumentException.class, () -> Platform.getPlatform("windows"));
+    }
+
+    @Test
+    public void shouldThrowNullPointerExceptionWhenSetCodecIsNull() {
+        assertThrows(NullPointerException.class, () -> new NetmeraApi.NetmeraApiBuilder(TARGET_HOST, REST_API_KEY).withCodec(null).build());
+    }
+
+    @Test
+    public void shouldThrowValidationExceptionWhenReplaySpeedIsZero() {
+        assertThrows(ValidationException.class, () -> new TrafficReplayer.TrafficReplayerBuilder(netmera).speed(0));
+    }
+
+    @Test
+    public void shouldThrowValidationExceptionWhenProfileBatchUserHasNoExternalId() {
+        assertThrows(ValidationException.class, () -> new ProfileBatchWriter().beginUser(""));
+    }
+
     @Test
     public void shouldThrowValidationExceptionWhenSentAddNewDevicesRequestNotValid() {
         assertThrows(NullPointerException.class, () -> netmera.sendRequest(AddNewDevicesRequest.AddNewDevicesRequestBuilder.withDeviceList(null).build(), getStandardNetmeraCallBack()));
     }
 
+    @Test
+    public void shouldDropRequestWithoutCallingCallBackWhenSentRequestNotValid() {
+        AtomicBoolean called = new AtomicBoolean();
+        netmera.sendRequest(new AddTagToUsersRequest("", Collections.singletonList("user-1")), new NetmeraCallBack<Void>() {
+            @Override
+            public void onResponse(Call<Void> call, Response<Void> response) {
+                called.set(true);
+            }
+
+            @Override
+            public void onFailure(Call<Void> call, Throwable t) {
+                called.set(true);
+            }
+
+            @Override
+            protected void handleResponseData(Void data) {
+            }
+
+            @Override
+            protected void handleError(Response<Void> response) {
+            }
+
+            @Override
+            protected void handleException(Exception t) {
+            }
+        });
+
+        assertFalse(called.get());
+    }
+
     private NetmeraCallBack<Void> getStandardNetmeraCallBack() {
         return new NetmeraCallBack<Void>() {
             @Override
@@ -0,0 +1,150 @@
+package com.github.muratkaragozgil.netmera4j.audience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class AudienceTest {
+
+    @Test
+    public void shouldSortAndDeduplicateIds() {
+        Audience audience = Audience.of("user-3", "user-1", "user-2", "user-1", "user-10");
+
+        assertEquals(Arrays.asList("user-1", "user-10", "user-2", "user-3"), new ArrayList<>(audience));
+        assertEquals(4, audience.size());
+        assertEquals("user-2", audience.get(2));
+        assertSame(Audience.empty(), Audience.of());
+    }
+
+    @Test
+    public void shouldOrderIdsByCodePoint() {
+        Audience audience = Audience.of("ü", "z", "😀", "Z", "a");
+
+        assertEquals(Arrays.asList("Z", "a", "z", "ü", "😀"), new ArrayList<>(audience));
+    }
+
+    @Test
+    public void shouldFindIdsAcrossBuckets() {
+        List<String> ids = ids(0, 1000, 1);
+        Audience audience = Audience.of(ids);
+        List<String> sorted = new ArrayList<>(new TreeSet<>(ids));
+
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(i, audience.indexOf(sorted.get(i)));
+            assertEquals(sorted.get(i), audience.get(i));
+        }
+        assertEquals(-1, audience.indexOf("user-"));
+        assertEquals(-1, audience.indexOf("user-00000"));
+        assertEquals(-1, audience.indexOf("user-9999"));
+        assertEquals(-1, audience.indexOf("a"));
+        assertEquals(-1, audience.indexOf("zzz"));
+        assertEquals(-1, audience.indexOf(null));
+        assertEquals(-1, audience.indexOf(1));
+        assertEquals(-1, Audience.empty().indexOf("user-1"));
+        assertTrue(audience.contains("user-0500"));
+        assertFalse(audience.contains("user-1000"));
+    }
+
+    @Test
+    public void shouldUnionAudiences() {
+        Audience even = Audience.of(ids(0, 100, 2));
+        Audience odd = Audience.of(ids(1, 100, 2));
+        Audience lowHalf = Audience.of(ids(0, 50, 1));
+
+        assertEquals(ids(0, 100, 1), new ArrayList<>(even.union(odd)));
+        assertEquals(union(ids(0, 100, 2), ids(0, 50, 1)), new ArrayList<>(even.union(lowHalf)));
+        assertEquals(new ArrayList<>(even), new ArrayList<>(even.union(even)));
+        assertEquals(new ArrayList<>(odd), new ArrayList<>(Audience.empty().union(odd)));
+        assertEquals(new ArrayList<>(odd), new ArrayList<>(odd.union(Audience.empty())));
+    }
+
+    @Test
+    public void shouldIntersectAudiences() {
+        Audience even = Audience.of(ids(0, 100, 2));
+        Audience odd = Audience.of(ids(1, 100, 2));
+        Audience lowHalf = Audience.of(ids(0, 50, 1));
+
+        assertEquals(ids(0, 50, 2), new ArrayList<>(even.intersect(lowHalf)));
+        assertEquals(ids(0, 50, 2), new ArrayList<>(lowHalf.intersect(even)));
+        assertSame(Audience.empty(), even.intersect(odd));
+        assertSame(Audience.empty(), even.intersect(Audience.empty()));
+        assertEquals(new ArrayList<>(even), new ArrayList<>(even.intersect(even)));
+    }
+
+    @Test
+    public void shouldSubtractAudiences() {
+        Audience all = Audience.of(ids(0, 100, 1));
+        Audience even = Audience.of(ids(0, 100, 2));
+        Audience highHalf = Audience.of(ids(50, 150, 1));
+
+        assertEquals(ids(1, 100, 2), new ArrayList<>(all.minus(even)));
+        assertEquals(ids(0, 50, 1), new ArrayList<>(all.minus(highHalf)));
+        assertEquals(ids(100, 150, 1), new ArrayList<>(highHalf.minus(all)));
+        assertEquals(new ArrayList<>(all), new ArrayList<>(all.minus(Audience.empty())));
+        assertSame(Audience.empty(), all.minus(all));
+    }
+
+    @Test
+    public void shouldKeepIndexesOfSetOperationResults() {
+        Audience result = Audience.of(ids(0, 1000, 3)).union(Audience.of(ids(0, 1000, 5))).minus(Audience.of(ids(0, 1000, 2)));
+        List<String> expected = new ArrayList<>(new TreeSet<>(union(ids(0, 1000, 3), ids(0, 1000, 5))));
+        expected.removeAll(ids(0, 1000, 2));
+
+        assertEquals(expected, new ArrayList<>(result));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i, result.indexOf(expected.get(i)));
+        }
+    }
+
+    @Test
+    public void shouldEncodeSequentialIdsCompactly() {
+        Audience audience = Audience.of(ids(0, 10_000, 1));
+
+        assertTrue(audience.getEncodedSize() < 10_000 * 5, audience.toString());
+    }
+
+    @Test
+    public void shouldThrowIndexOutOfBoundsExceptionForUnknownIndex() {
+        Audience audience = Audience.of("user-1");
+
+        assertThrows(IndexOutOfBoundsException.class, () -> audience.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> audience.get(-1));
+        assertThrows(UnsupportedOperationException.class, () -> audience.add("user-2"));
+    }
+
+    @Test
+    public void shouldThrowNullPointerExceptionWhenIdIsNull() {
+        assertThrows(NullPointerException.class, () -> new Audience.AudienceBuilder().add(null));
+        assertThrows(NullPointerException.class, () -> Audience.of(Collections.singletonList(null)));
+    }
+
+    /**
+     * @return {@code user-0000} style ids from {@code from} to {@code to}, in ascending order
+     */
+    private static List<String> ids(int from, int to, int step) {
+        List<String> ids = new ArrayList<>();
+        for (int i = from; i < to; i += step) {
+            ids.add(String.format("user-%04d", i));
+        }
+        return ids;
+    }
+
+    private static List<String> union(List<String> left, List<String> right) {
+        TreeSet<String> union = new TreeSet<>(left);
+        union.addAll(right);
+        return new ArrayList<>(union);
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.muratkaragozgil.netmera4j.bulk;
+
+import com.github.muratkaragozgil.netmera4j.FakeNetmera;
+import com.github.muratkaragozgil.netmera4j.exception.ValidationException;
+import com.github.muratkaragozgil.netmera4j.model.notification.BulkMessage;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendBulkNotificationRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class BulkFanOutPlannerTest {
+
+    private final BulkMessage message = BulkMessage.builder().title("Title").text("Text").build();
+
+    @Test
+    public void shouldSplitAudienceIntoChunksAndCountDuplicatesAndNulls() throws Exception {
+        FakeNetmera fake = FakeNetmera.responding(200);
+        List<String> audience = new ArrayList<>();
+        for (int i = 0; i < 22; i++) {
+            audience.add("user-" + i);
+        }
+        audience.addAll(Arrays.asList("user-0", "user-1", "user-2", null, null));
+
+        FanOutResult result = planner(fake, 1).send(message, audience).get(5, TimeUnit.SECONDS);
+
+        assertEquals(27, result.getAudienceSize());
+        assertEquals(3, result.getDuplicateCount());
+        assertEquals(2, result.getNullCount());
+        assertEquals(22, result.getSentExtIdCount());
+        assertTrue(result.isSuccessful());
+        assertEquals(3, result.getChunks().size());
+        assertEquals(Arrays.asList(2, 2, 1), targetCounts(fake));
+        assertEquals(Arrays.asList(10, 10, 2), Arrays.asList(result.getChunks().get(0).getExtIdCount(),
+                result.getChunks().get(1).getExtIdCount(), result.getChunks().get(2).getExtIdCount()));
+    }
+
+    @Test
+    public void shouldReportFailedChunks() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        FakeNetmera fake = new FakeNetmera(request -> calls.incrementAndGet() == 2 ? 500 : 200);
+
+        FanOutResult result = planner(fake, 1).send(message, ids(22)).get(5, TimeUnit.SECONDS);
+
+        assertFalse(result.isSuccessful());
+        assertEquals(1, result.getFailedChunkCount());
+        assertEquals(10, result.getFailedExtIdCount());
+        assertEquals(12, result.getSentExtIdCount());
+        assertEquals(500, result.getChunks().get(1).getHttpStatus());
+    }
+
+    @Test
+    public void shouldReleasePermitWhenSendThrows() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        FakeNetmera fake = new FakeNetmera(request -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("closed");
+            }
+            return 200;
+        });
+
+        FanOutResult result = planner(fake, 1).send(message, ids(22)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(3, result.getChunks().size());
+        assertEquals(0, result.getChunks().get(0).getHttpStatus());
+        assertTrue(result.getChunks().get(0).getError().contains("closed"));
+        assertEquals(12, result.getSentExtIdCount());
+    }
+
+    @Test
+    public void shouldReleasePermitWhenCallFailsWithError() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        FakeNetmera fake = new FakeNetmera(request -> calls.incrementAndGet() == 1 ? new OutOfMemoryError("test") : 200);
+
+        FanOutResult result = planner(fake, 1).send(message, ids(22)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, result.getFailedChunkCount());
+        assertEquals(12, result.getSentExtIdCount());
+    }
+
+    @Test
+    public void shouldNotCompleteBeforeEveryCallCompletes() throws Exception {
+        FakeNetmera fake = FakeNetmera.holding();
+
+        CompletableFuture<FanOutResult> result = planner(fake, 4).send(message, ids(22));
+
+        assertFalse(result.isDone());
+        for (int i = 0; i < 3; i++) {
+            fake.nextHeld().complete(200);
+        }
+        assertEquals(22, result.get(5, TimeUnit.SECONDS).getSentExtIdCount());
+    }
+
+    @Test
+    public void shouldThrowValidationExceptionWhenSetChunkSizeIsZero() {
+        assertThrows(ValidationException.class, () -> new BulkFanOutPlanner.BulkFanOutPlannerBuilder(FakeNetmera.responding(200).netmera()).chunkSize(0));
+    }
+
+    private static BulkFanOutPlanner planner(FakeNetmera fake, int maxConcurrency) {
+        return new BulkFanOutPlanner.BulkFanOutPlannerBuilder(fake.netmera()).chunkSize(5).requestsPerCall(2).maxConcurrency(maxConcurrency).build();
+    }
+
+    private static List<String> ids(int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add("user-" + i);
+        }
+        return ids;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Integer> targetCounts(FakeNetmera fake) {
+        List<Integer> counts = new ArrayList<>();
+        for (Object request : fake.requests()) {
+            counts.add(((List<SendBulkNotificationRequest>) request).size());
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.muratkaragozgil.netmera4j.bulk;
+
+import com.github.muratkaragozgil.netmera4j.constant.Platform;
+import com.github.muratkaragozgil.netmera4j.exception.ValidationException;
+import com.github.muratkaragozgil.netmera4j.json.NetmeraCodec;
+import com.github.muratkaragozgil.netmera4j.model.device.NewDevice;
+import com.github.muratkaragozgil.netmera4j.request.device.AddNewDevicesRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.EncodedNewDevicesRequest;
+import com.google.gson.reflect.TypeToken;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class DeviceBatchWriterTest {
+
+    private static final Type DEVICES = new TypeToken<List<NewDevice>>() {
+    }.getType();
+
+    @Test
+    public void shouldWriteSameBytesAsAddNewDevicesRequest() throws IOException {
+        NewDevice first = device("token-1", Platform.ANDROID, "user-1", "ali@example.com");
+        NewDevice second = device("token-\"2\"", Platform.IOS, null, null);
+        NewDevice third = device("token-3", Platform.CHROME, "üser\n3", null);
+        DeviceBatchWriter writer = new DeviceBatchWriter();
+
+        writer.add(first).add(second.getDeviceToken(), second.getPlatform(), null, null).add(third);
+        EncodedNewDevicesRequest request = writer.build();
+
+        assertEquals(3, request.getDevices());
+        assertArrayEquals(serialized(AddNewDevicesRequest.AddNewDevicesRequestBuilder.withDeviceList(Arrays.asList(first, second, third)).build()),
+                bytes(request.getBody()));
+    }
+
+    @Test
+    public void shouldReportContentLengthOfTheBodyAsSize() throws IOException {
+        DeviceBatchWriter writer = new DeviceBatchWriter();
+        assertEquals(2, writer.size());
+
+        writer.add(device("token-1", Platform.ANDROID, "user-1", null)).add(device("token-2", Platform.IOS, null, null));
+
+        long size = writer.size();
+        RequestBody body = writer.build().getBody();
+        assertEquals(size, body.contentLength());
+        assertEquals(size, bytes(body).length);
+    }
+
+    @Test
+    public void shouldStartAnEmptyBatchAfterBuild() throws IOException {
+        DeviceBatchWriter writer = new DeviceBatchWriter();
+        NewDevice first = device("token-1", Platform.ANDROID, "user-1", null);
+        RequestBody firstBody = writer.add(first).build().getBody();
+
+        assertEquals(0, writer.count());
+        assertEquals(2, writer.size());
+        NewDevice second = device("token-2", Platform.IOS, "user-2", null);
+        writer.add(second);
+
+        assertArrayEquals(serialized(AddNewDevicesRequest.AddNewDevicesRequestBuilder.withDeviceList(Arrays.asList(second)).build()),
+                bytes(writer.build().getBody()));
+        assertArrayEquals(serialized(AddNewDevicesRequest.AddNewDevicesRequestBuilder.withDeviceList(Arrays.asList(first)).build()),
+                bytes(firstBody));
+    }
+
+    @Test
+    public void shouldWriteTheSameBodyAgainOnRetry() throws IOException {
+        RequestBody body = new DeviceBatchWriter().add(device("token-1", Platform.ANDROID, "user-1", null)).build().getBody();
+
+        byte[] sent = bytes(body);
+        byte[] retried = bytes(body);
+
+        assertArrayEquals(sent, retried);
+        assertEquals(body.contentLength(), retried.length);
+    }
+
+    @Test
+    public void shouldThrowWhenDeviceIsNotValidOrNoDeviceIsAdded() {
+        DeviceBatchWriter writer = new DeviceBatchWriter();
+
+        assertThrows(IllegalStateException.class, writer::build);
+        assertThrows(ValidationException.class, () -> writer.add("", Platform.IOS, null, null));
+        assertThrows(NullPointerException.class, () -> writer.add("token-1", null, null, null));
+        assertEquals(0, writer.count());
+        assertEquals(2, writer.size());
+    }
+
+    private static NewDevice device(String deviceToken, Platform platform, String extId, String email) {
+        return NewDevice.builder().deviceToken(deviceToken).platform(platform).extId(extId).email(email).build();
+    }
+
+    private static byte[] serialized(AddNewDevicesRequest request) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NetmeraCodec.GSON.write(request.getDeviceList(), DEVICES, out);
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(RequestBody body) throws IOException {
+        Buffer sink = new Buffer();
+        body.writeTo(sink);
+        return sink.readByteArray();
+    }
+}
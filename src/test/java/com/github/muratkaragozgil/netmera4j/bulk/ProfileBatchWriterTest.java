@@ -0,0 +1,136 @@
+package com.github.muratkaragozgil.netmera4j.bulk;
+
+import com.github.muratkaragozgil.netmera4j.exception.ValidationException;
+import com.github.muratkaragozgil.netmera4j.json.NetmeraCodec;
+import com.github.muratkaragozgil.netmera4j.model.device.UserAndProfileAttributeMap;
+import com.github.muratkaragozgil.netmera4j.request.device.AddProfileAttributeRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.EncodedProfileAttributesRequest;
+import com.google.gson.reflect.TypeToken;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class ProfileBatchWriterTest {
+
+    private static final Type USERS = new TypeToken<List<UserAndProfileAttributeMap>>() {
+    }.getType();
+
+    @Test
+    public void shouldWriteSameBytesAsAddProfileAttributeRequest() throws IOException {
+        UserAndProfileAttributeMap first = user("user-1", "age", 30, "city", "İstanbul", "score", 1.5, "vip", true);
+        UserAndProfileAttributeMap second = user("user-\"2\"", "note", "<b>\n </b>", "tags", Arrays.asList("a", "b"), "removed", null);
+        ProfileBatchWriter writer = new ProfileBatchWriter();
+
+        writer.add(first).add(second.getExtId(), second.getProfile());
+        EncodedProfileAttributesRequest request = writer.build();
+
+        assertEquals(2, request.getUsers());
+        assertArrayEquals(serialized(new AddProfileAttributeRequest(Arrays.asList(first, second))), bytes(request.getBody()));
+    }
+
+    @Test
+    public void shouldWriteSameBytesWhenAttributesAreWrittenOneByOne() throws IOException {
+        ProfileBatchWriter writer = new ProfileBatchWriter();
+
+        writer.beginUser("user-1").attribute("age", 30).attribute("email", null).attribute("city", "Ankara").endUser();
+
+        assertArrayEquals(serialized(new AddProfileAttributeRequest(Arrays.asList(user("user-1", "age", 30, "email", null, "city", "Ankara")))),
+                bytes(writer.build().getBody()));
+    }
+
+    @Test
+    public void shouldReportContentLengthOfTheBodyAsSize() throws IOException {
+        ProfileBatchWriter writer = new ProfileBatchWriter();
+        assertEquals(2, writer.size());
+
+        writer.add(user("user-1", "age", 30));
+        writer.beginUser("user-2").attribute("city", "Ankara");
+        long openSize = writer.size();
+        writer.endUser();
+        // the open user is counted with its closing brackets
+        assertEquals(openSize, writer.size());
+        assertEquals(2, writer.count());
+
+        long size = writer.size();
+        RequestBody body = writer.build().getBody();
+        assertEquals(size, body.contentLength());
+        assertEquals(size, bytes(body).length);
+    }
+
+    @Test
+    public void shouldStartAnEmptyBatchAfterBuild() throws IOException {
+        ProfileBatchWriter writer = new ProfileBatchWriter();
+        writer.add(user("user-1", "age", 30));
+        RequestBody first = writer.build().getBody();
+
+        assertEquals(0, writer.count());
+        assertEquals(2, writer.size());
+        UserAndProfileAttributeMap second = user("user-2", "age", 40);
+        writer.add(second);
+
+        assertArrayEquals(serialized(new AddProfileAttributeRequest(Arrays.asList(second))), bytes(writer.build().getBody()));
+        // the handed off body is not changed by the next batch
+        assertArrayEquals(serialized(new AddProfileAttributeRequest(Arrays.asList(user("user-1", "age", 30)))), bytes(first));
+    }
+
+    @Test
+    public void shouldWriteTheSameBodyAgainOnRetry() throws IOException {
+        ProfileBatchWriter writer = new ProfileBatchWriter();
+        writer.add(user("user-1", "age", 30)).add(user("user-2", "city", "Ankara"));
+        RequestBody body = writer.build().getBody();
+
+        byte[] sent = bytes(body);
+        byte[] retried = bytes(body);
+
+        assertArrayEquals(sent, retried);
+        assertEquals(body.contentLength(), retried.length);
+    }
+
+    @Test
+    public void shouldThrowIllegalStateExceptionWhenUsersAreNotBegunOrEnded() {
+        ProfileBatchWriter writer = new ProfileBatchWriter();
+
+        assertThrows(IllegalStateException.class, writer::build);
+        assertThrows(IllegalStateException.class, () -> writer.attribute("age", 30));
+        assertThrows(IllegalStateException.class, writer::endUser);
+        writer.beginUser("user-1");
+        assertThrows(IllegalStateException.class, () -> writer.beginUser("user-2"));
+        assertThrows(IllegalStateException.class, writer::build);
+        assertThrows(ValidationException.class, () -> writer.attribute("", 30));
+        writer.endUser();
+        assertEquals(1, writer.count());
+    }
+
+    private static UserAndProfileAttributeMap user(String extId, Object... attributes) {
+        Map<String, Object> profile = new LinkedHashMap<>();
+        for (int i = 0; i < attributes.length; i += 2) {
+            profile.put((String) attributes[i], attributes[i + 1]);
+        }
+        return new UserAndProfileAttributeMap(extId, profile);
+    }
+
+    private static byte[] serialized(AddProfileAttributeRequest request) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NetmeraCodec.GSON.write(request.getUserAndProfileAttributeMaps(), USERS, out);
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(RequestBody body) throws IOException {
+        Buffer sink = new Buffer();
+        body.writeTo(sink);
+        return sink.readByteArray();
+    }
+}
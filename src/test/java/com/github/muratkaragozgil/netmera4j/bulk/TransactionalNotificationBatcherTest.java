@@ -0,0 +1,193 @@
+package com.github.muratkaragozgil.netmera4j.bulk;
+
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.exception.ValidationException;
+import com.github.muratkaragozgil.netmera4j.model.api.NetmeraBatching;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTransactionalNotificationInChunksRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTransactionalNotificationRequest;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.Test;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class TransactionalNotificationBatcherTest {
+
+    private final List<SendTransactionalNotificationInChunksRequest> groups = new CopyOnWriteArrayList<>();
+    private final List<NetmeraCallBack<Void>> groupCallBacks = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void shouldSendFullGroupImmediately() {
+        TransactionalNotificationBatcher batcher = batcher(10000, 3);
+        for (int i = 0; i < 3; i++) {
+            batcher.submit(notification("welcome"), new RecordingCallBack());
+        }
+        batcher.submit(notification("goodbye"), new RecordingCallBack());
+
+        assertEquals(1, groups.size());
+        assertEquals(3, groups.get(0).getNotifications().size());
+        batcher.shutdown();
+    }
+
+    @Test
+    public void shouldSendOpenGroupAfterLinger() throws Exception {
+        TransactionalNotificationBatcher batcher = batcher(10, 100);
+        batcher.submit(notification("welcome"), new RecordingCallBack());
+        batcher.submit(notification("welcome"), new RecordingCallBack());
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (groups.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(1, groups.size());
+        assertEquals(2, groups.get(0).getNotifications().size());
+        batcher.shutdown();
+    }
+
+    @Test
+    public void shouldDeliverGroupResponseToEveryCallBack() {
+        TransactionalNotificationBatcher batcher = batcher(10000, 2);
+        RecordingCallBack first = new RecordingCallBack();
+        RecordingCallBack second = new RecordingCallBack();
+        batcher.submit(notification("welcome"), first);
+        batcher.submit(notification("welcome"), second);
+
+        groupCallBacks.get(0).onResponse(null, Response.success(200, null));
+
+        assertEquals(Arrays.asList(200), first.codes);
+        assertEquals(Arrays.asList(200), second.codes);
+        assertEquals(1, first.successCount);
+        assertEquals(1, second.successCount);
+        batcher.shutdown();
+    }
+
+    @Test
+    public void shouldGiveEveryCallBackItsOwnCopyOfErrorBody() {
+        TransactionalNotificationBatcher batcher = batcher(10000, 2);
+        RecordingCallBack first = new RecordingCallBack();
+        RecordingCallBack second = new RecordingCallBack();
+        batcher.submit(notification("welcome"), first);
+        batcher.submit(notification("welcome"), second);
+
+        groupCallBacks.get(0).onResponse(null, Response.error(400, ResponseBody.create(MediaType.get("application/json"), "{\"error\":\"bad\"}")));
+
+        assertEquals(Arrays.asList("{\"error\":\"bad\"}"), first.errorBodies);
+        assertEquals(Arrays.asList("{\"error\":\"bad\"}"), second.errorBodies);
+        assertEquals(Arrays.asList(400), second.codes);
+        batcher.shutdown();
+    }
+
+    @Test
+    public void shouldDeliverGroupFailureToEveryCallBack() {
+        TransactionalNotificationBatcher batcher = batcher(10000, 2);
+        RecordingCallBack first = new RecordingCallBack();
+        RecordingCallBack second = new RecordingCallBack();
+        batcher.submit(notification("welcome"), first);
+        batcher.submit(notification("welcome"), second);
+
+        groupCallBacks.get(0).onFailure(null, new IOException("reset"));
+
+        assertEquals(1, first.exceptions.size());
+        assertEquals(1, second.exceptions.size());
+        batcher.shutdown();
+    }
+
+    @Test
+    public void shouldSendOpenGroupsOnFlush() {
+        TransactionalNotificationBatcher batcher = batcher(10000, 100);
+        batcher.submit(notification("welcome"), new RecordingCallBack());
+        batcher.submit(notification("goodbye"), new RecordingCallBack());
+        batcher.submit(notification("welcome"), new RecordingCallBack());
+
+        batcher.flush();
+
+        assertEquals(2, groups.size());
+        assertEquals(3, groups.get(0).getNotifications().size() + groups.get(1).getNotifications().size());
+        batcher.shutdown();
+    }
+
+    @Test
+    public void shouldSendOpenGroupsOnShutdownAndLaterNotificationsOneByOne() throws Exception {
+        TransactionalNotificationBatcher batcher = batcher(10000, 100);
+        batcher.submit(notification("welcome"), new RecordingCallBack());
+        batcher.submit(notification("welcome"), new RecordingCallBack());
+
+        batcher.shutdown();
+        batcher.submit(notification("welcome"), new RecordingCallBack());
+
+        assertEquals(2, groups.size());
+        assertEquals(2, groups.get(0).getNotifications().size());
+        assertEquals(1, groups.get(1).getNotifications().size());
+        long deadline = System.currentTimeMillis() + 2000;
+        while (batcherThreadAlive() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(!batcherThreadAlive(), "batcher thread is still running");
+    }
+
+    @Test
+    public void shouldThrowValidationExceptionWhenSetBatchingLingerIsZero() {
+        assertThrows(ValidationException.class, () -> new NetmeraBatching.NetmeraBatchingBuilder().linger(0).build());
+    }
+
+    private static boolean batcherThreadAlive() {
+        return Thread.getAllStackTraces().keySet().stream().anyMatch(thread -> thread.getName().equals("netmera-batcher") && thread.isAlive());
+    }
+
+    private TransactionalNotificationBatcher batcher(long linger, int maxBatchSize) {
+        return new TransactionalNotificationBatcher((group, callBack) -> {
+            groups.add(group);
+            groupCallBacks.add(callBack);
+        }, new NetmeraBatching.NetmeraBatchingBuilder().linger(linger).maxBatchSize(maxBatchSize).build());
+    }
+
+    private static SendTransactionalNotificationRequest notification(String notificationKey) {
+        SendTransactionalNotificationRequest request = new SendTransactionalNotificationRequest();
+        request.setNotificationKey(notificationKey);
+        return request;
+    }
+
+    private static final class RecordingCallBack extends NetmeraCallBack<Void> {
+        private final List<Integer> codes = new ArrayList<>();
+        private final List<String> errorBodies = new ArrayList<>();
+        private final List<Exception> exceptions = new ArrayList<>();
+        private int successCount;
+
+        @Override
+        protected void handleResponseCode(int httpStatus) {
+            codes.add(httpStatus);
+        }
+
+        @Override
+        protected void handleResponseData(Void data) {
+            successCount++;
+        }
+
+        @Override
+        protected void handleError(Response<Void> response) {
+            try {
+                errorBodies.add(response.errorBody().string());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        protected void handleException(Exception t) {
+            exceptions.add(t);
+        }
+    }
+}
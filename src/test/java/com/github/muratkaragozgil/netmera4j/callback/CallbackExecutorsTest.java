@@ -0,0 +1,99 @@
+package com.github.muratkaragozgil.netmera4j.callback;
+
+import com.github.muratkaragozgil.netmera4j.exception.ValidationException;
+import com.github.muratkaragozgil.netmera4j.metrics.InMemoryNetmeraMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class CallbackExecutorsTest {
+
+    @Test
+    public void shouldRecordHandlersRunByTheExecutor() throws Exception {
+        InMemoryNetmeraMetrics metrics = new InMemoryNetmeraMetrics();
+        ExecutorService pool = CallbackExecutors.bounded(1, 10, new ThreadPoolExecutor.AbortPolicy());
+        Executor executor = CallbackExecutors.instrumented(pool, metrics);
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        CountDownLatch ran = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            ranOn.set(Thread.currentThread());
+            ran.countDown();
+        });
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertTrue(ranOn.get().getName().startsWith("netmera-callback-"));
+        assertEquals(1, metrics.getCallbackHandlerTime().getTotalCount());
+        assertEquals(0, metrics.getCallbackQueued());
+        assertEquals(0, metrics.getCallbackRejections());
+    }
+
+    @Test
+    public void shouldRunRejectedHandlersOnTheCallingThread() {
+        InMemoryNetmeraMetrics metrics = new InMemoryNetmeraMetrics();
+        Executor executor = CallbackExecutors.instrumented(handler -> {
+            throw new RejectedExecutionException("queue is full");
+        }, metrics);
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+
+        executor.execute(() -> ranOn.set(Thread.currentThread()));
+
+        assertSame(Thread.currentThread(), ranOn.get());
+        assertEquals(1, metrics.getCallbackRejections());
+        assertEquals(1, metrics.getCallbackHandlerTime().getTotalCount());
+        assertEquals(0, metrics.getCallbackQueued());
+    }
+
+    @Test
+    public void shouldRunHandlersRejectedByAFullPool() throws Exception {
+        InMemoryNetmeraMetrics metrics = new InMemoryNetmeraMetrics();
+        ExecutorService pool = CallbackExecutors.bounded(1, 1, new ThreadPoolExecutor.AbortPolicy());
+        Executor executor = CallbackExecutors.instrumented(pool, metrics);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(3);
+
+        // the first handler holds the only thread, the second fills the queue
+        executor.execute(() -> {
+            await(release);
+            completed.countDown();
+        });
+        executor.execute(completed::countDown);
+        executor.execute(completed::countDown);
+        // the rejected third one ran before execute returned
+        assertEquals(2, completed.getCount());
+        release.countDown();
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertEquals(1, metrics.getCallbackRejections());
+        pool.shutdown();
+    }
+
+    @Test
+    public void shouldThrowValidationExceptionWhenCallbackExecutorHasNoThreads() {
+        assertThrows(ValidationException.class, () -> CallbackExecutors.bounded(0, 100, new ThreadPoolExecutor.CallerRunsPolicy()));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.github.muratkaragozgil.netmera4j.connection;
+
+import com.github.muratkaragozgil.netmera4j.metrics.NetmeraMetrics;
+import com.github.muratkaragozgil.netmera4j.model.api.NetmeraConcurrencyLimit;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Timeout;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long CONVERGENCE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    public void shouldGrowToMaxLimitWhileLatencyIsSteady() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 64);
+
+        drive(limiter, 1_000, () -> limiter.getLimit() == 64);
+
+        assertEquals(64, limiter.getLimit());
+    }
+
+    @Test
+    public void shouldShrinkWhenLatencyRisesAboveBaseline() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 64);
+        drive(limiter, 1_000, () -> limiter.getLimit() == 64);
+
+        // the gradient is at least 0.5, so the limit settles where it halves and grows by its square root
+        drive(limiter, 50_000, () -> limiter.getLimit() <= 8);
+
+        assertTrue(limiter.getLimit() <= 8, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    public void shouldNotGrowWhileLimitIsNotReached() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 64);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+
+        while (System.nanoTime() < deadline) {
+            limiter.submit(() -> {
+            });
+            limiter.finished(System.nanoTime() - 1_000, false);
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    public void shouldBackOffOncePerRoundTripOnDroppedCalls() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 64);
+        limiter.submit(() -> {
+        });
+        limiter.submit(() -> {
+        });
+        long firstStart = System.nanoTime();
+
+        limiter.finished(System.nanoTime(), true);
+        assertEquals(9, limiter.getLimit());
+        // started before the backoff, it saw the old limit
+        limiter.finished(firstStart, true);
+
+        assertEquals(9, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void shouldNotShrinkBelowMinLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(new NetmeraConcurrencyLimit.NetmeraConcurrencyLimitBuilder()
+                .initialLimit(3).minLimit(2).backoffRatio(0.1).build(), NetmeraMetrics.NOOP);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.submit(() -> {
+            });
+            limiter.finished(System.nanoTime(), true);
+        }
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void shouldQueueTasksOverTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 2);
+        AtomicInteger started = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            limiter.submit(started::incrementAndGet);
+        }
+        assertEquals(2, started.get());
+        assertEquals(1, limiter.getQueued());
+        limiter.released();
+
+        assertEquals(3, started.get());
+        assertEquals(0, limiter.getQueued());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    public void shouldBlockAcquireUntilASlotIsReleased() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1);
+        limiter.submit(() -> {
+        });
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        waiter.start();
+
+        assertFalse(acquired.await(50, TimeUnit.MILLISECONDS));
+        limiter.released();
+
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    public void shouldLeaveTheQueueWhenInterruptedWhileAcquiring() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1);
+        limiter.submit(() -> {
+        });
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire();
+            } catch (InterruptedException e) {
+                failure.set(e);
+            }
+        });
+        waiter.start();
+        while (limiter.getQueued() == 0) {
+            Thread.sleep(1);
+        }
+
+        waiter.interrupt();
+        waiter.join(5000);
+        limiter.released();
+
+        assertTrue(failure.get() instanceof InterruptedException);
+        assertEquals(0, limiter.getQueued());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void shouldHoldASlotDuringSynchronousCalls() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1);
+        AtomicInteger inFlightDuringCall = new AtomicInteger(-1);
+        Call.Factory limited = new LimitedCallFactory(request -> new StubCall(request, () -> {
+            inFlightDuringCall.set(limiter.getInFlight());
+            return new Response.Builder().request(request).protocol(Protocol.HTTP_1_1).code(200).message("OK").build();
+        }), limiter);
+        Call.Factory failing = new LimitedCallFactory(request -> new StubCall(request, () -> {
+            throw new IOException("connection reset");
+        }), limiter);
+        Request request = new Request.Builder().url("http://localhost/").build();
+
+        Response response = limited.newCall(request).execute();
+        assertThrows(IOException.class, () -> failing.newCall(request).execute());
+
+        assertEquals(200, response.code());
+        assertEquals(1, inFlightDuringCall.get());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void shouldThrowIllegalArgumentExceptionWhenInitialLimitIsOverMaxLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new NetmeraConcurrencyLimit.NetmeraConcurrencyLimitBuilder().initialLimit(20).maxLimit(10).build());
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int initialLimit, int maxLimit) {
+        return new AdaptiveConcurrencyLimiter(new NetmeraConcurrencyLimit.NetmeraConcurrencyLimitBuilder()
+                .initialLimit(initialLimit).maxLimit(maxLimit).build(), NetmeraMetrics.NOOP);
+    }
+
+    /**
+     * Keeps the limiter saturated, every step completes a call of the given latency and queues another one, until
+     * {@code done} or the convergence timeout.
+     */
+    private static void drive(AdaptiveConcurrencyLimiter limiter, long latencyNanos, Condition done) {
+        while (limiter.getInFlight() + limiter.getQueued() < 2 * 64) {
+            limiter.submit(() -> {
+            });
+        }
+        long deadline = System.nanoTime() + CONVERGENCE_TIMEOUT_NANOS;
+        while (!done.met() && System.nanoTime() < deadline) {
+            limiter.finished(System.nanoTime() - latencyNanos, false);
+            limiter.submit(() -> {
+            });
+        }
+    }
+
+    private interface Condition {
+        boolean met();
+    }
+
+    private interface Execution {
+        Response execute() throws IOException;
+    }
+
+    private static final class StubCall implements Call {
+        private final Request request;
+        private final Execution execution;
+
+        private StubCall(Request request, Execution execution) {
+            this.request = request;
+            this.execution = execution;
+        }
+
+        @Override
+        public Request request() {
+            return request;
+        }
+
+        @Override
+        public Response execute() throws IOException {
+            return execution.execute();
+        }
+
+        @Override
+        public void enqueue(Callback responseCallback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return false;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return false;
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public Call clone() {
+            return new StubCall(request, execution);
+        }
+    }
+}
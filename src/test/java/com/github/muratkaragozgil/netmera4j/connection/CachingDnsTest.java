@@ -0,0 +1,73 @@
+package com.github.muratkaragozgil.netmera4j.connection;
+
+import okhttp3.Dns;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class CachingDnsTest {
+
+    private static final List<InetAddress> LOOPBACK = Collections.singletonList(InetAddress.getLoopbackAddress());
+
+    @Test
+    public void shouldServeExpiredAddressesAfterShutdown() throws Exception {
+        AtomicInteger lookups = new AtomicInteger();
+        CachingDns dns = new CachingDns(hostname -> {
+            lookups.incrementAndGet();
+            return LOOPBACK;
+        }, 1, TimeUnit.MILLISECONDS);
+        dns.resolve("restapi.netmera.com");
+        dns.shutdown();
+        Thread.sleep(10);
+        int resolved = lookups.get();
+
+        assertEquals(LOOPBACK, dns.lookup("restapi.netmera.com"));
+        assertEquals(LOOPBACK, dns.lookup("restapi.netmera.com"));
+        assertEquals(resolved, lookups.get());
+    }
+
+    @Test
+    public void shouldQueueOneRefreshPerHostWhileDnsFails() throws Exception {
+        AtomicInteger lookups = new AtomicInteger();
+        CountDownLatch resolverDown = new CountDownLatch(1);
+        Dns failing = hostname -> {
+            if (lookups.incrementAndGet() == 1) {
+                return LOOPBACK;
+            }
+            try {
+                resolverDown.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new UnknownHostException(hostname);
+        };
+        CachingDns dns = new CachingDns(failing, 200, TimeUnit.MILLISECONDS);
+        try {
+            dns.resolve("restapi.netmera.com");
+            Thread.sleep(250);
+
+            for (int i = 0; i < 100; i++) {
+                assertEquals(LOOPBACK, dns.lookup("restapi.netmera.com"));
+            }
+            resolverDown.countDown();
+            Thread.sleep(50);
+
+            // the initial resolve, the blocked refresh and at most one queued by the lookups
+            assertTrue(lookups.get() <= 4, "lookups " + lookups.get());
+        } finally {
+            dns.shutdown();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.muratkaragozgil.netmera4j.connection;
+
+import com.github.muratkaragozgil.netmera4j.Netmera;
+import com.github.muratkaragozgil.netmera4j.NetmeraApi;
+import com.github.muratkaragozgil.netmera4j.model.api.NetmeraWarmUp;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class ConnectionWarmerTest {
+
+    @Test
+    public void shouldStopDnsRefreshAndKeepAliveThreadsWhenClientIsClosed() throws Exception {
+        AtomicInteger probes = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            probes.incrementAndGet();
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            Netmera netmera = new NetmeraApi.NetmeraApiBuilder("http://127.0.0.1:" + server.getAddress().getPort(), "rest-api-key")
+                    .withWarmUp(new NetmeraWarmUp.NetmeraWarmUpBuilder().connections(2).timeout(5).probeInterval(1).build())
+                    .build();
+
+            assertEquals(2, probes.get());
+            assertTrue(threadAlive("netmera-keep-alive"));
+            assertTrue(threadAlive("netmera-dns-refresh"));
+
+            netmera.close();
+
+            long deadline = System.currentTimeMillis() + 2000;
+            while ((threadAlive("netmera-keep-alive") || threadAlive("netmera-dns-refresh")) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(!threadAlive("netmera-keep-alive"), "keep-alive thread is still running");
+            assertTrue(!threadAlive("netmera-dns-refresh"), "dns refresh thread is still running");
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static boolean threadAlive(String name) {
+        return Thread.getAllStackTraces().keySet().stream().anyMatch(thread -> thread.getName().equals(name) && thread.isAlive());
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.muratkaragozgil.netmera4j.connection;
+
+import com.github.muratkaragozgil.netmera4j.NetmeraClientFactory;
+import com.github.muratkaragozgil.netmera4j.exception.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class FairTenantSchedulerTest {
+
+    private final List<String> started = new ArrayList<>();
+
+    @Test
+    public void shouldLimitRunningCallsOfATenant() {
+        FairTenantScheduler scheduler = new FairTenantScheduler(4, 2);
+        FairTenantScheduler.Tenant tenant = scheduler.newTenant();
+
+        submit(tenant, "a", 10);
+
+        assertEquals(2, scheduler.runningCount());
+        assertEquals(8, tenant.queuedCount());
+        assertEquals(Arrays.asList("a", "a"), started);
+    }
+
+    @Test
+    public void shouldServeWaitingTenantsInTurn() {
+        FairTenantScheduler scheduler = new FairTenantScheduler(2, 2);
+        FairTenantScheduler.Tenant a = scheduler.newTenant();
+        FairTenantScheduler.Tenant b = scheduler.newTenant();
+        FairTenantScheduler.Tenant c = scheduler.newTenant();
+        submit(a, "a", 6);
+        submit(b, "b", 3);
+        submit(c, "c", 3);
+        started.clear();
+
+        a.finished();
+        a.finished();
+        b.finished();
+        c.finished();
+        a.finished();
+        b.finished();
+
+        assertEquals(Arrays.asList("b", "c", "a", "b", "c", "a"), started);
+        assertEquals(2, scheduler.runningCount());
+    }
+
+    @Test
+    public void shouldNotLetABusyTenantStarveANewOne() {
+        FairTenantScheduler scheduler = new FairTenantScheduler(4, 4);
+        FairTenantScheduler.Tenant busy = scheduler.newTenant();
+        FairTenantScheduler.Tenant quiet = scheduler.newTenant();
+        submit(busy, "busy", 1000);
+        submit(quiet, "quiet", 1);
+        started.clear();
+
+        busy.finished();
+
+        assertEquals(Arrays.asList("quiet"), started);
+        assertEquals(996, busy.queuedCount());
+    }
+
+    @Test
+    public void shouldThrowValidationExceptionWhenSetMaxRequestsPerTenantIsZero() {
+        assertThrows(ValidationException.class, () -> new NetmeraClientFactory.NetmeraClientFactoryBuilder("https://restapi.netmera.com").withMaxRequestsPerTenant(0).build());
+    }
+
+    private void submit(FairTenantScheduler.Tenant tenant, String name, int count) {
+        for (int i = 0; i < count; i++) {
+            tenant.submit(() -> started.add(name));
+        }
+    }
+}
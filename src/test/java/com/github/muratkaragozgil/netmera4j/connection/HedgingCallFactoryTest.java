@@ -0,0 +1,336 @@
+package com.github.muratkaragozgil.netmera4j.connection;
+
+import com.github.muratkaragozgil.netmera4j.metrics.NetmeraMetrics;
+import com.github.muratkaragozgil.netmera4j.model.api.NetmeraHedging;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class HedgingCallFactoryTest {
+
+    private static final Request GET = new Request.Builder().url("http://localhost/rest/3.0/getDevices").build();
+
+    private final StubCallFactory stub = new StubCallFactory();
+
+    @Test
+    public void shouldNotHedgeBeforeEnoughSamples() throws Exception {
+        HedgingCallFactory factory = factory(1.0);
+        Outcome outcome = new Outcome();
+
+        factory.newCall(GET).enqueue(outcome);
+        Thread.sleep(50);
+
+        assertEquals(1, stub.calls.size());
+        stub.calls.get(0).respond(200);
+        assertEquals(200, outcome.response().code());
+        factory.shutdown();
+    }
+
+    @Test
+    public void shouldDeliverTheFirstResponseAndCancelTheOtherAttempt() throws Exception {
+        HedgingCallFactory factory = warmedUp(1.0);
+        Outcome outcome = new Outcome();
+
+        factory.newCall(GET).enqueue(outcome);
+        StubCall primary = stub.awaitCall(20);
+        StubCall hedge = stub.awaitCall(21);
+        hedge.respond(200);
+
+        assertEquals(200, outcome.response().code());
+        assertTrue(primary.canceled);
+        assertEquals(1, outcome.invocations.get());
+        factory.shutdown();
+    }
+
+    @Test
+    public void shouldWaitForTheHedgeWhenTheCallFails() throws Exception {
+        HedgingCallFactory factory = warmedUp(1.0);
+        Outcome outcome = new Outcome();
+
+        factory.newCall(GET).enqueue(outcome);
+        StubCall primary = stub.awaitCall(20);
+        StubCall hedge = stub.awaitCall(21);
+        primary.fail(new IOException("connection reset"));
+        assertFalse(outcome.isDone());
+        hedge.respond(200);
+
+        assertEquals(200, outcome.response().code());
+        factory.shutdown();
+    }
+
+    @Test
+    public void shouldDeliverTheLastFailureWhenBothAttemptsFail() throws Exception {
+        HedgingCallFactory factory = warmedUp(1.0);
+        Outcome outcome = new Outcome();
+
+        factory.newCall(GET).enqueue(outcome);
+        StubCall primary = stub.awaitCall(20);
+        StubCall hedge = stub.awaitCall(21);
+        primary.fail(new IOException("connection reset"));
+        hedge.fail(new IOException("timeout"));
+
+        assertEquals("timeout", outcome.failure().getMessage());
+        assertEquals(1, outcome.invocations.get());
+        factory.shutdown();
+    }
+
+    @Test
+    public void shouldDeliverTheFailureOfTheCallWhenTheHedgeIsAbandoned() throws Exception {
+        // the budget is spent under the factory lock, holding it stops the timer after it counted the hedge
+        HedgingCallFactory factory = warmedUp(0.01);
+        Outcome outcome = new Outcome();
+        StubCall primary;
+        synchronized (factory) {
+            factory.newCall(GET).enqueue(outcome);
+            primary = stub.awaitCall(20);
+            awaitBlockedHedgingThread();
+            primary.fail(new IOException("connection reset"));
+            assertFalse(outcome.isDone());
+        }
+
+        assertEquals("connection reset", outcome.failure().getMessage());
+        assertEquals(21, stub.calls.size());
+        factory.shutdown();
+    }
+
+    @Test
+    public void shouldCancelBothAttempts() throws Exception {
+        HedgingCallFactory factory = warmedUp(1.0);
+        Outcome outcome = new Outcome();
+
+        Call call = factory.newCall(GET);
+        call.enqueue(outcome);
+        StubCall primary = stub.awaitCall(20);
+        StubCall hedge = stub.awaitCall(21);
+        call.cancel();
+
+        assertTrue(call.isCanceled());
+        assertTrue(primary.canceled);
+        assertTrue(hedge.canceled);
+        assertEquals("Canceled", outcome.failure().getMessage());
+        assertEquals(1, outcome.invocations.get());
+        factory.shutdown();
+    }
+
+    @Test
+    public void shouldNotHedgeWithoutBudget() throws Exception {
+        HedgingCallFactory factory = warmedUp(0.01);
+        Outcome outcome = new Outcome();
+
+        factory.newCall(GET).enqueue(outcome);
+        Thread.sleep(50);
+        stub.awaitCall(20).respond(200);
+
+        assertEquals(200, outcome.response().code());
+        assertEquals(21, stub.calls.size());
+        factory.shutdown();
+    }
+
+    @Test
+    public void shouldNotHedgeAfterShutdown() throws Exception {
+        HedgingCallFactory factory = warmedUp(1.0);
+        factory.shutdown();
+        Outcome outcome = new Outcome();
+
+        factory.newCall(GET).enqueue(outcome);
+        Thread.sleep(50);
+        stub.awaitCall(20).respond(200);
+
+        assertEquals(200, outcome.response().code());
+        assertEquals(21, stub.calls.size());
+    }
+
+    @Test
+    public void shouldPassOtherMethodsToTheDelegate() {
+        HedgingCallFactory factory = factory(1.0);
+        Request post = new Request.Builder().url(GET.url()).post(RequestBody.create(MediaType.get("application/json"), "{}")).build();
+
+        Call call = factory.newCall(post);
+
+        assertSame(stub.calls.get(0), call);
+        factory.shutdown();
+    }
+
+    @Test
+    public void shouldThrowIllegalArgumentExceptionWhenMinDelayIsOverMaxDelay() {
+        assertThrows(IllegalArgumentException.class, () -> new NetmeraHedging.NetmeraHedgingBuilder().minDelay(500).maxDelay(100).build());
+    }
+
+    private HedgingCallFactory factory(double budget) {
+        return new HedgingCallFactory(stub, new NetmeraHedging.NetmeraHedgingBuilder().minDelay(10).budget(budget).build(), NetmeraMetrics.NOOP);
+    }
+
+    /**
+     * @return factory whose endpoint has enough fast samples to be hedged after the min delay
+     */
+    private HedgingCallFactory warmedUp(double budget) throws Exception {
+        HedgingCallFactory factory = factory(budget);
+        for (int i = 0; i < 20; i++) {
+            Outcome outcome = new Outcome();
+            factory.newCall(GET).enqueue(outcome);
+            stub.awaitCall(i).respond(200);
+            outcome.response();
+        }
+        return factory;
+    }
+
+    private static void awaitBlockedHedgingThread() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if ("netmera-hedging".equals(thread.getName()) && thread.getState() == Thread.State.BLOCKED) {
+                    return;
+                }
+            }
+            Thread.sleep(1);
+        }
+        throw new AssertionError("hedge timer did not fire");
+    }
+
+    private static final class Outcome extends CompletableFuture<Object> implements Callback {
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            invocations.incrementAndGet();
+            complete(e);
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) {
+            invocations.incrementAndGet();
+            complete(response);
+        }
+
+        Response response() throws Exception {
+            return (Response) get(5, TimeUnit.SECONDS);
+        }
+
+        IOException failure() throws Exception {
+            return (IOException) get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static final class StubCallFactory implements Call.Factory {
+        private final List<StubCall> calls = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Call newCall(Request request) {
+            StubCall call = new StubCall(request);
+            calls.add(call);
+            return call;
+        }
+
+        StubCall awaitCall(int index) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (calls.size() <= index) {
+                if (System.nanoTime() > deadline) {
+                    throw new AssertionError("call " + index + " was not sent");
+                }
+                Thread.sleep(1);
+            }
+            return calls.get(index);
+        }
+    }
+
+    /**
+     * Call which is completed by the test, a canceled call fails like an OkHttp call does.
+     */
+    private static final class StubCall implements Call {
+        private final Request request;
+        private volatile Callback callback;
+        private volatile boolean canceled;
+        private volatile boolean finished;
+
+        private StubCall(Request request) {
+            this.request = request;
+        }
+
+        void respond(int code) throws IOException {
+            Callback responseCallback = finish();
+            if (responseCallback != null) {
+                responseCallback.onResponse(this, new Response.Builder().request(request).protocol(Protocol.HTTP_1_1)
+                        .code(code).message("").body(ResponseBody.create(null, "")).build());
+            }
+        }
+
+        void fail(IOException e) {
+            Callback responseCallback = finish();
+            if (responseCallback != null) {
+                responseCallback.onFailure(this, e);
+            }
+        }
+
+        private synchronized Callback finish() {
+            if (finished) {
+                return null;
+            }
+            finished = true;
+            return callback;
+        }
+
+        @Override
+        public Request request() {
+            return request;
+        }
+
+        @Override
+        public Response execute() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void enqueue(Callback responseCallback) {
+            callback = responseCallback;
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            fail(new IOException("Canceled"));
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return callback != null;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public Call clone() {
+            return new StubCall(request);
+        }
+    }
+}
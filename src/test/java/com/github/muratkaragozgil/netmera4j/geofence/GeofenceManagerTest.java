@@ -0,0 +1,145 @@
+package com.github.muratkaragozgil.netmera4j.geofence;
+
+import com.github.muratkaragozgil.netmera4j.FakeNetmera;
+import com.github.muratkaragozgil.netmera4j.constant.RadiusUnit;
+import com.github.muratkaragozgil.netmera4j.exception.ValidationException;
+import com.github.muratkaragozgil.netmera4j.request.notification.CreateGeofenceRequest;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class GeofenceManagerTest {
+
+    @Test
+    public void shouldSkipCoveredFences() throws Exception {
+        FakeNetmera fake = FakeNetmera.responding(200);
+        GeofenceManager manager = new GeofenceManager.GeofenceManagerBuilder(fake.netmera()).build();
+
+        // 111 meters north of the first center and 1113 meters north of it
+        GeofenceSyncResult result = create(manager, fence("mall", 41.0, 29.0, 500), fence("mall-entrance", 41.001, 29.0, 100),
+                fence("station", 41.01, 29.0, 100));
+
+        assertEquals(2, result.getCreated());
+        assertEquals(1, result.getSkipped());
+        assertEquals(Arrays.asList("mall", "station"), titles(fake));
+    }
+
+    @Test
+    public void shouldSkipFencesWhichStickOutWithinTheTolerance() throws Exception {
+        FakeNetmera fake = FakeNetmera.responding(200);
+        GeofenceManager tolerant = new GeofenceManager.GeofenceManagerBuilder(fake.netmera()).build();
+        GeofenceManager strict = new GeofenceManager.GeofenceManagerBuilder(fake.netmera()).tolerance(0).build();
+        // the center moved 22 meters
+        List<CreateGeofenceRequest> fences = Arrays.asList(fence("shop", 41.0, 29.0, 100), fence("shop-moved", 41.0002, 29.0, 100));
+
+        assertEquals(1, tolerant.create(fences).get(5, TimeUnit.SECONDS).getSkipped());
+        assertEquals(0, strict.create(fences).get(5, TimeUnit.SECONDS).getSkipped());
+    }
+
+    @Test
+    public void shouldFindFencesAcrossTheAntimeridian() throws Exception {
+        GeofenceManager covering = new GeofenceManager.GeofenceManagerBuilder(FakeNetmera.responding(200).netmera()).build();
+        GeofenceManager overlapping = new GeofenceManager.GeofenceManagerBuilder(FakeNetmera.responding(200).netmera())
+                .skipOverlapping(true).build();
+
+        GeofenceSyncResult covered = create(covering, fence("east", 10.0, 179.9999, 500), fence("west", 10.0, -179.9999, 100));
+        // 111 meters apart over the antimeridian, the far one is 1113 meters away from both
+        GeofenceSyncResult overlapped = create(overlapping, fence("east", 0.0, 179.9995, 300), fence("west", 0.0, -179.9995, 300),
+                fence("far", 0.0, -179.99, 300));
+
+        assertEquals(1, covered.getSkipped());
+        assertEquals(1, overlapped.getSkipped());
+        assertEquals(2, overlapped.getCreated());
+    }
+
+    @Test
+    public void shouldFindLargeFencesFarFromTheirCenter() throws Exception {
+        FakeNetmera fake = FakeNetmera.responding(200);
+        GeofenceManager manager = new GeofenceManager.GeofenceManagerBuilder(fake.netmera()).build();
+        CreateGeofenceRequest city = CreateGeofenceRequest.builder().title("city").latitude(41.0).longitude(29.0)
+                .radius(50).unit(RadiusUnit.KM).build();
+
+        // about 30 and 60 kilometers north of the city center
+        GeofenceSyncResult result = create(manager, city, fence("inside", 41.27, 29.0, 1000), fence("outside", 41.54, 29.0, 1000));
+
+        assertEquals(1, result.getSkipped());
+        assertEquals(Arrays.asList("city", "outside"), titles(fake));
+    }
+
+    @Test
+    public void shouldKeepLargeFencesInTheSavedIndex() throws Exception {
+        Path index = Files.createTempDirectory("geofence").resolve("fences.index");
+        GeofenceManager first = new GeofenceManager.GeofenceManagerBuilder(FakeNetmera.responding(200).netmera()).index(index).build();
+        create(first, fence("district", 41.0, 29.0, 20000), fence("shop", 40.0, 29.0, 100));
+
+        FakeNetmera fake = FakeNetmera.responding(200);
+        GeofenceManager second = new GeofenceManager.GeofenceManagerBuilder(fake.netmera()).index(index).build();
+        GeofenceSyncResult result = create(second, fence("square", 41.1, 29.0, 100), fence("shop", 40.0, 29.0, 100));
+
+        assertEquals(2, second.size());
+        assertEquals(2, result.getSkipped());
+        assertEquals(0, fake.requests().size());
+    }
+
+    @Test
+    public void shouldRemoveFailedLargeFencesFromTheIndex() throws Exception {
+        GeofenceManager failing = new GeofenceManager.GeofenceManagerBuilder(FakeNetmera.responding(500).netmera()).build();
+
+        GeofenceSyncResult result = create(failing, fence("district", 41.0, 29.0, 20000));
+
+        assertEquals(1, result.getFailed());
+        assertEquals(0, failing.size());
+        assertEquals(0, create(failing, fence("square", 41.1, 29.0, 100)).getSkipped());
+    }
+
+    @Test
+    public void shouldFailFencesWhoseSendThrowsOrCallFailsWithError() throws Exception {
+        FakeNetmera fake = new FakeNetmera(request -> {
+            String title = ((CreateGeofenceRequest) request).getTitle();
+            if (title.startsWith("closed")) {
+                throw new IllegalStateException("closed");
+            }
+            return title.equals("error") ? new OutOfMemoryError("test") : 200;
+        });
+        GeofenceManager manager = new GeofenceManager.GeofenceManagerBuilder(fake.netmera()).build();
+
+        // more throwing fences than permits, a leaked permit would block the last ones
+        GeofenceSyncResult result = create(manager, fence("closed-0", 30.0, 29.0, 100), fence("closed-1", 31.0, 29.0, 100),
+                fence("closed-2", 32.0, 29.0, 100), fence("closed-3", 33.0, 29.0, 100), fence("closed-4", 34.0, 29.0, 100),
+                fence("error", 35.0, 29.0, 100), fence("shop", 36.0, 29.0, 100));
+
+        assertEquals(6, result.getFailed());
+        assertEquals(1, result.getCreated());
+        assertEquals(1, manager.size());
+    }
+
+    @Test
+    public void shouldThrowValidationExceptionWhenGeofenceToleranceIsNegative() {
+        assertThrows(ValidationException.class, () -> new GeofenceManager.GeofenceManagerBuilder(FakeNetmera.responding(200).netmera()).tolerance(-1));
+    }
+
+    private static GeofenceSyncResult create(GeofenceManager manager, CreateGeofenceRequest... fences) throws Exception {
+        return manager.create(Arrays.asList(fences)).get(5, TimeUnit.SECONDS);
+    }
+
+    private static CreateGeofenceRequest fence(String title, double latitude, double longitude, int radius) {
+        return CreateGeofenceRequest.builder().title(title).latitude(latitude).longitude(longitude).radius(radius)
+                .groups(Collections.emptyList()).build();
+    }
+
+    private static List<String> titles(FakeNetmera fake) {
+        return fake.requests(CreateGeofenceRequest.class).stream().map(CreateGeofenceRequest::getTitle).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,161 @@
+package com.github.muratkaragozgil.netmera4j.importer;
+
+import com.github.muratkaragozgil.netmera4j.FakeNetmera;
+import com.github.muratkaragozgil.netmera4j.exception.ValidationException;
+import com.github.muratkaragozgil.netmera4j.request.device.AddNewDevicesRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.AddProfileAttributeRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.AddTagToUsersRequest;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class ImportPipelineTest {
+
+    private static final String USERS = "extId,deviceToken,platform,profile.name,tags\n"
+            + "user-1,token-1,IOS,Ada,vip|newsletter\n"
+            + "user-2,token-2,ANDROID,Grace,vip\n"
+            + "user-3,token-3,IOS,Alan,\n"
+            + "user-4,token-4,ANDROID,Linus,newsletter\n";
+
+    @Test
+    public void shouldImportDevicesProfilesAndTags() throws Exception {
+        FakeNetmera fake = FakeNetmera.responding(200);
+
+        ImportResult result = pipeline(fake).batchSize(2).build().run(file(USERS)).get(5, TimeUnit.SECONDS);
+
+        assertTrue(result.isSuccessful(), result.toString());
+        assertEquals(4, result.getRows());
+        assertEquals(4, result.getDevices());
+        assertEquals(4, result.getProfiles());
+        assertEquals(4, result.getTags());
+        assertEquals(2 + 2 + 2, result.getCalls());
+        assertEquals(Files.size(file(USERS)), result.getOffset());
+        assertEquals(2, fake.requests(AddTagToUsersRequest.class).size());
+    }
+
+    @Test
+    public void shouldSendProfilesAndTagsAfterTheDevicesOfTheirChunk() throws Exception {
+        FakeNetmera fake = FakeNetmera.holding();
+        Path file = file(USERS);
+        CompletableFuture<ImportResult> result = CompletableFuture.supplyAsync(() -> pipeline(fake).maxInFlight(10).build().run(file))
+                .thenCompose(run -> run);
+
+        FakeNetmera.Sent[] devices = new FakeNetmera.Sent[4];
+        for (int i = 0; i < devices.length; i++) {
+            devices[i] = fake.nextHeld();
+            assertTrue(devices[i].getRequest() instanceof AddNewDevicesRequest);
+        }
+        Thread.sleep(50);
+        assertEquals(4, fake.requests().size());
+        for (int i = 0; i < devices.length - 1; i++) {
+            devices[i].complete(200);
+        }
+        Thread.sleep(50);
+        assertEquals(4, fake.requests().size());
+        devices[3].complete(200);
+        for (int i = 0; i < 4 + 4; i++) {
+            FakeNetmera.Sent next = fake.nextHeld();
+            assertFalse(next.getRequest() instanceof AddNewDevicesRequest);
+            next.complete(200);
+        }
+
+        assertTrue(result.get(5, TimeUnit.SECONDS).isSuccessful());
+    }
+
+    @Test
+    public void shouldNotSendProfilesWhenADeviceBatchFails() throws Exception {
+        FakeNetmera fake = new FakeNetmera(request -> request instanceof AddNewDevicesRequest ? 500 : 200);
+
+        ImportResult result = pipeline(fake).build().run(file(USERS)).get(5, TimeUnit.SECONDS);
+
+        assertFalse(result.isSuccessful());
+        assertEquals(0, fake.requests(AddProfileAttributeRequest.class).size());
+        assertEquals(0, fake.requests(AddTagToUsersRequest.class).size());
+    }
+
+    @Test
+    public void shouldResumeAfterTheCompletedBatches() throws Exception {
+        Path file = file(USERS);
+        Path checkpoint = Files.createTempDirectory("import").resolve("users.checkpoint");
+        FakeNetmera failing = new FakeNetmera(new Function<Object, Object>() {
+            private int profiles;
+
+            @Override
+            public Object apply(Object request) {
+                return request instanceof AddProfileAttributeRequest && ++profiles == 2 ? 500 : 200;
+            }
+        });
+
+        ImportResult failed = pipeline(failing).maxInFlight(1).checkpoint(checkpoint).build().run(file).get(5, TimeUnit.SECONDS);
+        FakeNetmera fake = FakeNetmera.responding(200);
+        ImportResult resumed = pipeline(fake).maxInFlight(1).checkpoint(checkpoint).build().run(file).get(5, TimeUnit.SECONDS);
+
+        assertFalse(failed.isSuccessful());
+        assertEquals(5, failed.getCalls());
+        assertTrue(resumed.isSuccessful(), resumed.toString());
+        // 4 device batches and the first profile batch were completed by the failed run
+        assertEquals(5, resumed.getSkippedCalls());
+        assertEquals(0, fake.requests(AddNewDevicesRequest.class).size());
+        assertEquals(3, fake.requests(AddProfileAttributeRequest.class).size());
+        assertEquals(3, resumed.getProfiles());
+        assertEquals(4, resumed.getTags());
+        assertEquals(Files.size(file), resumed.getOffset());
+
+        ImportResult again = pipeline(fake).maxInFlight(1).checkpoint(checkpoint).build().run(file).get(5, TimeUnit.SECONDS);
+        assertEquals(0, again.getCalls());
+    }
+
+    @Test
+    public void shouldFailWhenSendRequestThrows() throws Exception {
+        FakeNetmera fake = new FakeNetmera(request -> {
+            if (request instanceof AddProfileAttributeRequest) {
+                throw new IllegalStateException("client closed");
+            }
+            return 200;
+        });
+
+        ImportResult result = pipeline(fake).maxInFlight(1).build().run(file(USERS)).get(5, TimeUnit.SECONDS);
+
+        assertFalse(result.isSuccessful());
+        assertTrue(result.getFailure().contains("client closed"), result.getFailure());
+        assertEquals(4, result.getDevices());
+    }
+
+    @Test
+    public void shouldFailWhenTheCallFailsWithAnError() throws Exception {
+        FakeNetmera fake = new FakeNetmera(request -> request instanceof AddTagToUsersRequest ? new AssertionError("boom") : 200);
+
+        ImportResult result = pipeline(fake).maxInFlight(1).build().run(file(USERS)).get(5, TimeUnit.SECONDS);
+
+        assertFalse(result.isSuccessful());
+        assertTrue(result.getFailure().contains("boom"), result.getFailure());
+    }
+
+    @Test
+    public void shouldThrowValidationExceptionWhenBatchSizeIsZero() {
+        assertThrows(ValidationException.class, () -> pipeline(FakeNetmera.responding(200)).batchSize(0));
+    }
+
+    private static ImportPipeline.ImportPipelineBuilder pipeline(FakeNetmera fake) {
+        return new ImportPipeline.ImportPipelineBuilder(fake.netmera(), ImportFormat.CSV).batchSize(1).parallelism(1);
+    }
+
+    private static Path file(String content) throws Exception {
+        Path file = Files.createTempFile("users", ".csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,163 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import com.github.muratkaragozgil.netmera4j.constant.Platform;
+import com.github.muratkaragozgil.netmera4j.constant.TargetCondition;
+import com.github.muratkaragozgil.netmera4j.model.notification.AdvanceTarget;
+import com.github.muratkaragozgil.netmera4j.model.notification.BulkMessage;
+import com.github.muratkaragozgil.netmera4j.model.notification.ClickAction;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendBulkNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.response.GetPushResultResponse;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures request encoding and response decoding of every codec against Gson's reflective adapters, the
+ * baseline the handwritten adapters replaced. Not a test, run it with
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.github.muratkaragozgil.netmera4j.json.NetmeraCodecBenchmark
+ * </pre>
+ * Every case is warmed up and then measured in several rounds, the best and median rounds are printed in
+ * nanoseconds per operation. Results of the cases are folded into a printed checksum so the JIT can not drop them.
+ *
+ * @author Murat Karagözgil
+ */
+public class NetmeraCodecBenchmark {
+
+    private static final int WARM_UP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final long ROUND_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private static long checksum;
+
+    public static void main(String[] args) throws IOException {
+        SendBulkNotificationRequest bulkRequest = bulkRequest();
+        byte[] resultPage = resultPage(100);
+        Gson reflective = new Gson();
+        Map<String, NetmeraCodec> codecs = new LinkedHashMap<>();
+        codecs.put("reflective gson", new NetmeraCodec() {
+            @Override
+            public void write(Object value, Type type, OutputStream out) throws IOException {
+                JsonWriter writer = reflective.newJsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                reflective.toJson(value, type, writer);
+                writer.flush();
+            }
+
+            @Override
+            public <T> T read(Type type, InputStream in) {
+                return reflective.fromJson(new InputStreamReader(in, StandardCharsets.UTF_8), type);
+            }
+        });
+        codecs.put("gson", NetmeraCodec.GSON);
+        codecs.put("jackson", new JacksonCodec());
+        codecs.put("jackson streaming", new JacksonStreamingCodec());
+
+        System.out.printf("%-45s %12s %12s%n", "case", "best ns/op", "median ns/op");
+        for (Map.Entry<String, NetmeraCodec> codec : codecs.entrySet()) {
+            measure("encode bulk request, " + codec.getKey(), () -> {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+                codec.getValue().write(bulkRequest, SendBulkNotificationRequest.class, out);
+                return out.size();
+            });
+        }
+        for (Map.Entry<String, NetmeraCodec> codec : codecs.entrySet()) {
+            measure("decode 100 push results, " + codec.getKey(), () -> {
+                GetPushResultResponse response = codec.getValue().read(GetPushResultResponse.class, new ByteArrayInputStream(resultPage));
+                return response.getList().size();
+            });
+        }
+        String[] platformNames = {"IOS", "android", "Chrome", "FIREFOX", "macos"};
+        measure("Platform.getPlatform", () -> {
+            long sum = 0;
+            for (String name : platformNames) {
+                sum += Platform.getPlatform(name).ordinal();
+            }
+            return sum;
+        });
+        System.out.println("checksum " + checksum);
+    }
+
+    private static void measure(String name, Case benchmarkCase) throws IOException {
+        for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+            round(benchmarkCase);
+        }
+        double[] rounds = new double[MEASURED_ROUNDS];
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            rounds[round] = round(benchmarkCase);
+        }
+        Arrays.sort(rounds);
+        System.out.printf("%-45s %12.1f %12.1f%n", name, rounds[0], rounds[MEASURED_ROUNDS / 2]);
+    }
+
+    /**
+     * @return nanoseconds per operation of one round
+     */
+    private static double round(Case benchmarkCase) throws IOException {
+        long operations = 0;
+        long sum = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 100; i++) {
+                sum += benchmarkCase.run();
+            }
+            operations += 100;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ROUND_NANOS);
+        checksum += sum;
+        return (double) elapsed / operations;
+    }
+
+    private static SendBulkNotificationRequest bulkRequest() {
+        BulkMessage message = BulkMessage.builder().title("Weekend sale").text("Everything is 20% off until Sunday")
+                .platforms(Arrays.asList(Platform.IOS, Platform.ANDROID))
+                .click(new ClickAction("https://example.com/sale", false))
+                .build();
+        Map<String, Object> customJson = new LinkedHashMap<>();
+        customJson.put("campaign", "weekend-sale");
+        customJson.put("discount", 20);
+        message.setCustomJson(customJson);
+        List<String> extIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            extIds.add("user-" + i);
+        }
+        return new SendBulkNotificationRequest(message, new AdvanceTarget.AdvanceTargetBuilder()
+                .addTag(TargetCondition.OR, Arrays.asList("vip", "newsletter"))
+                .externalId(extIds)
+                .build());
+    }
+
+    private static byte[] resultPage(int rows) {
+        StringBuilder json = new StringBuilder("{\"nextPage\":\"page-2\",\"list\":[");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"platform\":\"").append(i % 2 == 0 ? "IOS" : "ANDROID").append("\",\"status\":\"FINISHED\",")
+                    .append("\"errorCode\":\"").append(i % 10 == 0 ? "InvalidToken" : "").append("\",")
+                    .append("\"installationId\":\"installation-").append(i).append("\",\"extId\":\"user-").append(i).append("\",")
+                    .append("\"timeStamp\":").append(1600000000000L + i).append(",\"msgTitle\":\"Weekend sale\",")
+                    .append("\"msgText\":\"Everything is 20% off until Sunday\"}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private interface Case {
+        long run() throws IOException;
+    }
+}
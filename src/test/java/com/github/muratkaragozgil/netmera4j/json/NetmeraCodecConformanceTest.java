@@ -0,0 +1,175 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import com.github.muratkaragozgil.netmera4j.constant.Platform;
+import com.github.muratkaragozgil.netmera4j.constant.RadiusUnit;
+import com.github.muratkaragozgil.netmera4j.constant.TargetCondition;
+import com.github.muratkaragozgil.netmera4j.exception.NetmeraError;
+import com.github.muratkaragozgil.netmera4j.model.device.Category;
+import com.github.muratkaragozgil.netmera4j.model.device.NewDevice;
+import com.github.muratkaragozgil.netmera4j.model.device.SingleUnsetObject;
+import com.github.muratkaragozgil.netmera4j.model.device.UserAndProfileAttributeList;
+import com.github.muratkaragozgil.netmera4j.model.device.UserAndProfileAttributeMap;
+import com.github.muratkaragozgil.netmera4j.model.notification.*;
+import com.github.muratkaragozgil.netmera4j.request.device.AddTagToUsersRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.DisablePushRequestWithToken;
+import com.github.muratkaragozgil.netmera4j.request.notification.CreateGeofenceRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.CreateTransactionalNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendBulkNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTemplatedBulkNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTemplatedTransactionalNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTransactionalNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.response.*;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+import retrofit2.Converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Every codec must write the same bytes as Gson's reflective adapters through {@code Gson.newJsonWriter}, the
+ * original wire format of the client, and read responses into the same values.
+ *
+ * @author Murat Karagözgil
+ */
+public class NetmeraCodecConformanceTest {
+
+    private static final Gson REFERENCE = new Gson();
+    private static final NetmeraCodec[] CODECS = {NetmeraCodec.GSON, new JacksonCodec(), new JacksonStreamingCodec()};
+
+    @Test
+    public void shouldWriteSameRequestBodiesWithEveryCodec() throws IOException {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("count", 1);
+        params.put("html", "<b>a & b</b> 'quoted' = \"x\"");
+        params.put("control", "line\nbreak\ttab\u0001\u2028");
+        params.put("emoji", "\uD83D\uDE00");
+        params.put("missing", null);
+        params.put("list", Arrays.asList(1.5, "text", null, true));
+        params.put("nested", Collections.singletonMap("key", 2L));
+        Map<String, List<Object>> profile = new LinkedHashMap<>();
+        profile.put("age", Arrays.asList(30, "31"));
+        profile.put("empty", null);
+
+        BulkMessage bulkMessage = BulkMessage.builder().title("Title").text("Text çğü")
+                .platforms(Arrays.asList(Platform.IOS, null, Platform.ANDROID))
+                .schedule(new Schedule("2020-01-01", true))
+                .speed(new Speed(5, null))
+                .click(new ClickAction(null, true))
+                .build();
+        bulkMessage.setTtl("1d");
+        bulkMessage.setInbox(false);
+        bulkMessage.setIos(new MediaSettings("url", null, "subtitle", null, true, false));
+        bulkMessage.setCustomJson(params);
+        Target advanceTarget = new AdvanceTarget.AdvanceTargetBuilder()
+                .addTag(TargetCondition.AND, Arrays.asList("tag1", "tag2"))
+                .addSegment(TargetCondition.NOT, Arrays.asList("segment"))
+                .location(new Location(41.01, 28.97, 5))
+                .externalId(Arrays.asList("ext1", null))
+                .profile(profile)
+                .build();
+        Target basicTarget = new BasicTarget.BasicTargetBuilder().addTag("tag").sendToAll(true).build();
+        SingleMessage singleMessage = new SingleMessage(params);
+        singleMessage.setDoNotNotify(true);
+        Map<String, String> hookParams = new LinkedHashMap<>();
+        hookParams.put("a", "b");
+        hookParams.put("c", null);
+
+        assertSameBodies(new SendBulkNotificationRequest(bulkMessage, advanceTarget), SendBulkNotificationRequest.class);
+        assertSameBodies(new SendBulkNotificationRequest(bulkMessage, basicTarget), SendBulkNotificationRequest.class);
+        assertSameBodies(new SendTransactionalNotificationRequest("key", singleMessage, new Target.TargetBuilder().derviceToken("token").build()), SendTransactionalNotificationRequest.class);
+        assertSameBodies(new CreateTransactionalNotificationRequest("title", "message", null, true, Arrays.asList(Platform.IOS),
+                new ClickAction("url", false), null, new MediaSettings(), new HookSettings("hook", hookParams)), CreateTransactionalNotificationRequest.class);
+        assertSameBodies(CreateGeofenceRequest.builder().title("geofence").latitude(1.0).longitude(2.5e-7).radius(3).unit(RadiusUnit.Miles).build(), CreateGeofenceRequest.class);
+        assertSameBodies(new DisablePushRequestWithToken("token"), DisablePushRequestWithToken.class);
+        assertSameBodies(new AddTagToUsersRequest("tag", Arrays.asList("a", "b")), AddTagToUsersRequest.class);
+        assertSameBodies(Arrays.asList(NewDevice.builder().deviceToken("token").platform(Platform.FIREFOX).build()), new TypeToken<List<NewDevice>>() {
+        }.getType());
+        assertSameBodies(Arrays.asList(new Category("ext", "category", true), null), new TypeToken<List<Category>>() {
+        }.getType());
+        assertSameBodies(Arrays.asList(new UserAndProfileAttributeMap("ext", params)), new TypeToken<List<UserAndProfileAttributeMap>>() {
+        }.getType());
+        assertSameBodies(Arrays.asList(new UserAndProfileAttributeList("ext", profile)), new TypeToken<List<UserAndProfileAttributeList>>() {
+        }.getType());
+        assertSameBodies(Arrays.asList(SingleUnsetObject.builder().extId("ext").profile(Arrays.asList("name", 1)).build()), new TypeToken<List<SingleUnsetObject>>() {
+        }.getType());
+    }
+
+    @Test
+    public void shouldSpliceTemplatedBodiesLikeUntemplatedBodies() throws IOException {
+        Target target = new AdvanceTarget.AdvanceTargetBuilder().addTag(TargetCondition.OR, Arrays.asList("tag")).externalId(Arrays.asList("ext")).build();
+        BulkMessage bulkMessage = BulkMessage.builder().title("Title").text("Text").platforms(Arrays.asList(Platform.IOS)).build();
+        SingleMessage singleMessage = new SingleMessage(Collections.singletonMap("name", "default"));
+        singleMessage.setTtl("1h");
+        Map<String, Object> params = Collections.singletonMap("name", "John \"Doe\"");
+
+        for (NetmeraCodec codec : CODECS) {
+            String name = codec.getClass().getSimpleName();
+            assertEquals(requestBody(codec, new SendBulkNotificationRequest(bulkMessage, target), SendBulkNotificationRequest.class),
+                    requestBody(codec, new SendTemplatedBulkNotificationRequest(MessageTemplate.of(bulkMessage), target), SendTemplatedBulkNotificationRequest.class), name);
+            assertEquals(requestBody(codec, new SendTransactionalNotificationRequest("key", singleMessage, target), SendTransactionalNotificationRequest.class),
+                    requestBody(codec, new SendTemplatedTransactionalNotificationRequest("key", MessageTemplate.of(singleMessage), null, target), SendTemplatedTransactionalNotificationRequest.class), name);
+            SingleMessage personalized = new SingleMessage(params);
+            personalized.setTtl("1h");
+            assertEquals(requestBody(codec, new SendTransactionalNotificationRequest("key", personalized, target), SendTransactionalNotificationRequest.class),
+                    requestBody(codec, new SendTemplatedTransactionalNotificationRequest("key", MessageTemplate.of(singleMessage), params, target), SendTemplatedTransactionalNotificationRequest.class), name);
+        }
+    }
+
+    @Test
+    public void shouldReadSameResponsesWithEveryCodec() throws IOException {
+        assertSameValues("{\"notificationKey\":\"12\",\"unknown\":{\"a\":[1,2]}}", NotificationResponse.class);
+        assertSameValues("{\"messages\":[{\"notificationKey\":1,\"status\":\"FINISHED\",\"startDate\":123456789012,\"endDate\":null,"
+                + "\"stats\":[{\"platform\":\"IOS\",\"sent\":10,\"failed\":1,\"clicked\":2},null,{\"platform\":\"WINDOWS\"}]}]}", GetPushStatsInDateRangeResponse.class);
+        assertSameValues("{\"nextPage\":\"page\",\"list\":[{\"platform\":\"ANDROID\",\"status\":\"SENDING\",\"errorCode\":404,\"installationId\":\"id\","
+                + "\"extId\":true,\"errorMsg\":\"message\",\"timeStamp\":\"5\",\"msgTitle\":\"title\",\"msgText\":\"text\"}]}", GetPushResultResponse.class);
+        assertSameValues("{\"total\":2,\"devices\":[{\"platform\":\"IOS\",\"token\":\"token\",\"pushPermitted\":\"true\"},{\"pushPermitted\":null}]}", GetDeviceTokensResponse.class);
+        assertSameValues("{\"extId\":\"ext\",\"profile\":{\"age\":30,\"tags\":[1,\"a\"],\"address\":{\"city\":null}}}", GetProfileAttributesResponse.class);
+        assertSameValues("{\"error\":\"Bad Request\",\"code\":400}", NetmeraError.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void assertSameBodies(Object value, Type type) throws IOException {
+        StringWriter reference = new StringWriter();
+        JsonWriter jsonWriter = REFERENCE.newJsonWriter(reference);
+        // the adapter is used directly like Retrofit's converter does, Gson.toJson would also escape html characters
+        ((TypeAdapter<Object>) REFERENCE.getAdapter(TypeToken.get(type))).write(jsonWriter, value);
+        jsonWriter.flush();
+        String expected = reference.toString();
+        for (NetmeraCodec codec : CODECS) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            codec.write(value, type, out);
+            assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8), codec.getClass().getSimpleName());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String requestBody(NetmeraCodec codec, Object value, Type type) throws IOException {
+        Converter<Object, RequestBody> converter = (Converter<Object, RequestBody>) NetmeraConverterFactory.create(codec)
+                .requestBodyConverter(type, new Annotation[0], new Annotation[0], null);
+        Buffer buffer = new Buffer();
+        converter.convert(value).writeTo(buffer);
+        return buffer.readUtf8();
+    }
+
+    private static void assertSameValues(String json, Type type) throws IOException {
+        String expected = REFERENCE.toJson(REFERENCE.fromJson(json, type), type);
+        for (NetmeraCodec codec : CODECS) {
+            Object value = codec.read(type, new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+            assertEquals(expected, REFERENCE.toJson(value, type), codec.getClass().getSimpleName());
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.github.muratkaragozgil.netmera4j.json;
+
+import com.github.muratkaragozgil.netmera4j.constant.Platform;
+import com.github.muratkaragozgil.netmera4j.constant.RadiusUnit;
+import com.github.muratkaragozgil.netmera4j.constant.SendStatus;
+import com.github.muratkaragozgil.netmera4j.constant.TargetCondition;
+import com.github.muratkaragozgil.netmera4j.exception.NetmeraError;
+import com.github.muratkaragozgil.netmera4j.model.device.Category;
+import com.github.muratkaragozgil.netmera4j.model.device.NewDevice;
+import com.github.muratkaragozgil.netmera4j.model.device.SingleUnsetObject;
+import com.github.muratkaragozgil.netmera4j.model.device.UserAndProfileAttributeList;
+import com.github.muratkaragozgil.netmera4j.model.device.UserAndProfileAttributeMap;
+import com.github.muratkaragozgil.netmera4j.model.notification.*;
+import com.github.muratkaragozgil.netmera4j.request.device.*;
+import com.github.muratkaragozgil.netmera4j.request.notification.CreateGeofenceRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.CreateTransactionalNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendBulkNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTransactionalNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.response.*;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trips through the handwritten adapters: request bodies are written by their adapter and read back by
+ * {@link NetmeraGson#requestReader()}, responses are written by the reflective fallback and read back by their adapter.
+ *
+ * @author Murat Karagözgil
+ */
+public class NetmeraTypeAdapterFactoryTest {
+
+    private static final Gson GSON = NetmeraGson.get();
+    private static final Gson REFERENCE = new Gson();
+
+    @Test
+    public void shouldReadWrittenNotificationRequestsBack() {
+        Map<String, Object> customJson = new LinkedHashMap<>();
+        customJson.put("campaign", "sale \"20%\" <b>");
+        customJson.put("emoji", "😀");
+        customJson.put("nested", Collections.singletonMap("list", Arrays.asList("a", 1.5, true)));
+        BulkMessage bulkMessage = BulkMessage.builder().title("Title").text("Text çğü")
+                .platforms(Arrays.asList(Platform.IOS, Platform.ANDROID))
+                .schedule(new Schedule("2020-01-01", true))
+                .speed(new Speed(5, 10))
+                .click(new ClickAction("https://example.com", false))
+                .build();
+        bulkMessage.setTtl("1d");
+        bulkMessage.setCustomJson(customJson);
+        bulkMessage.setAndroid(new MediaSettings("url", "big", "subtitle", "sound", true, false));
+        Map<String, List<Object>> profile = new LinkedHashMap<>();
+        profile.put("age", Arrays.asList(30.0, "31"));
+        Target advanceTarget = new AdvanceTarget.AdvanceTargetBuilder()
+                .addTag(TargetCondition.AND, Arrays.asList("tag1", "tag2"))
+                .addSegment(TargetCondition.NOT, Arrays.asList("segment"))
+                .location(new Location(41.01, 28.97, 5))
+                .externalId(Arrays.asList("ext1", "ext2"))
+                .profile(profile)
+                .build();
+        Target basicTarget = new BasicTarget.BasicTargetBuilder().addTag("tag").addSegment("segment").sendToAll(true).build();
+        SingleMessage singleMessage = new SingleMessage(Collections.singletonMap("name", "John"));
+        singleMessage.setDoNotNotify(true);
+        Map<String, String> hookParams = new LinkedHashMap<>();
+        hookParams.put("a", "b");
+
+        assertRoundTrip(new SendBulkNotificationRequest(bulkMessage, advanceTarget), SendBulkNotificationRequest.class);
+        assertRoundTrip(new SendBulkNotificationRequest(bulkMessage, basicTarget), SendBulkNotificationRequest.class);
+        assertRoundTrip(new SendBulkNotificationRequest(BulkMessage.builder().build(), new Target.TargetBuilder().build()), SendBulkNotificationRequest.class);
+        assertRoundTrip(new SendTransactionalNotificationRequest("key", singleMessage, new Target.TargetBuilder().derviceToken("token").build()), SendTransactionalNotificationRequest.class);
+        assertRoundTrip(new CreateTransactionalNotificationRequest("title", "message", "personalized", true, Arrays.asList(Platform.CHROME),
+                new ClickAction("url", true), null, new MediaSettings(), new HookSettings("hook", hookParams)), CreateTransactionalNotificationRequest.class);
+        assertRoundTrip(CreateGeofenceRequest.builder().title("geofence").latitude(41.0).longitude(-2.5e-7).radius(3).unit(RadiusUnit.Miles).build(), CreateGeofenceRequest.class);
+    }
+
+    @Test
+    public void shouldReadWrittenDeviceRequestsBack() {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("name", "John");
+        attributes.put("age", 30.0);
+        Map<String, List<Object>> profile = new LinkedHashMap<>();
+        profile.put("tags", Arrays.asList("a", "b"));
+
+        assertRoundTrip(new DisablePushRequestWithExternalId("ext"), DisablePushRequestWithExternalId.class);
+        assertRoundTrip(new DisablePushRequestWithToken("token"), DisablePushRequestWithToken.class);
+        assertRoundTrip(new EnablePushRequestWithExternalId("ext"), EnablePushRequestWithExternalId.class);
+        assertRoundTrip(new EnablePushRequestWithToken("token"), EnablePushRequestWithToken.class);
+        assertRoundTrip(new AddTagToUsersRequest("tag", Arrays.asList("a", "b")), AddTagToUsersRequest.class);
+        assertRoundTrip(new RemoveTagFromUsersRequest("tag", Collections.singletonList("a")), RemoveTagFromUsersRequest.class);
+        assertRoundTrip(new DeleteProfileAttributeFromAllUsersRequest("key", "value"), DeleteProfileAttributeFromAllUsersRequest.class);
+        assertRoundTrip(Arrays.asList(NewDevice.builder().deviceToken("token").platform(Platform.FIREFOX).build(), null), new TypeToken<List<NewDevice>>() {
+        }.getType());
+        assertRoundTrip(Arrays.asList(new Category("ext", "category", true)), new TypeToken<List<Category>>() {
+        }.getType());
+        assertRoundTrip(Arrays.asList(new UserAndProfileAttributeMap("ext", attributes)), new TypeToken<List<UserAndProfileAttributeMap>>() {
+        }.getType());
+        assertRoundTrip(Arrays.asList(new UserAndProfileAttributeList("ext", profile)), new TypeToken<List<UserAndProfileAttributeList>>() {
+        }.getType());
+        assertRoundTrip(Arrays.asList(SingleUnsetObject.builder().extId("ext").profile(Arrays.asList("name", "age")).build()), new TypeToken<List<SingleUnsetObject>>() {
+        }.getType());
+    }
+
+    @Test
+    public void shouldReadResponsesWrittenByReflectiveAdapters() {
+        GetPushStatsInDateRangeResponse stats = GSON.fromJson("{\"messages\":[{\"notificationKey\":1,\"status\":\"FINISHED\",\"startDate\":123456789012,"
+                + "\"stats\":[{\"platform\":\"IOS\",\"sent\":10,\"failed\":1,\"clicked\":2}]}]}", GetPushStatsInDateRangeResponse.class);
+        GetPushResultResponse results = GSON.fromJson("{\"nextPage\":\"page\",\"list\":[{\"platform\":\"ANDROID\",\"status\":\"SENDING\","
+                + "\"errorCode\":\"404\",\"installationId\":\"id\",\"extId\":\"ext\",\"errorMsg\":\"message\",\"timeStamp\":5,"
+                + "\"msgTitle\":\"title\",\"msgText\":\"text\"}]}", GetPushResultResponse.class);
+        GetDeviceTokensResponse tokens = GSON.fromJson("{\"nextPage\":\"page\",\"total\":1,\"devices\":[{\"platform\":\"IOS\",\"token\":\"token\","
+                + "\"deviceModel\":\"model\",\"installationId\":\"installation\",\"pushPermitted\":true}]}", GetDeviceTokensResponse.class);
+
+        assertEquals(SendStatus.FINISHED, stats.getMessages().get(0).getStatus());
+        assertEquals(123456789012L, (long) stats.getMessages().get(0).getStartDate());
+        assertEquals(2, (int) stats.getMessages().get(0).getStats().get(0).getClicked());
+        assertEquals("404", results.getList().get(0).getErrorCode());
+        assertEquals(5L, (long) results.getList().get(0).getTimeStamp());
+        assertTrue(tokens.getDevices().get(0).isPushPermitted());
+        assertResponseRoundTrip(stats, GetPushStatsInDateRangeResponse.class);
+        assertResponseRoundTrip(stats.getMessages().get(0), GetPushStatsResponse.class);
+        assertResponseRoundTrip(results, GetPushResultResponse.class);
+        assertResponseRoundTrip(tokens, GetDeviceTokensResponse.class);
+        assertResponseRoundTrip(GSON.fromJson("{\"notificationKey\":12}", NotificationResponse.class), NotificationResponse.class);
+        assertResponseRoundTrip(GSON.fromJson("{\"extId\":\"ext\",\"devices\":[{\"platform\":\"CHROME\",\"token\":\"t\"}]}", GetUserDevicesResponse.class), GetUserDevicesResponse.class);
+        assertResponseRoundTrip(GSON.fromJson("{\"extId\":\"ext\",\"profile\":{\"age\":30,\"tags\":[\"a\"],\"address\":{\"city\":\"Istanbul\"}}}",
+                GetProfileAttributesResponse.class), GetProfileAttributesResponse.class);
+        assertResponseRoundTrip(GSON.fromJson("{\"error\":\"Bad Request\",\"code\":400}", NetmeraError.class), NetmeraError.class);
+    }
+
+    @Test
+    public void shouldReadUnknownEnumNamesAsNull() {
+        SingleResult result = GSON.fromJson("{\"platform\":\"WINDOWS\",\"status\":\"UNKNOWN\",\"extId\":\"ext\"}", SingleResult.class);
+
+        assertNull(result.getPlatform());
+        assertNull(result.getStatus());
+        assertEquals("ext", result.getExtId());
+    }
+
+    @Test
+    public void shouldWriteNullBodyAsNull() {
+        assertEquals("null", GSON.toJson(null, SendBulkNotificationRequest.class));
+        assertNull(GSON.fromJson("null", NotificationResponse.class));
+    }
+
+    /**
+     * Writes the value with its handwritten adapter, reads it back and writes it again. Both writes must be the same
+     * and equal to the reflective adapter's output.
+     */
+    private static void assertRoundTrip(Object value, Type type) {
+        String written = GSON.toJson(value, type);
+        Object read = NetmeraGson.requestReader().fromJson(written, type);
+
+        assertEquals(REFERENCE.toJson(value, type), written, type.getTypeName());
+        assertEquals(written, GSON.toJson(read, type), type.getTypeName());
+    }
+
+    /**
+     * Writes the response with the reflective fallback and reads it back with its handwritten adapter.
+     */
+    private static void assertResponseRoundTrip(Object value, Type type) {
+        String written = GSON.toJson(value, type);
+        Object read = GSON.fromJson(written, type);
+
+        assertEquals(REFERENCE.toJson(value, type), written, type.getTypeName());
+        assertEquals(written, GSON.toJson(read, type), type.getTypeName());
+    }
+}
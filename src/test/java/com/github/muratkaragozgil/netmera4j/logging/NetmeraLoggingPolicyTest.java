@@ -0,0 +1,72 @@
+package com.github.muratkaragozgil.netmera4j.logging;
+
+import com.github.muratkaragozgil.netmera4j.exception.ValidationException;
+import com.github.muratkaragozgil.netmera4j.request.device.AddTagToUsersRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class NetmeraLoggingPolicyTest {
+
+    @Test
+    public void shouldRenderPayloadWithToStringByDefault() {
+        AddTagToUsersRequest request = new AddTagToUsersRequest("vip", Collections.singletonList("a"));
+
+        assertEquals(request.toString(), NetmeraLoggingPolicy.DEFAULT.render(request).toString());
+    }
+
+    @Test
+    public void shouldRenderShortPayloadFullyAsJson() {
+        NetmeraLoggingPolicy policy = new NetmeraLoggingPolicy.NetmeraLoggingPolicyBuilder().maxPayloadLength(100).build();
+
+        String rendered = policy.render(new AddTagToUsersRequest("vip", Collections.singletonList("a"))).toString();
+
+        assertEquals("{\"tag\":\"vip\",\"extIds\":[\"a\"]}", rendered);
+    }
+
+    @Test
+    public void shouldStopRenderingAtMaxPayloadLength() {
+        AtomicInteger read = new AtomicInteger();
+        NetmeraLoggingPolicy policy = new NetmeraLoggingPolicy.NetmeraLoggingPolicyBuilder().maxPayloadLength(100).build();
+
+        String rendered = policy.render(new AddTagToUsersRequest("vip", new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                read.incrementAndGet();
+                return "user-" + index;
+            }
+
+            @Override
+            public int size() {
+                return 10_000_000;
+            }
+        })).toString();
+
+        assertEquals(100 + "...(truncated)".length(), rendered.length());
+        assertTrue(rendered.startsWith("{\"tag\":\"vip\",\"extIds\":[\"user-0\",\"user-1\","));
+        assertTrue(read.get() < 20, "read " + read.get() + " ids for 100 chars");
+    }
+
+    @Test
+    public void shouldTruncateSummary() {
+        NetmeraLoggingPolicy policy = new NetmeraLoggingPolicy.NetmeraLoggingPolicyBuilder().maxPayloadLength(10).summarize(true).build();
+
+        String rendered = policy.render(new AddTagToUsersRequest("vip", Collections.singletonList("a"))).toString();
+
+        assertEquals("AddTagToUs...(29 chars truncated)", rendered);
+    }
+
+    @Test
+    public void shouldThrowValidationExceptionWhenSetLoggingSampleRateGreaterThanOne() {
+        assertThrows(ValidationException.class, () -> new NetmeraLoggingPolicy.NetmeraLoggingPolicyBuilder().responseSampleRate(1.5).build());
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.muratkaragozgil.netmera4j.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldReturnZeroWhenNothingIsRecorded() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean());
+    }
+
+    @Test
+    public void shouldKeepSmallValuesExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 100; micros++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(50), histogram.getValueAtPercentile(50));
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(99), histogram.getValueAtPercentile(99));
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(100), histogram.getValueAtPercentile(100));
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1), histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void shouldReturnPercentilesWithinRelativePrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        assertEquals(1000, histogram.getTotalCount());
+        assertWithinPrecision(TimeUnit.MILLISECONDS.toNanos(500), histogram.getValueAtPercentile(50));
+        assertWithinPrecision(TimeUnit.MILLISECONDS.toNanos(900), histogram.getValueAtPercentile(90));
+        assertWithinPrecision(TimeUnit.MILLISECONDS.toNanos(990), histogram.getValueAtPercentile(99));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), histogram.getMax());
+        assertWithinPrecision(TimeUnit.MICROSECONDS.toNanos(500500), histogram.getMean());
+    }
+
+    @Test
+    public void shouldNotReportPercentileOverMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(1001));
+
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1001), histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void shouldClampNegativeAndHugeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(TimeUnit.DAYS.toNanos(30));
+
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertTrue(histogram.getMax() < TimeUnit.DAYS.toNanos(1));
+        assertTrue(histogram.getValueAtPercentile(100) <= histogram.getMax());
+    }
+
+    @Test
+    public void shouldMapEveryBucketToItsHighestEquivalentValue() {
+        for (long micros = 1; micros < (1L << 30); micros = micros * 3 + 1) {
+            long highest = LatencyHistogram.highestEquivalentValue(LatencyHistogram.indexOf(micros));
+            assertTrue(highest >= micros, micros + " is over its bucket " + highest);
+            assertTrue(highest - micros <= micros / 64, micros + " is not within precision of " + highest);
+        }
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue(Math.abs(expected - actual) <= expected / 64, "expected ~" + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,243 @@
+package com.github.muratkaragozgil.netmera4j.ordered;
+
+import com.github.muratkaragozgil.netmera4j.FakeNetmera;
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.exception.ValidationException;
+import com.github.muratkaragozgil.netmera4j.request.device.AddTagToUsersRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.DisablePushRequestWithExternalId;
+import com.github.muratkaragozgil.netmera4j.request.device.EnablePushRequestWithExternalId;
+import org.junit.jupiter.api.Test;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class OrderedNetmeraTest {
+
+    @Test
+    public void shouldSendTheRequestsOfAUserInOrder() throws Exception {
+        FakeNetmera fake = FakeNetmera.holding();
+        OrderedNetmera netmera = new OrderedNetmera.OrderedNetmeraBuilder(fake.netmera()).build();
+        EnablePushRequestWithExternalId enable = new EnablePushRequestWithExternalId("user-1");
+        AddTagToUsersRequest tag = new AddTagToUsersRequest("vip", Collections.singletonList("user-1"));
+        DisablePushRequestWithExternalId disable = new DisablePushRequestWithExternalId("user-1");
+
+        netmera.sendRequest(enable, new Outcome<>());
+        netmera.sendRequest(tag, new Outcome<>());
+        netmera.sendRequest(disable, new Outcome<>());
+
+        // the next request of the user is sent when the one before it is completed
+        FakeNetmera.Sent first = fake.nextHeld();
+        assertSame(enable, first.getRequest());
+        assertEquals(0, fake.heldCount());
+        first.complete(200);
+        FakeNetmera.Sent second = fake.nextHeld();
+        assertSame(tag, second.getRequest());
+        second.complete(500);
+        FakeNetmera.Sent third = fake.nextHeld();
+        assertSame(disable, third.getRequest());
+        third.complete(200);
+        assertEquals(0, netmera.getQueued());
+    }
+
+    @Test
+    public void shouldSendTheRequestsOfOtherUsersAtOnce() throws Exception {
+        FakeNetmera fake = FakeNetmera.holding();
+        OrderedNetmera netmera = new OrderedNetmera.OrderedNetmeraBuilder(fake.netmera()).stripes(64).build();
+        String other = otherStripe("user-1");
+
+        netmera.sendRequest(new EnablePushRequestWithExternalId("user-1"), new Outcome<>());
+        netmera.sendRequest(new EnablePushRequestWithExternalId(other), new Outcome<>());
+
+        assertEquals(2, fake.heldCount());
+    }
+
+    @Test
+    public void shouldRejectTheRequestsOfAHotKey() throws Exception {
+        FakeNetmera fake = FakeNetmera.holding();
+        OrderedNetmera netmera = new OrderedNetmera.OrderedNetmeraBuilder(fake.netmera()).maxQueuedPerStripe(10).maxQueuedPerKey(2).build();
+        String other = sameStripe("user-1");
+        Outcome<Void> rejected = new Outcome<>();
+        Outcome<Void> neighbour = new Outcome<>();
+
+        netmera.sendRequest(new EnablePushRequestWithExternalId("user-1"), new Outcome<>());
+        netmera.sendRequest(new DisablePushRequestWithExternalId("user-1"), new Outcome<>());
+        netmera.sendRequest(new EnablePushRequestWithExternalId("user-1"), rejected);
+        netmera.sendRequest(new EnablePushRequestWithExternalId(other), neighbour);
+
+        assertTrue(rejected.failure() instanceof RejectedExecutionException);
+        assertEquals(1, netmera.getHotKeyRejected());
+        assertEquals(Collections.singleton("user-1"), netmera.getHotKeys());
+        // the user sharing the stripe is queued behind the hot key instead of being rejected
+        assertEquals(3, netmera.getQueued());
+        fake.nextHeld().complete(200);
+        fake.nextHeld().complete(200);
+        fake.nextHeld().complete(200);
+        assertEquals(200, neighbour.response().code());
+        assertTrue(netmera.getHotKeys().isEmpty());
+    }
+
+    @Test
+    public void shouldFailInvalidRequestsBeforeQueueingThem() throws Exception {
+        FakeNetmera fake = FakeNetmera.holding();
+        OrderedNetmera netmera = new OrderedNetmera.OrderedNetmeraBuilder(fake.netmera()).build();
+        Outcome<Void> invalid = new Outcome<>();
+
+        netmera.sendRequest(new AddTagToUsersRequest(null, Collections.singletonList("user-1")), invalid);
+        netmera.sendRequest(new EnablePushRequestWithExternalId("user-1"), new Outcome<>());
+
+        assertTrue(invalid.failure() instanceof ValidationException);
+        assertTrue(fake.nextHeld().getRequest() instanceof EnablePushRequestWithExternalId);
+        assertEquals(1, fake.requests().size());
+    }
+
+    @Test
+    public void shouldSplitARequestOfManyUsersPerStripe() throws Exception {
+        FakeNetmera fake = FakeNetmera.holding();
+        OrderedNetmera netmera = new OrderedNetmera.OrderedNetmeraBuilder(fake.netmera()).stripes(4).build();
+        List<String> extIds = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            extIds.add("user-" + i);
+        }
+        Outcome<Void> outcome = new Outcome<>();
+
+        netmera.sendRequest(new AddTagToUsersRequest("vip", extIds), outcome);
+
+        assertEquals(4, fake.heldCount());
+        Set<String> sent = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            FakeNetmera.Sent part = fake.nextHeld();
+            List<String> partExtIds = ((AddTagToUsersRequest) part.getRequest()).getExtIds();
+            assertEquals("vip", ((AddTagToUsersRequest) part.getRequest()).getTag());
+            partExtIds.forEach(extId -> assertEquals(stripeOf(partExtIds.get(0), 4), stripeOf(extId, 4)));
+            sent.addAll(partExtIds);
+            assertFalse(outcome.isDone());
+            part.complete(i == 2 ? 500 : 200);
+        }
+        assertEquals(new HashSet<>(extIds), sent);
+        assertEquals(500, outcome.response().code());
+    }
+
+    @Test
+    public void shouldSendALongQueueOfAUserWithoutRecursion() throws Exception {
+        AtomicInteger sent = new AtomicInteger();
+        // the first request is held, the ones behind it are completed while they are sent
+        FakeNetmera fake = new FakeNetmera(request -> sent.getAndIncrement() == 0 ? null : 200);
+        OrderedNetmera netmera = new OrderedNetmera.OrderedNetmeraBuilder(fake.netmera())
+                .maxQueuedPerStripe(100000).maxQueuedPerKey(100000).build();
+        AtomicInteger completed = new AtomicInteger();
+        NetmeraCallBack<Void> counting = new Outcome<Void>() {
+            @Override
+            public void onResponse(Call<Void> call, Response<Void> response) {
+                completed.incrementAndGet();
+            }
+        };
+
+        for (int i = 0; i < 50000; i++) {
+            netmera.sendRequest(new EnablePushRequestWithExternalId("user-1"), counting);
+        }
+        fake.nextHeld().complete(200);
+
+        assertEquals(50000, completed.get());
+        assertEquals(0, netmera.getQueued());
+    }
+
+    @Test
+    public void shouldCloseAndFlushTheClient() {
+        FakeNetmera fake = FakeNetmera.holding();
+        OrderedNetmera netmera = new OrderedNetmera.OrderedNetmeraBuilder(fake.netmera()).build();
+
+        netmera.flush();
+        netmera.close();
+
+        assertEquals(1, fake.calls("flush"));
+        assertEquals(1, fake.calls("close"));
+    }
+
+    @Test
+    public void shouldThrowValidationExceptionWhenOrderedClientHasNoStripes() {
+        assertThrows(ValidationException.class, () -> new OrderedNetmera.OrderedNetmeraBuilder(FakeNetmera.holding().netmera()).stripes(0));
+    }
+
+    /**
+     * @return stripe of the key, as spread by the ordered client
+     */
+    private static int stripeOf(String key, int stripes) {
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), stripes);
+    }
+
+    private static String sameStripe(String extId) {
+        for (int i = 0; ; i++) {
+            String other = "user-" + i;
+            if (!other.equals(extId) && stripeOf(other, 64) == stripeOf(extId, 64)) {
+                return other;
+            }
+        }
+    }
+
+    private static String otherStripe(String extId) {
+        for (int i = 0; ; i++) {
+            String other = "user-" + i;
+            if (stripeOf(other, 64) != stripeOf(extId, 64)) {
+                return other;
+            }
+        }
+    }
+
+    private static class Outcome<T> extends NetmeraCallBack<T> {
+        private final CompletableFuture<Object> outcome = new CompletableFuture<>();
+
+        @Override
+        public void onResponse(Call<T> call, Response<T> response) {
+            outcome.complete(response);
+        }
+
+        @Override
+        public void onFailure(Call<T> call, Throwable t) {
+            outcome.complete(t);
+        }
+
+        @Override
+        protected void handleResponseData(T data) {
+        }
+
+        @Override
+        protected void handleError(Response<T> response) {
+        }
+
+        @Override
+        protected void handleException(Exception t) {
+        }
+
+        boolean isDone() {
+            return outcome.isDone();
+        }
+
+        @SuppressWarnings("unchecked")
+        Response<T> response() throws Exception {
+            return (Response<T>) outcome.get(5, TimeUnit.SECONDS);
+        }
+
+        Throwable failure() throws Exception {
+            return (Throwable) outcome.get(5, TimeUnit.SECONDS);
+        }
+    }
+}
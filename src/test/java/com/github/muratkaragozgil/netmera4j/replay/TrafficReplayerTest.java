@@ -0,0 +1,298 @@
+package com.github.muratkaragozgil.netmera4j.replay;
+
+import com.github.muratkaragozgil.netmera4j.FakeNetmera;
+import com.github.muratkaragozgil.netmera4j.request.device.AddTagToUsersRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.EncodedProfileAttributesRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.UnsetProfileAttributesRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.GetPushStatsRequest;
+import okhttp3.*;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class TrafficReplayerTest {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=UTF-8");
+    private static final String SEND_NOTIFICATION = "/rest/3.0/sendNotification";
+    private static final String GET_PUSH_STATS = "/rest/3.0/getPushStats";
+
+    @Test
+    public void shouldReadRecordedCallsWithTheirStringTable() throws Exception {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        TrafficRecorder recorder = new TrafficRecorder.TrafficRecorderBuilder(log).captureBodies(true).anonymize(false).build();
+        OkHttpClient client = client(recorder, 202);
+
+        post(client, SEND_NOTIFICATION, "{\"notificationKey\":\"1\"}");
+        get(client, GET_PUSH_STATS + "?notificationKey=5");
+        post(client, SEND_NOTIFICATION, "{\"notificationKey\":\"22\"}");
+        recorder.close();
+
+        List<TrafficRecord> records = TrafficLog.read(new ByteArrayInputStream(log.toByteArray()));
+        assertEquals(3, records.size());
+        assertRecord(records.get(0), "POST", SEND_NOTIFICATION, null, "{\"notificationKey\":\"1\"}");
+        assertRecord(records.get(1), "GET", GET_PUSH_STATS, "notificationKey=5", null);
+        assertRecord(records.get(2), "POST", SEND_NOTIFICATION, null, "{\"notificationKey\":\"22\"}");
+        assertEquals(202, records.get(0).getStatusCode());
+        assertEquals(0, records.get(1).getRequestBytes());
+        assertTrue(records.get(0).getOffsetMicros() <= records.get(1).getOffsetMicros());
+        assertTrue(records.get(1).getOffsetMicros() <= records.get(2).getOffsetMicros());
+        // repeated methods and endpoints are written once and referred to by index
+        assertEquals(1, occurrences(log.toByteArray(), SEND_NOTIFICATION));
+        assertEquals(1, occurrences(log.toByteArray(), "POST"));
+    }
+
+    @Test
+    public void shouldRecordFailedCallWithoutStatus() throws Exception {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        TrafficRecorder recorder = new TrafficRecorder.TrafficRecorderBuilder(log).build();
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(recorder)
+                .addInterceptor(chain -> {
+                    throw new IOException("connection reset");
+                })
+                .build();
+
+        assertThrows(IOException.class, () -> post(client, SEND_NOTIFICATION, "{}"));
+        recorder.close();
+
+        List<TrafficRecord> records = TrafficLog.read(new ByteArrayInputStream(log.toByteArray()));
+        assertEquals(1, records.size());
+        assertEquals(0, records.get(0).getStatusCode());
+        assertEquals(2, records.get(0).getRequestBytes());
+        // bodies are not captured by default
+        assertNull(records.get(0).getBody());
+    }
+
+    @Test
+    public void shouldReadLogUpToTruncatedRecord() throws Exception {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        TrafficRecorder recorder = new TrafficRecorder.TrafficRecorderBuilder(log).captureBodies(true).build();
+        OkHttpClient client = client(recorder, 200);
+        post(client, SEND_NOTIFICATION, "{\"notificationKey\":\"1\"}");
+        recorder.flush();
+        int firstRecordEnd = log.size();
+        post(client, SEND_NOTIFICATION, "{\"notificationKey\":\"2\"}");
+        recorder.close();
+        byte[] complete = log.toByteArray();
+
+        for (int length = firstRecordEnd; length < complete.length; length++) {
+            List<TrafficRecord> records = TrafficLog.read(new ByteArrayInputStream(Arrays.copyOf(complete, length)));
+            assertEquals(1, records.size(), "log cut at " + length);
+        }
+        assertEquals(0, TrafficLog.read(new ByteArrayInputStream(Arrays.copyOf(complete, firstRecordEnd - 1))).size());
+        assertEquals(2, TrafficLog.read(new ByteArrayInputStream(complete)).size());
+    }
+
+    @Test
+    public void shouldThrowIOExceptionWhenStreamIsNotATrafficLog() {
+        assertThrows(IOException.class, () -> TrafficLog.read(new ByteArrayInputStream("{\"records\":[]}".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void shouldMaskBodiesAndQueriesKeepingTheirSize() throws Exception {
+        String body = "{\"message\":{\"title\":\"Hi Ali\",\"platforms\":[\"ANDROID\",\"IOS\"]},"
+                + "\"target\":{\"extId\":[\"905551234567\",\"user-9\",\"-42\"]},\"count\":42,\"rate\":-1.5,\"sound\":true,\"link\":null}";
+
+        byte[] anonymized = TrafficAnonymizer.anonymizeJson(body.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("{\"message\":{\"title\":\"xxxxxx\",\"platforms\":[\"ANDROID\",\"IOS\"]},"
+                        + "\"target\":{\"extId\":[\"000000000000\",\"xxxxxx\",\"-00\"]},\"count\":42,\"rate\":-1.5,\"sound\":true,\"link\":null}",
+                new String(anonymized, StandardCharsets.UTF_8));
+        assertEquals(body.length(), anonymized.length);
+        assertNull(TrafficAnonymizer.anonymizeJson("not json".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("notificationKey=123&start=1500000000000&extId=000000000000&token=xxx&max&offset=xx",
+                TrafficAnonymizer.anonymizeQuery("notificationKey=123&start=1500000000000&extId=905551234567&token=abc&max&offset=ab"));
+        assertNull(TrafficAnonymizer.anonymizeQuery(null));
+    }
+
+    @Test
+    public void shouldAnonymizeRecordedCallsByDefault() throws Exception {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        TrafficRecorder recorder = new TrafficRecorder.TrafficRecorderBuilder(log).captureBodies(true).build();
+        OkHttpClient client = client(recorder, 200);
+
+        post(client, "/rest/3.0/tagUsers", "{\"tag\":\"vip\",\"extIds\":[\"12345\"]}");
+        get(client, "/rest/3.0/getProfileAttributes?extId=12345");
+        recorder.close();
+
+        List<TrafficRecord> records = TrafficLog.read(new ByteArrayInputStream(log.toByteArray()));
+        assertEquals("{\"tag\":\"xxx\",\"extIds\":[\"00000\"]}", new String(records.get(0).getBody(), StandardCharsets.UTF_8));
+        assertEquals("extId=00000", records.get(1).getQuery());
+    }
+
+    @Test
+    public void shouldKeepRecordedGapsDividedBySpeed() throws Exception {
+        List<Long> sentNanos = Collections.synchronizedList(new ArrayList<>());
+        FakeNetmera fake = new FakeNetmera(request -> {
+            sentNanos.add(System.nanoTime());
+            return 200;
+        });
+        List<TrafficRecord> records = Arrays.asList(
+                getPushStats(5_000_000, 1), getPushStats(6_000_000, 2), getPushStats(8_000_000, 3));
+
+        ReplayReport report = new TrafficReplayer.TrafficReplayerBuilder(fake.netmera()).speed(10).build().replay(records);
+
+        assertEquals(3, report.getSucceeded());
+        assertEquals(3, fake.requests(GetPushStatsRequest.class).size());
+        long firstGap = TimeUnit.NANOSECONDS.toMillis(sentNanos.get(1) - sentNanos.get(0));
+        long secondGap = TimeUnit.NANOSECONDS.toMillis(sentNanos.get(2) - sentNanos.get(1));
+        // the first record is sent at once, gaps of 1 and 2 seconds are replayed in 100 and 200 millis
+        assertTrue(firstGap >= 95 && firstGap < 600, "first gap " + firstGap);
+        assertTrue(secondGap >= 195 && secondGap < 700, "second gap " + secondGap);
+        assertTrue(report.getDurationMicros() >= 295_000);
+    }
+
+    @Test
+    public void shouldReportSkippedFailedAndErrorRecords() throws Exception {
+        FakeNetmera fake = new FakeNetmera(request -> {
+            int notificationKey = ((GetPushStatsRequest) request).getNotificationKey();
+            return notificationKey == 1 ? 200 : notificationKey == 2 ? 500 : new IOException("connection reset");
+        });
+        List<TrafficRecord> records = Arrays.asList(
+                getPushStats(0, 1),
+                getPushStats(0, 2),
+                getPushStats(0, 3),
+                // no notification key, unknown endpoint and no body can not be replayed
+                new TrafficRecord(0, "GET", GET_PUSH_STATS, "start=1&end=2", 0, 200, 10, null),
+                new TrafficRecord(0, "POST", "/rest/3.0/unknown", null, 2, 200, 10, "{}".getBytes(StandardCharsets.UTF_8)),
+                new TrafficRecord(0, "POST", SEND_NOTIFICATION, null, 0, 200, 10, null),
+                // a body which can not be decoded fails without a call
+                new TrafficRecord(0, "POST", "/rest/3.0/registerUsers", null, 2, 200, 10, "{]".getBytes(StandardCharsets.UTF_8)));
+
+        ReplayReport report = new TrafficReplayer.TrafficReplayerBuilder(fake.netmera()).speed(1000).timeout(5).build().replay(records);
+
+        assertEquals(7, report.getRequests());
+        assertEquals(1, report.getSucceeded());
+        assertEquals(1, report.getErrors());
+        assertEquals(2, report.getFailures());
+        assertEquals(3, report.getSkipped());
+        assertEquals(3, fake.requests().size());
+    }
+
+    @Test
+    public void shouldReplayTagAndProfileAttributeRecords() throws Exception {
+        FakeNetmera fake = FakeNetmera.responding(200);
+        String profiles = "[{\"extId\":\"u1\",\"profile\":{\"age\":30,\"city\":\"Ankara\"}}]";
+        List<TrafficRecord> records = Arrays.asList(
+                post("/rest/3.0/tagUsers", "{\"tag\":\"vip\",\"extIds\":[\"u1\",\"u2\"]}"),
+                post("/rest/3.0/setProfileAttributes", profiles),
+                post("/rest/3.0/unsetProfileAttributes", "[{\"extId\":\"u1\",\"profile\":[\"city\"]}]"));
+
+        ReplayReport report = new TrafficReplayer.TrafficReplayerBuilder(fake.netmera()).speed(1000).build().replay(records);
+
+        assertEquals(3, report.getSucceeded());
+        assertEquals(0, report.getSkipped());
+        AddTagToUsersRequest tag = fake.requests(AddTagToUsersRequest.class).get(0);
+        assertEquals("vip", tag.getTag());
+        assertEquals(Arrays.asList("u1", "u2"), tag.getExtIds());
+        EncodedProfileAttributesRequest profile = fake.requests(EncodedProfileAttributesRequest.class).get(0);
+        assertEquals(1, profile.getUsers());
+        Buffer written = new Buffer();
+        profile.getBody().writeTo(written);
+        // replayed with the recorded bytes, the attribute numbers stay integers
+        assertEquals(profiles, written.readUtf8());
+        UnsetProfileAttributesRequest unset = fake.requests(UnsetProfileAttributesRequest.class).get(0);
+        assertEquals("u1", unset.getSingleUnsetObjects().get(0).getExtId());
+        assertEquals(Collections.singletonList("city"), unset.getSingleUnsetObjects().get(0).getProfile());
+    }
+
+    @Test
+    public void shouldSaveLoadAndCompareReports() throws Exception {
+        ReplayReport baseline = new TrafficReplayer.TrafficReplayerBuilder(FakeNetmera.responding(200).netmera()).speed(1000).build()
+                .replay(Arrays.asList(getPushStats(0, 1), getPushStats(1000, 2)));
+        Path path = Files.createTempDirectory("replay").resolve("baseline.properties");
+
+        baseline.save(path);
+        ReplayReport loaded = ReplayReport.load(path);
+
+        assertEquals(baseline.getRequests(), loaded.getRequests());
+        assertEquals(baseline.getSucceeded(), loaded.getSucceeded());
+        assertEquals(baseline.getSkipped(), loaded.getSkipped());
+        assertEquals(baseline.getDurationMicros(), loaded.getDurationMicros());
+        assertEquals(baseline.getP99Micros(), loaded.getP99Micros());
+        assertEquals(baseline.getMeanMicros(), loaded.getMeanMicros());
+        assertEquals(baseline.getThroughput(), loaded.getThroughput(), 1e-9);
+
+        String comparison = loaded.compare(baseline);
+        assertTrue(comparison.contains("baseline"));
+        assertTrue(comparison.contains("p99 (ms)"));
+        assertTrue(comparison.contains("calls/s"));
+        // same numbers on both sides, every row with a baseline shows no change
+        assertFalse(comparison.matches("(?s).*[+-][1-9][0-9.]*%.*"));
+    }
+
+    @Test
+    public void shouldThrowIOExceptionWhenLoadedFileIsNotAReport() throws Exception {
+        Path path = Files.createTempDirectory("replay").resolve("report.properties");
+        Files.write(path, "requests=1\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> ReplayReport.load(path));
+    }
+
+    private static OkHttpClient client(TrafficRecorder recorder, int statusCode) {
+        return new OkHttpClient.Builder()
+                .addInterceptor(recorder)
+                .addInterceptor(chain -> new Response.Builder()
+                        .request(chain.request())
+                        .protocol(Protocol.HTTP_1_1)
+                        .code(statusCode)
+                        .message("OK")
+                        .body(ResponseBody.create(JSON, ""))
+                        .build())
+                .build();
+    }
+
+    private static void post(OkHttpClient client, String path, String body) throws IOException {
+        client.newCall(new Request.Builder().url("http://localhost" + path).post(RequestBody.create(JSON, body)).build()).execute().close();
+    }
+
+    private static void get(OkHttpClient client, String pathAndQuery) throws IOException {
+        client.newCall(new Request.Builder().url("http://localhost" + pathAndQuery).build()).execute().close();
+    }
+
+    private static TrafficRecord getPushStats(long offsetMicros, int notificationKey) {
+        return new TrafficRecord(offsetMicros, "GET", GET_PUSH_STATS, "notificationKey=" + notificationKey, 0, 200, 1000, null);
+    }
+
+    private static TrafficRecord post(String endpoint, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        return new TrafficRecord(0, "POST", endpoint, null, bytes.length, 200, 1000, bytes);
+    }
+
+    private static void assertRecord(TrafficRecord record, String method, String endpoint, String query, String body) {
+        assertEquals(method, record.getMethod());
+        assertEquals(endpoint, record.getEndpoint());
+        assertEquals(query, record.getQuery());
+        if (body == null) {
+            assertNull(record.getBody());
+        } else {
+            assertEquals(body, new String(record.getBody(), StandardCharsets.UTF_8));
+            assertEquals(body.length(), record.getRequestBytes());
+        }
+    }
+
+    private static int occurrences(byte[] log, String value) {
+        String text = new String(log, StandardCharsets.ISO_8859_1);
+        int count = 0;
+        for (int index = text.indexOf(value); index >= 0; index = text.indexOf(value, index + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
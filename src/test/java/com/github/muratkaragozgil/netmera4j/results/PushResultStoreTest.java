@@ -0,0 +1,140 @@
+package com.github.muratkaragozgil.netmera4j.results;
+
+import com.github.muratkaragozgil.netmera4j.constant.Platform;
+import com.github.muratkaragozgil.netmera4j.constant.SendStatus;
+import com.github.muratkaragozgil.netmera4j.model.notification.SingleResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class PushResultStoreTest {
+
+    @Test
+    public void shouldReturnEveryFieldOfARow() {
+        PushResultStore store = new PushResultStore();
+        SingleResult result = result(Platform.IOS, "InvalidToken", "installation-ş", "user-1", 42L);
+        result.setStatus(SendStatus.FINISHED);
+        result.setErrorMsg("Token is not valid");
+        result.setMsgTitle("Title");
+        result.setMsgText("Text 🎉");
+        store.add(result);
+
+        SingleResult row = store.getRow(0);
+
+        assertEquals(Platform.IOS, row.getPlatform());
+        assertEquals(SendStatus.FINISHED, row.getStatus());
+        assertEquals("InvalidToken", row.getErrorCode());
+        assertEquals("installation-ş", row.getInstallationId());
+        assertEquals("user-1", row.getExtId());
+        assertEquals("Token is not valid", row.getErrorMsg());
+        assertEquals("Title", row.getMsgTitle());
+        assertEquals("Text 🎉", row.getMsgText());
+        assertEquals(42L, (long) row.getTimeStamp());
+    }
+
+    @Test
+    public void shouldKeepNulls() {
+        PushResultStore store = new PushResultStore();
+        store.add(new SingleResult());
+
+        SingleResult row = store.getRow(0);
+
+        assertNull(row.getPlatform());
+        assertNull(row.getStatus());
+        assertNull(row.getErrorCode());
+        assertNull(row.getInstallationId());
+        assertNull(row.getExtId());
+        assertNull(row.getTimeStamp());
+        assertEquals(0, store.errorCodeCounts().size());
+    }
+
+    @Test
+    public void shouldGrowPastInitialCapacity() {
+        PushResultStore store = new PushResultStore(16);
+        for (int i = 0; i < 10_000; i++) {
+            store.add(result(Platform.ANDROID, null, "installation-" + i, "user-" + i, (long) i));
+        }
+
+        assertEquals(10_000, store.size());
+        assertEquals("installation-0", store.getInstallationId(0));
+        assertEquals("installation-9999", store.getInstallationId(9999));
+        assertEquals("user-5000", store.getExtId(5000));
+        assertEquals(10_000, store.countOfPlatform(Platform.ANDROID));
+    }
+
+    @Test
+    public void shouldIndexRowsByErrorCodeAndPlatform() {
+        PushResultStore store = new PushResultStore();
+        store.add(result(Platform.IOS, "InvalidToken", "a", null, 1L));
+        store.add(result(Platform.ANDROID, "NotRegistered", "b", null, 1L));
+        store.add(result(Platform.IOS, null, "c", null, 1L));
+        store.add(result(Platform.ANDROID, "InvalidToken", "d", null, 1L));
+
+        assertArrayEquals(new int[]{0, 3}, store.rowsWithErrorCode("InvalidToken"));
+        assertArrayEquals(new int[0], store.rowsWithErrorCode("Unknown"));
+        assertArrayEquals(new int[]{0, 2}, store.rowsOfPlatform(Platform.IOS));
+        assertEquals(0, store.countOfPlatform(Platform.CHROME));
+        Map<String, Integer> counts = new TreeMap<>();
+        counts.put("InvalidToken", 2);
+        counts.put("NotRegistered", 1);
+        assertEquals(counts, store.errorCodeCounts());
+    }
+
+    @Test
+    public void shouldReturnNewestRowOfEveryInstallation() {
+        PushResultStore store = new PushResultStore();
+        store.add(result(Platform.IOS, "InvalidToken", "a", null, 10L));
+        store.add(result(Platform.IOS, null, "b", null, 10L));
+        store.add(result(Platform.IOS, null, "a", null, 20L));
+        store.add(result(Platform.IOS, null, null, "user-1", 30L));
+        store.add(result(Platform.IOS, "InvalidToken", "b", null, 5L));
+
+        assertArrayEquals(new int[]{1, 2}, store.latestRowPerInstallation());
+    }
+
+    @Test
+    public void shouldThrowIndexOutOfBoundsExceptionForUnknownRow() {
+        PushResultStore store = new PushResultStore();
+        store.add(new SingleResult());
+
+        assertThrows(IndexOutOfBoundsException.class, () -> store.getRow(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.getExtId(-1));
+    }
+
+    @Test
+    public void shouldStoreIdsAsRawBytes() {
+        StringArena arena = new StringArena();
+        int empty = arena.add("");
+        int first = arena.add("abc");
+        int none = arena.add(null);
+        int second = arena.add("çğü");
+
+        assertEquals("", arena.get(empty));
+        assertEquals("abc", arena.get(first));
+        assertNull(arena.get(none));
+        assertEquals("çğü", arena.get(second));
+        assertEquals(3, arena.size());
+        assertEquals(3 + 6, arena.byteCount());
+        assertEquals(Arrays.asList(0, 1, 2), Arrays.asList(empty, first, second));
+    }
+
+    private static SingleResult result(Platform platform, String errorCode, String installationId, String extId, Long timeStamp) {
+        SingleResult result = new SingleResult();
+        result.setPlatform(platform);
+        result.setErrorCode(errorCode);
+        result.setInstallationId(installationId);
+        result.setExtId(extId);
+        result.setTimeStamp(timeStamp);
+        return result;
+    }
+}
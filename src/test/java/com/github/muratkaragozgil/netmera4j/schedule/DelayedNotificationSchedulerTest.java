@@ -0,0 +1,155 @@
+package com.github.muratkaragozgil.netmera4j.schedule;
+
+import com.github.muratkaragozgil.netmera4j.FakeNetmera;
+import com.github.muratkaragozgil.netmera4j.exception.ValidationException;
+import com.github.muratkaragozgil.netmera4j.model.notification.Target;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTransactionalNotificationInChunksRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTransactionalNotificationRequest;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class DelayedNotificationSchedulerTest {
+
+    @Test
+    public void shouldSendDueNotificationsGroupedByKey() throws Exception {
+        FakeNetmera fake = FakeNetmera.responding(200);
+        DelayedNotificationScheduler scheduler = scheduler(fake, null);
+        scheduler.start();
+
+        long dueAt = System.currentTimeMillis() + 30;
+        scheduler.scheduleAt(notification("reminder", "user-1"), dueAt);
+        scheduler.scheduleAt(notification("welcome", "user-3"), dueAt);
+        scheduler.scheduleAt(notification("reminder", "user-2"), dueAt);
+        awaitDispatched(scheduler, 3);
+        scheduler.stop();
+
+        List<SendTransactionalNotificationInChunksRequest> sent = fake.requests(SendTransactionalNotificationInChunksRequest.class);
+        assertEquals(2, sent.size());
+        assertEquals(Collections.singletonList("user-1"), sent.get(0).getNotifications().get(0).getTarget().getExtId());
+        assertEquals(2, sent.get(0).getNotifications().size());
+        assertEquals("welcome", sent.get(1).getNotifications().get(0).getNotificationKey());
+    }
+
+    @Test
+    public void shouldNotSendCancelledNotifications() throws Exception {
+        FakeNetmera fake = FakeNetmera.responding(200);
+        DelayedNotificationScheduler scheduler = scheduler(fake, null);
+        scheduler.start();
+
+        long cancelled = scheduler.schedule(notification("reminder", "user-1"), 50, TimeUnit.MILLISECONDS);
+        scheduler.schedule(notification("reminder", "user-2"), 50, TimeUnit.MILLISECONDS);
+        assertTrue(scheduler.cancel(cancelled));
+        assertFalse(scheduler.cancel(cancelled));
+        awaitDispatched(scheduler, 1);
+        scheduler.stop();
+
+        assertEquals(1, fake.requests().size());
+        assertEquals(Collections.singletonList("user-2"), extIds(fake));
+    }
+
+    @Test
+    public void shouldRecoverPendingNotificationsFromTheJournal() throws Exception {
+        Path journal = Files.createTempDirectory("schedule").resolve("notifications.journal");
+        DelayedNotificationScheduler first = scheduler(FakeNetmera.responding(200), journal);
+        first.start();
+        first.schedule(notification("reminder", "user-1"), 20, TimeUnit.MILLISECONDS);
+        awaitDispatched(first, 1);
+        long cancelled = first.schedule(notification("reminder", "user-2"), 1, TimeUnit.HOURS);
+        first.schedule(notification("reminder", "user-3"), 1, TimeUnit.HOURS);
+        long overdue = first.schedule(notification("reminder", "user-4"), 100, TimeUnit.MILLISECONDS);
+        first.cancel(cancelled);
+        first.stop();
+        Thread.sleep(150);
+
+        FakeNetmera fake = FakeNetmera.responding(200);
+        DelayedNotificationScheduler second = scheduler(fake, journal);
+        second.start();
+        awaitDispatched(second, 1);
+        long next = second.schedule(notification("reminder", "user-5"), 1, TimeUnit.HOURS);
+        second.stop();
+
+        // the dispatched and cancelled notifications are not recovered, the overdue one is sent immediately
+        assertEquals(Collections.singletonList("user-4"), extIds(fake));
+        assertEquals(2, second.size());
+        assertTrue(next > overdue);
+    }
+
+    @Test
+    public void shouldKeepSendingWhenSendThrowsOrCallFailsWithError() throws Exception {
+        FakeNetmera fake = new FakeNetmera(request -> {
+            String notificationKey = ((SendTransactionalNotificationInChunksRequest) request).getNotifications().get(0).getNotificationKey();
+            if (notificationKey.startsWith("closed")) {
+                throw new IllegalStateException("closed");
+            }
+            return notificationKey.equals("error") ? new OutOfMemoryError("test") : 200;
+        });
+        DelayedNotificationScheduler scheduler = scheduler(fake, null);
+        scheduler.start();
+
+        long dueAt = System.currentTimeMillis() + 30;
+        // more throwing batches than permits, a leaked permit would block the last one
+        for (int i = 0; i < 5; i++) {
+            scheduler.scheduleAt(notification("closed-" + i, "user-" + i), dueAt);
+        }
+        scheduler.scheduleAt(notification("error", "user-5"), dueAt);
+        scheduler.scheduleAt(notification("welcome", "user-6"), dueAt);
+        awaitDispatched(scheduler, 1);
+        scheduler.stop();
+
+        assertEquals(6, scheduler.getFailed());
+        assertEquals(7, fake.requests().size());
+    }
+
+    @Test
+    public void shouldThrowValidationExceptionWhenSchedulerTickIsTooShort() {
+        assertThrows(ValidationException.class, () -> new DelayedNotificationScheduler.DelayedNotificationSchedulerBuilder(FakeNetmera.responding(200).netmera()).tick(1));
+    }
+
+    private static DelayedNotificationScheduler scheduler(FakeNetmera fake, Path journal) {
+        DelayedNotificationScheduler.DelayedNotificationSchedulerBuilder builder = new DelayedNotificationScheduler.DelayedNotificationSchedulerBuilder(fake.netmera())
+                .tick(10);
+        if (journal != null) {
+            builder.journal(journal);
+        }
+        return builder.build();
+    }
+
+    private static SendTransactionalNotificationRequest notification(String notificationKey, String extId) {
+        return new SendTransactionalNotificationRequest(notificationKey, null,
+                new Target.TargetBuilder().externalId(Collections.singletonList(extId)).build());
+    }
+
+    private static void awaitDispatched(DelayedNotificationScheduler scheduler, long dispatched) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.getDispatched() < dispatched) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("dispatched " + scheduler.getDispatched() + " of " + dispatched);
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static List<String> extIds(FakeNetmera fake) {
+        List<String> extIds = new ArrayList<>();
+        for (SendTransactionalNotificationInChunksRequest request : fake.requests(SendTransactionalNotificationInChunksRequest.class)) {
+            for (SendTransactionalNotificationRequest notification : request.getNotifications()) {
+                extIds.addAll(notification.getTarget().getExtId());
+            }
+        }
+        return extIds;
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.muratkaragozgil.netmera4j.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class TimingWheelTest {
+
+    @Test
+    public void shouldPassEntriesAtTheirDueTickAcrossLevels() {
+        // 2 levels of 4 slots cover 16 ticks, later entries wait for another revolution of the top level
+        TimingWheel<Long> wheel = new TimingWheel<>(2, 2, 1000);
+        List<Long> dueTicks = new ArrayList<>();
+        for (long dueTick = 1001; dueTick <= 1050; dueTick++) {
+            dueTicks.add(dueTick);
+        }
+        Collections.shuffle(dueTicks, new Random(7));
+        for (Long dueTick : dueTicks) {
+            wheel.add(dueTick, dueTick);
+        }
+
+        for (long tick = 1001; tick <= 1050; tick++) {
+            List<Long> due = new ArrayList<>();
+            wheel.advance(tick, due::add);
+            assertEquals(Collections.singletonList(tick), due);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void shouldPassEntriesInTickOrderWhenAdvancingSeveralTicks() {
+        TimingWheel<Long> wheel = new TimingWheel<>(2, 3, 0);
+        List<Long> expected = new ArrayList<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            long dueTick = 1 + random.nextInt(200);
+            wheel.add(dueTick, dueTick);
+            expected.add(dueTick);
+        }
+        Collections.sort(expected);
+
+        List<Long> due = new ArrayList<>();
+        wheel.advance(100, due::add);
+        wheel.advance(250, due::add);
+
+        assertEquals(expected, due);
+        assertEquals(250, wheel.getCurrentTick());
+    }
+
+    @Test
+    public void shouldPassOverdueEntriesWithTheNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, 4, 100);
+        wheel.add("past", 10);
+        wheel.add("now", 100);
+        List<String> due = new ArrayList<>();
+
+        wheel.advance(100, due::add);
+        assertTrue(due.isEmpty());
+        wheel.advance(101, due::add);
+
+        assertEquals(2, due.size());
+        assertTrue(due.contains("past"));
+        assertTrue(due.contains("now"));
+    }
+
+    @Test
+    public void shouldNotPassRemovedEntries() {
+        TimingWheel<String> wheel = new TimingWheel<>(2, 2, 0);
+        TimingWheel.Node<String> near = wheel.add("near", 2);
+        TimingWheel.Node<String> far = wheel.add("far", 40);
+        wheel.add("kept", 40);
+
+        assertTrue(wheel.remove(near));
+        assertTrue(wheel.remove(far));
+        assertFalse(wheel.remove(far));
+        List<String> due = new ArrayList<>();
+        wheel.advance(50, due::add);
+
+        assertEquals(Collections.singletonList("kept"), due);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void shouldNotRemoveAnEntryWhichIsAlreadyDue() {
+        TimingWheel<String> wheel = new TimingWheel<>(2, 2, 0);
+        TimingWheel.Node<String> node = wheel.add("due", 3);
+
+        wheel.advance(3, value -> {
+        });
+
+        assertFalse(wheel.remove(node));
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.muratkaragozgil.netmera4j.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class HashRingTest {
+
+    private static final int KEYS = 20000;
+
+    @Test
+    public void shouldKeepTheHashOfAKeyAcrossReleases() {
+        // users must stay on their shards after an upgrade, the hash is part of the persisted layout
+        assertEquals(4729620347622785477L, HashRing.hash("user-1"));
+        assertEquals(-1166397803181037274L, HashRing.hash(""));
+        assertEquals(-7309443716806476511L, HashRing.hash("ü"));
+    }
+
+    @Test
+    public void shouldMoveOnlyTheKeysOfAnAddedShard() {
+        HashRing<String> before = ring("app-1", "app-2", "app-3");
+        HashRing<String> after = ring("app-1", "app-2", "app-3", "app-4");
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "user-" + i;
+            if (!before.get(key).equals(after.get(key))) {
+                assertEquals("app-4", after.get(key));
+                moved++;
+            }
+        }
+
+        // a quarter of the keys is expected to move to the new shard
+        assertTrue(moved > KEYS * 0.18 && moved < KEYS * 0.32, "moved " + moved);
+    }
+
+    @Test
+    public void shouldMoveOnlyTheKeysOfARemovedShard() {
+        HashRing<String> before = ring("app-1", "app-2", "app-3", "app-4");
+        HashRing<String> after = ring("app-1", "app-3", "app-4");
+
+        for (int i = 0; i < KEYS; i++) {
+            String key = "user-" + i;
+            if (!before.get(key).equals("app-2")) {
+                assertEquals(before.get(key), after.get(key), key);
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotDependOnTheOrderTheShardsWereAdded() {
+        HashRing<String> ring = ring("app-1", "app-2", "app-3");
+        HashRing<String> reordered = ring("app-3", "app-1", "app-2");
+
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals(ring.get("user-" + i), reordered.get("user-" + i));
+        }
+    }
+
+    @Test
+    public void shouldSpreadKeysByWeight() {
+        List<String> names = Arrays.asList("app-1", "app-2");
+        HashRing<String> ring = new HashRing<>(names, names, Arrays.asList(1, 3), 160);
+        Map<String, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.get("user-" + i), 1, Integer::sum);
+        }
+
+        double share = counts.get("app-2") / (double) KEYS;
+        assertTrue(share > 0.68 && share < 0.82, "share " + share);
+    }
+
+    private static HashRing<String> ring(String... names) {
+        List<String> shards = Arrays.asList(names);
+        List<Integer> weights = new ArrayList<>(Collections.nCopies(names.length, 1));
+        return new HashRing<>(shards, shards, weights, 160);
+    }
+}
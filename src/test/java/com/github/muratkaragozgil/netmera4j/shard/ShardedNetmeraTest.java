@@ -0,0 +1,329 @@
+package com.github.muratkaragozgil.netmera4j.shard;
+
+import com.github.muratkaragozgil.netmera4j.FakeNetmera;
+import com.github.muratkaragozgil.netmera4j.callback.NetmeraCallBack;
+import com.github.muratkaragozgil.netmera4j.constant.Platform;
+import com.github.muratkaragozgil.netmera4j.exception.ValidationException;
+import com.github.muratkaragozgil.netmera4j.model.device.NewDevice;
+import com.github.muratkaragozgil.netmera4j.model.notification.SingleStat;
+import com.github.muratkaragozgil.netmera4j.model.notification.Target;
+import com.github.muratkaragozgil.netmera4j.request.device.AddNewDevicesRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.AddTagToUsersRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.DisablePushRequestWithToken;
+import com.github.muratkaragozgil.netmera4j.request.device.EnablePushRequestWithToken;
+import com.github.muratkaragozgil.netmera4j.request.device.EncodedNewDevicesRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.GetDeviceTokensRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.CreateTransactionalNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.GetPushResultsRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.GetPushStatsRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendBulkNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.SendTransactionalNotificationRequest;
+import com.github.muratkaragozgil.netmera4j.response.GetDeviceTokensResponse;
+import com.github.muratkaragozgil.netmera4j.response.GetPushResultResponse;
+import com.github.muratkaragozgil.netmera4j.response.GetPushStatsResponse;
+import com.github.muratkaragozgil.netmera4j.response.NotificationResponse;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import org.junit.jupiter.api.Test;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class ShardedNetmeraTest {
+
+    private final FakeNetmera first = app(10);
+    private final FakeNetmera second = app(20);
+    private final ShardedNetmera netmera = new ShardedNetmera.ShardedNetmeraBuilder()
+            .addShard("app-1", first.netmera())
+            .addShard("app-2", second.netmera())
+            .build();
+
+    @Test
+    public void shouldSendTheUsersOfARequestToTheirShards() throws Exception {
+        List<String> extIds = users(100);
+        Outcome<Void> outcome = new Outcome<>();
+
+        netmera.sendRequest(new AddTagToUsersRequest("vip", extIds), outcome);
+
+        assertEquals(200, outcome.response().code());
+        List<String> sent = new ArrayList<>();
+        for (AddTagToUsersRequest request : first.requests(AddTagToUsersRequest.class)) {
+            request.getExtIds().forEach(extId -> assertEquals("app-1", netmera.shardOf(extId)));
+            sent.addAll(request.getExtIds());
+        }
+        for (AddTagToUsersRequest request : second.requests(AddTagToUsersRequest.class)) {
+            request.getExtIds().forEach(extId -> assertEquals("app-2", netmera.shardOf(extId)));
+            sent.addAll(request.getExtIds());
+        }
+        assertEquals(new HashSet<>(extIds), new HashSet<>(sent));
+    }
+
+    @Test
+    public void shouldSendTheRequestsOfADeviceTokenToOneShard() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            String token = "token-" + i;
+            netmera.sendRequest(new EnablePushRequestWithToken(token), new Outcome<>());
+            netmera.sendRequest(new DisablePushRequestWithToken(token), new Outcome<>());
+        }
+
+        for (EnablePushRequestWithToken request : first.requests(EnablePushRequestWithToken.class)) {
+            assertEquals("app-1", netmera.shardOf(request.getDeviceToken()));
+        }
+        for (DisablePushRequestWithToken request : second.requests(DisablePushRequestWithToken.class)) {
+            assertEquals("app-2", netmera.shardOf(request.getDeviceToken()));
+        }
+        assertEquals(20, first.requests(EnablePushRequestWithToken.class).size() + second.requests(EnablePushRequestWithToken.class).size());
+    }
+
+    @Test
+    public void shouldSendTheRequestsOfADeviceTokenToTheShardItWasRegisteredOn() throws Exception {
+        String token = tokenOfOtherShard("u1");
+        FakeNetmera owner = netmera.shardOf("u1").equals("app-1") ? first : second;
+        NewDevice device = NewDevice.builder().deviceToken(token).platform(Platform.ANDROID).extId("u1").build();
+
+        netmera.sendRequest(AddNewDevicesRequest.AddNewDevicesRequestBuilder.withDeviceList(Collections.singletonList(device)).build(), new Outcome<>());
+        netmera.sendRequest(new DisablePushRequestWithToken(token), new Outcome<>());
+        netmera.sendRequest(new EnablePushRequestWithToken(token), new Outcome<>());
+        netmera.sendRequest(GetPushResultsRequest.builder().token(token).build(), new Outcome<>());
+
+        assertEquals(4, owner.requests().size());
+        assertEquals(1, owner.requests(DisablePushRequestWithToken.class).size());
+        assertEquals(1, owner.requests(EnablePushRequestWithToken.class).size());
+        assertEquals(1, owner.requests(GetPushResultsRequest.class).size());
+    }
+
+    @Test
+    public void shouldSendEntriesWithoutAKeyToTheLeastLoadedShard() throws Exception {
+        FakeNetmera busy = FakeNetmera.holding();
+        FakeNetmera idle = FakeNetmera.responding(200);
+        ShardedNetmera sharded = new ShardedNetmera.ShardedNetmeraBuilder()
+                .addShard("busy", busy.netmera())
+                .addShard("idle", idle.netmera())
+                .build();
+        String user = users(100).stream().filter(extId -> sharded.shardOf(extId).equals("busy")).findFirst().get();
+        sharded.sendRequest(new AddTagToUsersRequest("vip", Collections.singletonList(user)), new Outcome<>());
+
+        sharded.sendRequest(new AddTagToUsersRequest("vip", Collections.singletonList(null)), new Outcome<>());
+        busy.nextHeld().complete(200);
+        sharded.sendRequest(new AddTagToUsersRequest("vip", Collections.singletonList(null)), new Outcome<>());
+
+        assertEquals(1, idle.requests().size());
+        assertEquals(2, busy.requests().size());
+    }
+
+    @Test
+    public void shouldTranslateTheKeyOfATransactionalNotificationToEveryShard() throws Exception {
+        Outcome<NotificationResponse> created = new Outcome<>();
+        netmera.sendRequest(new CreateTransactionalNotificationRequest(), created);
+        String key = String.valueOf(created.response().body().getNotificationKey());
+        Map<String, String> keys = new LinkedHashMap<>();
+        keys.put("app-1", "10");
+        keys.put("app-2", "20");
+
+        Outcome<Void> sent = new Outcome<>();
+        netmera.sendRequest(transactional(key, users(20)), sent);
+
+        assertEquals("-1", key);
+        assertEquals(keys, netmera.getNotificationKeys(key));
+        assertEquals(200, sent.response().code());
+        assertEquals("10", first.requests(SendTransactionalNotificationRequest.class).get(0).getNotificationKey());
+        assertEquals("20", second.requests(SendTransactionalNotificationRequest.class).get(0).getNotificationKey());
+    }
+
+    @Test
+    public void shouldFailTransactionalNotificationsWithoutAKeyOfEveryShard() throws Exception {
+        Outcome<Void> unknown = new Outcome<>();
+        Outcome<Void> missing = new Outcome<>();
+        netmera.putNotificationKeys("welcome", Collections.singletonMap("app-1", "10"));
+
+        netmera.sendRequest(transactional("42", Collections.singletonList("user-1")), unknown);
+        netmera.sendRequest(new SendTransactionalNotificationRequest("welcome", null, new Target.TargetBuilder().sendToAll(true).build()), missing);
+
+        assertTrue(unknown.failure() instanceof ValidationException);
+        assertTrue(missing.failure() instanceof ValidationException);
+        assertEquals(0, first.requests().size() + second.requests().size());
+    }
+
+    @Test
+    public void shouldPassUnknownKeysToASingleShard() throws Exception {
+        ShardedNetmera single = new ShardedNetmera.ShardedNetmeraBuilder().addShard("app-1", first.netmera()).build();
+        Outcome<Void> sent = new Outcome<>();
+
+        single.sendRequest(transactional("42", Collections.singletonList("user-1")), sent);
+
+        assertEquals(200, sent.response().code());
+        assertEquals("42", first.requests(SendTransactionalNotificationRequest.class).get(0).getNotificationKey());
+    }
+
+    @Test
+    public void shouldMergeThePushStatsOfEveryShard() throws Exception {
+        Outcome<NotificationResponse> bulk = new Outcome<>();
+        netmera.sendRequest(new SendBulkNotificationRequest(null, new Target.TargetBuilder().sendToAll(true).build()), bulk);
+        Integer key = bulk.response().body().getNotificationKey();
+        Outcome<GetPushStatsResponse> stats = new Outcome<>();
+
+        netmera.sendRequest(new GetPushStatsRequest(key), stats);
+
+        GetPushStatsResponse merged = stats.response().body();
+        assertEquals(key, merged.getNotificationKey());
+        assertEquals(Integer.valueOf(10), first.requests(GetPushStatsRequest.class).get(0).getNotificationKey());
+        assertEquals(Integer.valueOf(20), second.requests(GetPushStatsRequest.class).get(0).getNotificationKey());
+        assertEquals(1, merged.getStats().size());
+        assertEquals(Platform.IOS, merged.getStats().get(0).getPlatform());
+        assertEquals(Integer.valueOf(300), merged.getStats().get(0).getSent());
+        assertEquals(Integer.valueOf(30), merged.getStats().get(0).getClicked());
+        assertEquals(Long.valueOf(100), merged.getStartDate());
+        assertEquals(Long.valueOf(2000), merged.getEndDate());
+    }
+
+    @Test
+    public void shouldFailRequestsOfOneAppWhenThereAreSeveralShards() throws Exception {
+        Outcome<GetDeviceTokensResponse> tokens = new Outcome<>();
+        Outcome<Void> encoded = new Outcome<>();
+        Outcome<GetPushStatsResponse> stats = new Outcome<>();
+
+        netmera.sendRequest(new GetDeviceTokensRequest(), tokens);
+        netmera.sendRequest(new EncodedNewDevicesRequest(1, RequestBody.create(MediaType.get("application/json"), "[]")), encoded);
+        netmera.sendRequest(new GetPushStatsRequest(42), stats);
+
+        assertTrue(tokens.failure() instanceof ValidationException);
+        assertTrue(encoded.failure() instanceof ValidationException);
+        assertTrue(stats.failure() instanceof ValidationException);
+        assertEquals(0, first.requests().size() + second.requests().size());
+    }
+
+    @Test
+    public void shouldRequestTheNextPageFromTheShardOfThePage() throws Exception {
+        String extId = "user-1";
+        FakeNetmera owner = netmera.shardOf(extId).equals("app-1") ? first : second;
+        Outcome<GetPushResultResponse> page = new Outcome<>();
+        netmera.sendRequest(GetPushResultsRequest.builder().extId(extId).build(), page);
+        Outcome<GetPushResultResponse> next = new Outcome<>();
+
+        netmera.sendRequest(page.response().body(), next);
+
+        assertEquals(200, next.response().code());
+        assertEquals(2, owner.requests().size());
+        assertSame(page.response().body(), owner.requests().get(1));
+    }
+
+    @Test
+    public void shouldCloseAndFlushEveryShard() {
+        netmera.flush();
+        netmera.close();
+
+        assertEquals(1, first.calls("flush"));
+        assertEquals(1, second.calls("flush"));
+        assertEquals(1, first.calls("close"));
+        assertEquals(1, second.calls("close"));
+    }
+
+    @Test
+    public void shouldThrowValidationExceptionWhenShardWeightIsZero() {
+        assertThrows(ValidationException.class, () -> new ShardedNetmera.ShardedNetmeraBuilder().addShard("app", first.netmera(), 0));
+    }
+
+    /**
+     * @return token which hashes to another shard than the user
+     */
+    private String tokenOfOtherShard(String extId) {
+        for (int i = 0; ; i++) {
+            String token = "token-" + i;
+            if (!netmera.shardOf(token).equals(netmera.shardOf(extId))) {
+                return token;
+            }
+        }
+    }
+
+    private static List<String> users(int count) {
+        List<String> extIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            extIds.add("user-" + i);
+        }
+        return extIds;
+    }
+
+    private static SendTransactionalNotificationRequest transactional(String notificationKey, List<String> extIds) {
+        return new SendTransactionalNotificationRequest(notificationKey, null, new Target.TargetBuilder().externalId(extIds).build());
+    }
+
+    /**
+     * @return app whose notifications have the given key and stats
+     */
+    private static FakeNetmera app(int notificationKey) {
+        return new FakeNetmera(request -> {
+            if (request instanceof CreateTransactionalNotificationRequest || request instanceof SendBulkNotificationRequest) {
+                NotificationResponse response = new NotificationResponse();
+                response.setNotificationKey(notificationKey);
+                return Response.success(response);
+            }
+            if (request instanceof GetPushStatsRequest) {
+                SingleStat stat = new SingleStat();
+                stat.setPlatform(Platform.IOS);
+                stat.setSent(notificationKey * 10);
+                stat.setClicked(notificationKey);
+                GetPushStatsResponse response = new GetPushStatsResponse();
+                response.setNotificationKey(notificationKey);
+                response.setStartDate(notificationKey * 10L);
+                response.setEndDate(notificationKey * 100L);
+                response.setStats(Collections.singletonList(stat));
+                return Response.success(response);
+            }
+            if (request instanceof GetPushResultsRequest || request instanceof GetPushResultResponse) {
+                return Response.success(new GetPushResultResponse());
+            }
+            return 200;
+        });
+    }
+
+    private static final class Outcome<T> extends NetmeraCallBack<T> {
+        private final CompletableFuture<Object> outcome = new CompletableFuture<>();
+
+        @Override
+        public void onResponse(Call<T> call, Response<T> response) {
+            outcome.complete(response);
+        }
+
+        @Override
+        public void onFailure(Call<T> call, Throwable t) {
+            outcome.complete(t);
+        }
+
+        @Override
+        protected void handleResponseData(T data) {
+        }
+
+        @Override
+        protected void handleError(Response<T> response) {
+        }
+
+        @Override
+        protected void handleException(Exception t) {
+        }
+
+        @SuppressWarnings("unchecked")
+        Response<T> response() throws Exception {
+            return (Response<T>) outcome.get(5, TimeUnit.SECONDS);
+        }
+
+        Throwable failure() throws Exception {
+            return (Throwable) outcome.get(5, TimeUnit.SECONDS);
+        }
+    }
+}
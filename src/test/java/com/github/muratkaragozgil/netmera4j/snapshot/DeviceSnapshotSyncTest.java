@@ -0,0 +1,126 @@
+package com.github.muratkaragozgil.netmera4j.snapshot;
+
+import com.github.muratkaragozgil.netmera4j.FakeNetmera;
+import com.github.muratkaragozgil.netmera4j.constant.Platform;
+import com.github.muratkaragozgil.netmera4j.model.device.Device;
+import com.github.muratkaragozgil.netmera4j.request.device.GetDeviceTokensRequest;
+import com.github.muratkaragozgil.netmera4j.response.GetDeviceTokensResponse;
+import org.junit.jupiter.api.Test;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.muratkaragozgil.netmera4j.snapshot.DeviceSnapshotTest.device;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class DeviceSnapshotSyncTest {
+
+    private final FakeNetmera fake = FakeNetmera.holding();
+
+    @Test
+    public void shouldRebuildFromEveryPage() throws Exception {
+        DeviceSnapshotSync sync = sync(Files.createTempDirectory("snapshot").resolve("devices.snapshot"));
+
+        CompletableFuture<DeviceSnapshot> rebuilt = sync.refresh();
+        FakeNetmera.Sent first = fake.nextHeld();
+        assertEquals(0, (int) ((GetDeviceTokensRequest) first.getRequest()).getOffSet());
+        assertEquals(100, (int) ((GetDeviceTokensRequest) first.getRequest()).getMax());
+        first.complete(Response.success(200, page("next", device("token-a", "installation-a", Platform.IOS, true))));
+        FakeNetmera.Sent second = fake.nextHeld();
+        assertTrue(second.getRequest() instanceof GetDeviceTokensResponse);
+        respondLast(second, device("token-b", "installation-b", Platform.ANDROID, true));
+
+        DeviceSnapshot snapshot = rebuilt.get(5, TimeUnit.SECONDS);
+        assertEquals(2, snapshot.size());
+        assertEquals(2, snapshot.getSyncOffset());
+        assertSame(snapshot, sync.getSnapshot());
+        assertTrue(snapshot.findByToken("token-b") >= 0);
+    }
+
+    @Test
+    public void shouldContinueFromSyncOffset() throws Exception {
+        DeviceSnapshotSync sync = sync(Files.createTempDirectory("snapshot").resolve("devices.snapshot"));
+        CompletableFuture<DeviceSnapshot> rebuilt = sync.refresh();
+        respondLast(fake.nextHeld(), device("token-a", "installation-a", Platform.IOS, true),
+                device("token-b", "installation-b", Platform.IOS, true));
+        rebuilt.get(5, TimeUnit.SECONDS);
+
+        CompletableFuture<DeviceSnapshot> refreshed = sync.refresh();
+        FakeNetmera.Sent next = fake.nextHeld();
+        assertEquals(2, (int) ((GetDeviceTokensRequest) next.getRequest()).getOffSet());
+        respondLast(next, device("token-b2", "installation-b", Platform.IOS, false), device("token-c", "installation-c", Platform.IOS, true));
+
+        DeviceSnapshot snapshot = refreshed.get(5, TimeUnit.SECONDS);
+        assertEquals(3, snapshot.size());
+        assertEquals(4, snapshot.getSyncOffset());
+        assertEquals("token-b2", snapshot.getToken(snapshot.findByInstallationId("installation-b")));
+    }
+
+    @Test
+    public void shouldDropRefreshOfAnOutdatedSnapshot() throws Exception {
+        DeviceSnapshotSync sync = sync(Files.createTempDirectory("snapshot").resolve("devices.snapshot"));
+        CompletableFuture<DeviceSnapshot> first = sync.refresh();
+        respondLast(fake.nextHeld(), device("token-a", "installation-a", Platform.IOS, true));
+        first.get(5, TimeUnit.SECONDS);
+
+        CompletableFuture<DeviceSnapshot> refreshed = sync.refresh();
+        FakeNetmera.Sent refresh = fake.nextHeld();
+        CompletableFuture<DeviceSnapshot> rebuilt = sync.rebuild();
+        respondLast(fake.nextHeld(), device("token-x", "installation-x", Platform.IOS, true));
+        DeviceSnapshot snapshot = rebuilt.get(5, TimeUnit.SECONDS);
+        respondLast(refresh, device("token-b", "installation-b", Platform.IOS, true));
+
+        assertSame(snapshot, refreshed.get(5, TimeUnit.SECONDS));
+        assertSame(snapshot, sync.getSnapshot());
+        assertEquals(-1, sync.getSnapshot().findByToken("token-a"));
+        assertEquals(-1, sync.getSnapshot().findByToken("token-b"));
+    }
+
+    @Test
+    public void shouldFailInsteadOfTruncatingLargeOffset() throws Exception {
+        Path path = Files.createTempDirectory("snapshot").resolve("devices.snapshot");
+        DeviceSnapshot.write(path, Collections.singletonList(device("token-a", "installation-a", Platform.IOS, true)),
+                Integer.MAX_VALUE + 1L, System.currentTimeMillis());
+        DeviceSnapshotSync sync = sync(path);
+        sync.start();
+        sync.stop();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> sync.refresh().get(5, TimeUnit.SECONDS));
+
+        assertTrue(failure.getCause() instanceof IOException);
+        assertEquals(0, fake.requests().size());
+    }
+
+    @Test
+    public void shouldThrowNullPointerExceptionWhenPathIsNull() {
+        assertThrows(NullPointerException.class, () -> new DeviceSnapshotSync.DeviceSnapshotSyncBuilder(fake.netmera(), null).build());
+    }
+
+    private DeviceSnapshotSync sync(Path path) {
+        return new DeviceSnapshotSync.DeviceSnapshotSyncBuilder(fake.netmera(), path).pageSize(100).build();
+    }
+
+    private static GetDeviceTokensResponse page(String nextPage, Device... devices) {
+        GetDeviceTokensResponse page = new GetDeviceTokensResponse();
+        page.setNextPage(nextPage);
+        page.setDevices(Arrays.asList(devices));
+        return page;
+    }
+
+    private static void respondLast(FakeNetmera.Sent request, Device... devices) {
+        request.complete(Response.success(200, page(null, devices)));
+    }
+}
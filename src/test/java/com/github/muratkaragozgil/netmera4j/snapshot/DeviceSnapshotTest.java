@@ -0,0 +1,119 @@
+package com.github.muratkaragozgil.netmera4j.snapshot;
+
+import com.github.muratkaragozgil.netmera4j.constant.Platform;
+import com.github.muratkaragozgil.netmera4j.model.device.Device;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class DeviceSnapshotTest {
+
+    @Test
+    public void shouldReadWrittenDevicesAfterReopen() throws Exception {
+        Path path = Files.createTempDirectory("snapshot").resolve("devices.snapshot");
+        List<Device> devices = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            devices.add(device("token-" + i, "installation-" + i, i % 2 == 0 ? Platform.IOS : Platform.ANDROID, i % 3 != 0));
+        }
+        devices.add(device("token-çğü", null, null, false));
+
+        DeviceSnapshot.write(path, devices, 1001, 77);
+        DeviceSnapshot snapshot = DeviceSnapshot.open(path);
+
+        assertEquals(1001, snapshot.size());
+        assertEquals(1001, snapshot.getSyncOffset());
+        assertEquals(77, snapshot.getFullRebuildAt());
+        int record = snapshot.findByToken("token-500");
+        assertEquals(record, snapshot.findByInstallationId("installation-500"));
+        assertEquals("installation-500", snapshot.getInstallationId(record));
+        assertEquals("model", snapshot.getDeviceModel(record));
+        assertEquals(Platform.IOS, snapshot.getPlatform(record));
+        assertTrue(snapshot.isPushPermitted(record));
+        assertTrue(snapshot.isPushPermitted("token-502", Platform.IOS));
+        assertFalse(snapshot.isPushPermitted("token-502", Platform.ANDROID));
+        assertFalse(snapshot.isPushPermitted("token-501", Platform.ANDROID));
+        assertEquals(500, snapshot.countOfPlatform(Platform.IOS));
+        assertEquals(500, snapshot.countOfPlatform(Platform.ANDROID));
+        assertEquals(333, snapshot.countPushPermitted(Platform.IOS));
+        int unicode = snapshot.findByToken("token-çğü");
+        assertNull(snapshot.getInstallationId(unicode));
+        assertNull(snapshot.getPlatform(unicode));
+        assertEquals(-1, snapshot.findByToken("token-1000"));
+        assertEquals(-1, snapshot.findByInstallationId(null));
+    }
+
+    @Test
+    public void shouldReadEmptySnapshot() throws Exception {
+        Path path = Files.createTempDirectory("snapshot").resolve("devices.snapshot");
+
+        DeviceSnapshot snapshot = DeviceSnapshot.write(path, Collections.emptyList(), 0, 0);
+
+        assertEquals(0, snapshot.size());
+        assertEquals(-1, snapshot.findByToken("token"));
+        assertEquals(0, snapshot.countOfPlatform(Platform.IOS));
+    }
+
+    @Test
+    public void shouldMergeDevicesIntoBase() throws Exception {
+        Path path = Files.createTempDirectory("snapshot").resolve("devices.snapshot");
+        DeviceSnapshot base = DeviceSnapshot.write(path, Arrays.asList(
+                device("token-a", "installation-a", Platform.IOS, true),
+                device("token-b", "installation-b", Platform.IOS, true),
+                device("token-c", null, Platform.ANDROID, true),
+                device("token-d", "installation-d", Platform.ANDROID, true)), 4, 77);
+
+        DeviceSnapshot merged = DeviceSnapshot.write(path, base, Arrays.asList(
+                device("token-b2", "installation-b", Platform.IOS, false),
+                device("token-c", null, Platform.ANDROID, false),
+                device("token-e", "installation-e", Platform.CHROME, true)), 7, 77);
+
+        assertEquals(5, merged.size());
+        assertEquals(7, merged.getSyncOffset());
+        assertEquals(-1, merged.findByToken("token-b"));
+        int replaced = merged.findByInstallationId("installation-b");
+        assertEquals("token-b2", merged.getToken(replaced));
+        assertFalse(merged.isPushPermitted(replaced));
+        assertFalse(merged.isPushPermitted(merged.findByToken("token-c")));
+        for (String token : Arrays.asList("token-a", "token-d", "token-e")) {
+            int record = merged.findByToken(token);
+            assertEquals(token, merged.getToken(record));
+            assertTrue(merged.isPushPermitted(record));
+        }
+        assertEquals("installation-d", merged.getInstallationId(merged.findByToken("token-d")));
+        assertEquals(1, merged.countOfPlatform(Platform.CHROME));
+        assertEquals(2, merged.countOfPlatform(Platform.IOS));
+        assertEquals(1, merged.countPushPermitted(Platform.ANDROID));
+    }
+
+    @Test
+    public void shouldThrowIndexOutOfBoundsExceptionForUnknownRecord() throws Exception {
+        Path path = Files.createTempDirectory("snapshot").resolve("devices.snapshot");
+        DeviceSnapshot snapshot = DeviceSnapshot.write(path, Collections.singletonList(device("token", "installation", Platform.IOS, true)), 1, 0);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.getToken(1));
+    }
+
+    static Device device(String token, String installationId, Platform platform, boolean pushPermitted) {
+        Device device = new Device();
+        device.setToken(token);
+        device.setInstallationId(installationId);
+        device.setDeviceModel("model");
+        device.setPlatform(platform);
+        device.setPushPermitted(pushPermitted);
+        return device;
+    }
+}
@@ -0,0 +1,240 @@
+package com.github.muratkaragozgil.netmera4j.stats;
+
+import com.github.muratkaragozgil.netmera4j.FakeNetmera;
+import com.github.muratkaragozgil.netmera4j.constant.SendStatus;
+import com.github.muratkaragozgil.netmera4j.exception.ValidationException;
+import com.github.muratkaragozgil.netmera4j.model.notification.SingleStat;
+import com.github.muratkaragozgil.netmera4j.request.notification.GetPushStatsInDateRangeRequest;
+import com.github.muratkaragozgil.netmera4j.request.notification.GetPushStatsRequest;
+import com.github.muratkaragozgil.netmera4j.response.GetPushStatsInDateRangeResponse;
+import com.github.muratkaragozgil.netmera4j.response.GetPushStatsResponse;
+import org.junit.jupiter.api.Test;
+import retrofit2.Response;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class BulkJobTrackerTest {
+
+    private static final long START = 1_000_000_000L;
+
+    private final AtomicLong now = new AtomicLong(START);
+    private final FakeNetmera fake = FakeNetmera.holding();
+
+    @Test
+    public void shouldBackOffWhileStatusDoesNotChange() throws Exception {
+        BulkJobTracker tracker = tracker(2);
+        CompletableFuture<GetPushStatsResponse> result = tracker.track(7);
+
+        assertNoPollAt(tracker, 9_999);
+        // first stats change the status, the interval starts over
+        respond(pollAt(tracker, 10_000), stats(7, SendStatus.SENDING, 10));
+        assertNoPollAt(tracker, 19_999);
+        respond(pollAt(tracker, 20_000), stats(7, SendStatus.SENDING, 10));
+        assertNoPollAt(tracker, 39_999);
+        respond(pollAt(tracker, 40_000), stats(7, SendStatus.SENDING, 10));
+        // capped by the max interval
+        assertNoPollAt(tracker, 79_999);
+        respond(pollAt(tracker, 80_000), stats(7, SendStatus.FINISHED, 25));
+
+        assertEquals(25, (int) result.get(5, TimeUnit.SECONDS).getStats().get(0).getSent());
+        assertEquals(0, tracker.getTrackedCount());
+        tracker.shutdown();
+    }
+
+    @Test
+    public void shouldResetIntervalWhenStatusChanges() throws Exception {
+        BulkJobTracker tracker = tracker(2);
+        tracker.track(7);
+
+        respond(pollAt(tracker, 10_000), stats(7, SendStatus.STARTING, 0));
+        respond(pollAt(tracker, 20_000), stats(7, SendStatus.STARTING, 0));
+        respond(pollAt(tracker, 40_000), stats(7, SendStatus.SENDING, 5));
+
+        assertNoPollAt(tracker, 49_999);
+        pollAt(tracker, 50_000);
+        tracker.shutdown();
+    }
+
+    @Test
+    public void shouldBackOffWhenPollFails() throws Exception {
+        BulkJobTracker tracker = tracker(2);
+        tracker.track(7);
+
+        pollAt(tracker, 10_000).complete(500);
+
+        assertNoPollAt(tracker, 29_999);
+        pollAt(tracker, 30_000);
+        tracker.shutdown();
+    }
+
+    @Test
+    public void shouldNotifyListenersOfChanges() throws Exception {
+        BulkJobTracker tracker = tracker(2);
+        List<BulkJobUpdate> updates = new CopyOnWriteArrayList<>();
+        tracker.addListener(updates::add);
+        tracker.track(7);
+
+        respond(pollAt(tracker, 10_000), stats(7, SendStatus.SENDING, 10));
+        respond(pollAt(tracker, 20_000), stats(7, SendStatus.SENDING, 10));
+        respond(pollAt(tracker, 40_000), stats(7, SendStatus.FINISHED, 25));
+
+        assertEquals(2, updates.size());
+        assertTrue(updates.get(0).isStatusChanged());
+        assertEquals(10, updates.get(0).getSentDelta());
+        assertEquals(SendStatus.SENDING, updates.get(1).getPreviousStatus());
+        assertEquals(15, updates.get(1).getSentDelta());
+        tracker.shutdown();
+    }
+
+    @Test
+    public void shouldPollDueJobsWithOneRangeCallAndMissingOnesOneByOne() throws Exception {
+        BulkJobTracker tracker = tracker(2);
+        CompletableFuture<GetPushStatsResponse> first = tracker.track(1);
+        CompletableFuture<GetPushStatsResponse> second = tracker.track(2);
+        CompletableFuture<GetPushStatsResponse> third = tracker.track(3);
+
+        FakeNetmera.Sent range = pollAt(tracker, 10_000);
+        GetPushStatsInDateRangeRequest rangeRequest = (GetPushStatsInDateRangeRequest) range.getRequest();
+        assertEquals(START - TimeUnit.HOURS.toMillis(1), (long) rangeRequest.getStartDate());
+        assertEquals(START + 10_000 + TimeUnit.HOURS.toMillis(1), (long) rangeRequest.getEndDate());
+
+        GetPushStatsInDateRangeResponse messages = new GetPushStatsInDateRangeResponse();
+        messages.setMessages(Arrays.asList(stats(1, SendStatus.FINISHED, 1), stats(2, SendStatus.FINISHED, 2)));
+        range.complete(Response.success(200, messages));
+
+        FakeNetmera.Sent single = fake.nextHeld();
+        assertEquals(3, (int) ((GetPushStatsRequest) single.getRequest()).getNotificationKey());
+        assertEquals(1, fake.requests(GetPushStatsInDateRangeRequest.class).size());
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+        assertFalse(third.isDone());
+        respond(single, stats(3, SendStatus.STOPPED, 3));
+        assertTrue(third.isDone());
+        tracker.shutdown();
+    }
+
+    @Test
+    public void shouldPollJobsOneByOneUnderRangeThreshold() throws Exception {
+        BulkJobTracker tracker = tracker(3);
+        tracker.track(1);
+        tracker.track(2);
+
+        now.set(START + 10_000);
+        tracker.pollDueJobs();
+        fake.nextHeld();
+        fake.nextHeld();
+
+        assertEquals(2, fake.requests(GetPushStatsRequest.class).size());
+        assertEquals(0, fake.requests(GetPushStatsInDateRangeRequest.class).size());
+        tracker.shutdown();
+    }
+
+    @Test
+    public void shouldFailOnlyJobWhosePollThrows() throws Exception {
+        FakeNetmera throwing = new FakeNetmera(request -> {
+            if (((GetPushStatsRequest) request).getNotificationKey() == 1) {
+                throw new IllegalStateException("closed");
+            }
+            return Response.success(200, stats(2, SendStatus.FINISHED, 2));
+        });
+        BulkJobTracker tracker = new BulkJobTracker.BulkJobTrackerBuilder(throwing.netmera()).initialInterval(10).maxInterval(40)
+                .rangeThreshold(3).clock(now::get).build();
+        CompletableFuture<GetPushStatsResponse> first = tracker.track(1);
+        CompletableFuture<GetPushStatsResponse> second = tracker.track(2);
+
+        now.set(START + 10_000);
+        tracker.pollDueJobs();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertEquals(2, (int) second.get(5, TimeUnit.SECONDS).getNotificationKey());
+        assertEquals(0, tracker.getTrackedCount());
+        tracker.shutdown();
+    }
+
+    @Test
+    public void shouldPollJobsOneByOneWhenRangePollThrows() throws Exception {
+        FakeNetmera throwing = new FakeNetmera(request -> {
+            if (request instanceof GetPushStatsInDateRangeRequest) {
+                throw new IllegalStateException("range");
+            }
+            int notificationKey = ((GetPushStatsRequest) request).getNotificationKey();
+            return Response.success(200, stats(notificationKey, SendStatus.FINISHED, notificationKey));
+        });
+        BulkJobTracker tracker = new BulkJobTracker.BulkJobTrackerBuilder(throwing.netmera()).initialInterval(10).maxInterval(40)
+                .rangeThreshold(2).clock(now::get).build();
+        CompletableFuture<GetPushStatsResponse> first = tracker.track(1);
+        CompletableFuture<GetPushStatsResponse> second = tracker.track(2);
+
+        now.set(START + 10_000);
+        tracker.pollDueJobs();
+
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+        assertEquals(2, throwing.requests(GetPushStatsRequest.class).size());
+        tracker.shutdown();
+    }
+
+    @Test
+    public void shouldCancelUnfinishedJobsOnShutdown() {
+        BulkJobTracker tracker = tracker(2);
+        CompletableFuture<GetPushStatsResponse> result = tracker.track(7);
+
+        tracker.shutdown();
+
+        assertTrue(result.isCancelled());
+    }
+
+    @Test
+    public void shouldThrowValidationExceptionWhenSetMaxIntervalIsLessThanInitialInterval() {
+        assertThrows(ValidationException.class, () -> new BulkJobTracker.BulkJobTrackerBuilder(fake.netmera()).initialInterval(60).maxInterval(30).build());
+    }
+
+    private BulkJobTracker tracker(int rangeThreshold) {
+        return new BulkJobTracker.BulkJobTrackerBuilder(fake.netmera()).initialInterval(10).maxInterval(40).backoffMultiplier(2)
+                .rangeThreshold(rangeThreshold).clock(now::get).build();
+    }
+
+    private FakeNetmera.Sent pollAt(BulkJobTracker tracker, long elapsed) throws InterruptedException {
+        now.set(START + elapsed);
+        tracker.pollDueJobs();
+        return fake.nextHeld();
+    }
+
+    private void assertNoPollAt(BulkJobTracker tracker, long elapsed) {
+        now.set(START + elapsed);
+        tracker.pollDueJobs();
+        assertEquals(0, fake.heldCount(), "polled at " + elapsed);
+    }
+
+    private static void respond(FakeNetmera.Sent poll, GetPushStatsResponse stats) {
+        poll.complete(Response.success(200, stats));
+    }
+
+    private static GetPushStatsResponse stats(int notificationKey, SendStatus status, int sent) {
+        SingleStat stat = new SingleStat();
+        stat.setSent(sent);
+        List<SingleStat> stats = new ArrayList<>(Collections.singletonList(stat));
+        GetPushStatsResponse response = new GetPushStatsResponse();
+        response.setNotificationKey(notificationKey);
+        response.setStatus(status);
+        response.setStats(stats);
+        return response;
+    }
+}
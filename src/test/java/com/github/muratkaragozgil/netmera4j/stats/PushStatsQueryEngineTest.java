@@ -0,0 +1,194 @@
+package com.github.muratkaragozgil.netmera4j.stats;
+
+import com.github.muratkaragozgil.netmera4j.FakeNetmera;
+import com.github.muratkaragozgil.netmera4j.constant.Platform;
+import com.github.muratkaragozgil.netmera4j.model.notification.SingleStat;
+import com.github.muratkaragozgil.netmera4j.request.notification.GetPushStatsInDateRangeRequest;
+import com.github.muratkaragozgil.netmera4j.response.GetPushStatsInDateRangeResponse;
+import com.github.muratkaragozgil.netmera4j.response.GetPushStatsResponse;
+import org.junit.jupiter.api.Test;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class PushStatsQueryEngineTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long START = 1_500_000_000_000L;
+
+    private final FakeNetmera fake = FakeNetmera.holding();
+
+    @Test
+    public void shouldSplitRangeIntoSlicesWithPartialLastSlice() throws Exception {
+        CompletableFuture<PushStatsReport> result = engine(1, 8).query(START, START + 2 * DAY + DAY / 2);
+
+        List<GetPushStatsInDateRangeRequest> requests = fake.requests(GetPushStatsInDateRangeRequest.class);
+        assertEquals(3, requests.size());
+        assertSlice(requests.get(0), START, START + DAY);
+        assertSlice(requests.get(1), START + DAY, START + 2 * DAY);
+        assertSlice(requests.get(2), START + 2 * DAY, START + 2 * DAY + DAY / 2);
+
+        for (int i = 0; i < 3; i++) {
+            respond(fake.nextHeld());
+        }
+        PushStatsReport report = result.get(5, TimeUnit.SECONDS);
+        assertEquals(START, report.getStartDate());
+        assertEquals(START + 2 * DAY + DAY / 2, report.getEndDate());
+        assertTrue(report.getMessages().isEmpty());
+    }
+
+    @Test
+    public void shouldFetchOneSliceWhenRangeIsEmpty() throws Exception {
+        CompletableFuture<PushStatsReport> result = engine(1, 8).query(START, START);
+
+        FakeNetmera.Sent sent = fake.nextHeld();
+        assertSlice((GetPushStatsInDateRangeRequest) sent.getRequest(), START, START);
+        respond(sent);
+        assertEquals(1, fake.requests().size());
+        assertEquals(0, result.get(5, TimeUnit.SECONDS).getTotalSent());
+    }
+
+    @Test
+    public void shouldFetchAtMostMaxConcurrencySlices() throws Exception {
+        CompletableFuture<PushStatsReport> result = engine(1, 2).query(START, START + 5 * DAY);
+
+        assertEquals(2, fake.heldCount());
+        for (int completed = 0; completed < 5; completed++) {
+            FakeNetmera.Sent sent = fake.nextHeld();
+            assertTrue(fake.heldCount() <= 1);
+            respond(sent);
+            int inFlight = fake.requests().size() - completed - 1;
+            assertTrue(inFlight <= 2);
+        }
+        assertEquals(5, fake.requests().size());
+        assertEquals(0, fake.heldCount());
+        assertTrue(result.isDone());
+    }
+
+    @Test
+    public void shouldMergeNotificationReturnedByTwoSlices() throws Exception {
+        CompletableFuture<PushStatsReport> result = engine(1, 2).query(START, START + 2 * DAY);
+
+        respond(fake.nextHeld(), message(7, stat(Platform.ANDROID, 10, 1, 2)), message(3, stat(Platform.IOS, 5, 0, 1)));
+        respond(fake.nextHeld(), message(7, stat(Platform.ANDROID, 10, 1, 2)));
+
+        PushStatsReport report = result.get(5, TimeUnit.SECONDS);
+        assertEquals(2, report.getMessages().size());
+        assertEquals(3, (int) report.getMessages().get(0).getNotificationKey());
+        assertEquals(7, (int) report.getMessages().get(1).getNotificationKey());
+        assertEquals(15, report.getTotalSent());
+    }
+
+    @Test
+    public void shouldKeepEveryMessageWithoutNotificationKey() throws Exception {
+        CompletableFuture<PushStatsReport> result = engine(1, 2).query(START, START + 2 * DAY);
+
+        respond(fake.nextHeld(), message(null, stat(Platform.ANDROID, 4, 0, 0)), message(9, stat(Platform.IOS, 1, 0, 0)));
+        respond(fake.nextHeld(), message(null, stat(Platform.ANDROID, 6, 0, 0)));
+
+        PushStatsReport report = result.get(5, TimeUnit.SECONDS);
+        assertEquals(3, report.getMessages().size());
+        assertEquals(9, (int) report.getMessages().get(0).getNotificationKey());
+        assertEquals(11, report.getTotalSent());
+        assertEquals(10, report.getSent(Platform.ANDROID));
+    }
+
+    @Test
+    public void shouldSumTotalsAndPlatformStats() throws Exception {
+        CompletableFuture<PushStatsReport> result = engine(7, 1).query(START, START + DAY);
+
+        respond(fake.nextHeld(),
+                message(1, stat(Platform.ANDROID, 100, 10, 20), stat(Platform.IOS, 50, 5, 5)),
+                message(2, stat(Platform.ANDROID, 100, 0, 30), stat(null, 8, 2, 0)),
+                message(3));
+
+        PushStatsReport report = result.get(5, TimeUnit.SECONDS);
+        assertEquals(258, report.getTotalSent());
+        assertEquals(17, report.getTotalFailed());
+        assertEquals(55, report.getTotalClicked());
+        assertEquals(200, report.getSent(Platform.ANDROID));
+        assertEquals(10, report.getFailed(Platform.ANDROID));
+        assertEquals(50, report.getClicked(Platform.ANDROID));
+        assertEquals(50, report.getSent(Platform.IOS));
+        assertEquals(0, report.getSent(Platform.CHROME));
+        assertEquals(0.25, report.getClickRate(Platform.ANDROID), 1e-9);
+        assertEquals(0, report.getClickRate(Platform.CHROME), 1e-9);
+        assertEquals(55.0 / 258, report.getClickRate(), 1e-9);
+    }
+
+    @Test
+    public void shouldFailWhenSliceFailsWithHttpError() throws Exception {
+        CompletableFuture<PushStatsReport> result = engine(1, 1).query(START, START + 3 * DAY);
+
+        respond(fake.nextHeld());
+        fake.nextHeld().complete(500);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IOException);
+        assertTrue(e.getCause().getMessage().contains("500"));
+        // the failed query stops fetching its remaining slices
+        assertEquals(2, fake.requests().size());
+    }
+
+    @Test
+    public void shouldFailWhenSliceFailsWithException() throws Exception {
+        CompletableFuture<PushStatsReport> result = engine(1, 2).query(START, START + 2 * DAY);
+        IOException failure = new IOException("connection reset");
+
+        fake.nextHeld().complete(failure);
+        respond(fake.nextHeld(), message(1, stat(Platform.IOS, 1, 0, 0)));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertSame(failure, e.getCause());
+    }
+
+    @Test
+    public void shouldThrowIllegalArgumentExceptionWhenEndDateIsBeforeStartDate() {
+        assertThrows(IllegalArgumentException.class, () -> engine(1, 1).query(START, START - 1));
+    }
+
+    private PushStatsQueryEngine engine(int sliceDays, int maxConcurrency) {
+        return new PushStatsQueryEngine.PushStatsQueryEngineBuilder(fake.netmera())
+                .sliceDays(sliceDays)
+                .maxConcurrency(maxConcurrency)
+                .build();
+    }
+
+    private static void assertSlice(GetPushStatsInDateRangeRequest request, long startDate, long endDate) {
+        assertEquals(startDate, (long) request.getStartDate());
+        assertEquals(endDate, (long) request.getEndDate());
+    }
+
+    private static void respond(FakeNetmera.Sent sent, GetPushStatsResponse... messages) {
+        GetPushStatsInDateRangeResponse response = new GetPushStatsInDateRangeResponse();
+        response.setMessages(new ArrayList<>(Arrays.asList(messages)));
+        sent.complete(Response.success(response));
+    }
+
+    private static GetPushStatsResponse message(Integer notificationKey, SingleStat... stats) {
+        GetPushStatsResponse message = new GetPushStatsResponse();
+        message.setNotificationKey(notificationKey);
+        message.setStats(Arrays.asList(stats));
+        return message;
+    }
+
+    private static SingleStat stat(Platform platform, int sent, int failed, int clicked) {
+        SingleStat stat = new SingleStat();
+        stat.setPlatform(platform);
+        stat.setSent(sent);
+        stat.setFailed(failed);
+        stat.setClicked(clicked);
+        return stat;
+    }
+}
@@ -0,0 +1,202 @@
+package com.github.muratkaragozgil.netmera4j.sync;
+
+import com.github.muratkaragozgil.netmera4j.FakeNetmera;
+import com.github.muratkaragozgil.netmera4j.model.device.UserAndProfileAttributeMap;
+import com.github.muratkaragozgil.netmera4j.request.device.AddProfileAttributeRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.AddTagToUsersRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.RemoveTagFromUsersRequest;
+import com.github.muratkaragozgil.netmera4j.request.device.UnsetProfileAttributesRequest;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Murat Karagözgil
+ */
+public class ProfileSyncTest {
+
+    @Test
+    public void shouldSendEveryUserOfTheFirstSync() throws Exception {
+        FakeNetmera fake = FakeNetmera.responding(200);
+        Path fingerprints = Files.createTempDirectory("sync").resolve("profiles.fingerprints");
+
+        ProfileSyncResult result = sync(fake, fingerprints, 2, snapshot());
+
+        assertEquals(4, result.getUsers());
+        assertEquals(4, result.getNewUsers());
+        assertEquals(0, result.getMissingUsers());
+        assertEquals(7, result.getAttributesSet());
+        assertEquals(3, result.getTagsAdded());
+        assertEquals(0, result.getFailedCalls());
+        assertEquals(2, fake.requests(AddProfileAttributeRequest.class).size());
+        assertEquals(Arrays.asList("user-1", "user-2", "user-3", "user-4"), profileExtIds(fake));
+        assertEquals(tags("vip", "user-1", "user-2", "news", "user-3"), addedTags(fake));
+        assertTrue(Files.exists(fingerprints));
+    }
+
+    @Test
+    public void shouldSendOnlyTheChanges() throws Exception {
+        Path fingerprints = Files.createTempDirectory("sync").resolve("profiles.fingerprints");
+        sync(FakeNetmera.responding(200), fingerprints, 100, snapshot());
+        FakeNetmera fake = FakeNetmera.responding(200);
+        List<UserProfile> changed = new ArrayList<>();
+        changed.add(user("user-1", attributes("name", "Ada Lovelace", "age", 36.0), "vip"));
+        changed.add(user("user-2", attributes("name", "Grace"), "vip"));
+        changed.add(user("user-3", attributes("name", "Alan"), "science"));
+        changed.add(user("user-5", attributes("name", "Linus"), "vip"));
+
+        ProfileSyncResult result = sync(fake, fingerprints, 100, changed);
+
+        assertEquals(4, result.getUsers());
+        assertEquals(1, result.getNewUsers());
+        // user-4 is not in the snapshot anymore
+        assertEquals(1, result.getMissingUsers());
+        assertEquals(0, result.getUnchangedUsers());
+        assertEquals(2, result.getAttributesSet());
+        assertEquals(1, result.getAttributesUnset());
+        assertEquals(2, result.getTagsAdded());
+        assertEquals(1, result.getTagsRemoved());
+        List<UserAndProfileAttributeMap> profiles = fake.requests(AddProfileAttributeRequest.class).get(0).getUserAndProfileAttributeMaps();
+        assertEquals(2, profiles.size());
+        assertEquals(attributes("name", "Ada Lovelace"), profiles.get(0).getProfile());
+        assertEquals(attributes("name", "Linus"), profiles.get(1).getProfile());
+        UnsetProfileAttributesRequest unset = fake.requests(UnsetProfileAttributesRequest.class).get(0);
+        assertEquals("user-2", unset.getSingleUnsetObjects().get(0).getExtId());
+        assertEquals(Collections.singletonList("age"), unset.getSingleUnsetObjects().get(0).getProfile());
+        assertEquals(tags("science", "user-3", "vip", "user-5"), addedTags(fake));
+        RemoveTagFromUsersRequest removed = fake.requests(RemoveTagFromUsersRequest.class).get(0);
+        assertEquals("news", removed.getTag());
+        assertEquals(Collections.singletonList("user-3"), removed.getExtIds());
+    }
+
+    @Test
+    public void shouldNotSendUnchangedUsers() throws Exception {
+        Path fingerprints = Files.createTempDirectory("sync").resolve("profiles.fingerprints");
+        sync(FakeNetmera.responding(200), fingerprints, 100, snapshot());
+        FakeNetmera fake = FakeNetmera.responding(200);
+
+        ProfileSyncResult result = sync(fake, fingerprints, 100, snapshot());
+
+        assertEquals(4, result.getUnchangedUsers());
+        assertEquals(0, result.getCalls());
+        assertEquals(0, fake.requests().size());
+    }
+
+    @Test
+    public void shouldSendTheChangesAgainAfterAFailedCall() throws Exception {
+        Path fingerprints = Files.createTempDirectory("sync").resolve("profiles.fingerprints");
+        sync(FakeNetmera.responding(200), fingerprints, 100, snapshot());
+        List<UserProfile> changed = snapshot();
+        changed.set(0, user("user-1", attributes("name", "Ada Lovelace", "age", 36.0), "vip"));
+
+        ProfileSyncResult failed = sync(FakeNetmera.responding(500), fingerprints, 100, changed);
+        FakeNetmera fake = FakeNetmera.responding(200);
+        ProfileSyncResult retried = sync(fake, fingerprints, 100, changed);
+
+        assertEquals(1, failed.getFailedCalls());
+        assertEquals(1, retried.getCalls());
+        assertEquals("user-1", fake.requests(AddProfileAttributeRequest.class).get(0).getUserAndProfileAttributeMaps().get(0).getExtId());
+    }
+
+    @Test
+    public void shouldCountACallAsFailedWhenSendRequestThrows() throws Exception {
+        Path fingerprints = Files.createTempDirectory("sync").resolve("profiles.fingerprints");
+        FakeNetmera fake = new FakeNetmera(request -> {
+            if (request instanceof AddTagToUsersRequest) {
+                throw new IllegalStateException("client closed");
+            }
+            return 200;
+        });
+
+        ProfileSyncResult result = sync(fake, fingerprints, 100, snapshot());
+
+        assertEquals(2, result.getFailedCalls());
+        assertEquals(1, result.getCalls());
+        assertFalse(Files.exists(fingerprints));
+    }
+
+    @Test
+    public void shouldCountACallAsFailedWhenItFailsWithAnError() throws Exception {
+        Path fingerprints = Files.createTempDirectory("sync").resolve("profiles.fingerprints");
+        FakeNetmera fake = new FakeNetmera(request -> request instanceof AddProfileAttributeRequest ? new AssertionError("boom") : 200);
+
+        ProfileSyncResult result = sync(fake, fingerprints, 100, snapshot());
+
+        assertEquals(1, result.getFailedCalls());
+        assertFalse(Files.exists(fingerprints));
+    }
+
+    @Test
+    public void shouldThrowNullPointerExceptionWhenFingerprintsIsNull() {
+        assertThrows(NullPointerException.class, () -> new ProfileSync.ProfileSyncBuilder(FakeNetmera.responding(200).netmera(), null));
+    }
+
+    private static ProfileSyncResult sync(FakeNetmera fake, Path fingerprints, int batchSize, List<UserProfile> snapshot) throws Exception {
+        return new ProfileSync.ProfileSyncBuilder(fake.netmera(), fingerprints).batchSize(batchSize).maxInFlight(1).build()
+                .sync(snapshot).get(5, TimeUnit.SECONDS);
+    }
+
+    private static List<UserProfile> snapshot() {
+        List<UserProfile> snapshot = new ArrayList<>();
+        snapshot.add(user("user-1", attributes("name", "Ada", "age", 36.0), "vip"));
+        snapshot.add(user("user-2", attributes("name", "Grace", "age", 85.0), "vip"));
+        snapshot.add(user("user-3", attributes("name", "Alan"), "news"));
+        snapshot.add(user("user-4", attributes("name", "Linus", "age", null, "city", "Helsinki")));
+        return snapshot;
+    }
+
+    private static UserProfile user(String extId, Map<String, Object> profile, String... tags) {
+        return new UserProfile(extId, profile, new LinkedHashSet<>(Arrays.asList(tags)));
+    }
+
+    private static Map<String, Object> attributes(Object... namesAndValues) {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            attributes.put((String) namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return attributes;
+    }
+
+    /**
+     * @return external ids of every tag, keyed and sorted by tag
+     */
+    private static Map<String, List<String>> tags(String... tagsAndExtIds) {
+        Map<String, List<String>> tags = new TreeMap<>();
+        String tag = null;
+        for (String value : tagsAndExtIds) {
+            if (value.startsWith("user-")) {
+                tags.get(tag).add(value);
+            } else {
+                tag = value;
+                tags.put(tag, new ArrayList<>());
+            }
+        }
+        return tags;
+    }
+
+    private static Map<String, List<String>> addedTags(FakeNetmera fake) {
+        Map<String, List<String>> tags = new TreeMap<>();
+        for (AddTagToUsersRequest request : fake.requests(AddTagToUsersRequest.class)) {
+            tags.computeIfAbsent(request.getTag(), tag -> new ArrayList<>()).addAll(request.getExtIds());
+        }
+        return tags;
+    }
+
+    private static List<String> profileExtIds(FakeNetmera fake) {
+        List<String> extIds = new ArrayList<>();
+        for (AddProfileAttributeRequest request : fake.requests(AddProfileAttributeRequest.class)) {
+            for (UserAndProfileAttributeMap profile : request.getUserAndProfileAttributeMaps()) {
+                extIds.add(profile.getExtId());
+            }
+        }
+        return extIds;
+    }
+}